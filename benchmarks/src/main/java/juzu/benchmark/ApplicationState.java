@@ -0,0 +1,71 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.benchmark;
+
+import juzu.impl.common.Name;
+import juzu.impl.inject.spi.InjectorProvider;
+import juzu.test.AbstractTestCase;
+import juzu.test.CompilerAssert;
+import juzu.test.protocol.mock.MockApplication;
+import juzu.test.protocol.mock.MockClient;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The <code>benchmark</code> application compiled and started with the mock bridge, shared by the benchmarks
+ * of a trial.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+
+  /** . */
+  private static final Name PACKAGE = Name.parse("benchmark");
+
+  /** . */
+  MockApplication<File> application;
+
+  /** . */
+  MockClient client;
+
+  @Setup
+  public void setUp() throws Exception {
+    if (System.getProperty("juzu.test.workspace.path") == null) {
+      File workspace = new File(System.getProperty("java.io.tmpdir"), "juzu-benchmarks");
+      System.setProperty("juzu.test.workspace.path", workspace.getAbsolutePath());
+    }
+    CompilerAssert<File, File> compiler = AbstractTestCase.compiler(false, PACKAGE);
+    compiler.assertCompile();
+    application = new MockApplication<File>(
+        compiler.getClassOutput(),
+        compiler.getClassLoader(),
+        InjectorProvider.GUICE,
+        PACKAGE).init();
+    client = application.client();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    application.close();
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.benchmark;
+
+import juzu.impl.common.FormURLEncodedDecoder;
+import juzu.impl.common.FormURLEncodedParser;
+import juzu.impl.common.JSON;
+import juzu.impl.common.PercentCodec;
+import juzu.impl.common.Tools;
+import juzu.request.RequestParameter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encode and decode with {@link PercentCodec}, parse a form with {@link FormURLEncodedParser}, decode the same
+ * form bytes with {@link FormURLEncodedDecoder} and serialize a {@link JSON} object.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+@State(Scope.Thread)
+public class CodecBenchmark {
+
+  /** . */
+  private String decoded;
+
+  /** . */
+  private String encoded;
+
+  /** . */
+  private String form;
+
+  /** . */
+  private byte[] formBytes;
+
+  /** . */
+  private JSON json;
+
+  /** . */
+  private StringBuilder buffer;
+
+  @Setup
+  public void setUp() {
+    decoded = "/blog/2013/10/café crème & other things?q=a+b";
+    encoded = PercentCodec.RFC3986_PATH.encode(decoded);
+    StringBuilder form = new StringBuilder();
+    for (int i = 0;i < 10;i++) {
+      if (i > 0) {
+        form.append('&');
+      }
+      form.append("name").append(i).append('=').append(PercentCodec.RFC3986_QUERY_PARAM_VALUE.encode("value " + i + " €"));
+    }
+    this.form = form.toString();
+    this.formBytes = this.form.getBytes(Tools.UTF_8);
+    this.json = new JSON().
+        set("name", "juzu").
+        set("version", 7).
+        set("enabled", true).
+        list("tags", "web", "framework", "java").
+        set("nested", new JSON().set("path", "/foo/bar").set("value", "\"quoted\""));
+    this.buffer = new StringBuilder(256);
+  }
+
+  @Benchmark
+  public String encodePath() {
+    return PercentCodec.RFC3986_PATH.encode(decoded);
+  }
+
+  @Benchmark
+  public String decodePath() {
+    return PercentCodec.RFC3986_PATH.safeDecode(encoded);
+  }
+
+  @Benchmark
+  public int parseForm() {
+    int count = 0;
+    for (RequestParameter parameter : new FormURLEncodedParser(Tools.UTF_8, form, 0, form.length())) {
+      count += parameter.getValue().length();
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int decodeForm() throws Exception {
+    FormURLEncodedDecoder decoder = new FormURLEncodedDecoder(
+        Tools.UTF_8,
+        FormURLEncodedDecoder.DEFAULT_MAX_SIZE,
+        FormURLEncodedDecoder.DEFAULT_MAX_PARAMETERS,
+        new HashMap<String, RequestParameter>());
+    decoder.decode(formBytes, 0, formBytes.length);
+    decoder.end();
+    int count = 0;
+    for (Map.Entry<String, RequestParameter> parameter : decoder.getParameters().entrySet()) {
+      count += parameter.getValue().getValue().length();
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int serializeJSON() throws Exception {
+    buffer.setLength(0);
+    json.toString(buffer);
+    return buffer.length();
+  }
+}
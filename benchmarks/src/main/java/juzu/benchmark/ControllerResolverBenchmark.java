@@ -0,0 +1,76 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.benchmark;
+
+import juzu.impl.common.Tools;
+import juzu.impl.plugin.controller.ControllerPlugin;
+import juzu.impl.plugin.controller.ControllerResolver;
+import juzu.impl.request.Method;
+import juzu.request.Phase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Resolve the controller methods of the <code>benchmark</code> application.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+@State(Scope.Benchmark)
+public class ControllerResolverBenchmark {
+
+  /** . */
+  private static final Set<String> NO_NAMES = Collections.emptySet();
+
+  /** . */
+  private static final Set<String> ID = Collections.singleton("id");
+
+  /** . */
+  private static final Set<String> CATEGORY_PAGE = Tools.set("category", "page");
+
+  /** . */
+  private ControllerResolver<Method> resolver;
+
+  @Setup
+  public void setUp(ApplicationState state) {
+    resolver = state.application.getLifeCycle().resolveBean(ControllerPlugin.class).getResolver();
+  }
+
+  @Benchmark
+  public Method resolveIndex() {
+    return resolver.resolve(Phase.VIEW, NO_NAMES);
+  }
+
+  @Benchmark
+  public Method resolveParameter() {
+    return resolver.resolve(Phase.VIEW, ID);
+  }
+
+  @Benchmark
+  public Method resolveParameters() {
+    return resolver.resolve(Phase.VIEW, CATEGORY_PAGE);
+  }
+
+  @Benchmark
+  public Method resolveAction() {
+    return resolver.resolve(Phase.ACTION, ID);
+  }
+}
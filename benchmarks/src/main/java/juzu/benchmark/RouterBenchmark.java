@@ -0,0 +1,140 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.benchmark;
+
+import juzu.impl.common.MimeType;
+import juzu.impl.common.UriBuilder;
+import juzu.impl.router.PathParam;
+import juzu.impl.router.ReverseRoute;
+import juzu.impl.router.Route;
+import juzu.impl.router.RouteAutomaton;
+import juzu.impl.router.RouteMatch;
+import juzu.impl.router.Router;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Route a path with the tree walk and with the compiled automaton, render the matched route with the route match
+ * and with the reverse route.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+@State(Scope.Benchmark)
+public class RouterBenchmark {
+
+  /** . */
+  private static final Map<String, String[]> NO_PARAMETERS = Collections.emptyMap();
+
+  @Param({"/", "/about", "/users/julien/edit", "/blog/2013/10/hello-world", "/assets/js/jquery.min.js", "/section19/home", "/not/found"})
+  public String path;
+
+  /** . */
+  private Router router;
+
+  /** . */
+  private RouteAutomaton automaton;
+
+  /** . */
+  private RouteMatch match;
+
+  /** . */
+  private Map<String, String> parameters;
+
+  /** . */
+  private ReverseRoute reverse;
+
+  @Setup
+  public void setUp() throws Exception {
+    Router router = new Router();
+    router.append("/");
+    router.append("/about");
+    router.append("/contact");
+    router.append("/login");
+    router.append("/logout");
+    Route users = router.append("/users");
+    Route user = users.append("/{id}");
+    user.append("/edit");
+    user.append("/posts/{post}");
+    Map<String, PathParam.Builder> blog = new HashMap<String, PathParam.Builder>();
+    blog.put("year", PathParam.matching("[0-9]{4}"));
+    blog.put("month", PathParam.matching("[0-9]{2}"));
+    router.append("/blog/{year}/{month}/{slug}", blog);
+    router.append("/assets/{path}", Collections.singletonMap("path", PathParam.matching(".+").preservePath(true)));
+    for (int i = 0;i < 20;i++) {
+      router.append("/section" + i + "/{page}");
+    }
+
+    //
+    this.router = router;
+    this.automaton = new RouteAutomaton(router);
+    this.match = router.route(path, NO_PARAMETERS);
+    if (match != null) {
+      Map<String, String> parameters = new HashMap<String, String>();
+      for (Map.Entry<PathParam, String> entry : match.getMatched().entrySet()) {
+        parameters.put(entry.getKey().getName(), entry.getValue());
+      }
+      this.parameters = parameters;
+      this.reverse = new ReverseRoute(match.getRoute());
+    } else {
+      this.parameters = null;
+      this.reverse = null;
+    }
+  }
+
+  @Benchmark
+  public RouteMatch route() {
+    return router.route(path, NO_PARAMETERS);
+  }
+
+  @Benchmark
+  public RouteMatch routeCompiled() {
+    return automaton.route(path, NO_PARAMETERS);
+  }
+
+  @Benchmark
+  public String render() {
+    if (match != null) {
+      RouteMatch rendered = match.getRoute().matches(parameters);
+      return rendered.render();
+    } else {
+      return null;
+    }
+  }
+
+  @Benchmark
+  public String renderReverse() throws Exception {
+    if (reverse != null) {
+      String[] values = reverse.createValues();
+      for (int i = 0;i < values.length;i++) {
+        values[i] = parameters.get(reverse.getName(i));
+      }
+      reverse.match(values);
+      StringBuilder sb = new StringBuilder();
+      reverse.render(values, new UriBuilder(sb, MimeType.PLAIN));
+      return sb.toString();
+    } else {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.benchmark;
+
+import juzu.impl.common.Tools;
+import juzu.impl.io.BinaryOutputStream;
+import juzu.io.Chunk;
+import juzu.io.ChunkBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Buffer chunks in a {@link ChunkBuffer} and encode them with a {@link BinaryOutputStream}.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+@State(Scope.Thread)
+public class StreamBenchmark {
+
+  /** . */
+  private static final int SIZE = 100;
+
+  /** . */
+  private String[] strings;
+
+  /** . */
+  private Chunk.Data.Text[] texts;
+
+  /** . */
+  private ByteArrayOutputStream buffer;
+
+  @Setup
+  public void setUp() {
+    strings = new String[SIZE];
+    texts = new Chunk.Data.Text[SIZE];
+    for (int i = 0;i < SIZE;i++) {
+      strings[i] = "<li class=\"item\">item-" + i + " €</li>\n";
+      texts[i] = Chunk.create(strings[i], Tools.UTF_8);
+    }
+    buffer = new ByteArrayOutputStream(8192);
+  }
+
+  @Benchmark
+  public int encodeChars() throws Exception {
+    buffer.reset();
+    BinaryOutputStream out = new BinaryOutputStream(Tools.UTF_8, buffer);
+    for (String s : strings) {
+      out.provide(Chunk.create(s));
+    }
+    out.close();
+    return buffer.size();
+  }
+
+  @Benchmark
+  public int encodeText() throws Exception {
+    buffer.reset();
+    BinaryOutputStream out = new BinaryOutputStream(Tools.UTF_8, buffer);
+    for (Chunk.Data.Text text : texts) {
+      out.provide(text);
+    }
+    out.close();
+    return buffer.size();
+  }
+
+  @Benchmark
+  public int bufferChars() throws Exception {
+    buffer.reset();
+    ChunkBuffer chunks = new ChunkBuffer();
+    for (String s : strings) {
+      chunks.append(Chunk.create(s));
+    }
+    chunks.close();
+    BinaryOutputStream out = new BinaryOutputStream(Tools.UTF_8, buffer);
+    chunks.send(out);
+    out.close();
+    return buffer.size();
+  }
+}
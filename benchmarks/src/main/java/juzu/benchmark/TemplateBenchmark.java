@@ -0,0 +1,90 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.benchmark;
+
+import juzu.impl.common.Tools;
+import juzu.impl.plugin.template.TemplatePlugin;
+import juzu.impl.template.spi.TemplateStub;
+import juzu.io.OutputStream;
+import juzu.template.TemplateRenderContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Render the Groovy and the Mustache template stubs of the <code>benchmark</code> application to a binary stream.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+@State(Scope.Thread)
+public class TemplateBenchmark {
+
+  /** . */
+  private TemplateStub groovy;
+
+  /** . */
+  private TemplateStub mustache;
+
+  /** . */
+  private Map<String, Object> parameters;
+
+  /** . */
+  private ByteArrayOutputStream buffer;
+
+  @Setup
+  public void setUp(ApplicationState state) {
+    TemplatePlugin plugin = state.application.getLifeCycle().resolveBean(TemplatePlugin.class);
+    List<String> items = new ArrayList<String>();
+    for (int i = 0;i < 20;i++) {
+      items.add("item-" + i);
+    }
+    Map<String, Object> parameters = new HashMap<String, Object>();
+    parameters.put("title", "Benchmark");
+    parameters.put("items", items);
+
+    //
+    this.groovy = plugin.resolveTemplateStub("groovy.gtmpl");
+    this.mustache = plugin.resolveTemplateStub("mustache.mustache");
+    this.parameters = parameters;
+    this.buffer = new ByteArrayOutputStream(1024);
+  }
+
+  @Benchmark
+  public int renderGroovy() throws Exception {
+    return render(groovy);
+  }
+
+  @Benchmark
+  public int renderMustache() throws Exception {
+    return render(mustache);
+  }
+
+  private int render(TemplateStub stub) throws Exception {
+    buffer.reset();
+    OutputStream out = OutputStream.create(Tools.UTF_8, buffer);
+    new TemplateRenderContext(stub, parameters).render(out);
+    out.close();
+    return buffer.size();
+  }
+}
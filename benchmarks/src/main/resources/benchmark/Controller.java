@@ -0,0 +1,80 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmark;
+
+import juzu.Action;
+import juzu.Path;
+import juzu.Response;
+import juzu.View;
+import juzu.template.Template;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+public class Controller {
+
+  /** . */
+  static final Map<String, Object> PARAMETERS;
+
+  static {
+    List<String> items = new ArrayList<String>();
+    for (int i = 0;i < 20;i++) {
+      items.add("item-" + i);
+    }
+    Map<String, Object> parameters = new HashMap<String, Object>();
+    parameters.put("title", "Benchmark");
+    parameters.put("items", items);
+    PARAMETERS = parameters;
+  }
+
+  @Path("groovy.gtmpl")
+  @Inject
+  Template groovy;
+
+  @Path("mustache.mustache")
+  @Inject
+  Template mustache;
+
+  @View
+  public Response.Content index() {
+    return groovy.ok(PARAMETERS);
+  }
+
+  @View(id = "mustache")
+  public Response.Content mustache() {
+    return mustache.ok(PARAMETERS);
+  }
+
+  @View
+  public Response.Content show(String id) {
+    return Response.ok("show " + id);
+  }
+
+  @View
+  public Response.Content list(String category, String page) {
+    return Response.ok("list " + category + " " + page);
+  }
+
+  @Action
+  public Response.View save(String id) {
+    return Controller_.show(id);
+  }
+}
@@ -60,6 +60,9 @@ public abstract class PropertyType<T> {
   /** Charset. */
   public static PropertyType<Charset> ENCODING = new PropertyType<Charset>(){};
 
+  /** Response status, honoured when it is provided before the first data of a response. */
+  public static final PropertyType<Integer> STATUS = new PropertyType<Integer>(){};
+
   /** Escape XML. */
   public static PropertyType<Boolean> ESCAPE_XML = new PropertyType<Boolean>(){};
 
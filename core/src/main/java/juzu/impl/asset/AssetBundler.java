@@ -0,0 +1,531 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.asset;
+
+import juzu.asset.AssetLocation;
+import juzu.impl.common.JUL;
+import juzu.impl.common.Logger;
+import juzu.impl.common.Tools;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.bind.DatatypeConverter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Concatenates the resolved assets of a page in bundles: the consecutive scripts and the consecutive stylesheets
+ * of the same directory that are application assets are replaced by a single asset in dependency order. The bundles
+ * are optionally minified.</p>
+ *
+ * <p>The path of a bundle encodes the hash of its content and the assets it contains, so a bundle is derived again from
+ * its path when it is not known, for instance after a restart or on another node of a cluster sharing the bundle key,
+ * see {@link AssetManager#setBundleKey(String)}. The path is signed with the bundle key and only the signed paths are
+ * derived, the bundles and the paths that cannot be derived anymore are kept in a bounded cache.</p>
+ *
+ * <p>Stylesheets of different directories are not bundled together to preserve their relative urls, the assets
+ * of other locations are not bundled and separate the bundles to preserve the dependency order.</p>
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+public class AssetBundler {
+
+  /** . */
+  private static final Logger log = JUL.getLogger(AssetBundler.class.getName());
+
+  /** . */
+  private static final int SCRIPT = 0;
+
+  /** . */
+  private static final int STYLESHEET = 1;
+
+  /** The maximum number of bundles kept in memory. */
+  static final int MAX_BUNDLES = 256;
+
+  /** The maximum number of assets of a bundle. */
+  static final int MAX_ASSETS = 64;
+
+  /** Marks a signed path that cannot be derived anymore. */
+  private static final URL STALE;
+
+  static {
+    try {
+      STALE = new URL("bundle", null, 0, "", new AssetManager.BundleURLStreamHandler(new byte[0]));
+    }
+    catch (MalformedURLException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /** . */
+  private final AssetManager manager;
+
+  /** . */
+  private final boolean minify;
+
+  /** The bundles or {@link #STALE} by path in access order, guarded by itself. */
+  private final LinkedHashMap<String, URL> bundles;
+
+  AssetBundler(AssetManager manager, boolean minify) {
+    this.manager = manager;
+    this.minify = minify;
+    this.bundles = new LinkedHashMap<String, URL>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, URL> eldest) {
+        return size() > MAX_BUNDLES;
+      }
+    };
+  }
+
+  /**
+   * Bundle a resolved list of assets, an asset that cannot be loaded is kept as is.
+   *
+   * @param assets the assets to bundle
+   * @return the bundled assets
+   */
+  List<Asset> bundle(List<Asset> assets) {
+    ArrayList<Asset> bundled = new ArrayList<Asset>(assets.size());
+    ArrayList<Asset> scripts = new ArrayList<Asset>();
+    ArrayList<Asset> stylesheets = new ArrayList<Asset>();
+    for (Asset asset : assets) {
+      int type = getType(asset);
+      if (type == SCRIPT) {
+        scripts.add(asset);
+      } else {
+        flush(SCRIPT, scripts, bundled);
+        if (type == STYLESHEET) {
+          if (stylesheets.size() > 0 && !getDirectory(stylesheets.get(0)).equals(getDirectory(asset))) {
+            flush(STYLESHEET, stylesheets, bundled);
+          }
+          stylesheets.add(asset);
+        } else {
+          flush(STYLESHEET, stylesheets, bundled);
+          bundled.add(asset);
+        }
+      }
+    }
+    flush(SCRIPT, scripts, bundled);
+    flush(STYLESHEET, stylesheets, bundled);
+    return bundled;
+  }
+
+  private int getType(Asset asset) {
+    return asset.getLocation() == AssetLocation.APPLICATION ? getType(asset.getURI()) : -1;
+  }
+
+  private static String getDirectory(Asset asset) {
+    return getDirectory(asset.getURI());
+  }
+
+  private static String getDirectory(String uri) {
+    return uri.substring(0, uri.lastIndexOf('/') + 1);
+  }
+
+  private void flush(int type, ArrayList<Asset> assets, ArrayList<Asset> bundled) {
+    ArrayList<String> uris = new ArrayList<String>();
+    ArrayList<Asset> chunk = new ArrayList<Asset>();
+    for (Asset asset : assets) {
+      if (!uris.contains(asset.getURI())) {
+        uris.add(asset.getURI());
+        chunk.add(asset);
+        if (uris.size() == MAX_ASSETS) {
+          flush(type, uris, chunk, bundled);
+        }
+      }
+    }
+    flush(type, uris, chunk, bundled);
+    assets.clear();
+  }
+
+  private void flush(int type, ArrayList<String> uris, ArrayList<Asset> chunk, ArrayList<Asset> bundled) {
+    if (uris.size() > 0) {
+      try {
+        byte[] content = build(type, uris);
+        String path = getPath(type, uris, content);
+        put(path, content);
+        bundled.add(Asset.of(AssetLocation.APPLICATION, path));
+      }
+      catch (IOException e) {
+        log.error("Could not bundle assets " + chunk, e);
+        bundled.addAll(chunk);
+      }
+      uris.clear();
+      chunk.clear();
+    }
+  }
+
+  /**
+   * Resolve a bundle, the bundle is derived from its path when it is not in the cache. A bundle is derived only when
+   * its path is signed with the bundle key, its assets are registered and have the content hashed in its path.
+   *
+   * @param path the bundle path
+   * @return the bundle or null
+   */
+  URL resolve(String path) {
+    synchronized (bundles) {
+      URL url = bundles.get(path);
+      if (url != null) {
+        return url != STALE ? url : null;
+      }
+    }
+    String name = path.substring(path.lastIndexOf('/') + 1);
+    int type = name.endsWith(".js") ? SCRIPT : (name.endsWith(".css") ? STYLESHEET : -1);
+    int from = AssetManager.BUNDLE_PREFIX.length() + 34;
+    int to = name.lastIndexOf('.');
+    if (type != -1 &&
+        name.startsWith(AssetManager.BUNDLE_PREFIX) &&
+        to > from &&
+        name.charAt(from - 18) == '-' &&
+        name.charAt(from - 1) == '-') {
+      String unsigned = path.substring(0, path.length() - name.length()) + name.substring(0, from - 17) + name.substring(from);
+      byte[] signature = name.substring(from - 17, from - 1).getBytes(Tools.UTF_8);
+      if (MessageDigest.isEqual(signature, sign(unsigned).getBytes(Tools.UTF_8))) {
+        List<String> uris = decode(name.substring(from, to));
+        if (uris != null && uris.size() > 0 && uris.size() <= MAX_ASSETS && new HashSet<String>(uris).size() == uris.size()) {
+          for (String uri : uris) {
+            if (getType(uri) != type) {
+              return null;
+            }
+          }
+          try {
+            byte[] content = build(type, uris);
+            if (path.equals(getPath(type, uris, content))) {
+              return put(path, content);
+            } else {
+              synchronized (bundles) {
+                bundles.put(path, STALE);
+              }
+            }
+          }
+          catch (IOException e) {
+            log.error("Could not bundle assets " + uris, e);
+          }
+        }
+      }
+    }
+    return null;
+  }
+
+  private int getType(String uri) {
+    if (manager.resources.get(uri) != null) {
+      if (uri.endsWith(".js")) {
+        return SCRIPT;
+      } else if (uri.endsWith(".css")) {
+        return STYLESHEET;
+      }
+    }
+    return -1;
+  }
+
+  private URL put(String path, byte[] content) {
+    synchronized (bundles) {
+      URL url = bundles.get(path);
+      if (url == null || url == STALE) {
+        try {
+          url = new URL("bundle", null, 0, path, new AssetManager.BundleURLStreamHandler(content));
+        }
+        catch (MalformedURLException e) {
+          throw new AssertionError(e);
+        }
+        bundles.put(path, url);
+      }
+      return url;
+    }
+  }
+
+  /**
+   * Returns the path of a bundle: the directory of its first asset, the hash of its content, the signature of the path
+   * and its encoded assets.
+   */
+  private String getPath(int type, List<String> uris, byte[] content) {
+    StringBuilder sb = new StringBuilder();
+    for (String uri : uris) {
+      if (sb.length() > 0) {
+        sb.append('\n');
+      }
+      sb.append(uri);
+    }
+    String encoded = DatatypeConverter.printBase64Binary(sb.toString().getBytes(Tools.UTF_8));
+    int len = encoded.length();
+    while (len > 0 && encoded.charAt(len - 1) == '=') {
+      len--;
+    }
+    encoded = encoded.substring(0, len).replace('+', '-').replace('/', '_');
+    String prefix = getDirectory(uris.get(0)) + AssetManager.BUNDLE_PREFIX + String.format("%016x", Tools.md5(content)) + "-";
+    String suffix = encoded + (type == SCRIPT ? ".js" : ".css");
+    return prefix + sign(prefix + suffix) + "-" + suffix;
+  }
+
+  /**
+   * Sign a path with the bundle key.
+   */
+  private String sign(String path) {
+    try {
+      Mac mac = Mac.getInstance("HmacSHA1");
+      mac.init(new SecretKeySpec(manager.bundleKey, "HmacSHA1"));
+      byte[] signature = mac.doFinal(path.getBytes(Tools.UTF_8));
+      StringBuilder sb = new StringBuilder(16);
+      for (int i = 0;i < 8;i++) {
+        sb.append(String.format("%02x", signature[i] & 0xFF));
+      }
+      return sb.toString();
+    }
+    catch (GeneralSecurityException e) {
+      throw new UnsupportedOperationException("Could not sign bundle", e);
+    }
+  }
+
+  private static List<String> decode(String encoded) {
+    StringBuilder sb = new StringBuilder(encoded.replace('-', '+').replace('_', '/'));
+    while (sb.length() % 4 != 0) {
+      sb.append('=');
+    }
+    try {
+      return Arrays.asList(Tools.split(new String(DatatypeConverter.parseBase64Binary(sb.toString()), Tools.UTF_8), '\n'));
+    }
+    catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private byte[] build(int type, List<String> uris) throws IOException {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    for (String uri : uris) {
+      byte[] bytes = Tools.bytes(manager.resources.get(uri));
+      if (minify) {
+        String s = new String(bytes, Tools.UTF_8);
+        bytes = (type == SCRIPT ? minifyScript(s) : minifyStylesheet(s)).getBytes(Tools.UTF_8);
+      }
+      buffer.write(bytes);
+      if (bytes.length > 0 && bytes[bytes.length - 1] != '\n') {
+        buffer.write('\n');
+      }
+      if (type == SCRIPT) {
+        // Terminates a last statement without semicolon
+        buffer.write(';');
+        buffer.write('\n');
+      }
+    }
+    return buffer.toByteArray();
+  }
+
+  /**
+   * Minify a script: the comments are removed, except the <code>/*!</code> comments, the lines are trimmed and the
+   * spaces are collapsed. The strings and the regular expression literals are preserved and the line breaks are
+   * kept to not change the automatic semicolon insertion.
+   *
+   * @param s the script
+   * @return the minified script
+   */
+  static String minifyScript(String s) {
+    StringBuilder sb = new StringBuilder(s.length());
+    int len = s.length();
+    boolean space = false;
+    for (int i = 0;i < len;) {
+      char c = s.charAt(i);
+      if (c == '\n' || c == '\r') {
+        trimEnd(sb);
+        if (sb.length() > 0 && sb.charAt(sb.length() - 1) != '\n') {
+          sb.append('\n');
+        }
+        space = false;
+        i++;
+      } else if (c == ' ' || c == '\t' || c == '\f') {
+        space = true;
+        i++;
+      } else if (c == '/' && i + 1 < len && s.charAt(i + 1) == '/') {
+        while (i < len && s.charAt(i) != '\n' && s.charAt(i) != '\r') {
+          i++;
+        }
+      } else if (c == '/' && i + 1 < len && s.charAt(i + 1) == '*') {
+        int end = s.indexOf("*/", i + 2);
+        end = end == -1 ? len : end + 2;
+        if (i + 2 < len && s.charAt(i + 2) == '!') {
+          appendSpace(sb, space);
+          sb.append(s, i, end);
+        } else if (s.substring(i, end).indexOf('\n') != -1) {
+          // A comment with a line break is a line break
+          trimEnd(sb);
+          if (sb.length() > 0 && sb.charAt(sb.length() - 1) != '\n') {
+            sb.append('\n');
+          }
+          space = false;
+        } else {
+          space = true;
+        }
+        i = end;
+      } else {
+        appendSpace(sb, space);
+        space = false;
+        if (c == '"' || c == '\'' || c == '`') {
+          i = copyString(s, i, c, sb);
+        } else if (c == '/' && isRegExpAllowed(sb)) {
+          i = copyRegExp(s, i, sb);
+        } else {
+          sb.append(c);
+          i++;
+        }
+      }
+    }
+    trimEnd(sb);
+    return sb.toString();
+  }
+
+  /**
+   * Minify a stylesheet: the comments are removed, except the <code>/*!</code> comments, the spaces are collapsed
+   * and removed around the braces, the semicolons and the commas.
+   *
+   * @param s the stylesheet
+   * @return the minified stylesheet
+   */
+  static String minifyStylesheet(String s) {
+    StringBuilder sb = new StringBuilder(s.length());
+    int len = s.length();
+    boolean space = false;
+    for (int i = 0;i < len;) {
+      char c = s.charAt(i);
+      if (Character.isWhitespace(c)) {
+        space = true;
+        i++;
+      } else if (c == '/' && i + 1 < len && s.charAt(i + 1) == '*') {
+        int end = s.indexOf("*/", i + 2);
+        end = end == -1 ? len : end + 2;
+        if (i + 2 < len && s.charAt(i + 2) == '!') {
+          appendSpace(sb, space);
+          sb.append(s, i, end).append('\n');
+          space = false;
+        } else {
+          space = true;
+        }
+        i = end;
+      } else {
+        if (c == '{' || c == '}' || c == ';' || c == ',') {
+          if (c == '}' && sb.length() > 0 && sb.charAt(sb.length() - 1) == ';') {
+            sb.setLength(sb.length() - 1);
+          }
+          sb.append(c);
+          space = false;
+          i++;
+          while (i < len && Character.isWhitespace(s.charAt(i))) {
+            i++;
+          }
+        } else {
+          appendSpace(sb, space);
+          space = false;
+          if (c == '"' || c == '\'') {
+            i = copyString(s, i, c, sb);
+          } else {
+            sb.append(c);
+            i++;
+          }
+        }
+      }
+    }
+    return sb.toString();
+  }
+
+  private static void appendSpace(StringBuilder sb, boolean space) {
+    if (space && sb.length() > 0 && sb.charAt(sb.length() - 1) != '\n') {
+      sb.append(' ');
+    }
+  }
+
+  private static void trimEnd(StringBuilder sb) {
+    int len = sb.length();
+    while (len > 0 && (sb.charAt(len - 1) == ' ' || sb.charAt(len - 1) == '\t')) {
+      len--;
+    }
+    sb.setLength(len);
+  }
+
+  private static int copyString(String s, int i, char quote, StringBuilder sb) {
+    int len = s.length();
+    sb.append(s.charAt(i++));
+    while (i < len) {
+      char c = s.charAt(i++);
+      sb.append(c);
+      if (c == '\\' && i < len) {
+        sb.append(s.charAt(i++));
+      } else if (c == quote || (c == '\n' && quote != '`')) {
+        break;
+      }
+    }
+    return i;
+  }
+
+  private static int copyRegExp(String s, int i, StringBuilder sb) {
+    int len = s.length();
+    sb.append(s.charAt(i++));
+    boolean set = false;
+    while (i < len) {
+      char c = s.charAt(i++);
+      sb.append(c);
+      if (c == '\\' && i < len) {
+        sb.append(s.charAt(i++));
+      } else if (c == '[') {
+        set = true;
+      } else if (c == ']') {
+        set = false;
+      } else if ((c == '/' && !set) || c == '\n') {
+        break;
+      }
+    }
+    return i;
+  }
+
+  /**
+   * Returns true when a <code>/</code> char following the specified script starts a regular expression literal
+   * rather than a division.
+   */
+  private static boolean isRegExpAllowed(StringBuilder sb) {
+    int i = sb.length() - 1;
+    while (i >= 0 && (sb.charAt(i) == ' ' || sb.charAt(i) == '\n')) {
+      i--;
+    }
+    if (i < 0) {
+      return true;
+    }
+    char c = sb.charAt(i);
+    if (c == ')' || c == ']' || c == '}' || c == '"' || c == '\'' || c == '`' || c == '.') {
+      return false;
+    } else if (Character.isJavaIdentifierPart(c)) {
+      int end = i + 1;
+      while (i >= 0 && Character.isJavaIdentifierPart(sb.charAt(i))) {
+        i--;
+      }
+      if (i >= 0 && sb.charAt(i) == '.') {
+        return false;
+      }
+      String word = sb.substring(i + 1, end);
+      return word.equals("return") || word.equals("typeof") || word.equals("in")
+          || word.equals("instanceof") || word.equals("new") || word.equals("delete") || word.equals("void")
+          || word.equals("throw") || word.equals("case") || word.equals("do") || word.equals("else");
+    } else {
+      return true;
+    }
+  }
+}
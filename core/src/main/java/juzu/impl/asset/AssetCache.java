@@ -0,0 +1,298 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package juzu.impl.asset;
+
+import juzu.impl.common.Tools;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A cache of asset entries keyed by path with a least recently used eviction bounded by the size of
+ * the cached entries.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+public class AssetCache {
+
+  /** The default maximum size. */
+  public static final long DEFAULT_MAX_SIZE = 16 * 1024 * 1024;
+
+  /** The minimum length of a compressed entry. */
+  static final int GZIP_MIN_LENGTH = 256;
+
+  /** . */
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+
+  /** . */
+  private final long maxSize;
+
+  /** . */
+  private long size;
+
+  public AssetCache() {
+    this(DEFAULT_MAX_SIZE);
+  }
+
+  public AssetCache(long maxSize) throws IllegalArgumentException {
+    if (maxSize < 0) {
+      throw new IllegalArgumentException("Max size " + maxSize + " cannot be negative");
+    }
+    this.maxSize = maxSize;
+  }
+
+  public synchronized Entry get(String path) {
+    return entries.get(path);
+  }
+
+  /**
+   * Put an entry in the cache, the entry is not cached when its size is greater than the cache max size.
+   *
+   * @param path the path
+   * @param entry the entry
+   */
+  public synchronized void put(String path, Entry entry) {
+    Entry previous = entries.remove(path);
+    if (previous != null) {
+      size -= previous.size;
+    }
+    if (entry.size <= maxSize) {
+      entries.put(path, entry);
+      size += entry.size;
+      for (Iterator<Entry> i = entries.values().iterator();size > maxSize && i.hasNext();) {
+        size -= i.next().size;
+        i.remove();
+      }
+    }
+  }
+
+  public synchronized void remove(String path) {
+    Entry previous = entries.remove(path);
+    if (previous != null) {
+      size -= previous.size;
+    }
+  }
+
+  public synchronized int getCount() {
+    return entries.size();
+  }
+
+  public synchronized long getSize() {
+    return size;
+  }
+
+  /**
+   * An immutable cached asset.
+   */
+  public static class Entry {
+
+    /**
+     * Load an entry, <code>file:</code> urls are memory mapped, other urls are loaded in memory.
+     *
+     * @param url the url
+     * @param contentType the content type
+     * @return the entry
+     * @throws IOException any io exception
+     */
+    public static Entry create(URL url, String contentType) throws IOException {
+      ByteBuffer data;
+      long lastModified;
+      File file = null;
+      if ("file".equals(url.getProtocol())) {
+        try {
+          file = new File(url.toURI());
+        }
+        catch (URISyntaxException ignore) {
+        }
+      }
+      if (file != null && file.isFile()) {
+        lastModified = file.lastModified();
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+          FileChannel channel = raf.getChannel();
+          data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        finally {
+          Tools.safeClose(raf);
+        }
+      } else {
+        file = null;
+        URLConnection conn = url.openConnection();
+        lastModified = conn.getLastModified();
+        data = ByteBuffer.wrap(Tools.bytes(conn.getInputStream()));
+      }
+      return new Entry(data, contentType, lastModified, file);
+    }
+
+    /** The raw bytes. */
+    private final ByteBuffer data;
+
+    /** The compressed bytes or null. */
+    final byte[] gzipped;
+
+    /** The strong entity tag. */
+    final String etag;
+
+    /** The strong entity tag of the compressed bytes or null. */
+    final String gzippedETag;
+
+    /** . */
+    final String contentType;
+
+    /** . */
+    final int length;
+
+    /** The last modified date or 0 when it is not known. */
+    final long lastModified;
+
+    /** The mapped file or null. */
+    final File file;
+
+    /** The size accounted by the cache. */
+    final long size;
+
+    Entry(ByteBuffer data, String contentType, long lastModified, File file) {
+
+      //
+      MessageDigest digest;
+      try {
+        digest = MessageDigest.getInstance("MD5");
+      }
+      catch (NoSuchAlgorithmException e) {
+        throw new AssertionError(e);
+      }
+      digest.update(data.duplicate());
+      StringBuilder etag = new StringBuilder("\"");
+      for (byte b : digest.digest()) {
+        etag.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      etag.append('"');
+
+      //
+      byte[] gzipped = null;
+      int length = data.remaining();
+      if (length >= GZIP_MIN_LENGTH && isCompressible(contentType)) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream(length / 2);
+        try {
+          GZIPOutputStream out = new GZIPOutputStream(baos);
+          write(data, 0, length, out);
+          out.close();
+          if (baos.size() < length) {
+            gzipped = baos.toByteArray();
+          }
+        }
+        catch (IOException e) {
+          throw new AssertionError(e);
+        }
+      }
+
+      //
+      this.data = data;
+      this.gzipped = gzipped;
+      this.etag = etag.toString();
+      this.gzippedETag = gzipped != null ? etag.insert(etag.length() - 1, "-gz").toString() : null;
+      this.contentType = contentType;
+      this.length = length;
+      this.lastModified = lastModified;
+      this.file = file;
+      this.size = length + (gzipped != null ? gzipped.length : 0);
+    }
+
+    /**
+     * Returns true when the entry is a file that was modified after it was loaded.
+     *
+     * @return the stale status
+     */
+    public boolean isStale() {
+      return file != null && file.lastModified() != lastModified;
+    }
+
+    public String getETag() {
+      return etag;
+    }
+
+    public String getGzippedETag() {
+      return gzippedETag;
+    }
+
+    public String getContentType() {
+      return contentType;
+    }
+
+    public int getLength() {
+      return length;
+    }
+
+    public long getLastModified() {
+      return lastModified;
+    }
+
+    public byte[] getGzipped() {
+      return gzipped;
+    }
+
+    /**
+     * Write a range of the raw bytes.
+     *
+     * @param from the first byte index
+     * @param to the last byte index exclusive
+     * @param out the output
+     * @throws IOException any io exception
+     */
+    public void write(int from, int to, java.io.OutputStream out) throws IOException {
+      write(data, from, to, out);
+    }
+
+    private static void write(ByteBuffer data, int from, int to, java.io.OutputStream out) throws IOException {
+      if (data.hasArray()) {
+        out.write(data.array(), data.arrayOffset() + data.position() + from, to - from);
+      } else {
+        ByteBuffer src = data.duplicate();
+        src.position(src.position() + from);
+        byte[] buffer = new byte[Math.min(8192, to - from)];
+        for (int remaining = to - from;remaining > 0;) {
+          int len = Math.min(buffer.length, remaining);
+          src.get(buffer, 0, len);
+          out.write(buffer, 0, len);
+          remaining -= len;
+        }
+      }
+    }
+
+    private static boolean isCompressible(String contentType) {
+      if (contentType == null) {
+        return false;
+      } else {
+        return contentType.startsWith("text/")
+            || contentType.contains("javascript")
+            || contentType.contains("json")
+            || contentType.contains("xml");
+      }
+    }
+  }
+}
@@ -19,26 +19,56 @@ package juzu.impl.asset;
 import juzu.asset.AssetLocation;
 import juzu.impl.common.Tools;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public class AssetManager {
 
+  /** The prefix of bundle names. */
+  static final String BUNDLE_PREFIX = "bundle-";
+
   /** . */
   protected final LinkedHashMap<String, AssetNode> assets = new LinkedHashMap<String, AssetNode>();
 
   /** . */
   protected final HashMap<String, URL> resources = new HashMap<String, URL>();
 
+  /** The dependency graph of the registered assets, null when it must be computed again. */
+  private volatile Graph graph;
+
+  /** The bundler or null when assets are not bundled. */
+  private volatile AssetBundler bundler;
+
+  /** The bundles added when the application starts by path, the page bundles are managed by the bundler. */
+  private final ConcurrentHashMap<String, URL> bundles = new ConcurrentHashMap<String, URL>();
+
+  /** The key signing the page bundle paths, see {@link #setBundleKey(String)}. */
+  volatile byte[] bundleKey;
+
+  public AssetManager() {
+    bundleKey = new byte[20];
+    new SecureRandom().nextBytes(bundleKey);
+  }
+
   public boolean addAsset(String id, AssetLocation location, String value, URL url, String... dependencies) throws NullPointerException, IllegalArgumentException {
     return addAsset(id, location, Collections.singletonMap(value, url), Tools.set(dependencies));
   }
@@ -58,7 +88,7 @@ public class AssetManager {
    * @throws NullPointerException     if the metaData argument is nul
    * @throws IllegalArgumentException if the metaData does not have an id set
    */
-  public boolean addAsset(String id, AssetLocation location, Map<String, URL> resources, Set<String> dependencies) throws NullPointerException, IllegalArgumentException {
+  public synchronized boolean addAsset(String id, AssetLocation location, Map<String, URL> resources, Set<String> dependencies) throws NullPointerException, IllegalArgumentException {
 
     //
     if (!assets.keySet().contains(id)) {
@@ -80,6 +110,9 @@ public class AssetManager {
         }
       }
 
+      // The graph and its resolutions are obsolete
+      graph = null;
+
       //
       return true;
     } else {
@@ -88,6 +121,59 @@ public class AssetManager {
     }
   }
 
+  /**
+   * Configure the bundling of the resolved assets, see {@link AssetBundler}.
+   *
+   * @param bundle true when the assets are bundled
+   * @param minify true when the bundles are minified
+   */
+  public synchronized void setBundling(boolean bundle, boolean minify) {
+    bundler = bundle ? new AssetBundler(this, minify) : null;
+    graph = null;
+  }
+
+  /**
+   * Set the key signing the page bundle paths, a page bundle is derived from its path only when it is signed with this
+   * key. The nodes of a cluster share the same key so a bundle is derived on any node, a random key is used by default.
+   *
+   * @param key the key
+   */
+  public void setBundleKey(String key) {
+    bundleKey = key.getBytes(Tools.UTF_8);
+  }
+
+  /**
+   * Add a bundle when the application starts, the bundle is named after the hash of its content, its content never
+   * changes and it can be cached by clients without revalidation.
+   *
+   * @param directory the bundle directory
+   * @param extension the bundle extension
+   * @param content the bundle content
+   * @return the bundle path
+   */
+  public String addBundle(String directory, String extension, byte[] content) {
+    String path = directory + BUNDLE_PREFIX + String.format("%016x", Tools.md5(content)) + extension;
+    if (!bundles.containsKey(path)) {
+      try {
+        bundles.putIfAbsent(path, new URL("bundle", null, 0, path, new BundleURLStreamHandler(content)));
+      }
+      catch (MalformedURLException e) {
+        throw new AssertionError(e);
+      }
+    }
+    return path;
+  }
+
+  /**
+   * Returns true if the path is a bundle, a bundle content never changes.
+   *
+   * @param path the path
+   * @return true if the path is a bundle
+   */
+  public boolean isBundle(String path) {
+    return bundles.containsKey(path) || resolveBundle(path) != null;
+  }
+
   /**
    * Resolve an asset as a resource URL or return null if it cannot be found.
    *
@@ -95,11 +181,25 @@ public class AssetManager {
    * @return the resource
    */
   public URL resolveAsset(String path) {
-    return resources.get(path);
+    URL url = resources.get(path);
+    if (url == null) {
+      url = bundles.get(path);
+      if (url == null) {
+        url = resolveBundle(path);
+      }
+    }
+    return url;
+  }
+
+  private URL resolveBundle(String path) {
+    AssetBundler bundler = this.bundler;
+    return bundler != null && path.indexOf(BUNDLE_PREFIX) != -1 ? bundler.resolve(path) : null;
   }
 
   /**
-   * Perform a topological sort of the provided asset script values.
+   * Perform a topological sort of the provided asset script values. The resolution of a sequence of asset ids
+   * is cached until an asset is added, the returned iterable is shared and cannot be modified. When bundling is
+   * configured the application assets are replaced by their bundles.
    *
    * @param ids the asset ids to resolve
    * @return the resolved asset or null
@@ -109,55 +209,243 @@ public class AssetManager {
   public Iterable<Asset> resolveAssets(Iterable<String> ids) throws
     NullPointerException,
     IllegalArgumentException {
+    Graph graph = this.graph;
+    if (graph == null) {
+      synchronized (this) {
+        graph = this.graph;
+        if (graph == null) {
+          this.graph = graph = new Graph(assets, bundler);
+        }
+      }
+    }
+    return graph.resolve(ids);
+  }
+
+  /**
+   * An immutable snapshot of the asset dependencies where the assets are identified by their registration index,
+   * along with the resolutions performed against it.
+   */
+  private static class Graph {
+
+    /** . */
+    private static final int[] EMPTY = new int[0];
+
+    /** . */
+    private final AssetNode[] nodes;
+
+    /** . */
+    private final HashMap<String, Integer> indexes;
+
+    /** The dependencies of each node, a missing dependency is -1. */
+    private final int[][] dependencies;
+
+    /** The nodes depending on each node. */
+    private final int[][] dependents;
+
+    /** The resolved assets by requested node sequence. */
+    private final ConcurrentHashMap<Key, List<Asset>> resolutions;
+
+    /** . */
+    private final AssetBundler bundler;
 
-    // Compute the closure
-    LinkedHashMap<String, HashSet<String>> sub = new LinkedHashMap<String, HashSet<String>>();
-    for (LinkedList<String> queue = Tools.addAll(new LinkedList<String>(), ids);!queue.isEmpty();) {
-      String id = queue.removeFirst();
-      AssetNode asset = this.assets.get(id);
-      if (asset != null) {
-        sub.put(asset.id, new HashSet<String>(asset.iDependOn));
-        for (String depend : asset.iDependOn) {
-          if (!sub.containsKey(depend)) {
-            queue.addLast(depend);
+    Graph(LinkedHashMap<String, AssetNode> assets, AssetBundler bundler) {
+      AssetNode[] nodes = assets.values().toArray(new AssetNode[assets.size()]);
+      HashMap<String, Integer> indexes = new HashMap<String, Integer>(nodes.length * 2);
+      for (int i = 0;i < nodes.length;i++) {
+        indexes.put(nodes[i].id, i);
+      }
+      int[][] dependencies = new int[nodes.length][];
+      int[] counts = new int[nodes.length];
+      for (int i = 0;i < nodes.length;i++) {
+        int[] dependency = nodes[i].iDependOn.isEmpty() ? EMPTY : new int[nodes[i].iDependOn.size()];
+        int j = 0;
+        for (String id : nodes[i].iDependOn) {
+          Integer index = indexes.get(id);
+          if (index != null) {
+            counts[index]++;
+            dependency[j++] = index;
+          } else {
+            dependency[j++] = -1;
           }
         }
+        dependencies[i] = dependency;
+      }
+      int[][] dependents = new int[nodes.length][];
+      for (int i = 0;i < nodes.length;i++) {
+        dependents[i] = counts[i] == 0 ? EMPTY : new int[counts[i]];
+        counts[i] = 0;
       }
-      else {
-        throw new IllegalArgumentException("Cannot resolve asset " + id);
+      for (int i = 0;i < nodes.length;i++) {
+        for (int dependency : dependencies[i]) {
+          if (dependency != -1) {
+            dependents[dependency][counts[dependency]++] = i;
+          }
+        }
       }
+
+      //
+      this.nodes = nodes;
+      this.indexes = indexes;
+      this.dependencies = dependencies;
+      this.dependents = dependents;
+      this.resolutions = new ConcurrentHashMap<Key, List<Asset>>();
+      this.bundler = bundler;
     }
 
-    // Perform the topological sort
-    LinkedList<Asset> resolved = new LinkedList<Asset>();
-    while (sub.size() > 0) {
-      boolean found = false;
-      for (Iterator<Map.Entry<String, HashSet<String>>> i = sub.entrySet().iterator();i.hasNext();) {
-        Map.Entry<String, HashSet<String>> entry = i.next();
-        if (entry.getValue().isEmpty()) {
-          i.remove();
-          AssetNode asset = this.assets.get(entry.getKey());
-          resolved.addAll(asset.assets);
-          for (String dependency : asset.dependsOnMe) {
-            HashSet<String> foo = sub.get(dependency);
-            if (foo != null) {
-              foo.remove(entry.getKey());
-            }
+    List<Asset> resolve(Iterable<String> ids) throws NullPointerException, IllegalArgumentException {
+      int[] requested = new int[8];
+      int size = 0;
+      for (String id : ids) {
+        Integer index = indexes.get(id);
+        if (index == null) {
+          throw new IllegalArgumentException("Cannot resolve asset " + id);
+        }
+        if (size == requested.length) {
+          requested = Arrays.copyOf(requested, size * 2);
+        }
+        requested[size++] = index;
+      }
+      Key key = new Key(size == requested.length ? requested : Arrays.copyOf(requested, size));
+      List<Asset> resolved = resolutions.get(key);
+      if (resolved == null) {
+        resolved = sort(key.indexes);
+        resolutions.put(key, resolved);
+      }
+      return resolved;
+    }
+
+    /**
+     * Sort the closure of the requested nodes: the ready node that comes first in the breadth first traversal
+     * of the closure is resolved first.
+     */
+    private List<Asset> sort(int[] requested) throws IllegalArgumentException {
+
+      // Compute the closure with the position of each node in the traversal
+      int[] positions = new int[nodes.length];
+      Arrays.fill(positions, -1);
+      int[] closure = new int[nodes.length];
+      int size = 0;
+      for (int index : requested) {
+        if (positions[index] == -1) {
+          positions[index] = size;
+          closure[size++] = index;
+        }
+      }
+      for (int i = 0;i < size;i++) {
+        int index = closure[i];
+        int[] dependency = dependencies[index];
+        int j = 0;
+        for (String id : nodes[index].iDependOn) {
+          int d = dependency[j++];
+          if (d == -1) {
+            throw new IllegalArgumentException("Cannot resolve asset " + id);
+          } else if (positions[d] == -1) {
+            positions[d] = size;
+            closure[size++] = d;
+          }
+        }
+      }
+
+      // Perform the topological sort
+      int[] remaining = new int[nodes.length];
+      PriorityQueue<Integer> ready = new PriorityQueue<Integer>();
+      for (int i = 0;i < size;i++) {
+        int count = dependencies[closure[i]].length;
+        remaining[closure[i]] = count;
+        if (count == 0) {
+          ready.add(i);
+        }
+      }
+      ArrayList<Asset> resolved = new ArrayList<Asset>();
+      int sorted = 0;
+      while (!ready.isEmpty()) {
+        int index = closure[ready.poll()];
+        resolved.addAll(nodes[index].assets);
+        sorted++;
+        for (int dependent : dependents[index]) {
+          if (positions[dependent] != -1 && --remaining[dependent] == 0) {
+            ready.add(positions[dependent]);
           }
-          found = true;
-          break;
         }
       }
-      if (!found) {
+      if (sorted < size) {
         StringBuilder sb = new StringBuilder("Cannot satisfy asset dependencies:\n");
-        for (Map.Entry<String, HashSet<String>> entry : sub.entrySet()) {
-          sb.append(entry.getKey()).append(" -> ").append(entry.getValue());
+        for (int i = 0;i < size;i++) {
+          int index = closure[i];
+          if (remaining[index] > 0) {
+            HashSet<String> unresolved = new HashSet<String>(nodes[index].iDependOn);
+            for (Iterator<String> j = unresolved.iterator();j.hasNext();) {
+              if (remaining[indexes.get(j.next())] == 0) {
+                j.remove();
+              }
+            }
+            sb.append(nodes[index].id).append(" -> ").append(unresolved);
+          }
         }
         throw new IllegalArgumentException(sb.toString());
       }
+
+      //
+      if (bundler != null) {
+        return Collections.unmodifiableList(bundler.bundle(resolved));
+      } else {
+        resolved.trimToSize();
+        return Collections.unmodifiableList(resolved);
+      }
     }
+  }
 
-    //
-    return resolved;
+  /**
+   * A sequence of node indexes.
+   */
+  private static class Key {
+
+    /** . */
+    private final int[] indexes;
+
+    /** . */
+    private final int hashCode;
+
+    Key(int[] indexes) {
+      this.indexes = indexes;
+      this.hashCode = Arrays.hashCode(indexes);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj == this || (obj instanceof Key && Arrays.equals(indexes, ((Key)obj).indexes));
+    }
+  }
+
+  static class BundleURLStreamHandler extends URLStreamHandler {
+
+    /** . */
+    private final byte[] content;
+
+    BundleURLStreamHandler(byte[] content) {
+      this.content = content;
+    }
+
+    @Override
+    protected URLConnection openConnection(URL u) throws IOException {
+      return new URLConnection(u) {
+        @Override
+        public void connect() throws IOException {
+        }
+        @Override
+        public int getContentLength() {
+          return content.length;
+        }
+        @Override
+        public InputStream getInputStream() throws IOException {
+          return new ByteArrayInputStream(content);
+        }
+      };
+    }
   }
 }
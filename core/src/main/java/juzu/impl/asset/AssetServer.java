@@ -16,63 +16,321 @@
 
 package juzu.impl.asset;
 
+import juzu.impl.metrics.Metrics;
 import juzu.impl.plugin.application.Application;
-import juzu.impl.common.Tools;
 import juzu.impl.resource.ResourceResolver;
 
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URL;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+/**
+ * Serves the assets of the registered applications. The assets are cached per application with their
+ * compressed form and their entity tags, conditional requests and single byte ranges are supported.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
 public class AssetServer {
 
+  /** The cache control of preloaded applications. */
+  private static final String CACHE_CONTROL_STATIC = "public, max-age=3600";
+
+  /** The cache control of other applications, the client revalidates with the entity tag. */
+  private static final String CACHE_CONTROL_DYNAMIC = "no-cache";
+
+  /** The cache control of bundles, their path changes with their content. */
+  private static final String CACHE_CONTROL_BUNDLE = "public, max-age=31536000";
+
   /** . */
-  HashSet<Application> runtimes = new HashSet<Application>();
+  final CopyOnWriteArrayList<Registration> runtimes = new CopyOnWriteArrayList<Registration>();
+
+  /** The cache for server resources. */
+  final AssetCache serverCache = new AssetCache();
 
   public AssetServer() {
   }
 
-  public void register(Application assetManager) {
-    runtimes.add(assetManager);
+  public void register(Application application) {
+    ArrayList<ResourceResolver> resolvers = new ArrayList<ResourceResolver>();
+    for (ResourceResolver resolver : application.resolveBeans(ResourceResolver.class)) {
+      resolvers.add(resolver);
+    }
+    runtimes.add(new Registration(application, application.resolveBean(AssetManager.class), resolvers.toArray(new ResourceResolver[resolvers.size()])));
   }
 
-  public void unregister(Application assetManager) {
-    runtimes.remove(assetManager);
+  public void unregister(Application application) {
+    for (Registration registration : runtimes) {
+      if (registration.application == application) {
+        runtimes.remove(registration);
+      }
+    }
   }
 
-  public boolean doGet(String path, ServletContext ctx, HttpServletResponse resp) throws ServletException, IOException {
-    if (path != null && path.length() > 0) {
-      for (Application runtime : runtimes) {
-        Iterable<ResourceResolver> resolvers = runtime.resolveBeans(ResourceResolver.class);
-        for (ResourceResolver resolver : resolvers) {
-          // For now we only have resource of URL type ...
-          URL content = resolver.resolve(path);
-          InputStream in;
-          if (content != null) {
-            in = content.openStream();
-          } else {
-            // It could be a server resource like an image
-            in = ctx.getResourceAsStream(path);
+  /**
+   * Load the assets declared by a registered application in its cache, the cached entries are not checked
+   * for modification anymore and are served with a longer cache control.
+   *
+   * @param application the application
+   * @param ctx the servlet context
+   */
+  public void preload(Application application, ServletContext ctx) {
+    for (Registration registration : runtimes) {
+      if (registration.application == application) {
+        registration.preloaded = true;
+        AssetManager manager = registration.manager;
+        if (manager != null) {
+          for (Map.Entry<String, URL> resource : manager.resources.entrySet()) {
+            try {
+              registration.cache.put(resource.getKey(), AssetCache.Entry.create(resource.getValue(), getMimeType(ctx, resource.getKey())));
+            }
+            catch (IOException ignore) {
+              // It will be loaded again when requested
+            }
           }
-          
-          if (in != null) {
-            int pos = path.lastIndexOf('/');
-            String name = pos == -1 ? path : path.substring(pos + 1);
-            String contentType = ctx.getMimeType(name);
-            if (contentType != null) {
-              resp.setContentType(contentType);
+        }
+      }
+    }
+  }
+
+  public boolean doGet(String path, ServletContext ctx, HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+    if (path != null && path.length() > 0 && runtimes.size() > 0) {
+      for (Registration registration : runtimes) {
+        Metrics metrics = registration.application.getMetrics();
+        long start = metrics.time();
+        AssetCache.Entry entry = registration.cache.get(path);
+        boolean hit = true;
+        if (entry == null || (!registration.preloaded && entry.isStale())) {
+          entry = null;
+          hit = false;
+          for (ResourceResolver resolver : registration.resolvers) {
+            // For now we only have resource of URL type ...
+            URL content = resolver.resolve(path);
+            if (content != null) {
+              entry = AssetCache.Entry.create(content, getMimeType(ctx, path));
+              registration.cache.put(path, entry);
+              break;
             }
-            Tools.copy(in, resp.getOutputStream());
-            return true;
           }
         }
+        if (entry != null) {
+          String cacheControl;
+          if (registration.manager != null && registration.manager.isBundle(path)) {
+            cacheControl = CACHE_CONTROL_BUNDLE;
+          } else {
+            cacheControl = registration.preloaded ? CACHE_CONTROL_STATIC : CACHE_CONTROL_DYNAMIC;
+          }
+          send(entry, cacheControl, req, resp);
+          metrics.served(hit, start);
+          return true;
+        }
+      }
+
+      // It could be a server resource like an image, it does not belong to an application and is not measured
+      AssetCache.Entry entry = serverCache.get(path);
+      if (entry == null || entry.isStale()) {
+        URL content = ctx.getResource(path);
+        if (content != null) {
+          entry = AssetCache.Entry.create(content, getMimeType(ctx, path));
+          serverCache.put(path, entry);
+        } else {
+          serverCache.remove(path);
+          entry = null;
+        }
+      }
+      if (entry != null) {
+        send(entry, CACHE_CONTROL_DYNAMIC, req, resp);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String getMimeType(ServletContext ctx, String path) {
+    int pos = path.lastIndexOf('/');
+    String name = pos == -1 ? path : path.substring(pos + 1);
+    return ctx.getMimeType(name);
+  }
+
+  static void send(AssetCache.Entry entry, String cacheControl, HttpServletRequest req, HttpServletResponse resp) throws IOException {
+
+    // Byte ranges are served from the raw bytes when the range applies to their entity tag
+    long[] bounds = null;
+    String range = req.getHeader("Range");
+    if (range != null) {
+      String ifRange = req.getHeader("If-Range");
+      if (ifRange == null || ifRange.equals(entry.etag)) {
+        bounds = parseRange(range, entry.length);
+      }
+    }
+
+    // The compressed bytes are a distinct representation with their own entity tag
+    String acceptEncoding = req.getHeader("Accept-Encoding");
+    boolean gzip = bounds == null && entry.gzipped != null && acceptEncoding != null && acceptEncoding.contains("gzip");
+    String etag = gzip ? entry.gzippedETag : entry.etag;
+
+    //
+    resp.setHeader("ETag", etag);
+    if (entry.lastModified > 0) {
+      resp.setDateHeader("Last-Modified", entry.lastModified);
+    }
+    resp.setHeader("Cache-Control", cacheControl);
+    resp.setHeader("Accept-Ranges", "bytes");
+    if (entry.gzipped != null) {
+      resp.setHeader("Vary", "Accept-Encoding");
+    }
+
+    // Conditional request
+    String ifNoneMatch = req.getHeader("If-None-Match");
+    boolean notModified;
+    if (ifNoneMatch != null) {
+      notModified = matches(ifNoneMatch, etag);
+    } else {
+      long ifModifiedSince = getDateHeader(req, "If-Modified-Since");
+      notModified = ifModifiedSince != -1 && entry.lastModified > 0 && entry.lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+    if (notModified) {
+      resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+
+    //
+    if (entry.contentType != null) {
+      resp.setContentType(entry.contentType);
+    }
+
+    // Range request, a header that is not a single byte range serves the full entity
+    if (bounds != null) {
+      if (bounds.length == 0) {
+        resp.setHeader("Content-Range", "bytes */" + entry.length);
+        resp.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+      } else {
+        int from = (int)bounds[0];
+        int to = (int)bounds[1];
+        resp.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        resp.setHeader("Content-Range", "bytes " + from + "-" + (to - 1) + "/" + entry.length);
+        resp.setContentLength(to - from);
+        ServletOutputStream out = resp.getOutputStream();
+        entry.write(from, to, out);
+      }
+      return;
+    }
+
+    //
+    ServletOutputStream out = resp.getOutputStream();
+    if (gzip) {
+      resp.setHeader("Content-Encoding", "gzip");
+      resp.setContentLength(entry.gzipped.length);
+      out.write(entry.gzipped);
+    } else {
+      resp.setContentLength(entry.length);
+      entry.write(0, entry.length, out);
+    }
+  }
+
+  private static long getDateHeader(HttpServletRequest req, String name) {
+    try {
+      return req.getDateHeader(name);
+    }
+    catch (IllegalArgumentException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Returns true when an <code>If-None-Match</code> header value matches the entity tag.
+   *
+   * @param header the header value
+   * @param etag the entity tag
+   * @return true when it matches
+   */
+  static boolean matches(String header, String etag) {
+    for (String s : header.split(",")) {
+      s = s.trim();
+      if (s.equals("*") || s.equals(etag) || (s.startsWith("W/") && s.substring(2).equals(etag))) {
+        return true;
       }
     }
     return false;
   }
+
+  /**
+   * Parse a <code>Range</code> header value for an entity of the specified length.
+   *
+   * @param header the header value
+   * @param length the entity length
+   * @return the first byte index and the last byte index exclusive, an empty array when the range cannot be
+   *         satisfied or null when the header is not a single byte range
+   */
+  static long[] parseRange(String header, long length) {
+    header = header.trim();
+    if (!header.startsWith("bytes=") || header.indexOf(',') != -1) {
+      return null;
+    }
+    String spec = header.substring("bytes=".length()).trim();
+    int pos = spec.indexOf('-');
+    if (pos == -1) {
+      return null;
+    }
+    long from, to;
+    try {
+      String first = spec.substring(0, pos).trim();
+      String last = spec.substring(pos + 1).trim();
+      if (first.length() == 0) {
+        if (last.length() == 0) {
+          return null;
+        }
+        long suffix = Long.parseLong(last);
+        if (suffix == 0) {
+          return new long[0];
+        }
+        from = Math.max(0, length - suffix);
+        to = length;
+      } else {
+        from = Long.parseLong(first);
+        to = last.length() == 0 ? length : Math.min(Long.parseLong(last) + 1, length);
+        if (to <= from) {
+          return from >= length ? new long[0] : null;
+        }
+      }
+    }
+    catch (NumberFormatException e) {
+      return null;
+    }
+    if (from >= length) {
+      return new long[0];
+    }
+    return new long[]{from, to};
+  }
+
+  static class Registration {
+
+    /** . */
+    final Application application;
+
+    /** The asset manager or null. */
+    final AssetManager manager;
+
+    /** . */
+    final ResourceResolver[] resolvers;
+
+    /** . */
+    final AssetCache cache;
+
+    /** . */
+    volatile boolean preloaded;
+
+    Registration(Application application, AssetManager manager, ResourceResolver[] resolvers) {
+      this.application = application;
+      this.manager = manager;
+      this.resolvers = resolvers;
+      this.cache = new AssetCache();
+    }
+  }
 }
@@ -18,7 +18,10 @@ package juzu.impl.bridge;
 
 import juzu.impl.plugin.application.Application;
 import juzu.impl.common.RunMode;
+import juzu.impl.metrics.Metrics;
 import juzu.impl.asset.AssetServer;
+import juzu.impl.plugin.asset.AssetPlugin;
+import juzu.impl.plugin.template.TemplatePlugin;
 import juzu.impl.resource.ResourceResolver;
 
 import java.io.Closeable;
@@ -26,6 +29,12 @@ import java.io.Closeable;
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public abstract class Bridge implements Closeable {
 
+  /** The closeable returned by the default {@link #restart()} implementation: the application is already stopped. */
+  private static final Closeable RESTARTED = new Closeable() {
+    public void close() {
+    }
+  };
+
   /** . */
   public final BridgeContext context;
 
@@ -38,6 +47,9 @@ public abstract class Bridge implements Closeable {
   /** . */
   protected final ResourceResolver resolver;
 
+  /** The metrics of the bridged application. */
+  private volatile Metrics metrics;
+
   public Bridge(
       BridgeContext context,
       BridgeConfig config,
@@ -49,12 +61,35 @@ public abstract class Bridge implements Closeable {
     this.config = config;
     this.server = server;
     this.resolver = resolver;
+    this.metrics = Metrics.NONE;
   }
 
   public BridgeConfig getConfig() {
     return config;
   }
 
+  /**
+   * Returns the metrics of the bridged application, {@link Metrics#NONE} when they are disabled.
+   *
+   * @return the metrics
+   */
+  public Metrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Set the metrics of the bridged application, they are provided to the application when it is started.
+   *
+   * @param metrics the metrics
+   * @throws NullPointerException if the metrics is null
+   */
+  public void setMetrics(Metrics metrics) throws NullPointerException {
+    if (metrics == null) {
+      throw new NullPointerException("No null metrics accepted");
+    }
+    this.metrics = metrics;
+  }
+
   public boolean refresh() throws Exception {
     return refresh(true);
   }
@@ -63,6 +98,54 @@ public abstract class Bridge implements Closeable {
 
   public abstract boolean refresh(boolean recompile) throws Exception;
 
+  /**
+   * Refresh the bridge, when the application is restarted the previous application is stopped when the returned
+   * closeable is closed instead of being stopped before the new application is started. The default implementation
+   * relies on {@link #refresh()}.
+   *
+   * @return the closeable stopping the previous application or null when the application is not restarted
+   * @throws Exception any exception
+   */
+  public Closeable restart() throws Exception {
+    return refresh() ? RESTARTED : null;
+  }
+
   public abstract Application getApplication();
 
+  /**
+   * Configure a started application: the application reports to the metrics of the bridge, the asset bundles are
+   * signed with the configured key and the templates are initialized.
+   *
+   * @param application the application
+   */
+  protected void started(Application application) {
+    application.setMetrics(metrics);
+    if (config.assetKey != null) {
+      AssetPlugin plugin = (AssetPlugin)application.getPlugin("asset");
+      if (plugin != null) {
+        plugin.getAssetManager().setBundleKey(config.assetKey);
+      }
+    }
+    warmUp(application);
+  }
+
+  /**
+   * Initialize the templates of a started application with the configured parallelism.
+   *
+   * @param application the application
+   */
+  protected void warmUp(Application application) {
+    if (config.templateWarmUp > 0) {
+      TemplatePlugin plugin = application.resolveBean(TemplatePlugin.class);
+      if (plugin != null) {
+        try {
+          plugin.warmUp(config.templateWarmUp);
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
 }
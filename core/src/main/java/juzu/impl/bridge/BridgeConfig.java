@@ -16,10 +16,12 @@
 
 package juzu.impl.bridge;
 
+import juzu.impl.common.FormURLEncodedDecoder;
 import juzu.impl.common.Logger;
 import juzu.impl.common.Name;
 import juzu.impl.inject.spi.InjectorProvider;
 import juzu.impl.common.Tools;
+import juzu.impl.router.RoutingMode;
 
 import java.nio.charset.Charset;
 import java.util.Collections;
@@ -43,11 +45,44 @@ public class BridgeConfig {
   /** . */
   public static final String SOURCE_PATH = "juzu.src_path";
 
+  /**
+   * The minimum time in milliseconds between two scans of the source path in the dynamic run modes, <code>0</code>,
+   * the default, scans the source path on each request.
+   */
+  public static final String SCAN_INTERVAL = "juzu.scan_interval";
+
   /** The default request encoding charset. */
   public static final String REQUEST_ENCODING = "juzu.request_encoding";
 
+  /** The routing mode: <code>tree</code>, <code>compiled</code> or <code>checked</code>. */
+  public static final String ROUTING_MODE = "juzu.routing_mode";
+
+  /**
+   * The number of threads initializing the templates when the application starts, <code>0</code> disables it. An
+   * application refreshed in dev or live run mode does not initialize its templates.
+   */
+  public static final String TEMPLATE_WARMUP = "juzu.template_warmup";
+
+  /** Enable the runtime metrics exposed with JMX: <code>true</code> or <code>false</code>, the default. */
+  public static final String METRICS = "juzu.metrics";
+
+  /** The maximum size in bytes of a form body, a negative value disables the limit. */
+  public static final String FORM_MAX_SIZE = "juzu.form_max_size";
+
+  /** The maximum number of parameters of a form body, a negative value disables the limit. */
+  public static final String FORM_MAX_PARAMETERS = "juzu.form_max_parameters";
+
+  /** The size in bytes of the buffer coalescing the response output, it cannot be lower than 4. */
+  public static final String OUTPUT_BUFFER_SIZE = "juzu.output_buffer_size";
+
+  /** The default output buffer size. */
+  public static final int DEFAULT_OUTPUT_BUFFER_SIZE = 8192;
+
+  /** The key signing the asset bundle paths, the nodes of a cluster share it, a random key is used by default. */
+  public static final String ASSET_KEY = "juzu.asset_key";
+
   /** . */
-  public static final Set<String> NAMES = Collections.unmodifiableSet(Tools.set(INJECT, APP_NAME, REQUEST_ENCODING));
+  public static final Set<String> NAMES = Collections.unmodifiableSet(Tools.set(INJECT, APP_NAME, REQUEST_ENCODING, ROUTING_MODE, TEMPLATE_WARMUP, METRICS, FORM_MAX_SIZE, FORM_MAX_PARAMETERS, OUTPUT_BUFFER_SIZE, ASSET_KEY));
 
   /** . */
   public final Name name;
@@ -58,10 +93,38 @@ public class BridgeConfig {
   /** . */
   public final Charset requestEncoding;
 
+  /** . */
+  public final RoutingMode routingMode;
+
+  /** . */
+  public final int templateWarmUp;
+
+  /** . */
+  public final boolean metrics;
+
+  /** . */
+  public final long formMaxSize;
+
+  /** . */
+  public final int formMaxParameters;
+
+  /** . */
+  public final int outputBufferSize;
+
+  /** . */
+  public final String assetKey;
+
   public BridgeConfig(Logger log, Map<String, String> config) throws Exception {
     this.name = getApplicationName(config);
     this.injectorProvider = getInjectImplementation(log, config);
     this.requestEncoding = getRequestEncoding(config);
+    this.routingMode = getRoutingMode(log, config);
+    this.templateWarmUp = getTemplateWarmUp(log, config);
+    this.metrics = getMetrics(config);
+    this.formMaxSize = getLimit(log, config, FORM_MAX_SIZE, FormURLEncodedDecoder.DEFAULT_MAX_SIZE);
+    this.formMaxParameters = (int)getLimit(log, config, FORM_MAX_PARAMETERS, FormURLEncodedDecoder.DEFAULT_MAX_PARAMETERS);
+    this.outputBufferSize = getOutputBufferSize(log, config);
+    this.assetKey = config.get(ASSET_KEY);
   }
 
   private Name getApplicationName(Map<String, String> config) {
@@ -107,4 +170,68 @@ public class BridgeConfig {
     String requestEncodingParam = config.get(REQUEST_ENCODING);
     return requestEncodingParam != null ? Charset.forName(requestEncodingParam) : Tools.ISO_8859_1;
   }
+
+  private RoutingMode getRoutingMode(Logger log, Map<String, String> config) {
+    String routingModeParam = config.get(ROUTING_MODE);
+    if (routingModeParam != null) {
+      RoutingMode routingMode = RoutingMode.parse(routingModeParam.trim());
+      if (routingMode != null) {
+        return routingMode;
+      } else {
+        log.warning("Unknown routing mode " + routingModeParam + " will use " + RoutingMode.TREE.name().toLowerCase());
+      }
+    }
+    return RoutingMode.TREE;
+  }
+
+  private int getTemplateWarmUp(Logger log, Map<String, String> config) {
+    int parallelism = Runtime.getRuntime().availableProcessors();
+    String templateWarmUpParam = config.get(TEMPLATE_WARMUP);
+    if (templateWarmUpParam != null) {
+      try {
+        int value = Integer.parseInt(templateWarmUpParam.trim());
+        if (value >= 0) {
+          return value;
+        }
+      }
+      catch (NumberFormatException ignore) {
+      }
+      log.warning("Invalid template warmup " + templateWarmUpParam + " will use " + parallelism);
+    }
+    return parallelism;
+  }
+
+  private boolean getMetrics(Map<String, String> config) {
+    String metricsParam = config.get(METRICS);
+    return metricsParam != null && Boolean.parseBoolean(metricsParam.trim());
+  }
+
+  private int getOutputBufferSize(Logger log, Map<String, String> config) {
+    String outputBufferSizeParam = config.get(OUTPUT_BUFFER_SIZE);
+    if (outputBufferSizeParam != null) {
+      try {
+        int value = Integer.parseInt(outputBufferSizeParam.trim());
+        if (value >= 4) {
+          return value;
+        }
+      }
+      catch (NumberFormatException ignore) {
+      }
+      log.warning("Invalid output buffer size " + outputBufferSizeParam + " will use " + DEFAULT_OUTPUT_BUFFER_SIZE);
+    }
+    return DEFAULT_OUTPUT_BUFFER_SIZE;
+  }
+
+  private long getLimit(Logger log, Map<String, String> config, String name, long defaultValue) {
+    String limitParam = config.get(name);
+    if (limitParam != null) {
+      try {
+        return Long.parseLong(limitParam.trim());
+      }
+      catch (NumberFormatException ignore) {
+        log.warning("Invalid " + name + " " + limitParam + " will use " + defaultValue);
+      }
+    }
+    return defaultValue;
+  }
 }
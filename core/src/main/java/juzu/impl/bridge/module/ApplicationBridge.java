@@ -27,6 +27,8 @@ import juzu.impl.inject.spi.Injector;
 import juzu.impl.resource.ResourceResolver;
 import juzu.impl.runtime.ApplicationRuntime;
 
+import java.io.Closeable;
+
 /**
  * Bridge an application.
  *
@@ -79,6 +81,33 @@ public class ApplicationBridge extends Bridge {
   }
 
   public boolean refresh(boolean recompile) throws Exception {
+    refreshModule(recompile);
+    boolean refreshed = application.refresh();
+    if (refreshed) {
+      started(application.getApplication());
+    }
+    return refreshed;
+  }
+
+  @Override
+  public Closeable restart() throws Exception {
+    refreshModule(true);
+    Closeable previous = application.restart();
+    if (previous != null) {
+      started(application.getApplication());
+    }
+    return previous;
+  }
+
+  @Override
+  protected void warmUp(Application application) {
+    // In the other run modes the application is refreshed on the request thread after each change
+    if (getRunMode() == RunMode.PROD) {
+      super.warmUp(application);
+    }
+  }
+
+  private void refreshModule(boolean recompile) throws Exception {
 
     if (module == null) {
 
@@ -92,7 +121,7 @@ public class ApplicationBridge extends Bridge {
     }
 
     // For now refresh module first
-    module.runtime.refresh(recompile);
+    module.runtime.refresh(recompile, getMetrics());
 
     //
     if (application == null) {
@@ -104,9 +133,6 @@ public class ApplicationBridge extends Bridge {
           server,
           resolver);
     }
-
-    //
-    return application.refresh();
   }
 
   public Application getApplication() {
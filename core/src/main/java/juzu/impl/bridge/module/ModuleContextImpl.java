@@ -16,6 +16,7 @@
 
 package juzu.impl.bridge.module;
 
+import juzu.impl.bridge.BridgeConfig;
 import juzu.impl.bridge.BridgeContext;
 import juzu.impl.common.JSON;
 import juzu.impl.common.Logger;
@@ -61,7 +62,7 @@ class ModuleContextImpl implements ModuleContext {
     RunMode runMode = bridge.getRunMode();
     if (runMode.isDynamic()) {
       ReadFileSystem<?> sourcePath = bridgeContext.getSourcePath();
-      lifeCycle = new ModuleRuntime.Dynamic(log, Thread.currentThread().getContextClassLoader(), sourcePath);
+      lifeCycle = new ModuleRuntime.Dynamic(log, Thread.currentThread().getContextClassLoader(), sourcePath, getScanInterval(log, bridgeContext));
     } else {
       ReadFileSystem<?> classPath = bridgeContext.getClassPath();
       lifeCycle = new ModuleRuntime.Static(log, Thread.currentThread().getContextClassLoader(), classPath);
@@ -76,6 +77,22 @@ class ModuleContextImpl implements ModuleContext {
     this.runMode = runMode;
   }
 
+  private static long getScanInterval(Logger log, BridgeContext bridgeContext) {
+    String scanIntervalParam = bridgeContext.getInitParameter(BridgeConfig.SCAN_INTERVAL);
+    if (scanIntervalParam != null) {
+      try {
+        long value = Long.parseLong(scanIntervalParam.trim());
+        if (value >= 0) {
+          return value;
+        }
+      }
+      catch (NumberFormatException ignore) {
+      }
+      log.warning("Invalid scan interval " + scanIntervalParam + " will use 0");
+    }
+    return 0;
+  }
+
   public JSON getConfig() throws Exception {
     ClassLoader classLoader = getClassLoader();
     URL cfg = classLoader.getResource("juzu/config.json");
@@ -77,6 +77,9 @@ public class ProvidedBridge extends Bridge {
 
       //
       server.register(application);
+
+      //
+      started(application);
     }
     return false;
   }
@@ -19,24 +19,45 @@ import juzu.request.ApplicationContext;
 
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public class ServletApplicationContext implements ApplicationContext {
 
+  /** Bypass the cache of the JDK, the bundles are cached by the context only. */
+  private static final ResourceBundle.Control CONTROL = new ResourceBundle.Control() {
+    @Override
+    public long getTimeToLive(String baseName, Locale locale) {
+      return TTL_DONT_CACHE;
+    }
+  };
+
   /** The classloader associated with the resource bundle. */
   private final ClassLoader classLoader;
 
   /** The optional bundle name. */
   private final String bundleName;
 
+  /** The resolved bundles, a new context is created when the application is refreshed. */
+  private final ConcurrentHashMap<Locale, ResourceBundle> bundles;
+
   public ServletApplicationContext(ClassLoader classLoader, String bundleName) {
     this.classLoader = classLoader;
     this.bundleName = bundleName;
+    this.bundles = new ConcurrentHashMap<Locale, ResourceBundle>();
   }
 
   public ResourceBundle resolveBundle(Locale locale) {
     if (bundleName != null) {
-      return ResourceBundle.getBundle(bundleName, locale, classLoader);
+      ResourceBundle bundle = bundles.get(locale);
+      if (bundle == null) {
+        bundle = ResourceBundle.getBundle(bundleName, locale, classLoader, CONTROL);
+        ResourceBundle previous = bundles.putIfAbsent(locale, bundle);
+        if (previous != null) {
+          bundle = previous;
+        }
+      }
+      return bundle;
     }
     return null;
   }
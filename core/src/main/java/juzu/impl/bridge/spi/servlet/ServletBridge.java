@@ -23,9 +23,11 @@ import juzu.impl.bridge.BridgeContext;
 import juzu.impl.bridge.module.ApplicationBridge;
 import juzu.impl.bridge.provided.ProvidedBridge;
 import juzu.impl.bridge.spi.web.Handler;
+import juzu.impl.common.FormURLEncodedDecoder;
 import juzu.impl.common.JUL;
 import juzu.impl.common.Tools;
 import juzu.impl.common.Logger;
+import juzu.impl.common.RunMode;
 import juzu.impl.common.SimpleMap;
 import juzu.impl.compiler.CompilationException;
 import juzu.impl.fs.spi.ReadFileSystem;
@@ -34,7 +36,9 @@ import juzu.impl.fs.spi.war.WarFileSystem;
 import juzu.impl.inject.spi.Injector;
 import juzu.impl.inject.spi.InjectorProvider;
 import juzu.impl.inject.spi.spring.SpringInjector;
+import juzu.impl.metrics.Metrics;
 import juzu.impl.resource.ResourceResolver;
+import juzu.io.UndeclaredIOException;
 
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletConfig;
@@ -44,11 +48,13 @@ import javax.servlet.UnavailableException;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Iterator;
+import java.util.concurrent.locks.ReentrantLock;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public class ServletBridge extends HttpServlet {
@@ -65,14 +71,20 @@ public class ServletBridge extends HttpServlet {
   /** . */
   private Bridge bridge;
 
-  /** . */
-  private Handler handler;
+  /** The metrics of the application, {@link Metrics#NONE} when they are disabled. */
+  private Metrics metrics;
+
+  /** The current handler, it is replaced when the application is restarted. */
+  private volatile Handler handler;
+
+  /** Guards the refresh of the bridge: a single request refreshes at a time. */
+  private final ReentrantLock refreshLock = new ReentrantLock();
 
   /** . */
   private String bundleName;
 
   /** . */
-  ServletApplicationContext applicationContext;
+  volatile ServletApplicationContext applicationContext;
 
   Bridge getBridge() {
     return bridge;
@@ -129,6 +141,15 @@ public class ServletBridge extends HttpServlet {
             return inject;
           } else if (BridgeConfig.REQUEST_ENCODING.equals(key)) {
             return servletConfig.getServletContext().getInitParameter((String)key);
+          } else if (BridgeConfig.ROUTING_MODE.equals(key) || BridgeConfig.TEMPLATE_WARMUP.equals(key) || BridgeConfig.METRICS.equals(key)
+              || BridgeConfig.FORM_MAX_SIZE.equals(key) || BridgeConfig.FORM_MAX_PARAMETERS.equals(key)
+              || BridgeConfig.OUTPUT_BUFFER_SIZE.equals(key)
+              || BridgeConfig.ASSET_KEY.equals(key)) {
+            String value = servletConfig.getInitParameter((String)key);
+            if (value == null) {
+              value = servletConfig.getServletContext().getInitParameter((String)key);
+            }
+            return value;
           } else {
             return null;
           }
@@ -153,6 +174,7 @@ public class ServletBridge extends HttpServlet {
     }
 
     //
+    this.metrics = config.metrics ? Metrics.create(config.name.toString(), servletConfig.getServletContext().getContextPath()) : Metrics.NONE;
     this.config = config;
     this.handler = null;
     this.path = path;
@@ -174,6 +196,46 @@ public class ServletBridge extends HttpServlet {
     return config.getInitParameter("juzu.app_name");
   }
 
+  /**
+   * Returns the handler to use for the current request, refreshing the application when needed. A single request
+   * refreshes the application at a time, the concurrent requests are served by the current handler until the new
+   * one is started. The application is refreshed once in prod run mode.
+   *
+   * @return the leased handler
+   * @throws Exception any exception
+   */
+  private Handler acquire() throws Exception {
+    Handler handler = this.handler;
+    if (handler == null) {
+      refreshLock.lock();
+      try {
+        if (this.handler == null) {
+          refresh();
+        }
+      }
+      finally {
+        refreshLock.unlock();
+      }
+    } else if (bridge.getRunMode() != RunMode.PROD && refreshLock.tryLock()) {
+      try {
+        refresh();
+      }
+      finally {
+        refreshLock.unlock();
+      }
+    }
+
+    // A retired handler cannot be acquired anymore, we get the handler that replaced it
+    while (true) {
+      handler = this.handler;
+      if (handler == null) {
+        throw new UnavailableException("Application destroyed");
+      } else if (handler.acquire()) {
+        return handler;
+      }
+    }
+  }
+
   private void refresh() throws Exception {
     if (bridge == null) {
 
@@ -254,22 +316,30 @@ public class ServletBridge extends HttpServlet {
       } else {
         bridge = new ApplicationBridge(bridgeContext, this.config, server, resolver, injector);
       }
+      bridge.setMetrics(metrics);
     }
 
     //
-    boolean stale = bridge.refresh();
-    if (stale) {
-      if (handler != null) {
-        Tools.safeClose(handler);
-        handler = null;
-        applicationContext = null;
+    Closeable previous = bridge.restart();
+    if (previous != null && bridge.getRunMode() == RunMode.PROD) {
+      // Load the declared assets of the application in the asset server
+      AssetServer server = (AssetServer)getServletContext().getAttribute("asset.server");
+      if (server != null) {
+        server.preload(bridge.getApplication(), getServletContext());
       }
     }
 
-    //
-    if (handler == null) {
-      this.handler = new Handler(bridge);
+    // Swap the handler, the previous application is stopped once its requests are done
+    if (previous != null || handler == null) {
+      Handler next = new Handler(bridge);
       this.applicationContext = new ServletApplicationContext(getServletContext().getClassLoader(), bundleName);
+      Handler current = handler;
+      this.handler = next;
+      if (current != null) {
+        current.retire(previous);
+      } else {
+        Tools.safeClose(previous);
+      }
     }
   }
 
@@ -277,10 +347,10 @@ public class ServletBridge extends HttpServlet {
   protected void service(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
 
     //
-    ServletRequestContext ctx = new ServletRequestContext(config.requestEncoding, req, resp, path);
+    ServletRequestContext ctx = new ServletRequestContext(config.requestEncoding, config.formMaxSize, config.formMaxParameters, config.outputBufferSize, metrics, req, resp, path);
 
     //
-    ServletWebBridge bridge = new ServletWebBridge(this, ctx);
+    final ServletWebBridge bridge = new ServletWebBridge(this, ctx);
 
     // Do we need to send a server resource ?
     if (ctx.getRequestPath().length() > 1 && !ctx.getRequestPath().startsWith("/WEB-INF/")) {
@@ -293,8 +363,9 @@ public class ServletBridge extends HttpServlet {
     }
 
     //
+    final Handler handler;
     try {
-      refresh();
+      handler = acquire();
     }
     catch (CompilationException e) {
       ctx.send(e);
@@ -308,9 +379,30 @@ public class ServletBridge extends HttpServlet {
     try {
       handler.handle(bridge);
     }
+    catch (UndeclaredIOException e) {
+      // A form exceeding the limits is rejected when its parameters are first accessed
+      if (e.getCause() instanceof FormURLEncodedDecoder.LimitException && !resp.isCommitted()) {
+        resp.sendError(((FormURLEncodedDecoder.LimitException)e.getCause()).getStatus());
+      } else {
+        throw wrap(e);
+      }
+    }
     catch (Throwable throwable) {
       throw wrap(throwable);
     }
+    finally {
+      // The handler is used until the response is sent, for an async response it is released when the request completes
+      ctx.onEnd(new Runnable() {
+        public void run() {
+          try {
+            bridge.flush();
+          }
+          finally {
+            handler.release();
+          }
+        }
+      });
+    }
   }
 
   @Override
@@ -322,9 +414,15 @@ public class ServletBridge extends HttpServlet {
       }
     }
 */
+    Handler handler = this.handler;
     if (handler != null) {
-      Tools.safeClose(handler);
       this.handler = null;
+      Tools.safeClose(handler);
+    }
+    Metrics metrics = this.metrics;
+    if (metrics != null) {
+      this.metrics = Metrics.NONE;
+      metrics.stop();
     }
   }
 }
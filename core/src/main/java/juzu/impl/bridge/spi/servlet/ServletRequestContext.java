@@ -18,27 +18,28 @@ package juzu.impl.bridge.spi.servlet;
 import juzu.asset.AssetLocation;
 import juzu.impl.bridge.spi.web.HttpStream;
 import juzu.impl.bridge.spi.web.WebRequestContext;
-import juzu.impl.common.FormURLEncodedParser;
+import juzu.impl.common.FormURLEncodedDecoder;
 import juzu.impl.common.JUL;
 import juzu.impl.common.Lexers;
 import juzu.impl.common.Logger;
-import juzu.impl.common.Spliterator;
-import juzu.impl.common.Tools;
 import juzu.impl.io.BinaryOutputStream;
+import juzu.impl.metrics.Metrics;
 import juzu.io.Stream;
+import juzu.io.UndeclaredIOException;
 import juzu.request.RequestParameter;
 
 import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpUtils;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /** @author Julien Viet */
 public class ServletRequestContext extends WebRequestContext {
@@ -58,75 +59,100 @@ public class ServletRequestContext extends WebRequestContext {
   /** . */
   final String requestPath;
 
-  /** . */
-  final Map<String, RequestParameter> requestParameters;
+  /** The decoded parameters, lazily computed by {@link #getParameters()}. */
+  private Map<String, RequestParameter> requestParameters;
+
+  /** The failure of the form decoding, the request stream is consumed so it cannot be decoded again. */
+  private FormURLEncodedDecoder.LimitException rejected;
 
   /** . */
   final Charset defaultEncoding;
 
+  /** . */
+  private final long formMaxSize;
+
+  /** . */
+  private final int formMaxParameters;
+
+  /** The size of the buffer coalescing the response output. */
+  private final int outputBufferSize;
+
+  /** The metrics the streamed bytes are reported to. */
+  private final Metrics metrics;
+
   /** . */
   private AsyncContext context;
 
   public ServletRequestContext(
       Charset defaultEncoding,
+      long formMaxSize,
+      int formMaxParameters,
+      int outputBufferSize,
+      Metrics metrics,
       HttpServletRequest req,
       HttpServletResponse resp,
       String path) {
+    this.defaultEncoding = defaultEncoding;
+    this.formMaxSize = formMaxSize;
+    this.formMaxParameters = formMaxParameters;
+    this.outputBufferSize = outputBufferSize;
+    this.metrics = metrics;
+    this.requestPath = req.getRequestURI().substring(req.getContextPath().length());
+    this.requestParameters = null;
+    this.req = req;
+    this.path = path;
+    this.resp = resp;
+  }
 
-    //
-    Map<String, RequestParameter> requestParameters = Collections.emptyMap();
-    String query = req.getQueryString();
-    if (query != null) {
-      for (Iterator<RequestParameter> i = Lexers.queryParser(query);i.hasNext();) {
-        if (requestParameters.isEmpty()) {
-          requestParameters = new HashMap<String, RequestParameter>();
-        }
-        RequestParameter parameter = i.next();
-        parameter.appendTo(requestParameters);
-      }
+  /**
+   * Returns the parameters of the request, they are decoded on first access and the form body of a post request
+   * is decoded from the request stream.
+   *
+   * @return the request parameters
+   * @throws UndeclaredIOException wrapping a {@link FormURLEncodedDecoder.LimitException} when a limit of the form
+   *         is exceeded
+   */
+  public Map<String, RequestParameter> getParameters() throws UndeclaredIOException {
+    if (rejected != null) {
+      throw new UndeclaredIOException(rejected);
     }
+    if (requestParameters == null) {
 
-    //
-    if ("POST".equals(req.getMethod())) {
-      String contentType = req.getContentType();
-      if (contentType != null && contentType.length() > 0) {
-        Spliterator i = new Spliterator(contentType, ';');
-        if ("application/x-www-form-urlencoded".equals(i.next().trim())) {
-          Charset charset = defaultEncoding;
-          while (i.hasNext()) {
-            String v = i.next().trim();
-            if (v.startsWith("charset=")) {
-              charset = Charset.forName(v.substring("charset=".length()));
-            }
-          }
+      //
+      Map<String, RequestParameter> requestParameters = Collections.emptyMap();
+      String query = req.getQueryString();
+      if (query != null) {
+        requestParameters = Lexers.parseQuery(query);
+      }
+
+      // Decode the form directly from the request stream
+      if ("POST".equals(req.getMethod())) {
+        Charset encoding = FormURLEncodedDecoder.getEncoding(req.getContentType(), defaultEncoding);
+        if (encoding != null) {
+          FormURLEncodedDecoder decoder = new FormURLEncodedDecoder(
+              encoding,
+              formMaxSize,
+              formMaxParameters,
+              requestParameters.isEmpty() ? new HashMap<String, RequestParameter>() : requestParameters);
           try {
-            byte[] bytes = Tools.copy(req.getInputStream(), new ByteArrayOutputStream()).toByteArray();
-            String form = new String(bytes, charset);
-            FormURLEncodedParser parser = new FormURLEncodedParser(defaultEncoding, form, 0, form.length());
-            for (RequestParameter parameter : parser) {
-              if (requestParameters.isEmpty()) {
-                requestParameters = new HashMap<String, RequestParameter>();
-              }
-              parameter.appendTo(requestParameters);
-            }
+            decoder.decode(req.getInputStream());
+          }
+          catch (FormURLEncodedDecoder.LimitException e) {
+            log.info("Rejected form post: " + e.getMessage());
+            throw new UndeclaredIOException(rejected = e);
           }
           catch (IOException e) {
             log.error("Cannot parse form post", e);
           }
+          if (decoder.getParameters().size() > 0) {
+            requestParameters = decoder.getParameters();
+          }
         }
       }
-    }
-
-    //
-    this.defaultEncoding = defaultEncoding;
-    this.requestPath = req.getRequestURI().substring(req.getContextPath().length());
-    this.requestParameters = requestParameters;
-    this.req = req;
-    this.path = path;
-    this.resp = resp;
-  }
 
-  public Map<String, RequestParameter> getParameters() {
+      //
+      this.requestParameters = requestParameters;
+    }
     return requestParameters;
   }
 
@@ -164,6 +190,46 @@ public class ServletRequestContext extends WebRequestContext {
     return context;
   }
 
+  /**
+   * Run a task when the request ends: when the request went async the task is run when the async request completes,
+   * otherwise it is run immediately. It must be called by the thread servicing the request before it returns to the
+   * container, so the async completion is not yet effective.
+   *
+   * @param task the task
+   */
+  synchronized void onEnd(final Runnable task) {
+    if (context != null) {
+      final AtomicBoolean done = new AtomicBoolean();
+      AsyncListener listener = new AsyncListener() {
+        public void onComplete(AsyncEvent event) {
+          end();
+        }
+        public void onError(AsyncEvent event) {
+          end();
+        }
+        public void onTimeout(AsyncEvent event) {
+          // The container completes the request after the timeout
+        }
+        public void onStartAsync(AsyncEvent event) {
+          event.getAsyncContext().addListener(this);
+        }
+        private void end() {
+          if (done.compareAndSet(false, true)) {
+            task.run();
+          }
+        }
+      };
+      try {
+        context.addListener(listener);
+        return;
+      }
+      catch (IllegalStateException e) {
+        log.trace("Async request already completed", e);
+      }
+    }
+    task.run();
+  }
+
   @Override
   public HttpStream getStream(int status) {
     return new ServletStream(status, defaultEncoding);
@@ -187,7 +253,7 @@ public class ServletRequestContext extends WebRequestContext {
     protected Stream getDataStream(boolean create) {
       if (dataStream == null && create) {
         try {
-          dataStream = new BinaryOutputStream(encoding, resp.getOutputStream());
+          dataStream = new BinaryOutputStream(encoding, resp.getOutputStream(), outputBufferSize, metrics);
         }
         catch (IOException e) {
           throw new UnsupportedOperationException("Handle me gracefully", e);
@@ -17,32 +17,45 @@
 package juzu.impl.bridge.spi.servlet;
 
 import juzu.impl.bridge.spi.ScopedContext;
+import juzu.impl.common.JUL;
 import juzu.impl.common.Logger;
 import juzu.impl.inject.Scoped;
 
 import javax.servlet.http.HttpSessionBindingEvent;
 import javax.servlet.http.HttpSessionBindingListener;
-import java.util.Collections;
-import java.util.HashMap;
+import java.io.Serializable;
 import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <p></p>An helper class for managing scoped entries. It implements the {@link javax.servlet.http.HttpSessionBindingListener} interface
  * which invokes the {@link #close()} method when the servlet container invokes the {@link
- * #valueUnbound(javax.servlet.http.HttpSessionBindingEvent)} callback.</p> <p/> <p>At the moment we do not support
- * serialization.</p>
+ * #valueUnbound(javax.servlet.http.HttpSessionBindingEvent)} callback.</p> <p/> <p>The entries can be read and
+ * modified by concurrent requests, for instance the requests of the same session.</p> <p/> <p>The entries are not
+ * serialized, a deserialized context is empty: the session entries are replicated as individual session attributes
+ * by the {@link TrackingScopedContext} and restored from them.</p>
  *
  * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
  */
-public class ServletScopedContext implements ScopedContext, HttpSessionBindingListener {
+public class ServletScopedContext implements ScopedContext, HttpSessionBindingListener, Serializable {
 
   /** . */
-  private HashMap<Object, Scoped> state;
+  private final transient ConcurrentHashMap<Object, Scoped> state;
+
+  /** The attribute name of the keys, see {@link #attributeOf(Object)}. */
+  private final transient ConcurrentHashMap<Object, String> attributes;
+
+  /** The key owning an attribute name. */
+  private final transient ConcurrentHashMap<String, Object> owners;
 
   /** . */
-  private final Logger log;
+  private final transient Logger log;
 
   public ServletScopedContext(Logger log) {
+    this.state = new ConcurrentHashMap<Object, Scoped>();
+    this.attributes = new ConcurrentHashMap<Object, String>();
+    this.owners = new ConcurrentHashMap<String, Object>();
     this.log = log;
   }
 
@@ -50,7 +63,7 @@ public class ServletScopedContext implements ScopedContext, HttpSessionBindingLi
     if (key == null) {
       throw new NullPointerException("No null key accepted");
     }
-    return state != null ? state.get(key) : null;
+    return state.get(key);
   }
 
   public void set(Object key, Scoped scoped) throws NullPointerException {
@@ -58,24 +71,55 @@ public class ServletScopedContext implements ScopedContext, HttpSessionBindingLi
       throw new NullPointerException("No null key accepted");
     }
     if (scoped == null) {
-      if (state != null) {
-        state.remove(key);
-      }
+      state.remove(key);
     }
     else {
-      if (state == null) {
-        state = new HashMap<Object, Scoped>();
-      }
       state.put(key, scoped);
     }
   }
 
+  Set<Object> keys() {
+    return state.keySet();
+  }
+
+  /**
+   * Returns the name identifying a key across the nodes of a cluster, it is computed once per key from the key
+   * string value, such as a Spring bean name or a Guice key. A key whose name is already owned by another key has
+   * no name and is not replicated.
+   *
+   * @param key the key
+   * @return the key name or null
+   */
+  String attributeOf(Object key) {
+    String attribute = attributes.get(key);
+    if (attribute == null) {
+      attribute = key.toString();
+      Object owner = owners.putIfAbsent(attribute, key);
+      if (owner != null && !owner.equals(key)) {
+        log.info("Entry " + key + " is not replicated as its name is used by " + owner);
+        attribute = "";
+      }
+      attributes.put(key, attribute);
+    }
+    return attribute.length() > 0 ? attribute : null;
+  }
+
+  /**
+   * Returns the key owning the specified name or null when the name was not yet computed on this node.
+   *
+   * @param attribute the key name
+   * @return the key
+   */
+  Object keyOf(String attribute) {
+    return owners.get(attribute);
+  }
+
   public int size() {
-    return state != null ? state.size() : 0;
+    return state.size();
   }
 
   public Iterator<Scoped> iterator() {
-    return state == null ? Collections.<Scoped>emptyList().iterator() : state.values().iterator();
+    return state.values().iterator();
   }
 
   public void valueBound(HttpSessionBindingEvent event) {
@@ -87,10 +131,9 @@ public class ServletScopedContext implements ScopedContext, HttpSessionBindingLi
   }
 
   public void close() {
-    if (state != null && state.size() > 0) {
-      for (Iterator<Scoped> i = state.values().iterator();i.hasNext();) {
-        Scoped scoped = i.next();
-        i.remove();
+    for (Object key : state.keySet()) {
+      Scoped scoped = state.remove(key);
+      if (scoped != null) {
         try {
           scoped.destroy();
         }
@@ -100,4 +143,8 @@ public class ServletScopedContext implements ScopedContext, HttpSessionBindingLi
       }
     }
   }
+
+  private Object readResolve() {
+    return new ServletScopedContext(JUL.getLogger(ServletScopedContext.class.getName()));
+  }
 }
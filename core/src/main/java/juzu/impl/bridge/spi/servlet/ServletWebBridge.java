@@ -50,6 +50,12 @@ public class ServletWebBridge extends WebBridge implements HttpContext, ClientCo
   /** . */
   private final ServletBridge servlet;
 
+  /** . */
+  private TrackingScopedContext flashScope;
+
+  /** . */
+  private TrackingScopedContext sessionScope;
+
   public ServletWebBridge(ServletBridge servlet, ServletRequestContext ctx) {
     this.ctx = ctx;
     this.method = Method.valueOf(ctx.req.getMethod());
@@ -134,30 +140,53 @@ public class ServletWebBridge extends WebBridge implements HttpContext, ClientCo
   }
 
   public ScopedContext getFlashScope(boolean create) {
-    ScopedContext context = null;
-    HttpSession session = ctx.req.getSession(create);
-    if (session != null) {
-      context = (ScopedContext)session.getAttribute("juzu.flash_scope");
-      if (context == null && create) {
-        session.setAttribute("juzu.flash_scope", context = new ServletScopedContext(getLogger(ServletScopedContext.class.getName())));
-      }
+    if (flashScope == null) {
+      flashScope = getScope("juzu.flash_scope", create);
     }
-    return context;
+    return flashScope;
   }
 
   public ScopedContext getSessionScope(boolean create) {
-    ScopedContext context = null;
+    if (sessionScope == null) {
+      sessionScope = getScope("juzu.session_scope", create);
+    }
+    return sessionScope;
+  }
+
+  private TrackingScopedContext getScope(String name, boolean create) {
     HttpSession session = ctx.req.getSession(create);
     if (session != null) {
-      context = (ScopedContext)session.getAttribute("juzu.session_scope");
+      ServletScopedContext context = (ServletScopedContext)session.getAttribute(name);
       if (context == null && create) {
-        session.setAttribute("juzu.session_scope", context = new ServletScopedContext(getLogger(ServletScopedContext.class.getName())));
+        session.setAttribute(name, context = new ServletScopedContext(getLogger(ServletScopedContext.class.getName())));
+      }
+      if (context != null) {
+        return new TrackingScopedContext(name, context, session);
       }
     }
-    return context;
+    return null;
+  }
+
+  /**
+   * Replicate the session entries modified by the request, this is called when the request ends.
+   */
+  void flush() {
+    try {
+      if (flashScope != null) {
+        flashScope.flush();
+      }
+      if (sessionScope != null) {
+        sessionScope.flush();
+      }
+    }
+    catch (IllegalStateException ignore) {
+      // Session was invalidated
+    }
   }
 
   public void purgeSession() {
+    flashScope = null;
+    sessionScope = null;
     HttpSession session = ctx.req.getSession(false);
     if (session != null) {
       for (String key : Tools.list(session.getAttributeNames())) {
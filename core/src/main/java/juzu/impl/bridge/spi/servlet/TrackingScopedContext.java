@@ -0,0 +1,187 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.servlet;
+
+import juzu.impl.bridge.spi.ScopedContext;
+import juzu.impl.common.Tools;
+import juzu.impl.inject.Scoped;
+
+import javax.servlet.http.HttpSession;
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The view of a session {@link ServletScopedContext} for a single request. The serializable entries are replicated
+ * as individual session attributes named after the scope name and the entry name, those attributes are the state
+ * of the scope: the session is checked when the view is created and the entries replicated or modified by another
+ * node are restored from their attribute, for instance after a fail over. The entries read, set or removed by the
+ * request are tracked and {@link #flush()} sets them again as session attributes when the request ends, so a
+ * replicating container ships only the entries the request could have modified, including the beans modified
+ * through their own methods.
+ *
+ * <p>The Guice and Spring entries are serializable, the CDI entries are not replicated.</p>
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+class TrackingScopedContext implements ScopedContext {
+
+  /** Marks a removed entry. */
+  private static final Scoped REMOVED = new Scoped() {
+    public Object get() {
+      return null;
+    }
+    public void destroy() {
+    }
+  };
+
+  /** . */
+  final String name;
+
+  /** . */
+  final ServletScopedContext context;
+
+  /** . */
+  final HttpSession session;
+
+  /** The replicated entries whose key is not yet known on this node, they are restored when they are looked up. */
+  private final ConcurrentHashMap<String, Scoped> replicated;
+
+  /** The entries read by the request. */
+  private final ConcurrentHashMap<Object, Scoped> read;
+
+  /** The entries set or removed by the request. */
+  private final ConcurrentHashMap<Object, Scoped> dirty;
+
+  /** True when the scope was closed by the request. */
+  private volatile boolean closed;
+
+  TrackingScopedContext(String name, ServletScopedContext context, HttpSession session) {
+    this.name = name;
+    this.context = context;
+    this.session = session;
+    this.replicated = new ConcurrentHashMap<String, Scoped>();
+    this.read = new ConcurrentHashMap<Object, Scoped>();
+    this.dirty = new ConcurrentHashMap<Object, Scoped>();
+
+    //
+    String prefix = name + ".";
+    try {
+      for (String attribute : Tools.list(session.getAttributeNames())) {
+        if (attribute.startsWith(prefix)) {
+          Object value = session.getAttribute(attribute);
+          if (value instanceof Scoped) {
+            String id = attribute.substring(prefix.length());
+            Object key = context.keyOf(id);
+            if (key == null) {
+              replicated.put(id, (Scoped)value);
+            } else if (context.get(key) != value) {
+              // The entry was replicated or modified by another node
+              context.set(key, (Scoped)value);
+            }
+          }
+        }
+      }
+    }
+    catch (IllegalStateException ignore) {
+      // Session was invalidated
+    }
+  }
+
+  public Scoped get(Object key) throws NullPointerException {
+    Scoped scoped = dirty.get(key);
+    if (scoped != null) {
+      return scoped != REMOVED ? scoped : null;
+    }
+    scoped = context.get(key);
+    if (scoped == null && !replicated.isEmpty()) {
+      String id = context.attributeOf(key);
+      if (id != null) {
+        scoped = replicated.remove(id);
+        if (scoped != null) {
+          context.set(key, scoped);
+        }
+      }
+    }
+    if (scoped != null) {
+      read.put(key, scoped);
+    }
+    return scoped;
+  }
+
+  public void set(Object key, Scoped scoped) throws NullPointerException {
+    context.set(key, scoped);
+    dirty.put(key, scoped != null ? scoped : REMOVED);
+  }
+
+  public int size() {
+    return context.size();
+  }
+
+  public Iterator<Scoped> iterator() {
+    return context.iterator();
+  }
+
+  public void close() {
+    for (Object key : context.keys()) {
+      dirty.put(key, REMOVED);
+    }
+    replicated.clear();
+    closed = true;
+    context.close();
+  }
+
+  /**
+   * Set the read and dirty entries as session attributes and clear the tracked state, when the scope was closed
+   * the attributes of the scope are removed.
+   */
+  void flush() {
+    String prefix = name + ".";
+    if (closed) {
+      closed = false;
+      for (String attribute : Tools.list(session.getAttributeNames())) {
+        if (attribute.startsWith(prefix)) {
+          session.removeAttribute(attribute);
+        }
+      }
+    }
+    for (Object key : dirty.keySet()) {
+      Scoped scoped = dirty.remove(key);
+      read.remove(key);
+      String id = context.attributeOf(key);
+      if (id != null) {
+        if (isSerializable(scoped)) {
+          session.setAttribute(prefix + id, scoped);
+        }
+        else {
+          session.removeAttribute(prefix + id);
+        }
+      }
+    }
+    for (Object key : read.keySet()) {
+      Scoped scoped = read.remove(key);
+      String id = context.attributeOf(key);
+      if (id != null && isSerializable(scoped)) {
+        session.setAttribute(prefix + id, scoped);
+      }
+    }
+  }
+
+  private static boolean isSerializable(Scoped scoped) {
+    return scoped instanceof Serializable && scoped.get() instanceof Serializable;
+  }
+}
@@ -17,17 +17,24 @@
 package juzu.impl.bridge.spi.web;
 
 import juzu.impl.bridge.Bridge;
+import juzu.impl.common.Logger;
+import juzu.impl.common.Tools;
 import juzu.impl.common.MethodHandle;
 import juzu.impl.common.UriBuilder;
+import juzu.impl.metrics.Metrics;
+import juzu.impl.plugin.application.Application;
 import juzu.impl.plugin.controller.ControllerPlugin;
 import juzu.impl.plugin.router.RouteDescriptor;
 import juzu.impl.plugin.router.RouterPlugin;
 import juzu.impl.request.Method;
 import juzu.request.RequestParameter;
 import juzu.impl.router.PathParam;
+import juzu.impl.router.ReverseRoute;
 import juzu.impl.router.Route;
+import juzu.impl.router.RouteAutomaton;
 import juzu.impl.router.RouteMatch;
 import juzu.impl.router.Router;
+import juzu.impl.router.RoutingMode;
 import juzu.request.Phase;
 
 import java.io.Closeable;
@@ -35,6 +42,7 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public class Handler implements Closeable {
@@ -51,6 +59,9 @@ public class Handler implements Closeable {
   /** . */
   final Bridge bridge;
 
+  /** The application served by this handler, it does not change when the bridge is refreshed. */
+  final Application application;
+
   /** . */
   final Route root;
 
@@ -60,8 +71,30 @@ public class Handler implements Closeable {
   /** . */
   final HashMap<Route, Map<Phase, MethodHandle>> backwardRoutes;
 
+  /** The reverse routes used for rendering the dispatch urls. */
+  final HashMap<MethodHandle, ReverseRoute> reverseRoutes;
+
+  /** . */
+  final ReverseRoute reverseRoot;
+
+  /** . */
+  final RoutingMode routingMode;
+
+  /** The automaton compiled from the root route or null in tree mode. */
+  final RouteAutomaton automaton;
+
+  /** . */
+  private final Logger log;
+
+  /** The number of leases: the requests being handled plus one until the handler is retired. */
+  private final AtomicInteger leases;
+
+  /** Closed when the last lease is released. */
+  private volatile Closeable release;
+
   public Handler(Bridge bridge) throws Exception {
     this.bridge = bridge;
+    this.application = bridge.getApplication();
 
     //
     HashMap<MethodHandle, Route> forwardRoutes = new HashMap<MethodHandle, Route>();
@@ -69,7 +102,7 @@ public class Handler implements Closeable {
 
     //
     Route root;
-    RouterPlugin router = bridge.getApplication().resolveBean(RouterPlugin.class);
+    RouterPlugin router = application.resolveBean(RouterPlugin.class);
     if (router != null) {
       RouteDescriptor route = router.getDescriptor();
       if (route != null) {
@@ -94,10 +127,33 @@ public class Handler implements Closeable {
       root = new Router();
     }
 
+    //
+    // Compute the reverse routes, a route targeted by several methods has a single reverse route
+    HashMap<MethodHandle, ReverseRoute> reverseRoutes = new HashMap<MethodHandle, ReverseRoute>();
+    HashMap<Route, ReverseRoute> reverses = new HashMap<Route, ReverseRoute>();
+    ReverseRoute reverseRoot = new ReverseRoute(root);
+    reverses.put(root, reverseRoot);
+    for (Map.Entry<MethodHandle, Route> entry : forwardRoutes.entrySet()) {
+      ReverseRoute reverse = reverses.get(entry.getValue());
+      if (reverse == null) {
+        reverses.put(entry.getValue(), reverse = new ReverseRoute(entry.getValue()));
+      }
+      reverseRoutes.put(entry.getKey(), reverse);
+    }
+
+    //
+    RoutingMode routingMode = bridge.getConfig().routingMode;
+
     //
     this.forwardRoutes = forwardRoutes;
     this.backwardRoutes = backwardRoutes;
+    this.reverseRoutes = reverseRoutes;
+    this.reverseRoot = reverseRoot;
     this.root = root;
+    this.routingMode = routingMode;
+    this.automaton = routingMode != RoutingMode.TREE ? new RouteAutomaton(root) : null;
+    this.log = bridge.context.getLogger(Handler.class.getName());
+    this.leases = new AtomicInteger(1);
   }
 
   public Map<Phase, MethodHandle> getMethods(Route route) {
@@ -108,15 +164,96 @@ public class Handler implements Closeable {
     return forwardRoutes.get(method);
   }
 
+  public ReverseRoute getReverseRoute(MethodHandle method) {
+    return reverseRoutes.get(method);
+  }
+
   public Route getRoot() {
     return root;
   }
 
+  public ReverseRoute getReverseRoot() {
+    return reverseRoot;
+  }
+
   public Bridge getBridge() {
     return bridge;
   }
 
+  public Application getApplication() {
+    return application;
+  }
+
+  /**
+   * Acquire a lease on this handler for handling a request, the lease must be released with {@link #release()}.
+   *
+   * @return false when the handler is retired and cannot be used anymore
+   */
+  public boolean acquire() {
+    while (true) {
+      int current = leases.get();
+      if (current == 0) {
+        return false;
+      } else if (leases.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Release a lease, the handler release closeable is closed when the handler is retired and this is the last lease.
+   */
+  public void release() {
+    if (leases.decrementAndGet() == 0) {
+      Tools.safeClose(release);
+    }
+  }
+
+  /**
+   * Retire the handler: the release closeable is closed as soon as the requests using this handler are done.
+   *
+   * @param release the release closeable, it can be null
+   */
+  public void retire(Closeable release) {
+    this.release = release;
+    release();
+  }
+
+  /**
+   * Match the path according to the routing mode.
+   *
+   * @param path the path
+   * @return the match or null
+   */
+  RouteMatch route(String path) {
+    switch (routingMode) {
+      case COMPILED:
+        return automaton.route(path);
+      case CHECKED:
+        RouteMatch expected = root.route(path);
+        RouteMatch actual = automaton.route(path);
+        if (expected == null ? actual != null : (actual == null || expected.getRoute() != actual.getRoute() || !expected.getMatched().equals(actual.getMatched()))) {
+          log.warning("Compiled routing of " + path + " matched " + (actual != null ? actual.getRoute() + " " + actual.getMatched() : null) +
+              " instead of " + (expected != null ? expected.getRoute() + " " + expected.getMatched() : null));
+        }
+        return expected;
+      default:
+        return root.route(path);
+    }
+  }
+
   public void handle(WebBridge bridge) throws Throwable {
+    Metrics metrics = this.bridge.getMetrics();
+    long start = metrics.time();
+    try {
+      doHandle(bridge);
+    }
+    finally {
+      metrics.handled(start);
+    }
+  }
+
+  private void doHandle(WebBridge bridge) throws Throwable {
 
     //
     String requestPath = bridge.getRequestContext().getRequestPath();
@@ -124,7 +261,7 @@ public class Handler implements Closeable {
     // Determine first a possible match from the root route from the request path
     RouteMatch requestMatch = null;
     if (requestPath.startsWith(bridge.getRequestContext().getPath())) {
-      requestMatch = root.route(requestPath.substring(bridge.getRequestContext().getPath().length()), Collections.<String, String[]>emptyMap());
+      requestMatch = route(requestPath.substring(bridge.getRequestContext().getPath().length()));
     }
 
     // Determine a method + parameters if we have a match
@@ -144,7 +281,7 @@ public class Handler implements Closeable {
         for (Phase phase : phases) {
           MethodHandle handle = m.get(phase);
           if (handle != null) {
-            requestMethod =  this.bridge.getApplication().resolveBean(ControllerPlugin.class).getDescriptor().getMethodByHandle(handle);
+            requestMethod =  application.resolveBean(ControllerPlugin.class).getDescriptor().getMethodByHandle(handle);
             if (requestMatch.getMatched().size() > 0 || bridge.getRequestContext().getParameters().size() > 0) {
               requestParameters = new HashMap<String, RequestParameter>();
               for (RequestParameter requestParameter : bridge.getRequestContext().getParameters().values()) {
@@ -165,7 +302,7 @@ public class Handler implements Closeable {
     // or we look for the handler method
     if (requestMethod == null) {
       // If we have an handler we locate the index method
-      requestMethod = this.bridge.getApplication().resolveBean(ControllerPlugin.class).getResolver().resolve(Phase.VIEW, Collections.<String>emptySet());
+      requestMethod = application.resolveBean(ControllerPlugin.class).getResolver().resolve(Phase.VIEW, Collections.<String>emptySet());
     }
 
     // No method -> not found
@@ -215,5 +352,6 @@ public class Handler implements Closeable {
   }
 
   public void close() throws IOException {
+    retire(null);
   }
 }
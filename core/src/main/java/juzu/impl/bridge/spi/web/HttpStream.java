@@ -16,15 +16,17 @@
 package juzu.impl.bridge.spi.web;
 
 import juzu.PropertyType;
+import juzu.impl.common.Tools;
 import juzu.io.Chunk;
 import juzu.io.Stream;
 
+import java.io.Flushable;
 import java.nio.charset.Charset;
 import java.util.LinkedList;
 import java.util.Map;
 
 /** @author Julien Viet */
-public abstract class HttpStream implements AsyncStream {
+public abstract class HttpStream implements AsyncStream, Flushable {
 
   /** . */
   private static final int STATUS_BUFFERING = 0;
@@ -75,6 +77,8 @@ public abstract class HttpStream implements AsyncStream {
           mimeType = (String)property.value;
         } else if (property.type == PropertyType.HEADER) {
           headers.addLast((Map.Entry<String, String[]>)property.value);
+        } else if (property.type == PropertyType.STATUS) {
+          setStatusCode((Integer)property.value);
         }
       } else if (chunk instanceof Chunk.Data) {
         sendHeaders();
@@ -90,6 +94,15 @@ public abstract class HttpStream implements AsyncStream {
 
   protected abstract Stream getDataStream(boolean create);
 
+  public void flush() {
+    if (status == STATUS_STREAMING) {
+      Stream dataStream = getDataStream(true);
+      if (dataStream instanceof Flushable) {
+        Tools.safeFlush((Flushable)dataStream);
+      }
+    }
+  }
+
   private void sendHeaders() {
     if (mimeType != null) {
       context.setContentType(mimeType, encoding);
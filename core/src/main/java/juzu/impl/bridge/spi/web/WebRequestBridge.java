@@ -38,9 +38,7 @@ import juzu.impl.bridge.spi.ScopedContext;
 import juzu.impl.request.Request;
 import juzu.impl.bridge.spi.RequestBridge;
 import juzu.impl.common.Tools;
-import juzu.impl.router.PathParam;
-import juzu.impl.router.Route;
-import juzu.impl.router.RouteMatch;
+import juzu.impl.router.ReverseRoute;
 import juzu.request.ApplicationContext;
 import juzu.request.HttpContext;
 import juzu.request.Phase;
@@ -51,9 +49,7 @@ import juzu.request.WindowContext;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.RejectedExecutionException;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
@@ -190,31 +186,31 @@ public abstract class WebRequestBridge implements RequestBridge, WindowContext {
   }
 
   public final DispatchBridge createDispatch(Phase phase, final MethodHandle target, final Map<String, ResponseParameter> parameters) {
-    Method method = bridge.getApplication().resolveBean(ControllerPlugin.class).getDescriptor().getMethodByHandle(target);
+    Method method = handler.getApplication().resolveBean(ControllerPlugin.class).getDescriptor().getMethodByHandle(target);
 
     //
-    Route route = handler.getRoute(method.getHandle());
-    if (route == null) {
-      if (bridge.getApplication().resolveBean(ControllerPlugin.class).getResolver().isIndex(method)) {
-        route = handler.getRoot();
-      }
+    ReverseRoute mapped = handler.getReverseRoute(method.getHandle());
+    final ReverseRoute route;
+    if (mapped == null && handler.getApplication().resolveBean(ControllerPlugin.class).getResolver().isIndex(method)) {
+      route = handler.getReverseRoot();
+    } else {
+      route = mapped;
     }
 
     //
     if (route != null) {
-      Map<String, String> params;
-      if (parameters.isEmpty()) {
-        params = Collections.emptyMap();
-      } else {
-        params = new HashMap<String, String>(parameters.size());
-        for (ResponseParameter parameter : parameters.values()) {
-          params.put(parameter.getName(), parameter.get(0));
+
+      // Collect the values of the path parameters
+      final String[] values = route.createValues();
+      for (int i = 0;i < values.length;i++) {
+        ResponseParameter parameter = parameters.get(route.getName(i));
+        if (parameter != null) {
+          values[i] = parameter.get(0);
         }
       }
 
       //
-      final RouteMatch match = route.matches(params);
-      if (match != null) {
+      if (route.match(values)) {
         return new DispatchBridge() {
 
           public MethodHandle getTarget() {
@@ -237,17 +233,11 @@ public abstract class WebRequestBridge implements RequestBridge, WindowContext {
 
             // Render path
             UriBuilder writer = new UriBuilder(appendable, mimeType);
-            match.render(writer);
-
-            // Retain matched parameters for filtering later
-            Set<String> matched = match.getMatched().isEmpty() ? Collections.<String>emptySet() : new HashSet<String>(match.getMatched().size());
-            for (PathParam param : match.getMatched().keySet()) {
-              matched.add(param.getName());
-            }
+            route.render(values, writer);
 
             // Render remaining parameters which have not been rendered yet
             for (ResponseParameter parameter : parameters.values()) {
-              if (!matched.contains(parameter.getName())) {
+              if (route.indexOf(parameter.getName()) == -1) {
                 for (int i = 0;i < parameter.size();i++) {
                   writer.appendQueryParameter(parameter.getEncoding(), parameter.getName(), parameter.get(i));
                 }
@@ -284,7 +274,7 @@ public abstract class WebRequestBridge implements RequestBridge, WindowContext {
 
   void invoke() throws Exception {
     try {
-      bridge.getApplication().resolveBean(ControllerPlugin.class).invoke(this);
+      handler.getApplication().resolveBean(ControllerPlugin.class).invoke(this);
     } finally {
       Tools.safeClose(this);
     }
@@ -303,7 +293,7 @@ public abstract class WebRequestBridge implements RequestBridge, WindowContext {
       Phase.View.Dispatch update = (Phase.View.Dispatch)view.dispatch;
       Boolean redirect = view.properties.getValue(PropertyType.REDIRECT_AFTER_ACTION);
       if (redirect != null && !redirect) {
-        Method<?> desc = this.bridge.getApplication().resolveBean(ControllerPlugin.class).getDescriptor().getMethodByHandle(update.getTarget());
+        Method<?> desc = handler.getApplication().resolveBean(ControllerPlugin.class).getDescriptor().getMethodByHandle(update.getTarget());
         Map<String, RequestParameter> rp = Collections.emptyMap();
         for (ResponseParameter parameter : update.getParameters().values()) {
           if (rp.isEmpty()) {
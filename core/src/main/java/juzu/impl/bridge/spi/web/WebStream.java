@@ -27,13 +27,14 @@ import juzu.io.Chunk;
 import juzu.io.Stream;
 import org.w3c.dom.Element;
 
+import java.io.Flushable;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
 
 /** @author Julien Viet */
-public abstract class WebStream implements AsyncStream {
+public abstract class WebStream implements AsyncStream, Flushable {
 
   /** . */
   private static final int BUFFERING = 0;
@@ -133,6 +134,12 @@ public abstract class WebStream implements AsyncStream {
 
   public abstract String renderAssetURL(AssetLocation location, String uri);
 
+  public void flush() {
+    if (status == STREAMING) {
+      stream.flush();
+    }
+  }
+
   public void close(Thread.UncaughtExceptionHandler errorHandler) {
     if (status != CLOSED) {
       try {
@@ -273,7 +280,7 @@ public abstract class WebStream implements AsyncStream {
       for (Iterator<Module> i = modules.iterator(); i.hasNext();) {
         Module path = i.next();
         buffer.append("\"").append(path.getId()).append("\":\"");
-        String uri = path.getUri();
+        String uri = path.getBundle() != null ? path.getBundle() : path.getUri();
         uri = uri.substring(0, uri.lastIndexOf(".js"));
         buffer.append(renderAssetURL(path.getLocation(), uri));
         buffer.append("\"");
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package juzu.impl.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The dependency information of a class file: the class name, the source file name, the super types, the classes
+ * referenced from the constant pool and whether the class declares constant fields. Class names are in the internal
+ * form, for instance <code>java/lang/Object</code>.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+public final class ClassFile {
+
+  /**
+   * Parse a class file.
+   *
+   * @param bytes the class file bytes
+   * @return the class file
+   * @throws IOException when the bytes are not a valid class file
+   */
+  public static ClassFile parse(byte[] bytes) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+    if (in.readInt() != 0xCAFEBABE) {
+      throw new IOException("Not a class file");
+    }
+    in.readUnsignedShort();
+    in.readUnsignedShort();
+
+    // Constant pool
+    int count = in.readUnsignedShort();
+    String[] utf8 = new String[count];
+    int[] classes = new int[count];
+    for (int i = 1;i < count;i++) {
+      int tag = in.readUnsignedByte();
+      switch (tag) {
+        case 1:
+          utf8[i] = in.readUTF();
+          break;
+        case 7:
+          classes[i] = in.readUnsignedShort();
+          break;
+        case 8:
+        case 16:
+          in.readUnsignedShort();
+          break;
+        case 15:
+          in.readUnsignedByte();
+          in.readUnsignedShort();
+          break;
+        case 3:
+        case 4:
+        case 9:
+        case 10:
+        case 11:
+        case 12:
+        case 18:
+          in.readInt();
+          break;
+        case 5:
+        case 6:
+          in.readLong();
+          i++;
+          break;
+        default:
+          throw new IOException("Invalid constant pool tag " + tag);
+      }
+    }
+
+    //
+    in.readUnsignedShort();
+    int thisClass = in.readUnsignedShort();
+    HashSet<String> supertypes = new HashSet<String>();
+    int superClass = in.readUnsignedShort();
+    if (superClass != 0) {
+      supertypes.add(utf8[classes[superClass]]);
+    }
+    for (int i = in.readUnsignedShort();i > 0;i--) {
+      supertypes.add(utf8[classes[in.readUnsignedShort()]]);
+    }
+
+    // Fields, a constant field has a ConstantValue attribute
+    boolean constants = false;
+    for (int i = in.readUnsignedShort();i > 0;i--) {
+      in.skipBytes(6);
+      for (int j = in.readUnsignedShort();j > 0;j--) {
+        String name = utf8[in.readUnsignedShort()];
+        in.skipBytes(in.readInt());
+        constants |= "ConstantValue".equals(name);
+      }
+    }
+
+    // Methods
+    for (int i = in.readUnsignedShort();i > 0;i--) {
+      in.skipBytes(6);
+      skipAttributes(in);
+    }
+    String sourceFile = null;
+    for (int i = in.readUnsignedShort();i > 0;i--) {
+      String name = utf8[in.readUnsignedShort()];
+      int length = in.readInt();
+      if ("SourceFile".equals(name)) {
+        sourceFile = utf8[in.readUnsignedShort()];
+      } else {
+        in.skipBytes(length);
+      }
+    }
+
+    //
+    String name = utf8[classes[thisClass]];
+    HashSet<String> references = new HashSet<String>();
+    for (int i = 1;i < count;i++) {
+      if (classes[i] != 0 && i != thisClass) {
+        String ref = utf8[classes[i]];
+        if (ref.startsWith("[")) {
+          int pos = ref.indexOf('L');
+          if (pos == -1) {
+            continue;
+          }
+          ref = ref.substring(pos + 1, ref.length() - 1);
+        }
+        references.add(ref);
+      }
+    }
+    return new ClassFile(name, sourceFile, Collections.unmodifiableSet(supertypes), Collections.unmodifiableSet(references), constants);
+  }
+
+  private static void skipAttributes(DataInputStream in) throws IOException {
+    for (int i = in.readUnsignedShort();i > 0;i--) {
+      in.readUnsignedShort();
+      in.skipBytes(in.readInt());
+    }
+  }
+
+  /** . */
+  private final String name;
+
+  /** . */
+  private final String sourceFile;
+
+  /** . */
+  private final Set<String> supertypes;
+
+  /** . */
+  private final Set<String> references;
+
+  /** . */
+  private final boolean constants;
+
+  private ClassFile(String name, String sourceFile, Set<String> supertypes, Set<String> references, boolean constants) {
+    this.name = name;
+    this.sourceFile = sourceFile;
+    this.supertypes = supertypes;
+    this.references = references;
+    this.constants = constants;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the source file name or null when the class file does not provide it.
+   *
+   * @return the source file name
+   */
+  public String getSourceFile() {
+    return sourceFile;
+  }
+
+  /**
+   * Returns the classes referenced by this class.
+   *
+   * @return the referenced classes
+   */
+  public Set<String> getReferences() {
+    return references;
+  }
+
+  /**
+   * Returns the super class and the interfaces of this class.
+   *
+   * @return the super types
+   */
+  public Set<String> getSupertypes() {
+    return supertypes;
+  }
+
+  /**
+   * Returns true when this class declares constant fields, the value of a constant field is inlined by the compiler
+   * in the classes using it, so they don't reference this class.
+   *
+   * @return true when this class declares constants
+   */
+  public boolean hasConstants() {
+    return constants;
+  }
+}
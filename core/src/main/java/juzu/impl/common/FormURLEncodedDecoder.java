@@ -0,0 +1,309 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.common;
+
+import juzu.request.RequestParameter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Map;
+
+/**
+ * Decodes an <code>application/x-www-form-urlencoded</code> body incrementally: the bytes are pushed with
+ * {@link #decode(byte[], int, int)} as they are received and each parameter is decoded as soon as its
+ * delimiter is met, the body is never copied as a whole. The size of the body and the number of decoded
+ * parameters are bounded, a {@link LimitException} is thrown when a limit is exceeded.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+public class FormURLEncodedDecoder {
+
+  /**
+   * Signals a limit of the form is exceeded, the decoded parameters are partial and must not be used.
+   */
+  public static class LimitException extends IOException {
+
+    /** . */
+    private final int status;
+
+    public LimitException(String message, int status) {
+      super(message);
+
+      //
+      this.status = status;
+    }
+
+    /**
+     * @return the http status to answer: 413 when the body is too large, 400 when there are too many parameters
+     */
+    public int getStatus() {
+      return status;
+    }
+  }
+
+  /** The default maximum body size: 2MB. */
+  public static final long DEFAULT_MAX_SIZE = 2 * 1024 * 1024;
+
+  /** The default maximum number of parameters. */
+  public static final int DEFAULT_MAX_PARAMETERS = 10000;
+
+  /**
+   * Returns the encoding of a form body with the specified content type or null when the content type is not
+   * <code>application/x-www-form-urlencoded</code>. A charset that is not valid or not supported falls back to
+   * the default encoding.
+   *
+   * @param contentType the content type
+   * @param defaultEncoding the encoding to use when the content type does not specify one
+   * @return the encoding or null
+   */
+  public static Charset getEncoding(String contentType, Charset defaultEncoding) {
+    if (contentType != null && contentType.length() > 0) {
+      Spliterator i = new Spliterator(contentType, ';');
+      if ("application/x-www-form-urlencoded".equals(i.next().trim())) {
+        Charset encoding = defaultEncoding;
+        while (i.hasNext()) {
+          String v = i.next().trim();
+          if (v.startsWith("charset=")) {
+            try {
+              encoding = Charset.forName(v.substring("charset=".length()));
+            }
+            catch (IllegalArgumentException ignore) {
+              // Illegal or unsupported charset
+            }
+          }
+        }
+        return encoding;
+      }
+    }
+    return null;
+  }
+
+  /** . */
+  private final Charset encoding;
+
+  /** . */
+  private final long maxSize;
+
+  /** . */
+  private final int maxParameters;
+
+  /** . */
+  private final Map<String, RequestParameter> parameters;
+
+  /** The bytes of the current parameter. */
+  private byte[] buffer;
+
+  /** The length of the current parameter. */
+  private int length;
+
+  /** The position of the first <code>=</code> in the current parameter or -1. */
+  private int equals;
+
+  /** The decoded bytes. */
+  private byte[] decoded;
+
+  /** . */
+  private long size;
+
+  /** . */
+  private int count;
+
+  /**
+   * Create a new decoder.
+   *
+   * @param encoding the encoding of the decoded bytes
+   * @param maxSize the maximum body size or a negative value for no limit
+   * @param maxParameters the maximum number of parameters or a negative value for no limit
+   * @param parameters the map receiving the decoded parameters
+   * @throws NullPointerException if any argument is null
+   */
+  public FormURLEncodedDecoder(
+      Charset encoding,
+      long maxSize,
+      int maxParameters,
+      Map<String, RequestParameter> parameters) throws NullPointerException {
+    if (encoding == null) {
+      throw new NullPointerException("No null encoding accepted");
+    }
+    if (parameters == null) {
+      throw new NullPointerException("No null parameters accepted");
+    }
+
+    //
+    this.encoding = encoding;
+    this.maxSize = maxSize;
+    this.maxParameters = maxParameters;
+    this.parameters = parameters;
+    this.buffer = new byte[64];
+    this.length = 0;
+    this.equals = -1;
+    this.decoded = new byte[64];
+    this.size = 0;
+    this.count = 0;
+  }
+
+  /**
+   * @return the map receiving the decoded parameters
+   */
+  public Map<String, RequestParameter> getParameters() {
+    return parameters;
+  }
+
+  /**
+   * Decode a chunk of the body.
+   *
+   * @param bytes the bytes
+   * @param off the offset
+   * @param len the length
+   * @throws LimitException when a limit is exceeded
+   */
+  public void decode(byte[] bytes, int off, int len) throws LimitException {
+    size += len;
+    if (maxSize >= 0 && size > maxSize) {
+      throw new LimitException("Form body exceeds the maximum size of " + maxSize + " bytes", 413);
+    }
+    int to = off + len;
+    while (off < to) {
+      int from = off;
+      while (off < to && bytes[off] != '&') {
+        off++;
+      }
+      append(bytes, from, off - from);
+      if (off < to) {
+        flush();
+        off++;
+      }
+    }
+  }
+
+  /**
+   * Decode the remaining bytes of a stream and {@link #end()} the decoding.
+   *
+   * @param in the stream
+   * @throws IOException any io exception or when a limit is exceeded
+   */
+  public void decode(InputStream in) throws IOException {
+    byte[] chunk = new byte[1024];
+    for (int len = in.read(chunk);len != -1;len = in.read(chunk)) {
+      decode(chunk, 0, len);
+    }
+    end();
+  }
+
+  /**
+   * Signals the end of the body and decode the last parameter.
+   *
+   * @throws LimitException when a limit is exceeded
+   */
+  public void end() throws LimitException {
+    flush();
+  }
+
+  private void append(byte[] bytes, int off, int len) {
+    if (length + len > buffer.length) {
+      byte[] tmp = new byte[Math.max(buffer.length * 2, length + len)];
+      System.arraycopy(buffer, 0, tmp, 0, length);
+      buffer = tmp;
+    }
+    for (int i = 0;i < len;i++) {
+      byte b = bytes[off + i];
+      if (b == '=' && equals == -1) {
+        equals = length + i;
+      }
+      buffer[length + i] = b;
+    }
+    length += len;
+  }
+
+  private void flush() throws LimitException {
+    if (length > 0) {
+      RequestParameter parameter = null;
+      if (equals == -1) {
+        String name = decode(0, length);
+        if (name != null) {
+          parameter = RequestParameter.create(name, "");
+        }
+      } else if (equals > 0) {
+        String value = decode(equals + 1, length);
+        if (value != null) {
+          String name = decode(0, equals);
+          if (name != null) {
+            parameter = RequestParameter.create(name, new String(buffer, equals + 1, length - equals - 1, encoding), value);
+          }
+        }
+      }
+      length = 0;
+      equals = -1;
+      if (parameter != null) {
+        if (maxParameters >= 0 && ++count > maxParameters) {
+          throw new LimitException("Form exceeds the maximum number of " + maxParameters + " parameters", 400);
+        }
+        parameter.appendTo(parameters);
+      }
+    }
+  }
+
+  /**
+   * Decode a range of the current parameter.
+   *
+   * @param from the start index
+   * @param to the end index
+   * @return the decoded string or null when the range is not well encoded
+   */
+  private String decode(int from, int to) {
+    if (decoded.length < to - from) {
+      decoded = new byte[buffer.length];
+    }
+    int len = 0;
+    while (from < to) {
+      byte b = buffer[from];
+      if (b == '%') {
+        if (from + 2 < to) {
+          int i1 = hex(buffer[from + 1]);
+          int i2 = hex(buffer[from + 2]);
+          if (i1 == -1 || i2 == -1) {
+            return null;
+          }
+          decoded[len++] = (byte)(i1 * 0x10 + i2);
+          from += 3;
+        } else {
+          return null;
+        }
+      } else {
+        // change + character to recover space character
+        decoded[len++] = b == '+' ? (byte)' ' : b;
+        from++;
+      }
+    }
+    return new String(decoded, 0, len, encoding);
+  }
+
+  private static int hex(byte b) {
+    if (b >= '0' && b <= '9') {
+      return b - '0';
+    }
+    else if (b >= 'A' && b <= 'F') {
+      return b + 10 - 'A';
+    }
+    else if (b >= 'a' && b <= 'f') {
+      return b + 10 - 'a';
+    } else {
+      return -1;
+    }
+  }
+}
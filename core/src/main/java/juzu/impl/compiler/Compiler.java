@@ -24,7 +24,7 @@ import juzu.impl.fs.Filter;
 import juzu.impl.fs.Visitor;
 import juzu.impl.fs.spi.ReadFileSystem;
 import juzu.impl.fs.spi.ReadWriteFileSystem;
-import juzu.impl.fs.spi.ram.RAMFileSystem;
+import juzu.impl.fs.spi.filter.FilterFileSystem;
 import juzu.impl.common.Location;
 import juzu.impl.common.Spliterator;
 
@@ -248,22 +248,9 @@ public class Compiler {
   }
 
   public void compile(String... compilationUnits) throws IOException, CompilationException {
-    // Copy anything that is not a java file
-    RAMFileSystem sourcePath1 = new RAMFileSystem();
-    sourcePath.copy(new Filter() {
-      public boolean acceptDir(Object dir, String name) throws IOException {
-        return true;
-      }
-
-      public boolean acceptFile(Object file, String name) throws IOException {
-        return !name.endsWith(".java");
-      }
-    }, sourcePath1);
-
-    //
     VirtualFileManager fileManager = new VirtualFileManager(
       javaCompiler.getStandardFileManager(null, null, null),
-      sourcePath1,
+      withoutSources(sourcePath),
       classPaths,
       sourceOutput,
       classOutput
@@ -276,6 +263,19 @@ public class Compiler {
     compile(fileManager, files);
   }
 
+  /**
+   * Returns a view of the file system without the java files, so the compiler does not compile sources that were not
+   * specified. The resources retain their timestamps.
+   */
+  private static <P> ReadFileSystem<P> withoutSources(ReadFileSystem<P> fs) {
+    return new FilterFileSystem<P>(fs, new Filter.Default<P>() {
+      @Override
+      public boolean acceptFile(P file, String name) throws IOException {
+        return !name.endsWith(".java");
+      }
+    });
+  }
+
   private <P> Collection<JavaFileObject> getFromSourcePath(ReadFileSystem<P> fs, String... compilationUnits) throws IOException {
     SimpleFileManager<P> manager = new SimpleFileManager<P>(StandardLocation.SOURCE_PATH, fs);
     ArrayList<String> tmp = new ArrayList<String>();
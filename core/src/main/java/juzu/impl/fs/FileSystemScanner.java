@@ -20,9 +20,12 @@ import juzu.impl.fs.spi.ReadFileSystem;
 import juzu.impl.common.Content;
 import juzu.impl.common.Tools;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Set;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public abstract class FileSystemScanner<P> implements Filter<P> {
@@ -35,6 +38,10 @@ public abstract class FileSystemScanner<P> implements Filter<P> {
     return new Hash<P>(fs);
   }
 
+  public static <P> FileSystemScanner<P> createStamped(ReadFileSystem<P> fs) {
+    return new Stamped<P>(fs);
+  }
+
   public static class Timestamped<P> extends FileSystemScanner<P> {
     public Timestamped(ReadFileSystem<P> fs) {
       super(fs);
@@ -70,6 +77,44 @@ public abstract class FileSystemScanner<P> implements Filter<P> {
     }
   }
 
+  /**
+   * A scanner detecting modifications like the hashing scanner, however the content of a file is hashed only when
+   * its timestamp or its size changed since the previous scan. A timestamp too close to the time of the scan
+   * cannot be trusted since a subsequent modification could have the same timestamp, so the file is hashed again
+   * until it was scanned long enough after its last modification.
+   */
+  public static class Stamped<P> extends Hash<P> {
+
+    /** The delay after which a timestamp can be trusted. */
+    static final long RACY_DELAY = 2000;
+
+    /** The file states: last modified, size, hash and trusted flag. */
+    private final HashMap<String, long[]> states = new HashMap<String, long[]>();
+
+    public Stamped(ReadFileSystem<P> fs) {
+      super(fs);
+    }
+
+    @Override
+    protected long stampOf(String id, P file) throws IOException {
+      long lastModified = fs.getLastModified(file);
+      File f = fs.getFile(file);
+      long size = f != null ? f.length() : -1;
+      long[] state = states.get(id);
+      if (state == null || state[3] == 0 || state[0] != lastModified || state[1] != size) {
+        long hash = stampOf(file);
+        long trusted = System.currentTimeMillis() - lastModified >= RACY_DELAY ? 1 : 0;
+        states.put(id, state = new long[]{lastModified, size, hash, trusted});
+      }
+      return state[2];
+    }
+
+    @Override
+    void scanned(Set<String> ids) {
+      states.keySet().retainAll(ids);
+    }
+  }
+
   /** . */
   protected final ReadFileSystem<P> fs;
 
@@ -98,6 +143,26 @@ public abstract class FileSystemScanner<P> implements Filter<P> {
 
   protected abstract long stampOf(P file) throws IOException;
 
+  /**
+   * Returns the stamp of a file identified by its path.
+   *
+   * @param id the file path
+   * @param file the file
+   * @return the file stamp
+   * @throws IOException any io exception
+   */
+  protected long stampOf(String id, P file) throws IOException {
+    return stampOf(file);
+  }
+
+  /**
+   * Signals the end of a scan.
+   *
+   * @param ids the scanned file paths
+   */
+  void scanned(Set<String> ids) {
+  }
+
   protected abstract boolean isModified(long snapshot, long current);
 
 }
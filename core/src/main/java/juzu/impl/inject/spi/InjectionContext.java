@@ -70,6 +70,18 @@ public abstract class InjectionContext<B, C> implements Closeable {
    */
   public abstract Object getInstance(B bean, C context) throws InvocationTargetException;
 
+  /**
+   * Returns true when the bean has a single instance for the life time of this context: the instance can then be
+   * retained by the caller instead of being obtained again for each access. The default implementation returns
+   * false.
+   *
+   * @param bean the bean
+   * @return true when the bean is a singleton
+   */
+  public boolean isSingleton(B bean) {
+    return false;
+  }
+
   /**
    * Close the manager. The implementation should care bout shutting down the existing bean in particular the
    * singleton beans that are managed outside of an explicit scope.
@@ -118,6 +130,16 @@ public abstract class InjectionContext<B, C> implements Closeable {
     }
   }
 
+  /**
+   * Returns a life cycle creating an instance of the specified bean.
+   *
+   * @param bean the bean
+   * @return the bean life cycle
+   */
+  public final BeanLifeCycle<Object> getLifeCycle(B bean) {
+    return new BeanLifeCycleImpl<B, C, Object>(Object.class, this, bean);
+  }
+
   public final <T> Iterable<BeanLifeCycle<T>> resolve(final Class<T> type) {
     final Iterable<B> a = resolveBeans(type);
     return new Iterable<BeanLifeCycle<T>>() {
@@ -26,6 +26,7 @@ import javax.enterprise.context.spi.CreationalContext;
 import javax.enterprise.inject.CreationException;
 import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.inject.spi.BeanManager;
+import javax.inject.Singleton;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -127,6 +128,11 @@ public abstract class CDIContext extends InjectionContext<Bean<?>, CreationalCon
     }
   }
 
+  @Override
+  public boolean isSingleton(Bean<?> bean) {
+    return bean.getScope() == Singleton.class;
+  }
+
   public void close() {
   }
 }
@@ -18,8 +18,10 @@ package juzu.impl.inject.spi.guice;
 
 import juzu.impl.inject.Scoped;
 
+import java.io.Serializable;
+
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
-public class GuiceScoped implements Scoped {
+public class GuiceScoped implements Scoped, Serializable {
 
   /** . */
   final Object o;
@@ -126,6 +126,11 @@ public class SpringContext extends InjectionContext<String, Object> {
     return context;
   }
 
+  @Override
+  public boolean isSingleton(String bean) {
+    return factory.isSingleton(bean);
+  }
+
   public void releaseContext(String bean, Object context) {
     if (factory.isPrototype(bean)) {
       factory.destroyBean(bean, context);
@@ -19,11 +19,17 @@ package juzu.impl.inject.spi.spring;
 import juzu.impl.inject.Scoped;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 
-/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
-class SpringScoped implements Scoped {
+import java.io.Serializable;
+
+/**
+ * A scoped spring bean, the factory and the destruction callback are not serialized.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+class SpringScoped implements Scoped, Serializable {
 
   /** . */
-  final DefaultListableBeanFactory factory;
+  final transient DefaultListableBeanFactory factory;
 
   /** . */
   final String bean;
@@ -32,7 +38,7 @@ class SpringScoped implements Scoped {
   Object o;
 
   /** . */
-  Runnable destructionCallback;
+  transient Runnable destructionCallback;
 
   SpringScoped(DefaultListableBeanFactory factory, String bean) {
     this.factory = factory;
@@ -71,7 +71,10 @@ public class AppendableStream extends CharStream {
     Tools.safeClose(closeable);
   }
 
-  public void flush() throws IOException {
-    Tools.safeFlush(flushable);
+  @Override
+  protected void doFlush() throws IOException {
+    if (flushable != null) {
+      flushable.flush();
+    }
   }
 }
@@ -16,6 +16,7 @@
 package juzu.impl.io;
 
 import juzu.impl.common.Tools;
+import juzu.impl.metrics.Metrics;
 
 import java.io.IOException;
 import java.io.OutputStream;
@@ -27,28 +28,68 @@ public class BinaryOutputStream extends BinaryStream {
   /** . */
   private final OutputStream out;
 
+  /** The metrics the streamed bytes are reported to. */
+  private final Metrics metrics;
+
+  /** The number of bytes written to the output stream. */
+  private long written;
+
   public BinaryOutputStream(Charset charset, OutputStream out) {
     super(charset);
 
     //
     this.out = out;
+    this.metrics = Metrics.NONE;
   }
 
-  @Override
-  public void append(byte[] data, int off, int len) throws IOException {
-    out.write(data, off, len);
+  /**
+   * Create a binary output stream coalescing the written bytes in a buffer of the specified size.
+   *
+   * @param charset the charset
+   * @param out the output stream
+   * @param bufferSize the buffer size
+   */
+  public BinaryOutputStream(Charset charset, OutputStream out, int bufferSize) {
+    this(charset, out, bufferSize, Metrics.NONE);
+  }
+
+  /**
+   * Create a binary output stream coalescing the written bytes in a buffer of the specified size and reporting
+   * the streamed bytes to the specified metrics when it is closed.
+   *
+   * @param charset the charset
+   * @param out the output stream
+   * @param bufferSize the buffer size
+   * @param metrics the metrics
+   */
+  public BinaryOutputStream(Charset charset, OutputStream out, int bufferSize, Metrics metrics) {
+    super(charset, bufferSize, true);
+
+    //
+    this.out = out;
+    this.metrics = metrics;
   }
 
   @Override
-  public void append(byte[] data) throws IOException {
-    out.write(data);
+  protected void write(byte[] data, int off, int len) throws IOException {
+    out.write(data, off, len);
+    written += len;
   }
 
-  public void flush() {
-    Tools.safeFlush(out);
+  @Override
+  protected void doFlush() throws IOException {
+    super.doFlush();
+    out.flush();
   }
 
-  public void close() {
-    Tools.safeClose(out);
+  public void close() throws IOException {
+    try {
+      flushBuffer();
+    }
+    finally {
+      Tools.safeClose(out);
+      metrics.streamed(written);
+      written = 0;
+    }
   }
 }
@@ -15,9 +15,11 @@
  */
 package juzu.impl.io;
 
+import juzu.io.Chunk;
 import juzu.io.OutputStream;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
@@ -25,62 +27,115 @@ import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
 
-/** @author Julien Viet */
+/**
+ * A stream encoding chars to bytes. The bytes are encoded in a buffer reused for the life time of the stream and
+ * written with the {@link #write(byte[], int, int)} method:
+ * <ul>
+ *   <li>the UTF-8, ISO-8859-1 and US-ASCII charsets are encoded directly in the buffer, other charsets use a
+ *   charset encoder.</li>
+ *   <li>when the stream coalesces, the buffer is written only when it is full or when the stream is flushed or
+ *   closed, otherwise the buffer is written after each append.</li>
+ * </ul>
+ * The unmappable and malformed chars are ignored.
+ *
+ * @author Julien Viet
+ */
 public abstract class BinaryStream extends OutputStream {
 
+  /** . */
+  private static final int UTF_8 = 0;
+
+  /** . */
+  private static final int ISO_8859_1 = 1;
+
+  /** . */
+  private static final int US_ASCII = 2;
+
+  /** . */
+  private static final int OTHER = 3;
+
   /** Charset. */
   private final Charset charset;
 
+  /** The charset kind. */
+  private final int kind;
+
   /** Encoder. */
   private CharsetEncoder encoder;
 
-  /** . */
+  /** The buffer. */
+  private final byte[] buffer;
+
+  /** The buffer wrapped for the charset encoder. */
   private ByteBuffer bb;
 
-  /** The cached buffer for single char conversion. */
-  private CharBuffer single;
+  /** The buffer size. */
+  private int size;
+
+  /** . */
+  private final boolean coalesce;
+
+  /** A high surrogate waiting for its low surrogate. */
+  private char high;
 
   protected BinaryStream(Charset charset) {
+    this(charset, BUFFER_SIZE, false);
+  }
+
+  /**
+   * Create a new binary stream.
+   *
+   * @param charset the charset
+   * @param bufferSize the buffer size
+   * @param coalesce true when the written bytes are coalesced in the buffer
+   * @throws IllegalArgumentException if the buffer size is lower than 4
+   */
+  protected BinaryStream(Charset charset, int bufferSize, boolean coalesce) throws IllegalArgumentException {
+    if (bufferSize < 4) {
+      throw new IllegalArgumentException("Buffer size " + bufferSize + " cannot be lower than 4");
+    }
+
+    //
+    String name = charset.name();
+    int kind;
+    if ("UTF-8".equals(name)) {
+      kind = UTF_8;
+    } else if ("ISO-8859-1".equals(name)) {
+      kind = ISO_8859_1;
+    } else if ("US-ASCII".equals(name)) {
+      kind = US_ASCII;
+    } else {
+      kind = OTHER;
+    }
+
+    //
     this.charset = charset;
+    this.kind = kind;
+    this.buffer = new byte[bufferSize];
+    this.coalesce = coalesce;
   }
 
+  /**
+   * Write bytes to the underlying output.
+   *
+   * @param data the data
+   * @param off the offset
+   * @param len the length
+   * @throws IOException any io exception
+   */
+  protected abstract void write(byte[] data, int off, int len) throws IOException;
+
   public void append(CharBuffer buffer) throws IOException {
-    if (buffer.hasRemaining()) {
-      if (encoder == null) {
-        encoder = charset.newEncoder().onUnmappableCharacter(CodingErrorAction.REPORT).onMalformedInput(CodingErrorAction.IGNORE);
-        bb = ByteBuffer.allocate(BUFFER_SIZE);
-      } else {
-        encoder.reset();
-      }
-      while (true) {
-        CoderResult result ;
-        result = buffer.hasRemaining() ? encoder.encode(buffer, bb, true) : encoder.flush(bb);
-        if (result.isUnderflow() || result.isOverflow()) {
-          bb.flip();
-          if (bb.hasRemaining()) {
-            append(bb);
-          }
-          bb.clear();
-          if (result.isUnderflow()) {
-            if (buffer.remaining() > 0) {
-              throw new UnsupportedOperationException("We don't support this case yet");
-            } else {
-              break;
-            }
-          }
-        } else {
-          if (result.isUnmappable()) {
-            buffer.position(buffer.position() + result.length());
-          } else {
-            throw new UnsupportedOperationException("We don't support this case yet (2) " + result);
-          }
-        }
+    if (buffer.hasArray()) {
+      int offset = buffer.arrayOffset();
+      encode(buffer.array(), offset + buffer.position(), offset + buffer.limit());
+      buffer.position(buffer.limit());
+    } else {
+      while (buffer.hasRemaining()) {
+        encode(buffer.get());
       }
     }
-  }
-
-  public void append(ByteBuffer buffer) throws IOException {
-    append(bb.array(), bb.arrayOffset() + bb.position(), bb.limit() - bb.arrayOffset());
+    done();
   }
 
   public void append(CharSequence csq) throws IOException {
@@ -88,17 +143,211 @@ public abstract class BinaryStream extends OutputStream {
   }
 
   public void append(CharSequence csq, int start, int end) throws IOException {
-    append(CharBuffer.wrap(csq, start, end));
+    if (kind == OTHER) {
+      encode(CharBuffer.wrap(csq, start, end));
+    } else if (csq instanceof String) {
+      String s = (String)csq;
+      for (int i = start;i < end;i++) {
+        encode(s.charAt(i));
+      }
+    } else {
+      for (int i = start;i < end;i++) {
+        encode(csq.charAt(i));
+      }
+    }
+    done();
   }
 
   public void append(char c) throws IOException {
-    if (single == null) {
-      single = CharBuffer.allocate(1);
+    encode(c);
+    done();
+  }
+
+  public void append(ByteBuffer buffer) throws IOException {
+    if (buffer.hasArray()) {
+      append(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+      buffer.position(buffer.limit());
+    } else {
+      while (buffer.hasRemaining()) {
+        int len = Math.min(this.buffer.length - size, buffer.remaining());
+        buffer.get(this.buffer, size, len);
+        size += len;
+        if (size == this.buffer.length) {
+          flushBuffer();
+        }
+      }
+      done();
+    }
+  }
+
+  public void append(byte[] data) throws IOException {
+    append(data, 0, data.length);
+  }
+
+  public void append(byte[] data, int off, int len) throws IOException {
+    if (len > buffer.length - size) {
+      flushBuffer();
+    }
+    if (len >= buffer.length) {
+      write(data, off, len);
+    } else {
+      System.arraycopy(data, off, buffer, size, len);
+      size += len;
+      done();
+    }
+  }
+
+  /**
+   * Append the bytes of the text encoded with the charset of this stream.
+   *
+   * @param text the text
+   * @throws IOException any io exception
+   */
+  @Override
+  protected void append(Chunk.Data.Text text) throws IOException {
+    high = 0;
+    append(text.getBytes(charset));
+  }
+
+  @Override
+  protected void append(InputStream in) throws IOException {
+    while (true) {
+      int len = in.read(buffer, size, buffer.length - size);
+      if (len == -1) {
+        break;
+      }
+      size += len;
+      if (size == buffer.length) {
+        flushBuffer();
+      }
+    }
+    done();
+  }
+
+  /**
+   * Write the bytes of the buffer.
+   *
+   * @throws IOException any io exception
+   */
+  protected final void flushBuffer() throws IOException {
+    if (size > 0) {
+      int len = size;
+      size = 0;
+      write(buffer, 0, len);
+    }
+  }
+
+  @Override
+  protected void doFlush() throws IOException {
+    flushBuffer();
+  }
+
+  /**
+   * Write the buffer when the stream does not coalesce.
+   */
+  private void done() throws IOException {
+    if (!coalesce) {
+      flushBuffer();
+    }
+  }
+
+  /**
+   * Make room for the specified amount of bytes in the buffer.
+   */
+  private void ensure(int len) throws IOException {
+    if (size + len > buffer.length) {
+      flushBuffer();
+    }
+  }
+
+  private void encode(char[] chars, int from, int to) throws IOException {
+    if (kind == OTHER) {
+      encode(CharBuffer.wrap(chars, from, to - from));
     } else {
-      single.compact();
+      for (int i = from;i < to;i++) {
+        encode(chars[i]);
+      }
+    }
+  }
+
+  private void encode(char c) throws IOException {
+    switch (kind) {
+      case UTF_8:
+        if (c < 0x80) {
+          high = 0;
+          ensure(1);
+          buffer[size++] = (byte)c;
+        } else if (c < 0x800) {
+          high = 0;
+          ensure(2);
+          buffer[size++] = (byte)(0xC0 | (c >> 6));
+          buffer[size++] = (byte)(0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+          high = c;
+        } else if (Character.isLowSurrogate(c)) {
+          if (high != 0) {
+            int cp = Character.toCodePoint(high, c);
+            high = 0;
+            ensure(4);
+            buffer[size++] = (byte)(0xF0 | (cp >> 18));
+            buffer[size++] = (byte)(0x80 | ((cp >> 12) & 0x3F));
+            buffer[size++] = (byte)(0x80 | ((cp >> 6) & 0x3F));
+            buffer[size++] = (byte)(0x80 | (cp & 0x3F));
+          }
+        } else {
+          high = 0;
+          ensure(3);
+          buffer[size++] = (byte)(0xE0 | (c >> 12));
+          buffer[size++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+          buffer[size++] = (byte)(0x80 | (c & 0x3F));
+        }
+        break;
+      case ISO_8859_1:
+        if (c < 0x100) {
+          ensure(1);
+          buffer[size++] = (byte)c;
+        }
+        break;
+      case US_ASCII:
+        if (c < 0x80) {
+          ensure(1);
+          buffer[size++] = (byte)c;
+        }
+        break;
+      default:
+        encode(CharBuffer.wrap(new char[]{c}));
+        break;
+    }
+  }
+
+  private void encode(CharBuffer chars) throws IOException {
+    if (encoder == null) {
+      encoder = charset.newEncoder().onUnmappableCharacter(CodingErrorAction.IGNORE).onMalformedInput(CodingErrorAction.IGNORE);
+      bb = ByteBuffer.wrap(buffer);
+    } else {
+      encoder.reset();
+    }
+    while (true) {
+      bb.limit(buffer.length);
+      bb.position(size);
+      CoderResult result = encoder.encode(chars, bb, true);
+      size = bb.position();
+      if (result.isOverflow()) {
+        flushBuffer();
+      } else {
+        break;
+      }
+    }
+    while (true) {
+      bb.limit(buffer.length);
+      bb.position(size);
+      CoderResult result = encoder.flush(bb);
+      size = bb.position();
+      if (result.isOverflow()) {
+        flushBuffer();
+      } else {
+        break;
+      }
     }
-    single.put(c);
-    single.flip();
-    append(single);
   }
 }
@@ -19,6 +19,7 @@ package juzu.impl.io;
 import juzu.io.Chunk;
 import juzu.io.Stream;
 
+import java.io.Flushable;
 import java.util.LinkedList;
 
 /**
@@ -26,7 +27,7 @@ import java.util.LinkedList;
  *
  * @author Julien Viet
  */
-public final class SafeStream implements Stream {
+public final class SafeStream implements Stream, Flushable {
 
   /** . */
   private LinkedList<Exception> errors;
@@ -54,6 +55,17 @@ public final class SafeStream implements Stream {
     }
   }
 
+  public void flush() {
+    try {
+      if (delegate instanceof Flushable) {
+        ((Flushable)delegate).flush();
+      }
+    }
+    catch (Exception e) {
+      log(e);
+    }
+  }
+
   public void close(Thread.UncaughtExceptionHandler errorHandler) {
     try {
       delegate.close(errorHandler);
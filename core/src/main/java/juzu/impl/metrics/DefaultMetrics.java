@@ -0,0 +1,267 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.metrics;
+
+import juzu.impl.common.JUL;
+import juzu.impl.common.Logger;
+import juzu.impl.request.Method;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The default metrics: the measures are recorded in {@link Histogram} and {@link Counter} objects exposed as
+ * MBeans of the platform MBean server under the <code>juzu</code> domain, the histograms of controller methods
+ * and templates are registered when their first measure is recorded. The names are qualified by the
+ * <code>application</code> and <code>context</code> keys, each application of a JVM has its own metrics and
+ * its own names.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+public class DefaultMetrics extends Metrics {
+
+  /** . */
+  private static final Logger log = JUL.getLogger(DefaultMetrics.class.getName());
+
+  /** . */
+  private final MBeanServer server;
+
+  /** The registered names. */
+  private final ConcurrentMap<ObjectName, Boolean> names;
+
+  /** The latency of controller methods by method id. */
+  private final ConcurrentMap<String, Histogram> requests;
+
+  /** The render time of templates by template id. */
+  private final ConcurrentMap<String, Histogram> templates;
+
+  /** . */
+  final Histogram handler;
+
+  /** The time spent in the filter chains. */
+  final Histogram filters;
+
+  /** . */
+  final Counter bytes;
+
+  /** . */
+  final Histogram assets;
+
+  /** . */
+  final Counter assetHits;
+
+  /** . */
+  final Counter assetMisses;
+
+  /** . */
+  final Histogram refresh;
+
+  /** . */
+  final Histogram compile;
+
+  /** The name prefix qualifying the metrics of the application, set when started. */
+  private volatile String prefix;
+
+  /** True when started. */
+  private volatile boolean started;
+
+  public DefaultMetrics() {
+    this(ManagementFactory.getPlatformMBeanServer());
+  }
+
+  /**
+   * Create the metrics with a specified MBean server.
+   *
+   * @param server the MBean server or null to not expose the metrics
+   */
+  public DefaultMetrics(MBeanServer server) {
+    this.server = server;
+    this.names = new ConcurrentHashMap<ObjectName, Boolean>();
+    this.requests = new ConcurrentHashMap<String, Histogram>();
+    this.templates = new ConcurrentHashMap<String, Histogram>();
+    this.handler = new Histogram();
+    this.filters = new Histogram();
+    this.bytes = new Counter();
+    this.assets = new Histogram();
+    this.assetHits = new Counter();
+    this.assetMisses = new Counter();
+    this.refresh = new Histogram();
+    this.compile = new Histogram();
+    this.started = false;
+  }
+
+  public Histogram getRequest(String methodId) {
+    return requests.get(methodId);
+  }
+
+  public Histogram getTemplate(String templateId) {
+    return templates.get(templateId);
+  }
+
+  public Histogram getHandler() {
+    return handler;
+  }
+
+  public Histogram getFilters() {
+    return filters;
+  }
+
+  public Counter getBytes() {
+    return bytes;
+  }
+
+  public Histogram getAssets() {
+    return assets;
+  }
+
+  public Counter getAssetHits() {
+    return assetHits;
+  }
+
+  public Counter getAssetMisses() {
+    return assetMisses;
+  }
+
+  public Histogram getRefresh() {
+    return refresh;
+  }
+
+  public Histogram getCompile() {
+    return compile;
+  }
+
+  @Override
+  protected void start(String application, String context) {
+    prefix = "juzu:application=" + ObjectName.quote(String.valueOf(application)) +
+        ",context=" + ObjectName.quote(String.valueOf(context));
+    started = true;
+    register("Handler", null, handler);
+    register("Filters", null, filters);
+    register("Stream", "bytes", bytes);
+    register("Asset", "latency", assets);
+    register("Asset", "hits", assetHits);
+    register("Asset", "misses", assetMisses);
+    register("Module", "refresh", refresh);
+    register("Module", "compile", compile);
+    for (Map.Entry<String, Histogram> request : requests.entrySet()) {
+      register("Request", request.getKey(), request.getValue());
+    }
+    for (Map.Entry<String, Histogram> template : templates.entrySet()) {
+      register("Template", template.getKey(), template.getValue());
+    }
+  }
+
+  @Override
+  public void stop() {
+    started = false;
+    if (server != null) {
+      for (ObjectName name : names.keySet()) {
+        try {
+          server.unregisterMBean(name);
+        }
+        catch (Exception e) {
+          log.debug("Could not unregister metrics " + name, e);
+        }
+      }
+    }
+    names.clear();
+  }
+
+  @Override
+  public void handled(long start) {
+    if (start != 0) {
+      handler.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public void invoked(Method<?> method, long start, long dispatch) {
+    if (start != 0) {
+      long elapsed = System.nanoTime() - start;
+      histogram(requests, "Request", method.getId()).record(elapsed);
+      filters.record(elapsed - dispatch);
+    }
+  }
+
+  @Override
+  public void rendered(String templateId, long start) {
+    if (start != 0) {
+      histogram(templates, "Template", templateId).record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public void streamed(long bytes) {
+    this.bytes.add(bytes);
+  }
+
+  @Override
+  public void served(boolean hit, long start) {
+    if (start != 0) {
+      assets.record(System.nanoTime() - start);
+      (hit ? assetHits : assetMisses).add(1);
+    }
+  }
+
+  @Override
+  public void refreshed(long start) {
+    if (start != 0) {
+      refresh.record(System.nanoTime() - start);
+    }
+  }
+
+  @Override
+  public void compiled(long start) {
+    if (start != 0) {
+      compile.record(System.nanoTime() - start);
+    }
+  }
+
+  private Histogram histogram(ConcurrentMap<String, Histogram> histograms, String type, String name) {
+    Histogram histogram = histograms.get(name);
+    if (histogram == null) {
+      Histogram previous = histograms.putIfAbsent(name, histogram = new Histogram());
+      if (previous != null) {
+        histogram = previous;
+      } else if (started) {
+        register(type, name, histogram);
+      }
+    }
+    return histogram;
+  }
+
+  private void register(String type, String name, Object mbean) {
+    if (server != null) {
+      StringBuilder sb = new StringBuilder(prefix).append(",type=").append(type);
+      if (name != null) {
+        sb.append(",name=").append(ObjectName.quote(name));
+      }
+      try {
+        ObjectName objectName = new ObjectName(sb.toString());
+        server.registerMBean(mbean, objectName);
+        names.put(objectName, Boolean.TRUE);
+      }
+      catch (Exception e) {
+        log.warning("Could not register metrics " + sb, e);
+      }
+    }
+  }
+}
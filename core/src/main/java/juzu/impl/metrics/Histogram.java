@@ -0,0 +1,172 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of positive values. The values are counted in buckets: each power of two range is divided
+ * in {@link #SUB_BUCKETS} buckets of the same width, so the percentiles are estimated with a relative error lower
+ * than <code>1 / SUB_BUCKETS</code>. Recording a value updates a few atomic longs, the readers see a consistent
+ * enough view without blocking the writers.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+public class Histogram implements HistogramMBean {
+
+  /** . */
+  static final int SUB_BUCKETS = 8;
+
+  /** . */
+  private static final int SUB_BITS = 3;
+
+  /** The number of buckets covering the positive longs. */
+  private static final int SIZE = (64 - SUB_BITS) * SUB_BUCKETS;
+
+  /** . */
+  private final AtomicLongArray buckets;
+
+  /** . */
+  private final AtomicLong count;
+
+  /** . */
+  private final AtomicLong sum;
+
+  /** . */
+  private final AtomicLong min;
+
+  /** . */
+  private final AtomicLong max;
+
+  /** . */
+  private final long created;
+
+  public Histogram() {
+    this.buckets = new AtomicLongArray(SIZE);
+    this.count = new AtomicLong();
+    this.sum = new AtomicLong();
+    this.min = new AtomicLong(Long.MAX_VALUE);
+    this.max = new AtomicLong(0);
+    this.created = System.nanoTime();
+  }
+
+  /**
+   * Record a value, negative values are recorded as zero.
+   *
+   * @param value the value
+   */
+  public void record(long value) {
+    if (value < 0) {
+      value = 0;
+    }
+    buckets.incrementAndGet(index(value));
+    count.incrementAndGet();
+    sum.addAndGet(value);
+    long current;
+    while (value < (current = min.get()) && !min.compareAndSet(current, value)) {
+      // Retry
+    }
+    while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+      // Retry
+    }
+  }
+
+  public long getCount() {
+    return count.get();
+  }
+
+  public long getSum() {
+    return sum.get();
+  }
+
+  public long getMin() {
+    long value = min.get();
+    return value == Long.MAX_VALUE ? 0 : value;
+  }
+
+  public long getMax() {
+    return max.get();
+  }
+
+  public double getMean() {
+    long count = this.count.get();
+    return count == 0 ? 0 : (double)sum.get() / count;
+  }
+
+  public double getRate() {
+    long elapsed = System.nanoTime() - created;
+    return elapsed <= 0 ? 0 : count.get() * 1000000000D / elapsed;
+  }
+
+  public long getMedian() {
+    return getPercentile(0.5);
+  }
+
+  public long get95thPercentile() {
+    return getPercentile(0.95);
+  }
+
+  public long get99thPercentile() {
+    return getPercentile(0.99);
+  }
+
+  /**
+   * Estimate a percentile: the upper bound of the bucket containing the value is returned, capped by the
+   * maximum recorded value.
+   *
+   * @param quantile the quantile between 0 and 1
+   * @return the estimated value
+   * @throws IllegalArgumentException if the quantile is not between 0 and 1
+   */
+  public long getPercentile(double quantile) throws IllegalArgumentException {
+    if (quantile < 0 || quantile > 1) {
+      throw new IllegalArgumentException("Quantile " + quantile + " must be between 0 and 1");
+    }
+    long count = this.count.get();
+    if (count == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long)Math.ceil(quantile * count));
+    long seen = 0;
+    for (int i = 0;i < SIZE;i++) {
+      seen += buckets.get(i);
+      if (seen >= rank) {
+        return Math.min(upperBound(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int)value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+    int sub = (int)(value >>> shift) & (SUB_BUCKETS - 1);
+    return (shift + 1) * SUB_BUCKETS + sub;
+  }
+
+  static long upperBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long sub = SUB_BUCKETS + index % SUB_BUCKETS;
+    return ((sub + 1) << shift) - 1;
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.metrics;
+
+/**
+ * The management interface of an {@link Histogram}, the durations are expressed in nanoseconds.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+public interface HistogramMBean {
+
+  long getCount();
+
+  long getSum();
+
+  long getMin();
+
+  long getMax();
+
+  double getMean();
+
+  /**
+   * Returns the number of recorded values per second since the histogram creation.
+   *
+   * @return the rate
+   */
+  double getRate();
+
+  long getMedian();
+
+  long get95thPercentile();
+
+  long get99thPercentile();
+
+}
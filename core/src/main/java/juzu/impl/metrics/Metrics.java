@@ -0,0 +1,172 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.metrics;
+
+import juzu.impl.request.Method;
+
+import java.util.Iterator;
+import java.util.ServiceLoader;
+
+/**
+ * The instrumentation SPI of the runtime. The metrics of an application are provided by its bridge and reached
+ * with {@link juzu.impl.bridge.Bridge#getMetrics()} or {@link juzu.impl.plugin.application.Application#getMetrics()},
+ * the instrumented code takes a start time with {@link #time()} and reports the elapsed time to the corresponding
+ * callback of the same metrics:
+ *
+ * <pre>
+ *   Metrics metrics = application.getMetrics();
+ *   long start = metrics.time();
+ *   ...
+ *   metrics.rendered(id, start);
+ * </pre>
+ *
+ * When the metrics are disabled, the metrics is {@link #NONE}: the clock is not read and the callbacks do nothing.
+ * The metrics of an application are created by {@link #create(String, String)} with the first implementation found
+ * by the {@link ServiceLoader} or with {@link DefaultMetrics} and stopped by {@link #stop()}. A measure with a zero
+ * start time was started when the metrics were disabled and is ignored.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+public abstract class Metrics {
+
+  /** The disabled metrics. */
+  public static final Metrics NONE = new Metrics() {
+    @Override
+    public long time() {
+      return 0;
+    }
+    @Override
+    public void handled(long start) {
+    }
+    @Override
+    public void invoked(Method<?> method, long start, long dispatch) {
+    }
+    @Override
+    public void rendered(String templateId, long start) {
+    }
+    @Override
+    public void streamed(long bytes) {
+    }
+    @Override
+    public void served(boolean hit, long start) {
+    }
+    @Override
+    public void refreshed(long start) {
+    }
+    @Override
+    public void compiled(long start) {
+    }
+  };
+
+  /**
+   * Create and start the metrics of an application.
+   *
+   * @param application the application name
+   * @param context the context path of the application
+   * @return the started metrics
+   */
+  public static Metrics create(String application, String context) {
+    Metrics metrics = null;
+    Iterator<Metrics> i = ServiceLoader.load(Metrics.class, Metrics.class.getClassLoader()).iterator();
+    if (i.hasNext()) {
+      metrics = i.next();
+    }
+    if (metrics == null) {
+      metrics = new DefaultMetrics();
+    }
+    metrics.start(application, context);
+    return metrics;
+  }
+
+  /**
+   * Start the metrics when they are created, the default implementation does nothing.
+   *
+   * @param application the application name
+   * @param context the context path of the application
+   */
+  protected void start(String application, String context) {
+  }
+
+  /**
+   * Stop the metrics when the application is destroyed, the default implementation does nothing.
+   */
+  public void stop() {
+  }
+
+  /**
+   * Returns the start time of a measure in nanoseconds.
+   *
+   * @return the current time
+   */
+  public long time() {
+    return System.nanoTime();
+  }
+
+  /**
+   * A web request has been handled.
+   *
+   * @param start the start time
+   */
+  public abstract void handled(long start);
+
+  /**
+   * A controller method has been invoked through the filter chain.
+   *
+   * @param method the method
+   * @param start the start time
+   * @param dispatch the time spent in the controller method
+   */
+  public abstract void invoked(Method<?> method, long start, long dispatch);
+
+  /**
+   * A template has been rendered.
+   *
+   * @param templateId the template id
+   * @param start the start time
+   */
+  public abstract void rendered(String templateId, long start);
+
+  /**
+   * Bytes have been streamed to a client.
+   *
+   * @param bytes the number of bytes
+   */
+  public abstract void streamed(long bytes);
+
+  /**
+   * An asset has been served.
+   *
+   * @param hit true when the asset was served from the cache
+   * @param start the start time
+   */
+  public abstract void served(boolean hit, long start);
+
+  /**
+   * A module has been refreshed.
+   *
+   * @param start the start time
+   */
+  public abstract void refreshed(long start);
+
+  /**
+   * A module has been compiled.
+   *
+   * @param start the start time
+   */
+  public abstract void compiled(long start);
+
+}
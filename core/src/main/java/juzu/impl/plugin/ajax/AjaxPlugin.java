@@ -18,6 +18,7 @@ package juzu.impl.plugin.ajax;
 
 import juzu.PropertyType;
 import juzu.asset.AssetLocation;
+import juzu.impl.common.Tools;
 import juzu.impl.plugin.PluginDescriptor;
 import juzu.impl.plugin.PluginContext;
 import juzu.impl.asset.AssetManager;
@@ -25,7 +26,7 @@ import juzu.impl.plugin.application.ApplicationPlugin;
 import juzu.impl.plugin.controller.ControllerPlugin;
 import juzu.impl.request.Method;
 import juzu.impl.request.Request;
-import juzu.impl.request.RequestFilter;
+import juzu.impl.request.SelectiveRequestFilter;
 import juzu.request.Result;
 import juzu.io.Chunk;
 import juzu.io.Stream;
@@ -35,12 +36,13 @@ import juzu.request.Phase;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
+import java.io.Flushable;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
-public class AjaxPlugin extends ApplicationPlugin implements RequestFilter {
+public class AjaxPlugin extends ApplicationPlugin implements SelectiveRequestFilter {
 
   /** . */
   Map<String, Method> table;
@@ -85,6 +87,14 @@ public class AjaxPlugin extends ApplicationPlugin implements RequestFilter {
     this.table = table;
   }
 
+  public boolean accept(Phase phase) {
+    return phase == Phase.VIEW;
+  }
+
+  public boolean accept(Request request) {
+    return true;
+  }
+
   public void invoke(final Request request) {
     request.invoke();
 
@@ -97,7 +107,7 @@ public class AjaxPlugin extends ApplicationPlugin implements RequestFilter {
           final Streamable wrapped = status.streamable;
           Streamable wrapper = new Streamable() {
             public void send(final Stream stream) throws IllegalStateException {
-              Stream our = new Stream() {
+              class Our implements Stream, Flushable {
                 boolean done = false;
                 public void provide(Chunk chunk) {
                   if (chunk instanceof Chunk.Data && !done) {
@@ -120,12 +130,17 @@ public class AjaxPlugin extends ApplicationPlugin implements RequestFilter {
                   }
                   stream.provide(chunk);
                 }
+                public void flush() {
+                  if (stream instanceof Flushable) {
+                    Tools.safeFlush((Flushable)stream);
+                  }
+                }
                 public void close(Thread.UncaughtExceptionHandler errorHandler) {
                   stream.provide(Chunk.create("</div>"));
                   stream.close(errorHandler);
                 }
-              };
-              wrapped.send(our);
+              }
+              wrapped.send(new Our());
             }
           };
           request.setResult(new Result.Status(status.code, true, wrapper));
@@ -171,6 +171,7 @@ public class AMDMetaModelPlugin extends ApplicationMetaModelPlugin {
       JSON definesJSON = new JSON();
       List<Map<String, Object>> defines = (List<Map<String, Object>>)definesState.get("value");
       definesJSON.set("value", build(defines));
+      definesJSON.set("bundle", definesState.get("bundle"));
       config.set("defines", definesJSON);
     }
     if (requiresState != null) {
@@ -33,7 +33,7 @@ import juzu.impl.plugin.PluginContext;
 import juzu.impl.plugin.PluginDescriptor;
 import juzu.impl.plugin.application.ApplicationPlugin;
 import juzu.impl.request.Request;
-import juzu.impl.request.RequestFilter;
+import juzu.impl.request.SelectiveRequestFilter;
 import juzu.io.Chunk;
 import juzu.io.Stream;
 import juzu.io.StreamableDecorator;
@@ -45,7 +45,7 @@ import juzu.request.Result;
  * @version $Id$
  * 
  */
-public class AMDPlugin extends ApplicationPlugin implements RequestFilter {
+public class AMDPlugin extends ApplicationPlugin implements SelectiveRequestFilter {
 
   /** . */
   private Module[] defines;
@@ -56,6 +56,9 @@ public class AMDPlugin extends ApplicationPlugin implements RequestFilter {
   /** . */
   private AMDDescriptor descriptor;
 
+  /** . */
+  private boolean bundle;
+
   /** . */
   private PluginContext context;
 
@@ -80,6 +83,7 @@ public class AMDPlugin extends ApplicationPlugin implements RequestFilter {
     JSON config = context.getConfig();
     List<ModuleMetaData.Define> defines = Collections.emptyList();
     List<ModuleMetaData.Require> requires = Collections.emptyList();
+    boolean bundle = false;
 
     if (config != null) {
       String packageName = config.getString("package");
@@ -88,6 +92,7 @@ public class AMDPlugin extends ApplicationPlugin implements RequestFilter {
 
       if (definesJSON != null) {
         defines = loadDefines(packageName, definesJSON.getList("value", JSON.class));
+        bundle = Boolean.TRUE.equals(definesJSON.getBoolean("bundle"));
       }
 
       if (requiresJSON != null) {
@@ -101,6 +106,7 @@ public class AMDPlugin extends ApplicationPlugin implements RequestFilter {
 
     this.descriptor = new AMDDescriptor(defines, requires);
     this.context = context;
+    this.bundle = bundle;
     return descriptor;
   }
 
@@ -184,6 +190,11 @@ public class AMDPlugin extends ApplicationPlugin implements RequestFilter {
     //
     this.defines = process(descriptor.getDefines(), manager);
     this.requires = process(descriptor.getRequires(), manager);
+
+    // Load each defined module with its dependencies in a single request
+    if (bundle) {
+      manager.bundle(assetManager);
+    }
   }
 
   private Module[] process(List<? extends ModuleMetaData> modules, ModuleManager manager) throws Exception {
@@ -221,6 +232,14 @@ public class AMDPlugin extends ApplicationPlugin implements RequestFilter {
     return assets.toArray(new Module[assets.size()]);
   }
 
+  public boolean accept(Phase phase) {
+    return phase == Phase.VIEW;
+  }
+
+  public boolean accept(Request request) {
+    return true;
+  }
+
   public void invoke(Request request) {
     request.invoke();
 
@@ -38,6 +38,9 @@ public class Module {
   /** The module URI. */
   final String uri;
 
+  /** The URI of the module bundle or null. */
+  String bundle;
+
   public Module(String id, AssetLocation location, String uri) {
     this.id = id;
     this.location = location;
@@ -55,4 +58,14 @@ public class Module {
   public String getUri() {
     return uri;
   }
+
+  /**
+   * Returns the URI of the bundle containing this module and the modules it depends on or null when the
+   * module is not bundled.
+   *
+   * @return the bundle URI
+   */
+  public String getBundle() {
+    return bundle;
+  }
 }
@@ -17,16 +17,23 @@
  */
 package juzu.impl.plugin.amd;
 
+import juzu.impl.asset.AssetManager;
+import juzu.impl.common.Tools;
+
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLStreamHandler;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 
 /**
  * @author <a href="mailto:haithanh0809@gmail.com">Nguyen Thanh Hai</a>
@@ -41,6 +48,9 @@ public class ModuleManager {
   /** . */
   protected final HashMap<String, URL> resources = new HashMap<String, URL>();
 
+  /** The wrapped definitions by module name. */
+  private final HashMap<String, AMDURLStreamHandler> definitions = new HashMap<String, AMDURLStreamHandler>();
+
   public Module addAMD(ModuleMetaData data, URL url) throws NullPointerException, IllegalArgumentException, IOException {
     String name = data.getId();
 
@@ -60,7 +70,9 @@ public class ModuleManager {
           if (data instanceof ModuleMetaData.Require) {
             resources.put(data.getPath(), url);
           } else {
-            resources.put(data.getPath(), new URL("amd", null, 0, "/", new AMDURLStreamHandler((ModuleMetaData.Define)data, url)));
+            AMDURLStreamHandler definition = new AMDURLStreamHandler((ModuleMetaData.Define)data, url);
+            definitions.put(name, definition);
+            resources.put(data.getPath(), new URL("amd", null, 0, "/", definition));
           }
           break;
         case SERVER :
@@ -83,8 +95,44 @@ public class ModuleManager {
     return resources.get(path);
   }
 
+  /**
+   * Bundle each defined module with the modules it depends on transitively: the bundle contains the wrapped
+   * definitions of its dependencies followed by its own definition and is added to the asset manager. The
+   * module is then loaded with its bundle in a single request.
+   *
+   * @param assetManager the asset manager
+   */
+  public void bundle(AssetManager assetManager) {
+    for (Module module : modules.values()) {
+      if (definitions.containsKey(module.id)) {
+        ArrayList<AMDURLStreamHandler> closure = new ArrayList<AMDURLStreamHandler>();
+        collect(module.id, new HashSet<String>(), closure);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        for (AMDURLStreamHandler definition : closure) {
+          buffer.write(definition.data, 0, definition.data.length);
+          buffer.write('\n');
+        }
+        String directory = module.uri.substring(0, module.uri.lastIndexOf('/') + 1);
+        module.bundle = assetManager.addBundle(directory, ".js", buffer.toByteArray());
+      }
+    }
+  }
+
+  private void collect(String name, HashSet<String> visited, List<AMDURLStreamHandler> closure) {
+    AMDURLStreamHandler definition = definitions.get(name);
+    if (definition != null && visited.add(name)) {
+      for (AMDDependency dependency : definition.define.getDependencies()) {
+        collect(dependency.name, visited, closure);
+      }
+      closure.add(definition);
+    }
+  }
+
   private class AMDURLStreamHandler extends URLStreamHandler {
 
+    /** . */
+    private final ModuleMetaData.Define define;
+
     /** . */
     private final byte[] data;
 
@@ -118,16 +166,14 @@ public class ModuleManager {
       }
 
       NormalizeJSReader reader = new NormalizeJSReader(new InputStreamReader(url.openStream()));
-      char[] buffer = new char[512];
-      while (true) {
-        int i = reader.read(buffer);
-        if (i == 0) {
-          continue;
-        }
-        if (i == -1) {
-          break;
+      try {
+        char[] buffer = new char[512];
+        for (int i = reader.read(buffer);i != -1;i = reader.read(buffer)) {
+          sb.append(buffer, 0, i);
         }
-        sb.append(buffer, 0, i);
+      }
+      finally {
+        Tools.safeClose(reader);
       }
 
       // end of adapter
@@ -138,6 +184,7 @@ public class ModuleManager {
       sb.append("\n});");
 
       //
+      this.define = data;
       this.data = sb.toString().getBytes("UTF-8");
     }
 
@@ -34,16 +34,23 @@ class NormalizeJSReader extends Reader {
 
   private Reader sub;
 
+  private char[] buffer;
+
   NormalizeJSReader(Reader sub) {
     this.sub = sub;
   }
 
   @Override
   public int read(char[] cbuf, int off, int len) throws IOException {
-    if (finished) {
-      return sub.read(cbuf, off, len);
-    } else {
-      char[] buffer = new char[len];
+    if (len == 0) {
+      return 0;
+    }
+
+    // Skip the leading comments until one char at least can be returned
+    while (!finished) {
+      if (buffer == null || buffer.length < len) {
+        buffer = new char[len];
+      }
       int relLen = sub.read(buffer, 0, len);
       if (relLen == -1) {
         finished = true;
@@ -84,9 +91,12 @@ class NormalizeJSReader extends Reader {
             cbuf[r++] = c;
           }
         }
-        return r - off;
+        if (r > off) {
+          return r - off;
+        }
       }
     }
+    return sub.read(cbuf, off, len);
   }
 
   private char readNext(char[] buffer, int i, boolean overflow) throws IOException {
@@ -21,11 +21,14 @@ import juzu.impl.common.Filter;
 import juzu.impl.common.JSON;
 import juzu.impl.common.Tools;
 import juzu.impl.inject.BeanDescriptor;
+import juzu.impl.inject.spi.BeanLifeCycle;
 import juzu.impl.inject.spi.Injector;
+import juzu.impl.metrics.Metrics;
 import juzu.impl.plugin.Plugin;
 import juzu.impl.plugin.PluginContext;
 import juzu.impl.plugin.PluginDescriptor;
 import juzu.impl.plugin.application.descriptor.ApplicationDescriptor;
+import juzu.impl.request.Request;
 import juzu.impl.inject.spi.InjectionContext;
 import juzu.impl.resource.ResourceResolver;
 
@@ -38,6 +41,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 @Singleton
@@ -61,6 +65,12 @@ public class Application {
   /** . */
   private final ClassLoader classLoader;
 
+  /** The named beans resolved by {@link #resolveBean(String)}, the unresolved names are retained too. */
+  private final ConcurrentHashMap<String, NamedBean<?, ?>> namedBeans;
+
+  /** The metrics of the application, set by its bridge. */
+  private volatile Metrics metrics;
+
   public Application(Injector injector, ApplicationDescriptor descriptor, ResourceResolver resourceResolver) {
     this.classLoader = descriptor.getApplicationLoader();
     this.injectionContext = null;
@@ -68,6 +78,8 @@ public class Application {
     this.injector = injector;
     this.resourceResolver = resourceResolver;
     this.plugins = Collections.emptyMap();
+    this.namedBeans = new ConcurrentHashMap<String, NamedBean<?, ?>>();
+    this.metrics = Metrics.NONE;
   }
 
   public void start() throws Exception {
@@ -233,18 +245,117 @@ public class Application {
     return descriptor;
   }
 
+  /**
+   * Returns the metrics of the application, {@link Metrics#NONE} when they are disabled.
+   *
+   * @return the metrics
+   */
+  public Metrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Set the metrics of the application.
+   *
+   * @param metrics the metrics
+   * @throws NullPointerException if the metrics is null
+   */
+  public void setMetrics(Metrics metrics) throws NullPointerException {
+    if (metrics == null) {
+      throw new NullPointerException("No null metrics accepted");
+    }
+    this.metrics = metrics;
+  }
+
+  /**
+   * Resolve a bean instance by its name. The bean resolved for a name is retained for the life time of the
+   * application, the instance of a singleton bean is retained as well, the instance of other beans is obtained
+   * once per request and released when the request ends, outside of a request it is obtained on each call.
+   *
+   * @param name the bean name
+   * @return the bean instance or null when no bean has this name
+   * @throws InvocationTargetException wrap any exception thrown by the bean class during its creation
+   */
   public Object resolveBean(String name) throws InvocationTargetException {
-    return resolveBean(injectionContext, name);
+    NamedBean<?, ?> bean = namedBeans.get(name);
+    if (bean == null) {
+      bean = resolveBean(injectionContext, name);
+      NamedBean<?, ?> previous = namedBeans.putIfAbsent(name, bean);
+      if (previous != null) {
+        bean = previous;
+      }
+    }
+    return bean.getInstance();
   }
 
-  private <B, I> Object resolveBean(InjectionContext<B, I> manager, String name) throws InvocationTargetException {
+  private <B, I> NamedBean<B, I> resolveBean(InjectionContext<B, I> manager, String name) {
     B bean = manager.resolveBean(name);
-    if (bean != null) {
+    return new NamedBean<B, I>(manager, name, bean, bean != null && manager.isSingleton(bean));
+  }
+
+  /**
+   * A bean resolved by name.
+   */
+  private static class NamedBean<B, I> {
+
+    /** . */
+    private final InjectionContext<B, I> manager;
+
+    /** . */
+    private final String name;
+
+    /** The bean or null when the name is not resolved. */
+    private final B bean;
+
+    /** . */
+    private final boolean singleton;
+
+    /** The singleton instance. */
+    private volatile Object instance;
+
+    private NamedBean(InjectionContext<B, I> manager, String name, B bean, boolean singleton) {
+      this.manager = manager;
+      this.name = name;
+      this.bean = bean;
+      this.singleton = singleton;
+    }
+
+    Object getInstance() throws InvocationTargetException {
+      if (bean == null) {
+        return null;
+      }
+      else if (singleton) {
+        Object o = instance;
+        if (o == null) {
+          // Several threads may create it concurrently but they will obtain the same instance
+          instance = o = createInstance();
+        }
+        return o;
+      }
+      else {
+        Request request = Request.getCurrent();
+        if (request == null) {
+          return createInstance();
+        }
+        BeanLifeCycle<?> lifeCycle = request.getNamedBean(name);
+        if (lifeCycle == null) {
+          BeanLifeCycle<Object> created = manager.getLifeCycle(bean);
+          try {
+            created.get();
+          }
+          catch (InvocationTargetException e) {
+            created.close();
+            throw e;
+          }
+          lifeCycle = request.setNamedBean(name, created);
+        }
+        return lifeCycle.get();
+      }
+    }
+
+    private Object createInstance() throws InvocationTargetException {
       I cc = manager.createContext(bean);
       return manager.getInstance(bean, cc);
     }
-    else {
-      return null;
-    }
   }
 }
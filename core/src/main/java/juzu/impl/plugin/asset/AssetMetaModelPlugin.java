@@ -152,6 +152,8 @@ public class AssetMetaModelPlugin extends ApplicationMetaModelPlugin {
       json.set("assets", assets);
       json.set("package", "assets");
       json.set("location", annotation.get("location"));
+      json.set("bundle", annotation.get("bundle"));
+      json.set("minify", annotation.get("minify"));
       return json;
     } else {
       return null;
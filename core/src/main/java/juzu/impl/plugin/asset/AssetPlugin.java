@@ -26,7 +26,7 @@ import juzu.impl.asset.AssetMetaData;
 import juzu.impl.plugin.PluginContext;
 import juzu.impl.plugin.application.ApplicationPlugin;
 import juzu.impl.request.Request;
-import juzu.impl.request.RequestFilter;
+import juzu.impl.request.SelectiveRequestFilter;
 import juzu.impl.common.JSON;
 import juzu.plugin.asset.WithAssets;
 import juzu.request.Result;
@@ -48,7 +48,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
-public class AssetPlugin extends ApplicationPlugin implements RequestFilter {
+public class AssetPlugin extends ApplicationPlugin implements SelectiveRequestFilter {
 
   /** . */
   private LinkedHashMap<String, Chunk.Property<String>> assets;
@@ -62,6 +62,12 @@ public class AssetPlugin extends ApplicationPlugin implements RequestFilter {
   /** The path to the assets dir. */
   private String assetsPath;
 
+  /** . */
+  private boolean bundle;
+
+  /** . */
+  private boolean minify;
+
   /** . */
   @Inject
   AssetManager assetManager;
@@ -88,6 +94,8 @@ public class AssetPlugin extends ApplicationPlugin implements RequestFilter {
     JSON config = context.getConfig();
     String assetsPath;
     List<AssetMetaData> assets;
+    boolean bundle = false;
+    boolean minify = false;
     if (config != null) {
       String packageName = config.getString("package");
       AssetLocation location = AssetLocation.safeValueOf(config.getString("location"));
@@ -96,6 +104,8 @@ public class AssetPlugin extends ApplicationPlugin implements RequestFilter {
       }
       assets = load(packageName, location, config.getList("assets", JSON.class));
       assetsPath = "/" + Name.parse(application.getPackageName()).append(packageName).toString().replace('.', '/') + "/";
+      bundle = Boolean.TRUE.equals(config.getBoolean("bundle"));
+      minify = Boolean.TRUE.equals(config.getBoolean("minify"));
     } else {
       assets = Collections.emptyList();
       assetsPath = null;
@@ -103,6 +113,8 @@ public class AssetPlugin extends ApplicationPlugin implements RequestFilter {
     this.descriptor = new AssetDescriptor(assets);
     this.context = context;
     this.assetsPath = assetsPath;
+    this.bundle = bundle;
+    this.minify = minify;
     return descriptor;
   }
 
@@ -148,6 +160,9 @@ public class AssetPlugin extends ApplicationPlugin implements RequestFilter {
 
   @PostConstruct
   public void start() throws Exception {
+    if (bundle) {
+      assetManager.setBundling(true, minify);
+    }
     this.assets = process(descriptor.getAssets());
   }
 
@@ -267,6 +282,14 @@ public class AssetPlugin extends ApplicationPlugin implements RequestFilter {
     }
   }
 
+  public boolean accept(Phase phase) {
+    return phase == Phase.VIEW;
+  }
+
+  public boolean accept(Request request) {
+    return true;
+  }
+
   public void invoke(Request request) {
     request.invoke();
     if (request.getPhase() == Phase.VIEW) {
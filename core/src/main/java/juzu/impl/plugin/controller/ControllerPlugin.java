@@ -22,33 +22,45 @@ import juzu.io.UndeclaredIOException;
 import juzu.impl.bridge.spi.RequestBridge;
 import juzu.impl.common.MethodHandle;
 import juzu.impl.inject.spi.InjectionContext;
+import juzu.impl.metrics.Metrics;
 import juzu.impl.plugin.PluginContext;
+import juzu.impl.plugin.application.Application;
 import juzu.impl.plugin.application.ApplicationPlugin;
 import juzu.impl.plugin.controller.descriptor.ControllersDescriptor;
 import juzu.impl.request.ContextualParameter;
+import juzu.impl.request.ExecutionFilter;
 import juzu.impl.request.Method;
 import juzu.impl.request.Request;
 import juzu.impl.request.RequestFilter;
+import juzu.impl.request.SelectiveRequestFilter;
 import juzu.request.RequestParameter;
 import juzu.request.Phase;
 
 import javax.inject.Inject;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
-public class ControllerPlugin extends ApplicationPlugin implements RequestFilter {
+public class ControllerPlugin extends ApplicationPlugin implements SelectiveRequestFilter {
 
   /** . */
   private ControllersDescriptor descriptor;
 
-  /** . */
-  public ArrayList<RequestFilter> filters;
+  /** The request filter chains by phase, resolved once. */
+  private volatile Map<Phase, RequestFilter[]> filters;
+
+  /** The execution filters, resolved once. */
+  private volatile ExecutionFilter[] executionFilters;
 
   @Inject
   private InjectionContext injectionContext;
 
+  @Inject
+  private Application application;
+
   public ControllerPlugin() {
     super("controller");
   }
@@ -70,6 +82,61 @@ public class ControllerPlugin extends ApplicationPlugin implements RequestFilter
     return injectionContext;
   }
 
+  /**
+   * Returns the metrics of the application.
+   *
+   * @return the metrics
+   */
+  public Metrics getMetrics() {
+    return application.getMetrics();
+  }
+
+  /**
+   * Returns the request filter chain of a phase. The chain is resolved from the injection context the first time
+   * and does not contain the {@link SelectiveRequestFilter} that do not accept the phase.
+   *
+   * @param phase the phase
+   * @return the filter chain
+   */
+  public RequestFilter[] getFilters(Phase phase) {
+    Map<Phase, RequestFilter[]> filters = this.filters;
+    if (filters == null) {
+      List<RequestFilter> resolved = new ArrayList<RequestFilter>();
+      for (RequestFilter filter : getInjectionContext().resolveInstances(RequestFilter.class)) {
+        resolved.add(filter);
+      }
+      filters = new HashMap<Phase, RequestFilter[]>();
+      for (Phase p : Phase.values()) {
+        List<RequestFilter> chain = new ArrayList<RequestFilter>(resolved.size());
+        for (RequestFilter filter : resolved) {
+          if (!(filter instanceof SelectiveRequestFilter) || ((SelectiveRequestFilter)filter).accept(p)) {
+            chain.add(filter);
+          }
+        }
+        filters.put(p, chain.toArray(new RequestFilter[chain.size()]));
+      }
+      this.filters = filters;
+    }
+    return filters.get(phase);
+  }
+
+  /**
+   * Returns the execution filters, they are resolved from the injection context the first time.
+   *
+   * @return the execution filters
+   */
+  public ExecutionFilter[] getExecutionFilters() {
+    ExecutionFilter[] executionFilters = this.executionFilters;
+    if (executionFilters == null) {
+      List<ExecutionFilter> resolved = new ArrayList<ExecutionFilter>();
+      for (ExecutionFilter filter : getInjectionContext().resolveInstances(ExecutionFilter.class)) {
+        resolved.add(filter);
+      }
+      this.executionFilters = executionFilters = resolved.toArray(new ExecutionFilter[resolved.size()]);
+    }
+    return executionFilters;
+  }
+
   public void invoke(RequestBridge bridge) {
     Phase phase = bridge.getPhase();
 
@@ -132,6 +199,15 @@ public class ControllerPlugin extends ApplicationPlugin implements RequestFilter
     }
   }
 
+  public boolean accept(Phase phase) {
+    // The controller plugin is a pass through filter
+    return false;
+  }
+
+  public boolean accept(Request request) {
+    return false;
+  }
+
   public void invoke(Request request) {
     request.invoke();
   }
@@ -21,8 +21,11 @@ import juzu.request.Phase;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -42,6 +45,9 @@ import java.util.Set;
  * <ol> <li>The greater number of matched specified parameters.</li> <li>The lesser number of unmatched method
  * arguments.</li> <li>The lesser number of unmatched method parameters.</li> <li>The default controller class.</li>
  * </ol>
+ * <p/>
+ * The methods are indexed by phase and method id on first use and the resolution of a phase or a method id
+ * is memoized for each distinct set of parameter names, the {@link #CACHE_SIZE} sets most recently used are kept.
  *
  * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
  */
@@ -50,6 +56,15 @@ public abstract class ControllerResolver<M> {
   // todo : take in account multi valued parameters
   // todo : what happens with type conversion, somehow we should forbid m(String a) and m(int a)
 
+  /** The maximum number of parameter name sets memoized for a phase or a method id. */
+  public static final int CACHE_SIZE = 256;
+
+  /** The value memoized when no method is resolved. */
+  private static final Object NOT_FOUND = new Object();
+
+  /** The resolution index, built on first use. */
+  private volatile Index index;
+
   public abstract M[] getMethods();
 
   public abstract String getId(M method);
@@ -66,6 +81,165 @@ public abstract class ControllerResolver<M> {
 
   public abstract Collection<String> getParameterNames(M method);
 
+  /**
+   * A method with its resolution data computed once.
+   */
+  private class Candidate {
+
+    /** . */
+    final M method;
+
+    /** . */
+    final Set<String> parameterNames;
+
+    /** . */
+    final int score4;
+
+    Candidate(M method) {
+      this.method = method;
+      this.parameterNames = new HashSet<String>(getParameterNames(method));
+      this.score4 = isDefault(method) ? 0 : 1;
+    }
+  }
+
+  /**
+   * The candidates of a resolution with the memoized results.
+   */
+  private class Entry {
+
+    /** . */
+    final List<Candidate> candidates;
+
+    /** The results by parameter names in access order, the value is either a method or an ambiguity message, guarded by itself. */
+    final LinkedHashMap<Set<String>, Object> cache;
+
+    Entry(List<Candidate> candidates) {
+      this.candidates = candidates;
+      this.cache = new LinkedHashMap<Set<String>, Object>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Set<String>, Object> eldest) {
+          return size() > CACHE_SIZE;
+        }
+      };
+    }
+
+    M select(Set<String> parameterNames) throws AmbiguousResolutionException {
+      Object result;
+      synchronized (cache) {
+        result = cache.get(parameterNames);
+      }
+      if (result == null) {
+        try {
+          M method = ControllerResolver.this.select(match(candidates, parameterNames));
+          result = method != null ? method : NOT_FOUND;
+        }
+        catch (AmbiguousResolutionException e) {
+          result = e.getMessage();
+        }
+        Set<String> key = Collections.unmodifiableSet(new HashSet<String>(parameterNames));
+        synchronized (cache) {
+          cache.put(key, result);
+        }
+      }
+      if (result == NOT_FOUND) {
+        return null;
+      } else if (result instanceof String) {
+        throw new AmbiguousResolutionException((String)result);
+      } else {
+        @SuppressWarnings("unchecked") M method = (M)result;
+        return method;
+      }
+    }
+  }
+
+  /**
+   * The index of the methods.
+   */
+  private class Index {
+
+    /** All the methods. */
+    final List<Candidate> candidates;
+
+    /** The candidates of {@link #resolve(Phase, Set)} by phase. */
+    final Map<Phase, Entry> byPhase;
+
+    /** The candidates of {@link #resolveMethod(Phase, String, Set)} by phase and method id. */
+    final Map<Phase, Map<String, Entry>> byId;
+
+    /** The candidates of {@link #resolveMethod(Phase, String, Set)} by phase for a null method id. */
+    final Map<Phase, Entry> byAll;
+
+    Index(M[] methods) {
+      List<Candidate> candidates = new ArrayList<Candidate>(methods.length);
+      for (M method : methods) {
+        candidates.add(new Candidate(method));
+      }
+
+      //
+      Map<Phase, Entry> byPhase = new HashMap<Phase, Entry>();
+      Map<Phase, Map<String, Entry>> byId = new HashMap<Phase, Map<String, Entry>>();
+      Map<Phase, Entry> byAll = new HashMap<Phase, Entry>();
+      for (Phase phase : Phase.values()) {
+        List<Candidate> phaseCandidates = new ArrayList<Candidate>();
+        List<Candidate> allCandidates = new ArrayList<Candidate>();
+        Map<String, List<Candidate>> idCandidates = new HashMap<String, List<Candidate>>();
+        for (Candidate candidate : candidates) {
+          if (getPhase(candidate.method) == phase) {
+            if (phase != Phase.VIEW || getName(candidate.method).equals("index")) {
+              phaseCandidates.add(candidate);
+            }
+            allCandidates.add(candidate);
+            String id = getId(candidate.method);
+            if (id != null) {
+              List<Candidate> list = idCandidates.get(id);
+              if (list == null) {
+                idCandidates.put(id, list = new ArrayList<Candidate>());
+              }
+              list.add(candidate);
+            }
+          }
+        }
+        byPhase.put(phase, new Entry(phaseCandidates));
+        byAll.put(phase, new Entry(allCandidates));
+        Map<String, Entry> entries = new HashMap<String, Entry>();
+        for (Map.Entry<String, List<Candidate>> entry : idCandidates.entrySet()) {
+          entries.put(entry.getKey(), new Entry(entry.getValue()));
+        }
+        byId.put(phase, entries);
+      }
+
+      //
+      this.candidates = candidates;
+      this.byPhase = byPhase;
+      this.byId = byId;
+      this.byAll = byAll;
+    }
+
+    Entry get(Phase phase, String methodId) {
+      if (methodId == null) {
+        return byAll.get(phase);
+      } else {
+        return byId.get(phase).get(methodId);
+      }
+    }
+  }
+
+  private Index getIndex() {
+    Index index = this.index;
+    if (index == null) {
+      this.index = index = new Index(getMethods());
+    }
+    return index;
+  }
+
+  private List<Match> match(List<Candidate> candidates, Set<String> parameterNames) {
+    List<Match> matches = new ArrayList<Match>(candidates.size());
+    for (Candidate candidate : candidates) {
+      matches.add(new Match(parameterNames, candidate));
+    }
+    return matches;
+  }
+
   private class Match implements Comparable<Match> {
 
     /** . */
@@ -83,26 +257,26 @@ public abstract class ControllerResolver<M> {
     /** . */
     final int score4;
 
-    Match(Set<String> parameterNames, M method) {
-      this.method = method;
+    Match(Set<String> parameterNames, Candidate candidate) {
+      this.method = candidate.method;
 
       // The number of matched parameters
-      HashSet<String> a = new HashSet<String>(parameterNames);
-      a.retainAll(getParameterNames(method));
-      this.score1 = a.size();
+      int matched = 0;
+      for (String parameterName : parameterNames) {
+        if (candidate.parameterNames.contains(parameterName)) {
+          matched++;
+        }
+      }
+      this.score1 = matched;
 
       // The number of unmatched arguments
-      a = new HashSet<String>(getParameterNames(method));
-      a.removeAll(parameterNames);
-      this.score2 = a.size();
+      this.score2 = candidate.parameterNames.size() - matched;
 
       // The number of unmatched parameters
-      a = new HashSet<String>(parameterNames);
-      a.removeAll(getParameterNames(method));
-      this.score3 = a.size();
+      this.score3 = parameterNames.size() - matched;
 
       // The default method
-      this.score4 = isDefault(method) ? 0 : 1;
+      this.score4 = candidate.score4;
     }
 
     public int compareTo(Match o) {
@@ -141,21 +315,7 @@ public abstract class ControllerResolver<M> {
     }
 
     //
-    List<Match> matches = new ArrayList<Match>();
-    for (M method : getMethods()) {
-      if (getPhase(method) == phase) {
-        if (phase == Phase.VIEW) {
-          if (getName(method).equals("index")) {
-            matches.add(new Match(parameterNames, method));
-          }
-        } else {
-          matches.add(new Match(parameterNames, method));
-        }
-      }
-    }
-
-    //
-    return select(matches);
+    return getIndex().byPhase.get(phase).select(parameterNames);
   }
 
   /**
@@ -178,15 +338,8 @@ public abstract class ControllerResolver<M> {
     }
 
     //
-    List<Match> matches = new ArrayList<Match>();
-    for (M method : getMethods()) {
-      if (getPhase(method) == phase && (methodId == null || methodId.equals(getId(method)))) {
-        matches.add(new Match(parameterNames, method));
-      }
-    }
-
-    //
-    return select(matches);
+    Entry entry = getIndex().get(phase, methodId);
+    return entry != null ? entry.select(parameterNames) : null;
   }
 
   /**
@@ -209,12 +362,11 @@ public abstract class ControllerResolver<M> {
     }
 
     //
-    List<Match> matches = new ArrayList<Match>();
-    for (M method : getMethods()) {
-      if (getPhase(method) == phase && (methodId == null || methodId.equals(getId(method)))) {
-        matches.add(new Match(parameterNames, method));
-      }
+    Entry entry = getIndex().get(phase, methodId);
+    if (entry == null) {
+      return new ArrayList<M>();
     }
+    List<Match> matches = match(entry.candidates, parameterNames);
 
     //
     Collections.sort(matches);
@@ -248,17 +400,18 @@ public abstract class ControllerResolver<M> {
 
     //
     List<Match> matches = new ArrayList<Match>();
-    for (M method : getMethods()) {
-      if (getParameterNames(method).containsAll(parameterNames)) {
+    for (Candidate candidate : getIndex().candidates) {
+      M method = candidate.method;
+      if (candidate.parameterNames.containsAll(parameterNames)) {
         if (typeName == null) {
           if (getName(method).equals(methodName)) {
-            matches.add(new Match(parameterNames, method));
+            matches.add(new Match(parameterNames, candidate));
           }
         }
         else {
           String id = typeName + "." + methodName;
           if (getId(method).equals(id)) {
-            matches.add(new Match(parameterNames, method));
+            matches.add(new Match(parameterNames, candidate));
           }
         }
       }
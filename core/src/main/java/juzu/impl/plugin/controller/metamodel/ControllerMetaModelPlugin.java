@@ -32,6 +32,7 @@ import juzu.impl.compiler.ProcessingContext;
 import juzu.impl.request.ContextualParameter;
 import juzu.impl.request.ControlParameter;
 import juzu.impl.request.Method;
+import juzu.impl.request.MethodInvoker;
 import juzu.impl.request.PhaseParameter;
 import juzu.impl.plugin.controller.descriptor.ControllerDescriptor;
 import juzu.impl.metamodel.MetaModelEvent;
@@ -45,11 +46,14 @@ import juzu.request.Phase;
 import javax.annotation.Generated;
 import javax.lang.model.element.AnnotationMirror;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
 import javax.tools.JavaFileObject;
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -255,6 +259,7 @@ public class ControllerMetaModelPlugin extends ApplicationMetaModelPlugin {
       writer.append("import ").append(Generated.class.getCanonicalName()).append(";\n");
       writer.append("import ").append(Cardinality.class.getCanonicalName()).append(";\n");
       writer.append("import ").append(Request.class.getCanonicalName()).append(";\n");
+      writer.append("import ").append(MethodInvoker.class.getCanonicalName()).append(";\n");
 
       // Open class
       writer.append("@Generated(value={})\n");
@@ -263,12 +268,49 @@ public class ControllerMetaModelPlugin extends ApplicationMetaModelPlugin {
       // Class literal
       writer.append("private static final Class<").append(fqn).append("> TYPE = ").append(fqn).append(".class;\n");
 
+      // The invoker cases calling the methods directly
+      StringWriter invocations = new StringWriter();
+
       //
       int index = 0;
       for (MethodMetaModel method : methods) {
 
         //
-        String methodRef = "method_" + index++;
+        int methodIndex = index++;
+        String methodRef = "method_" + methodIndex;
+
+        // Private methods cannot be called by the companion, they remain invoked with reflection
+        ExecutableElement methodElt = env.get(method.getHandle());
+        boolean direct = methodElt != null && !methodElt.getModifiers().contains(Modifier.PRIVATE);
+        if (direct) {
+          // The casts fail before the try block, so only the exceptions thrown by the method are wrapped
+          invocations.append("case ").append(Integer.toString(methodIndex)).append(": {\n");
+          invocations.append(fqn).append(" target = (").append(fqn).append(")controller;\n");
+          for (int i = 0;i < method.getParameters().size();i++) {
+            String typeLiteral = method.getParameters().get(i).typeLiteral;
+            invocations.append(typeLiteral).append(" arg").append(Integer.toString(i)).append(" = (").append(typeLiteral).append(")args[").append(Integer.toString(i)).append("];\n");
+          }
+          invocations.append("try {\n");
+          if (methodElt.getReturnType().getKind() != TypeKind.VOID) {
+            invocations.append("return ");
+          }
+          invocations.append("target.").append(method.getName()).append("(");
+          for (int i = 0;i < method.getParameters().size();i++) {
+            if (i > 0) {
+              invocations.append(',');
+            }
+            invocations.append("arg").append(Integer.toString(i));
+          }
+          invocations.append(");");
+          if (methodElt.getReturnType().getKind() == TypeKind.VOID) {
+            invocations.append(" return null;");
+          }
+          invocations.append("\n");
+          invocations.append("} catch (Exception e) {\n");
+          invocations.append("throw new java.lang.reflect.InvocationTargetException(e);\n");
+          invocations.append("}\n");
+          invocations.append("}\n");
+        }
 
         // Method constant
         writer.append("private static final ").append(METHOD_DESCRIPTOR).append("<");
@@ -318,6 +360,9 @@ public class ControllerMetaModelPlugin extends ApplicationMetaModelPlugin {
           }
         }
         writer.append(')');
+        if (direct) {
+          writer.append(", new Invoker(").append(Integer.toString(methodIndex)).append(")");
+        }
         writer.append(");\n");
 
         //
@@ -376,6 +421,19 @@ public class ControllerMetaModelPlugin extends ApplicationMetaModelPlugin {
       writer.append(")");
       writer.append(");\n");
 
+      // Invoker calling the methods by index
+      writer.append("private static final class Invoker implements ").append(MethodInvoker.class.getSimpleName()).append(" {\n");
+      writer.append("private final int index;\n");
+      writer.append("private Invoker(int index) { this.index = index; }\n");
+      writer.append("@SuppressWarnings(\"unchecked\")\n");
+      writer.append("public Object invoke(Object controller, Object[] args) throws java.lang.reflect.InvocationTargetException {\n");
+      writer.append("switch (index) {\n");
+      writer.append(invocations.toString());
+      writer.append("}\n");
+      writer.append("throw new AssertionError();\n");
+      writer.append("}\n");
+      writer.append("}\n");
+
       // Close class
       writer.append("}\n");
 
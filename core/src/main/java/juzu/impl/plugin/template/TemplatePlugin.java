@@ -26,7 +26,12 @@ import juzu.impl.common.Path;
 import juzu.template.TagHandler;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public class TemplatePlugin extends ApplicationPlugin {
@@ -107,12 +112,46 @@ public class TemplatePlugin extends ApplicationPlugin {
       TemplateStub phantom = stubs.putIfAbsent(path, stub);
       if (phantom != null) {
         stub = phantom;
-      } else {
-        stub.init();
       }
     }
 
+    // Returns when the stub is initialized, it may have been resolved concurrently by another thread
+    stub.init();
+
     //
     return stub;
   }
+
+  /**
+   * Initialize the stubs of the application templates concurrently. A stub failing to initialize is skipped and
+   * will be initialized again when it is resolved.
+   *
+   * @param parallelism the number of threads initializing the stubs
+   * @throws IllegalArgumentException if the parallelism is not positive
+   * @throws InterruptedException if the current thread is interrupted
+   */
+  public void warmUp(int parallelism) throws IllegalArgumentException, InterruptedException {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism " + parallelism + " must be positive");
+    }
+    List<TemplateDescriptor> templates = descriptor.getTemplates();
+    if (templates.size() > 0) {
+      List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(templates.size());
+      for (final TemplateDescriptor template : templates) {
+        tasks.add(new Callable<Void>() {
+          public Void call() {
+            template.getStub().init();
+            return null;
+          }
+        });
+      }
+      ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, tasks.size()));
+      try {
+        executor.invokeAll(tasks);
+      }
+      finally {
+        executor.shutdown();
+      }
+    }
+  }
 }
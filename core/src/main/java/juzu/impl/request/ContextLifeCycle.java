@@ -67,6 +67,9 @@ public class ContextLifeCycle {
         request.controllerLifeCycle.close();
       }
 
+      // Release the named beans
+      request.releaseNamedBeans();
+
       // End scopes
       if (request.getPhase() == Phase.VIEW) {
         ScopedContext flashScope = request.bridge.getScopedContext(Scope.FLASH, false);
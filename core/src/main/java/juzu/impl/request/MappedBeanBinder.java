@@ -0,0 +1,312 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.request;
+
+import juzu.request.RequestParameter;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binds a {@link juzu.Mapped} bean from and to request parameters. The accessors of the bean type and the
+ * request parameter names are resolved once when the binder is created.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+final class MappedBeanBinder {
+
+  /** . */
+  private final Class<?> type;
+
+  /** . */
+  private final String prefix;
+
+  /** The public no-argument constructor or null when the bean type cannot be instantiated. */
+  private final Constructor<?> constructor;
+
+  /** The properties that can be set from request parameters. */
+  private final Property[] properties;
+
+  /** The fields and getters that are rendered as request parameters. */
+  private final Getter[] getters;
+
+  /** The binders of the subclasses of the bean type, see {@link #write(Object, java.util.Map)}. */
+  private final ConcurrentHashMap<Class<?>, MappedBeanBinder> subclasses;
+
+  MappedBeanBinder(Class<?> type, String prefix) {
+
+    // Setters and fields by request parameter name, a setter is preferred to a field and the setter
+    // parameter type is chosen in the String[], String, List order
+    LinkedHashMap<String, Property> properties = new LinkedHashMap<String, Property>();
+    for (java.lang.reflect.Method method : type.getMethods()) {
+      String methodName = method.getName();
+      if (methodName.length() > 3 && methodName.startsWith("set")) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        if (parameterTypes.length == 1) {
+          int kind = kindOf(parameterTypes[0]);
+          if (kind != -1) {
+
+            // A setter setFoo can be reached by the foo and Foo names
+            String name = methodName.substring(3);
+            char c = name.charAt(0);
+            String lowerName = Character.toLowerCase(c) + name.substring(1);
+            for (String key : lowerName.equals(name) ? new String[]{name} : new String[]{lowerName, name}) {
+              if (Character.toUpperCase(key.charAt(0)) == c) {
+                Property property = properties.get(key);
+                if (property == null) {
+                  properties.put(key, property = new Property(prefix + key));
+                }
+                if (property.setter == null || kind < property.kind) {
+                  property.setter = method;
+                  property.kind = kind;
+                }
+              }
+            }
+          }
+        }
+      }
+    }
+    for (Field field : type.getFields()) {
+      int kind = kindOf(field.getType());
+      if (kind != -1) {
+        Property property = properties.get(field.getName());
+        if (property == null) {
+          properties.put(field.getName(), property = new Property(prefix + field.getName()));
+          property.field = field;
+          property.kind = kind;
+        }
+      }
+    }
+
+    // Fields first and then getters like the parameters are rendered
+    ArrayList<Getter> getters = new ArrayList<Getter>();
+    for (Field field : type.getFields()) {
+      int kind = kindOf(field.getType());
+      if (kind != -1) {
+        getters.add(new Getter(prefix + field.getName(), kind, field, null));
+      }
+    }
+    for (java.lang.reflect.Method method : type.getMethods()) {
+      String methodName = method.getName();
+      if (methodName.startsWith("get") && methodName.length() > 3 && method.getParameterTypes().length == 0) {
+        int kind = kindOf(method.getReturnType());
+        if (kind != -1) {
+          String name = Character.toLowerCase(methodName.charAt(3)) + methodName.substring(4);
+          getters.add(new Getter(prefix + name, kind, null, method));
+        }
+      }
+    }
+
+    // A bean type without constructor can still be written from the instance of a subclass
+    Constructor<?> constructor = null;
+    if (!Modifier.isAbstract(type.getModifiers())) {
+      try {
+        constructor = type.getConstructor();
+      }
+      catch (NoSuchMethodException ignore) {
+      }
+    }
+
+    //
+    this.type = type;
+    this.prefix = prefix;
+    this.constructor = constructor;
+    this.properties = properties.values().toArray(new Property[properties.size()]);
+    this.getters = getters.toArray(new Getter[getters.size()]);
+    this.subclasses = new ConcurrentHashMap<Class<?>, MappedBeanBinder>();
+  }
+
+  /**
+   * Create a bean from the request parameters.
+   *
+   * @param parameters the request parameters
+   * @return the bean
+   * @throws IllegalStateException when the bean cannot be created or one of its properties cannot be set
+   */
+  Object create(Map<String, RequestParameter> parameters) throws IllegalStateException {
+    if (constructor == null) {
+      throw new IllegalStateException("Cannot create mapped bean " + type.getName() + " that has no public no-argument constructor");
+    }
+    Object bean;
+    try {
+      bean = constructor.newInstance();
+    }
+    catch (InvocationTargetException e) {
+      throw new IllegalStateException("Cannot create mapped bean " + type.getName(), e.getCause());
+    }
+    catch (Exception e) {
+      throw new IllegalStateException("Cannot create mapped bean " + type.getName(), e);
+    }
+    for (Property property : properties) {
+      RequestParameter parameter = parameters.get(property.key);
+      if (parameter != null && parameter.size() > 0) {
+        property.set(bean, parameter.toArray());
+      }
+    }
+    return bean;
+  }
+
+  /**
+   * Put the bean state in the parameters map.
+   *
+   * @param bean the bean
+   * @param parameters the parameters
+   * @throws IllegalStateException when one of the bean properties cannot be read
+   */
+  void write(Object bean, Map<String, String[]> parameters) throws IllegalStateException {
+    Class<?> beanType = bean.getClass();
+    if (beanType != type) {
+      MappedBeanBinder binder = subclasses.get(beanType);
+      if (binder == null) {
+        MappedBeanBinder previous = subclasses.putIfAbsent(beanType, binder = new MappedBeanBinder(beanType, prefix));
+        if (previous != null) {
+          binder = previous;
+        }
+      }
+      binder.write(bean, parameters);
+    } else {
+      for (Getter getter : getters) {
+        Object value = getter.get(bean);
+        if (value != null) {
+          String[] values;
+          switch (getter.kind) {
+            case 0:
+              values = (String[])value;
+              break;
+            case 1:
+              values = new String[]{(String)value};
+              break;
+            default:
+              Collection<?> c = (Collection<?>)value;
+              values = new String[c.size()];
+              Iterator<?> iterator = c.iterator();
+              for (int i = 0;i < values.length;i++) {
+                values[i] = String.valueOf(iterator.next());
+              }
+              break;
+          }
+          parameters.put(getter.key, values);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the kind of a property type, the lowest kind is preferred when several setters exist.
+   */
+  private static int kindOf(Class<?> type) {
+    if (type == String[].class) {
+      return 0;
+    } else if (type == String.class) {
+      return 1;
+    } else if (type == List.class) {
+      return 2;
+    } else {
+      return -1;
+    }
+  }
+
+  private static class Property {
+
+    /** The request parameter name. */
+    final String key;
+
+    /** The setter or null when the property is a field. */
+    java.lang.reflect.Method setter;
+
+    /** . */
+    Field field;
+
+    /** The kind of the setter parameter or of the field. */
+    int kind;
+
+    Property(String key) {
+      this.key = key;
+    }
+
+    void set(Object bean, String[] value) {
+      try {
+        if (setter != null) {
+          setter.invoke(bean, convert(kind, value));
+        } else {
+          field.set(bean, convert(kind, value));
+        }
+      }
+      catch (InvocationTargetException e) {
+        throw new IllegalStateException("Cannot set mapped bean property " + key, e.getCause());
+      }
+      catch (IllegalAccessException e) {
+        throw new IllegalStateException("Cannot set mapped bean property " + key, e);
+      }
+    }
+
+    private static Object convert(int kind, String[] value) {
+      switch (kind) {
+        case 0:
+          return value;
+        case 1:
+          return value[0];
+        default:
+          return Arrays.asList(value);
+      }
+    }
+  }
+
+  private static class Getter {
+
+    /** The request parameter name. */
+    final String key;
+
+    /** . */
+    final int kind;
+
+    /** . */
+    final Field field;
+
+    /** . */
+    final java.lang.reflect.Method method;
+
+    Getter(String key, int kind, Field field, java.lang.reflect.Method method) {
+      this.key = key;
+      this.kind = kind;
+      this.field = field;
+      this.method = method;
+    }
+
+    Object get(Object bean) {
+      try {
+        return field != null ? field.get(bean) : method.invoke(bean);
+      }
+      catch (InvocationTargetException e) {
+        throw new IllegalStateException("Cannot get mapped bean property " + key, e.getCause());
+      }
+      catch (IllegalAccessException e) {
+        throw new IllegalStateException("Cannot get mapped bean property " + key, e);
+      }
+    }
+  }
+}
@@ -26,9 +26,10 @@ import juzu.request.RequestParameter;
 import java.beans.Introspector;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -70,12 +71,28 @@ public final class Method<P extends Phase> {
   /** . */
   private final MethodHandle handle;
 
+  /** . */
+  private final MethodInvoker invoker;
+
+  /** The binders of the {@link Mapped} parameters indexed by parameter position. */
+  private final MappedBeanBinder[] binders;
+
   public Method(
       String id,
       P phase,
       Class<?> type,
       java.lang.reflect.Method method,
       List<ControlParameter> parameterList) {
+    this(id, phase, type, method, parameterList, null);
+  }
+
+  public Method(
+      String id,
+      P phase,
+      Class<?> type,
+      java.lang.reflect.Method method,
+      List<ControlParameter> parameterList,
+      MethodInvoker invoker) {
 
     // Fix parameter list
     Class<?>[] parameterTypes = method.getParameterTypes();
@@ -131,6 +148,22 @@ public final class Method<P extends Phase> {
       }
     }
 
+    //
+    MappedBeanBinder[] binders = new MappedBeanBinder[parameterList.size()];
+    for (int i = 0;i < binders.length;i++) {
+      ControlParameter parameter = parameterList.get(i);
+      if (parameter instanceof PhaseParameter && parameter.getType().isAnnotationPresent(Mapped.class)) {
+        PhaseParameter phaseParameter = (PhaseParameter)parameter;
+        String prefix = requiresPrefix ? phaseParameter.getMappedName() + "." : "";
+        binders[i] = new MappedBeanBinder(phaseParameter.getType(), prefix);
+      }
+    }
+
+    // The reflection fallback invokes the methods the generated invoker cannot call, such as private methods
+    if (invoker == null && !Modifier.isPublic(method.getModifiers()) && !method.isAccessible()) {
+      method.setAccessible(true);
+    }
+
     //
     this.id = id;
     this.phase = phase;
@@ -140,6 +173,8 @@ public final class Method<P extends Phase> {
     this.parameterMap = Collections.unmodifiableMap(argumentMap);
     this.requiresPrefix = requiresPrefix;
     this.handle = new MethodHandle(method);
+    this.invoker = invoker;
+    this.binders = binders;
   }
 
   public MethodHandle getHandle() {
@@ -166,6 +201,28 @@ public final class Method<P extends Phase> {
     return method.getName();
   }
 
+  /**
+   * Invoke the method on the controller with the generated invoker when there is one, otherwise with reflection.
+   *
+   * @param controller the controller
+   * @param args the arguments by position
+   * @return the value returned by the method
+   * @throws InvocationTargetException wraps any exception thrown by the method
+   * @throws IllegalStateException when the method cannot be accessed
+   */
+  public Object invoke(Object controller, Object[] args) throws InvocationTargetException, IllegalStateException {
+    if (invoker != null) {
+      return invoker.invoke(controller, args);
+    } else {
+      try {
+        return method.invoke(controller, args);
+      }
+      catch (IllegalAccessException e) {
+        throw new IllegalStateException("Cannot access controller method " + method, e);
+      }
+    }
+  }
+
   public ControlParameter getParameter(String name) {
     return parameterMap.get(name);
   }
@@ -180,7 +237,8 @@ public final class Method<P extends Phase> {
 
   public void setArgs(Object[] args, Parameters parameterMap) {
     int index = 0;
-    for (ControlParameter parameter : parameterList) {
+    for (int position = 0;position < parameterList.size();position++) {
+      ControlParameter parameter = parameterList.get(position);
       if (parameter instanceof PhaseParameter) {
         PhaseParameter phaseParameter = (PhaseParameter)parameter;
         Object value = args[index++];
@@ -188,8 +246,10 @@ public final class Method<P extends Phase> {
           String name = phaseParameter.getMappedName();
           switch (phaseParameter.getCardinality()) {
             case SINGLE: {
-              if (phaseParameter.getType().isAnnotationPresent(Mapped.class)) {
-                Map<String, String[]> p = buildBeanParameter(name, value);
+              MappedBeanBinder binder = binders[position];
+              if (binder != null) {
+                Map<String, String[]> p = new HashMap<String, String[]>();
+                binder.write(value, p);
                 parameterMap.setParameters(p);
               }
               else {
@@ -227,67 +287,17 @@ public final class Method<P extends Phase> {
     }
   }
 
-  private Map<String, String[]> buildBeanParameter(String baseName, Object value) {
-    Map<String, String[]> parameters = new HashMap<String, String[]>();
-
-    try {
-      for (Field f : value.getClass().getFields()) {
-        Object v = f.get(value);
-        if (v == null) {
-          continue;
-        }
-
-        String name = requiresPrefix ? baseName + "." + f.getName() : f.getName();
-        addParameter(parameters, name, f.getType(), v);
-      }
-
-      for (java.lang.reflect.Method m : value.getClass().getMethods()) {
-        if (m.getName().startsWith("get") && m.getName().length() > 3 && m.getParameterTypes().length == 0) {
-          Object v = m.invoke(value);
-          if (v == null) {
-            continue;
-          }
-
-          String n = Character.toLowerCase(m.getName().charAt(3)) + m.getName().substring(4);
-          String name = requiresPrefix ? baseName + "." + n : n;
-          addParameter(parameters, name, m.getReturnType(), v);
-        }
-      }
-    }
-    catch (Exception e) {
-    }
-
-    return parameters;
-  }
-
-  private void addParameter(Map<String, String[]> parameters, String name, Class clazz, Object value) {
-    if (String.class.equals(clazz)) {
-      parameters.put(name, new String[]{(String)value});
-    }
-    else if (String[].class.equals((clazz))) {
-      parameters.put(name, (String[])value);
-    }
-    else if (List.class.equals((clazz))) {
-      parameters.put(name, (String[])((List)value).toArray());
-    }
-  }
-
   public Map<ControlParameter, Object> getArguments(Map<String, RequestParameter> parameterMap) {
     Map<ControlParameter, Object> arguments = new HashMap<ControlParameter, Object>();
-    for (ControlParameter controlParam : this.parameterMap.values()) {
+    for (int position = 0;position < parameterList.size();position++) {
+      ControlParameter controlParam = parameterList.get(position);
       if (controlParam instanceof PhaseParameter) {
         PhaseParameter phaseParameter = (PhaseParameter)controlParam;
-        Class<?> type = phaseParameter.getType();
         Object[] values;
-        if (type.isAnnotationPresent(Mapped.class)) {
+        MappedBeanBinder binder = binders[position];
+        if (binder != null) {
           // build bean parameter
-          Object o = null;
-          try {
-            o = createMappedBean(type, phaseParameter.getMappedName(), parameterMap);
-          }
-          catch (Exception e) {
-          }
-          values = new Object[]{o};
+          values = new Object[]{binder.create(parameterMap)};
         }
         else {
           RequestParameter requestParam = parameterMap.get(phaseParameter.getMappedName());
@@ -317,62 +327,6 @@ public final class Method<P extends Phase> {
     return arguments;
   }
 
-  private <T> T createMappedBean(Class<T> clazz, String beanName, Map<String, RequestParameter> parameters) throws IllegalAccessException, InstantiationException {
-    // Extract parameters
-    Map<String, String[]> beanParams = new HashMap<String, String[]>();
-    String prefix = requiresPrefix ? beanName + "." : "";
-    for (String key : parameters.keySet()) {
-      if (key.startsWith(prefix)) {
-        String paramName = key.substring(prefix.length());
-        beanParams.put(paramName, parameters.get(key).toArray());
-      }
-    }
-
-    // Build bean
-    T bean = clazz.newInstance();
-    for (String key : beanParams.keySet()) {
-      String[] value = beanParams.get(key);
-      String setterName = "set" + key.substring(0, 1).toUpperCase() + key.substring(1);
-      boolean success = callSetter(setterName, clazz, bean, value, String[].class);
-      if (!success) {
-        success = callSetter(setterName, clazz, bean, value[0], String.class);
-      }
-      if (!success) {
-        success = callSetter(setterName, clazz, bean, Arrays.asList(value), List.class);
-      }
-      if (!success) {
-        try {
-          Field f = clazz.getField(key);
-          if (String[].class.equals(f.getType())) {
-            f.set(bean, value);
-          }
-          else if (String.class.equals(f.getType())) {
-            f.set(bean, value[0]);
-          }
-          else if (List.class.equals(f.getType())) {
-            f.set(bean, Arrays.asList(value));
-          }
-
-        }
-        catch (NoSuchFieldException e) {
-        }
-      }
-
-    }
-    return bean;
-  }
-
-  <T> boolean callSetter(String methodName, Class<T> clazz, T target, Object value, Class type) {
-    try {
-      java.lang.reflect.Method m = clazz.getMethod(methodName, type);
-      m.invoke(target, value);
-      return true;
-    }
-    catch (Exception e) {
-      return false;
-    }
-  }
-
   @Override
   public String toString() {
     StringBuilder sb = new StringBuilder(getClass().getSimpleName());
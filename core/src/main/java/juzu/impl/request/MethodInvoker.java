@@ -0,0 +1,40 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.request;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Invokes a controller method on a controller instance. The controller companion generated by the annotation
+ * processor provides an invoker calling the method directly, when no invoker is provided the method is
+ * invoked with reflection.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+public interface MethodInvoker {
+
+  /**
+   * Invoke the method.
+   *
+   * @param controller the controller
+   * @param args the method arguments by position
+   * @return the value returned by the method or null for a void method
+   * @throws InvocationTargetException wraps any exception thrown by the method, an error is not wrapped
+   */
+  Object invoke(Object controller, Object[] args) throws InvocationTargetException;
+
+}
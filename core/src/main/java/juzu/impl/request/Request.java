@@ -27,6 +27,7 @@ import juzu.impl.inject.Scoped;
 import juzu.impl.inject.ScopingContext;
 import juzu.impl.inject.spi.BeanLifeCycle;
 import juzu.impl.inject.spi.InjectionContext;
+import juzu.impl.metrics.Metrics;
 import juzu.impl.bridge.spi.RequestBridge;
 import juzu.impl.plugin.controller.ControllerPlugin;
 import juzu.impl.plugin.controller.descriptor.ControllersDescriptor;
@@ -48,8 +49,8 @@ import juzu.request.UserContext;
 import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 
@@ -73,6 +74,9 @@ public class Request implements ScopingContext {
   /** The controller for this request. */
   BeanLifeCycle controllerLifeCycle = null;
 
+  /** The named beans created for this request, they are released when the request ends. */
+  private final ConcurrentHashMap<String, BeanLifeCycle<?>> namedBeans = new ConcurrentHashMap<String, BeanLifeCycle<?>>();
+
   /** . */
   final RequestBridge bridge;
 
@@ -88,6 +92,9 @@ public class Request implements ScopingContext {
   /** . */
   private final Method<?> method;
 
+  /** The filter chain of the phase. */
+  private final RequestFilter[] filters;
+
   /** The response. */
   private Result result;
 
@@ -107,6 +114,7 @@ public class Request implements ScopingContext {
     this.arguments = arguments;
     this.controllerPlugin = controllerPlugin;
     this.method = method;
+    this.filters = controllerPlugin.getFilters(method.getPhase());
   }
 
   public ClientContext getClientContext() {
@@ -210,8 +218,13 @@ public class Request implements ScopingContext {
   /** The main contextual for this request. */
   private ContextLifeCycle contextLifeCycle;
 
+  /** The time spent in the controller method. */
+  private long dispatched;
+
   public void invoke() {
     boolean set = current.get() == null;
+    Metrics metrics = controllerPlugin.getMetrics();
+    long start = set ? metrics.time() : 0;
     try {
 
       //
@@ -220,25 +233,32 @@ public class Request implements ScopingContext {
         getScopeController().begin(this);
       }
 
-      //
-      List<RequestFilter> filters = Tools.list(controllerPlugin.getInjectionContext().resolveInstances(RequestFilter.class));
+      // Skip the filters not accepting this request
+      RequestFilter[] filters = this.filters;
+      int next = index;
+      while (next < filters.length && filters[next] instanceof SelectiveRequestFilter && !((SelectiveRequestFilter)filters[next]).accept(this)) {
+        next++;
+      }
 
       //
-      if (index >= 0 && index < filters.size()) {
+      if (next >= 0 && next < filters.length) {
 
-        RequestFilter plugin = filters.get(index);
+        RequestFilter plugin = filters[next];
+        int prev = index;
         try {
-          index++;
+          index = next + 1;
           plugin.invoke(this);
         }
         finally {
-          index--;
+          index = prev;
         }
       }
-      else if (index == filters.size()) {
+      else if (next == filters.length) {
 
         // Dispatch request
+        long begin = metrics.time();
         Response response = dispatch(this, controllerPlugin.getInjectionContext());
+        dispatched = metrics.time() - begin;
         if (response != null) {
           setResponse(response);
         }
@@ -251,12 +271,53 @@ public class Request implements ScopingContext {
       if (set) {
         contextLifeCycle.endContextual();
         current.set(null);
+        metrics.invoked(method, start, dispatched);
+      }
+    }
+  }
+
+  /**
+   * Returns the life cycle of a named bean created for this request or null.
+   *
+   * @param name the bean name
+   * @return the bean life cycle
+   */
+  public BeanLifeCycle<?> getNamedBean(String name) {
+    return namedBeans.get(name);
+  }
+
+  /**
+   * Retain the life cycle of a named bean until the request ends. When a life cycle is already retained for this
+   * name, the specified life cycle is closed and the retained one is returned.
+   *
+   * @param name the bean name
+   * @param lifeCycle the bean life cycle
+   * @return the retained life cycle
+   */
+  public BeanLifeCycle<?> setNamedBean(String name, BeanLifeCycle<?> lifeCycle) {
+    BeanLifeCycle<?> previous = namedBeans.putIfAbsent(name, lifeCycle);
+    if (previous != null) {
+      lifeCycle.close();
+      return previous;
+    } else {
+      return lifeCycle;
+    }
+  }
+
+  /**
+   * Release the named beans created for this request.
+   */
+  void releaseNamedBeans() {
+    for (String name : namedBeans.keySet()) {
+      BeanLifeCycle<?> lifeCycle = namedBeans.remove(name);
+      if (lifeCycle != null) {
+        Tools.safeClose(lifeCycle);
       }
     }
   }
 
   public Executor getExecutor() {
-    final Iterable<ExecutionFilter> filters = controllerPlugin.getInjectionContext().resolveInstances(ExecutionFilter.class);
+    final ExecutionFilter[] filters = controllerPlugin.getExecutionFilters();
     return new Executor() {
       public void execute(Runnable command) {
         for (ExecutionFilter filter : filters) {
@@ -403,7 +464,7 @@ public class Request implements ScopingContext {
         if (context.getResponse() == null) {
           // We invoke method on controller
           try {
-            Object ret = context.getMethod().getMethod().invoke(controller, args);
+            Object ret = context.getMethod().invoke(controller, args);
             if (ret instanceof Response) {
               // We should check that it matches....
               // btw we should try to enforce matching during compilation phase
@@ -416,9 +477,6 @@ public class Request implements ScopingContext {
           catch (InvocationTargetException e) {
              context.setResponse(Response.error(e.getCause()));
           }
-          catch (IllegalAccessException e) {
-            throw new UnsupportedOperationException("hanle me gracefully", e);
-          }
 
           // End request callback
           if (controller instanceof juzu.request.RequestLifeCycle) {
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.request;
+
+import juzu.request.Phase;
+
+/**
+ * A request filter declaring the requests it applies to, the request dispatcher skips the filter for the other
+ * requests instead of invoking it.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+public interface SelectiveRequestFilter extends RequestFilter {
+
+  /**
+   * Returns true when the filter applies to the phase, this is evaluated once when the filter chain of
+   * the application is created.
+   *
+   * @param phase the phase
+   * @return true if the filter should be retained for the phase
+   */
+  boolean accept(Phase phase);
+
+  /**
+   * Returns true when the filter applies to the request, this is evaluated for each request of an accepted phase
+   * before the filter is invoked.
+   *
+   * @param request the request
+   * @return true if the filter should be invoked
+   */
+  boolean accept(Request request);
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.router;
+
+import juzu.impl.common.UriBuilder;
+import juzu.impl.router.regex.RE;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The precomputed reverse routing of a route: the path parameters of the route and its ancestors are flattened
+ * in an array, the values are provided by index and the path is rendered without the maps created by
+ * {@link Route#matches(java.util.Map)} and {@link RouteMatch#render(juzu.impl.common.UriBuilder)}. The rendered
+ * path is the same than the one rendered by the route match.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+public final class ReverseRoute {
+
+  /** . */
+  private static final String[] EMPTY_STRING_ARRAY = new String[0];
+
+  /** . */
+  private final Route route;
+
+  /** The routes from the root to the route. */
+  private final Route[] path;
+
+  /** The index of the first parameter of each route of the path. */
+  private final int[] offsets;
+
+  /** . */
+  private final PathParam[] params;
+
+  /** The parameter indexes by name. */
+  private final HashMap<String, Integer> indexes;
+
+  /** The number of regexes indexed by {@link RERef#index}. */
+  private final int regexes;
+
+  public ReverseRoute(Route route) throws NullPointerException {
+    if (route == null) {
+      throw new NullPointerException("No null route accepted");
+    }
+
+    //
+    List<Route> path = route.getPath();
+    int[] offsets = new int[path.size()];
+    List<PathParam> params = new ArrayList<PathParam>();
+    HashMap<String, Integer> indexes = new HashMap<String, Integer>();
+    int regexes = 0;
+    for (int i = 0;i < path.size();i++) {
+      offsets[i] = params.size();
+      Route current = path.get(i);
+      if (current instanceof PatternRoute) {
+        for (PathParam param : ((PatternRoute)current).params) {
+          indexes.put(param.name, params.size());
+          params.add(param);
+          for (RERef ref : param.matchingRegex) {
+            regexes = Math.max(regexes, ref.index + 1);
+          }
+        }
+      }
+    }
+
+    //
+    this.route = route;
+    this.path = path.toArray(new Route[path.size()]);
+    this.offsets = offsets;
+    this.params = params.toArray(new PathParam[params.size()]);
+    this.indexes = indexes;
+    this.regexes = regexes;
+  }
+
+  public Route getRoute() {
+    return route;
+  }
+
+  /**
+   * Returns the number of path parameters.
+   *
+   * @return the number of parameters
+   */
+  public int getSize() {
+    return params.length;
+  }
+
+  /**
+   * Returns the name of a path parameter.
+   *
+   * @param index the parameter index
+   * @return the parameter name
+   */
+  public String getName(int index) {
+    return params[index].name;
+  }
+
+  /**
+   * Returns the index of a path parameter or -1 when the name is not a path parameter.
+   *
+   * @param name the parameter name
+   * @return the parameter index
+   */
+  public int indexOf(String name) {
+    Integer index = indexes.get(name);
+    return index != null ? index : -1;
+  }
+
+  /**
+   * Create an array of values for this route, the array is shared when the route has no parameters.
+   *
+   * @return the values array
+   */
+  public String[] createValues() {
+    return params.length == 0 ? EMPTY_STRING_ARRAY : new String[params.length];
+  }
+
+  /**
+   * Match the values against the path parameters, this does the same than {@link Route#matches(java.util.Map)}:
+   * when the values matches the path parameters, each value is replaced by its rendered form.
+   *
+   * @param values the values indexed by parameter
+   * @return true when the values match
+   */
+  public boolean match(String[] values) {
+    if (params.length == 0) {
+      return true;
+    }
+    // The matchers of this match indexed by the regex reference index
+    RE.Matcher[] matchers = new RE.Matcher[regexes];
+    for (int i = 0;i < params.length;i++) {
+      PathParam param = params[i];
+      String s = values[i];
+      if (s == null) {
+        return false;
+      }
+      String matched = null;
+      for (int j = 0;j < param.matchingRegex.length;j++) {
+        RERef ref = param.matchingRegex[j];
+        RE.Matcher matcher = matchers[ref.index];
+        if (matcher == null) {
+          matcher = matchers[ref.index] = ref.re.matcher();
+        }
+        if (matcher.matches(s)) {
+          String prefix = param.templatePrefixes[j];
+          String suffix = param.templateSuffixes[j];
+          matched = prefix.length() == 0 && suffix.length() == 0 ? s : prefix + s + suffix;
+          break;
+        }
+      }
+      if (matched != null) {
+        values[i] = matched;
+      } else {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Render the path with the values previously matched by {@link #match(String[])}.
+   *
+   * @param values the matched values
+   * @param writer the writer
+   * @throws IOException any io exception
+   */
+  public void render(String[] values, UriBuilder writer) throws IOException {
+    boolean endWithSlash = false;
+    for (int k = 0;k < path.length;k++) {
+      endWithSlash = path[k].render(writer, endWithSlash, k < path.length - 1, values, offsets[k]);
+    }
+  }
+}
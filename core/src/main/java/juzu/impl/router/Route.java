@@ -132,10 +132,10 @@ public class Route {
   private static final Route[] EMPTY_ROUTE_ARRAY = new Route[0];
 
   /** . */
-  private final Router router;
+  final Router router;
 
   /** . */
-  private final int terminal;
+  final int terminal;
 
   /** . */
   private Route parent;
@@ -144,7 +144,7 @@ public class Route {
   private List<Route> path;
 
   /** . */
-  private Route[] children;
+  Route[] children;
 
   Route(Router router, int terminal) {
 
@@ -194,6 +194,32 @@ public class Route {
     boolean endWithSlash = parent != null && parent.renderPath(match, writer, true);
 
     //
+    String[] values = null;
+    if (this instanceof PatternRoute) {
+      PathParam[] params = ((PatternRoute)this).params;
+      values = new String[params.length];
+      for (int i = 0;i < params.length;i++) {
+        values[i] = match.matched.get(params[i]);
+      }
+    }
+
+    //
+    return render(writer, endWithSlash, hasChildren, values, 0);
+  }
+
+  /**
+   * Render this route after the path of its parent, this is shared by {@link RouteMatch#render(UriBuilder)} and
+   * {@link ReverseRoute#render(String[], UriBuilder)}.
+   *
+   * @param writer the writer
+   * @param endWithSlash true when the path of the parent ends with a slash
+   * @param hasChildren true when a child route is rendered after this route
+   * @param values the matched values of the parameters of a pattern route
+   * @param offset the index of the first parameter of this route in the values
+   * @return true when the rendered path ends with a slash
+   * @throws IOException any io exception
+   */
+  final boolean render(UriBuilder writer, boolean endWithSlash, boolean hasChildren, String[] values, int offset) throws IOException {
     if (this instanceof SegmentRoute) {
       SegmentRoute sr = (SegmentRoute)this;
       if (!endWithSlash) {
@@ -223,7 +249,7 @@ public class Route {
 
         //
         PathParam def = pr.params[i];
-        String value = match.matched.get(def);
+        String value = values[offset + i];
         count += value.length();
 
         // Write value
@@ -0,0 +1,427 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.router;
+
+import juzu.impl.router.regex.RE;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable automaton compiled from a route tree. It matches a path with the same semantic than
+ * {@link Route#route(String, java.util.Map)} but does not allocate a frame per candidate route:
+ * <ul>
+ *   <li>the literal segments of a node are looked up in a hash table built at compilation time, each entry
+ *   provides the ordered list of children to try for this segment value, so the route priority is retained.</li>
+ *   <li>the pattern routes share matchers indexed by their {@link RERef} index for the duration of a match.</li>
+ *   <li>the path parameters are collected on a stack and the parameter map is created once the match is found.</li>
+ * </ul>
+ * The automaton is a snapshot of the route tree: modifying the tree after the compilation has no effect on it.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+public final class RouteAutomaton {
+
+  /** . */
+  private static final int KIND_ROUTE = 0;
+
+  /** . */
+  private static final int KIND_EMPTY = 1;
+
+  /** . */
+  private static final int KIND_SEGMENT = 2;
+
+  /** . */
+  private static final int KIND_PATTERN = 3;
+
+  /** . */
+  private static final Node[] EMPTY_NODE_ARRAY = new Node[0];
+
+  /** . */
+  private final Node root;
+
+  /** The size of the matcher table. */
+  private final int regexes;
+
+  public RouteAutomaton(Route root) throws NullPointerException {
+    if (root == null) {
+      throw new NullPointerException("No null root route accepted");
+    }
+
+    //
+    int[] regexes = {0};
+    this.root = new Node(root, regexes);
+    this.regexes = regexes[0];
+  }
+
+  public Route getRoot() {
+    return root.route;
+  }
+
+  public RouteMatch route(String path) {
+    return route(path, Collections.<String, String[]>emptyMap());
+  }
+
+  public RouteMatch route(String path, Map<String, String[]> requestParams) {
+
+    // Always start with a '/'
+    if (!path.startsWith("/")) {
+      path = "/" + path;
+    }
+
+    //
+    State state = new State(Path.parse(path), regexes);
+    Node matched = state.match(root, 0);
+    if (matched != null) {
+      Map<PathParam, String> parameters;
+      if (state.size == 0) {
+        parameters = Collections.emptyMap();
+      } else {
+        parameters = new HashMap<PathParam, String>(state.size * 2);
+        for (int i = 0;i < state.size;i++) {
+          parameters.put(state.params[i], state.values[i]);
+        }
+      }
+      return new RouteMatch(matched.route, parameters);
+    } else {
+      return null;
+    }
+  }
+
+  private static class Node {
+
+    /** . */
+    final Route route;
+
+    /** . */
+    final int kind;
+
+    /** . */
+    final char separatorEscape;
+
+    /** All the children in declaration order. */
+    final Node[] children;
+
+    /** The children that are not segments, tried when the current segment matches no segment child. */
+    final Node[] others;
+
+    /** The segment table keys or null when the node has no segment child. */
+    final String[] keys;
+
+    /** The segment table values: the children to try for the corresponding key in declaration order. */
+    final Node[][] candidates;
+
+    Node(Route route, int[] regexes) {
+
+      //
+      int kind;
+      if (route instanceof EmptyRoute) {
+        kind = KIND_EMPTY;
+      } else if (route instanceof SegmentRoute) {
+        kind = KIND_SEGMENT;
+      } else if (route instanceof PatternRoute) {
+        kind = KIND_PATTERN;
+        regexes[0] = Math.max(regexes[0], ((PatternRoute)route).pattern.index + 1);
+      } else {
+        kind = KIND_ROUTE;
+      }
+
+      //
+      Node[] children = new Node[route.children.length];
+      List<Node> others = new ArrayList<Node>();
+      LinkedHashMap<String, List<Node>> segments = new LinkedHashMap<String, List<Node>>();
+      for (int i = 0;i < children.length;i++) {
+        Node child = children[i] = new Node(route.children[i], regexes);
+        if (child.kind == KIND_SEGMENT) {
+          segments.put(((SegmentRoute)child.route).name, null);
+        }
+      }
+
+      // For each segment name compute the children to try in declaration order
+      for (Map.Entry<String, List<Node>> entry : segments.entrySet()) {
+        List<Node> list = new ArrayList<Node>();
+        for (Node child : children) {
+          if (child.kind != KIND_SEGMENT || ((SegmentRoute)child.route).name.equals(entry.getKey())) {
+            list.add(child);
+          }
+        }
+        entry.setValue(list);
+      }
+      for (Node child : children) {
+        if (child.kind != KIND_SEGMENT) {
+          others.add(child);
+        }
+      }
+
+      //
+      String[] keys;
+      Node[][] candidates;
+      if (segments.isEmpty()) {
+        keys = null;
+        candidates = null;
+      } else {
+        int size = Integer.highestOneBit(segments.size() * 2 - 1) << 1;
+        keys = new String[size];
+        candidates = new Node[size][];
+        for (Map.Entry<String, List<Node>> entry : segments.entrySet()) {
+          String key = entry.getKey();
+          int index = hash(key, 0, key.length()) & (size - 1);
+          while (keys[index] != null) {
+            index = (index + 1) & (size - 1);
+          }
+          keys[index] = key;
+          candidates[index] = entry.getValue().toArray(new Node[entry.getValue().size()]);
+        }
+      }
+
+      //
+      this.route = route;
+      this.kind = kind;
+      this.separatorEscape = route.router.separatorEscape;
+      this.children = children;
+      this.others = others.isEmpty() ? EMPTY_NODE_ARRAY : others.toArray(new Node[others.size()]);
+      this.keys = keys;
+      this.candidates = candidates;
+    }
+
+    /**
+     * Returns the children to try for the segment delimited by the <code>from</code> and <code>to</code>
+     * indexes of the specified value.
+     */
+    Node[] lookup(String value, int from, int to) {
+      int len = to - from;
+      int mask = keys.length - 1;
+      int index = hash(value, from, to) & mask;
+      String key;
+      while ((key = keys[index]) != null) {
+        if (key.length() == len && value.regionMatches(from, key, 0, len)) {
+          return candidates[index];
+        }
+        index = (index + 1) & mask;
+      }
+      return others;
+    }
+
+    private static int hash(String s, int from, int to) {
+      int h = 0;
+      for (int i = from;i < to;i++) {
+        h = 31 * h + s.charAt(i);
+      }
+      return h ^ (h >>> 16);
+    }
+  }
+
+  /**
+   * The state of a single match.
+   */
+  private static class State {
+
+    /** . */
+    final Path path;
+
+    /** . */
+    final String value;
+
+    /** The matchers indexed by {@link RERef#index}, created on demand. */
+    final RE.Matcher[] matchers;
+
+    /** . */
+    PathParam[] params;
+
+    /** . */
+    String[] values;
+
+    /** . */
+    int size;
+
+    /** The last sub path value given to a pattern, reused by sibling patterns. */
+    String sub;
+
+    /** . */
+    int subOffset;
+
+    State(Path path, int regexes) {
+      this.path = path;
+      this.value = path.getValue();
+      this.matchers = new RE.Matcher[regexes];
+      this.params = new PathParam[4];
+      this.values = new String[4];
+      this.size = 0;
+      this.subOffset = -1;
+    }
+
+    Node match(Node node, int offset) {
+      int len = value.length();
+
+      //
+      Node[] candidates;
+      int to = -1;
+      if (node.keys != null) {
+        int from = offset;
+        while (from < len && value.charAt(from) == '/') {
+          from++;
+        }
+        to = value.indexOf('/', from);
+        if (to == -1) {
+          to = len;
+        }
+        candidates = node.lookup(value, from, to);
+      } else {
+        candidates = node.children;
+      }
+
+      //
+      for (Node child : candidates) {
+        int size = this.size;
+        int next;
+        switch (child.kind) {
+          case KIND_EMPTY:
+            next = offset;
+            break;
+          case KIND_SEGMENT:
+            next = to;
+            break;
+          case KIND_PATTERN:
+            next = match((PatternRoute)child.route, child.separatorEscape, offset);
+            break;
+          default:
+            throw new AssertionError();
+        }
+        if (next != -1) {
+          Node found = match(child, next);
+          if (found != null) {
+            return found;
+          }
+          this.size = size;
+        }
+      }
+
+      // Find the index of the first char that is not a '/'
+      int pos = offset;
+      while (pos < len && value.charAt(pos) == '/') {
+        pos++;
+      }
+
+      // Are we done ?
+      if (pos == len) {
+        if (node.kind == KIND_EMPTY) {
+          return node;
+        } else {
+          switch (node.route.terminal) {
+            case Route.TERMINATION_NONE:
+              return null;
+            case Route.TERMINATION_SEGMENT:
+              return pos == offset ? node : null;
+            case Route.TERMINATION_SEPARATOR:
+              return pos == offset ? null : node;
+            case Route.TERMINATION_ANY:
+              return node;
+            default:
+              throw new AssertionError();
+          }
+        }
+      } else {
+        return null;
+      }
+    }
+
+    /**
+     * Match a pattern route at the specified offset.
+     *
+     * @return the offset of the path after the match or -1
+     */
+    private int match(PatternRoute route, char separatorEscape, int offset) {
+
+      // We skip one '/' like the tree walk does
+      int start = offset;
+      if (start < value.length() && value.charAt(start) == '/') {
+        start++;
+      }
+
+      //
+      if (subOffset != start) {
+        sub = value.substring(start);
+        subOffset = start;
+      }
+
+      //
+      RE.Matcher matcher = matchers[route.pattern.index];
+      if (matcher == null) {
+        matcher = matchers[route.pattern.index] = route.pattern.re.matcher();
+      }
+
+      //
+      RE.Match[] matches = matcher.find(sub);
+      if (matches.length == 0) {
+        return -1;
+      }
+
+      //
+      int index = 1;
+      for (PathParam param : route.params) {
+        for (int j = 0;j < param.matchingRegex.length;j++) {
+          RE.Match match = matches[index + j];
+          if (match.getEnd() != -1) {
+            String value = match.getValue();
+            if (!param.preservePath) {
+              value = unescape(value, separatorEscape, start + match.getStart());
+            }
+            push(param, value);
+            break;
+          }
+        }
+        index += param.matchingRegex.length;
+      }
+
+      //
+      return start + matches[0].getEnd();
+    }
+
+    /**
+     * Replace the non escaped separator escape chars by a <code>/</code>, the string is allocated only when needed.
+     */
+    private String unescape(String s, char separatorEscape, int offset) {
+      char[] chars = null;
+      for (int i = 0;i < s.length();i++) {
+        if (s.charAt(i) == separatorEscape && !path.isEscaped(offset + i)) {
+          if (chars == null) {
+            chars = s.toCharArray();
+          }
+          chars[i] = '/';
+        }
+      }
+      return chars != null ? new String(chars) : s;
+    }
+
+    private void push(PathParam param, String value) {
+      if (size == params.length) {
+        PathParam[] params = new PathParam[size * 2];
+        String[] values = new String[size * 2];
+        System.arraycopy(this.params, 0, params, 0, size);
+        System.arraycopy(this.values, 0, values, 0, size);
+        this.params = params;
+        this.values = values;
+      }
+      params[size] = param;
+      values[size++] = value;
+    }
+  }
+}
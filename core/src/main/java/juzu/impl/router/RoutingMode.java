@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.router;
+
+/**
+ * The routing mode determines how a request path is matched against a route tree.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+public enum RoutingMode {
+
+  /**
+   * Match by walking the route tree with {@link Route#route(String, java.util.Map)}.
+   */
+  TREE,
+
+  /**
+   * Match with the {@link RouteAutomaton} compiled from the route tree.
+   */
+  COMPILED,
+
+  /**
+   * Match with both and report any difference, the result of the tree walk is retained.
+   */
+  CHECKED;
+
+  /** . */
+  private static final RoutingMode[] ALL = values();
+
+  /**
+   * Parse the routing mode
+   *
+   * @param s the string to parse
+   * @return the corresponding routing mode or null if none can be matched
+   * @throws NullPointerException if the string argument is null
+   */
+  public static RoutingMode parse(String s) throws NullPointerException {
+    if (s == null) {
+      throw new NullPointerException("No null string argument accepted");
+    }
+    for (RoutingMode mode : ALL) {
+      if (mode.name().equalsIgnoreCase(s)) {
+        return mode;
+      }
+    }
+    return null;
+  }
+}
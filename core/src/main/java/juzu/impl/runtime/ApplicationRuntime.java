@@ -131,6 +131,33 @@ public class ApplicationRuntime<P, R> implements Closeable {
     }
   }
 
+  /**
+   * Refresh the application without stopping the previous application first: when a new application is started
+   * the previous one remains usable until the returned closeable is closed, allowing the requests still using it
+   * to complete.
+   *
+   * @return the closeable stopping the previous application or null when the application is not restarted
+   * @throws Exception any exception
+   */
+  public Closeable restart() throws Exception {
+    if (application != null && classLoader == moduleLifeCycle.getClassLoader()) {
+      return null;
+    }
+
+    //
+    final Application previous = application;
+    final InjectionContext<?, ?> previousContext = injectionContext;
+    log.info("Starting application");
+    start();
+    return new Closeable() {
+      public void close() {
+        if (previous != null) {
+          stop(previous, previousContext);
+        }
+      }
+    };
+  }
+
   protected final void start() throws Exception {
     ReadFileSystem<?> classes = moduleLifeCycle.getClasses();
 
@@ -177,10 +204,7 @@ public class ApplicationRuntime<P, R> implements Closeable {
   }
 
   void stop() {
-    if (assetServer != null) {
-      assetServer.unregister(application);
-    }
-    Tools.safeClose(injectionContext);
+    stop(application, injectionContext);
     application = null;
     injectionContext = null;
     assetManager = null;
@@ -188,6 +212,13 @@ public class ApplicationRuntime<P, R> implements Closeable {
     classLoader = null;
   }
 
+  private void stop(Application application, InjectionContext<?, ?> injectionContext) {
+    if (assetServer != null) {
+      assetServer.unregister(application);
+    }
+    Tools.safeClose(injectionContext);
+  }
+
   public void close() {
     stop();
   }
@@ -16,21 +16,35 @@
 
 package juzu.impl.runtime;
 
+import juzu.impl.common.ClassFile;
 import juzu.impl.common.LiveClassLoader;
 import juzu.impl.common.ParentJarClassLoader;
 import juzu.impl.common.Logger;
+import juzu.impl.common.Tools;
 import juzu.impl.compiler.*;
 import juzu.impl.compiler.Compiler;
+import juzu.impl.fs.Change;
 import juzu.impl.fs.FileSystemScanner;
 import juzu.impl.fs.Filter;
 import juzu.impl.fs.Snapshot;
+import juzu.impl.fs.Visitor;
 import juzu.impl.fs.spi.ReadFileSystem;
+import juzu.impl.fs.spi.filter.FilterFileSystem;
 import juzu.impl.fs.spi.ram.RAMFileSystem;
 import juzu.impl.fs.spi.url.URLFileSystem;
+import juzu.impl.metrics.Metrics;
 import juzu.processor.MainProcessor;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * The module life cycle.
@@ -54,7 +68,20 @@ public abstract class ModuleRuntime<C> {
    * @throws Exception any exception
    * @throws CompilationException any compilation exception
    */
-  public abstract boolean refresh(boolean recompile) throws Exception, CompilationException ;
+  public final boolean refresh(boolean recompile) throws Exception, CompilationException {
+    return refresh(recompile, Metrics.NONE);
+  }
+
+  /**
+   * Refresh the module and report the refresh to the specified metrics.
+   *
+   * @param recompile true if recompilation can occur
+   * @param metrics the metrics
+   * @return true when the refresh operation has triggered changes
+   * @throws Exception any exception
+   * @throws CompilationException any compilation exception
+   */
+  public abstract boolean refresh(boolean recompile, Metrics metrics) throws Exception, CompilationException ;
 
   /**
    * Returns the module classloader.
@@ -96,21 +123,67 @@ public abstract class ModuleRuntime<C> {
     /** . */
     private boolean failed;
 
+    /** The minimum time in milliseconds between two scans of the source path. */
+    private final long scanInterval;
+
+    /** The time of the last scan of the source path. */
+    private long scanned;
+
+    /** Serializes the refreshes. */
+    private final ReentrantLock refreshLock;
+
     public Dynamic(Logger logger, ClassLoader baseClassLoader, ReadFileSystem<S> source) {
+      this(logger, baseClassLoader, source, 0);
+    }
+
+    /**
+     * Create a dynamic runtime scanning the source path at most once per scan interval, a zero scan interval scans
+     * the source path on each refresh.
+     *
+     * @param logger the logger
+     * @param baseClassLoader the base class loader
+     * @param source the source path
+     * @param scanInterval the minimum time in milliseconds between two scans
+     */
+    public Dynamic(Logger logger, ClassLoader baseClassLoader, ReadFileSystem<S> source, long scanInterval) {
       super(logger);
 
       //
       this.classLoader = null;
       this.baseClassLoader = baseClassLoader;
       this.classPathLoader = new ParentJarClassLoader(baseClassLoader);
-      this.scanner = FileSystemScanner.createHashing(source);
+      this.scanner = FileSystemScanner.createStamped(source);
       this.snapshot = scanner.take();
       this.classPath = null;
       this.failed = false;
+      this.scanInterval = scanInterval;
+      this.scanned = 0;
+      this.refreshLock = new ReentrantLock();
     }
 
     @Override
-    public boolean refresh(boolean recompile) throws Exception, CompilationException {
+    public boolean refresh(boolean recompile, Metrics metrics) throws Exception, CompilationException {
+      if (!refreshLock.tryLock()) {
+        // Wait for the current refresh instead of scanning again, the next refresh detects the later changes
+        refreshLock.lock();
+        refreshLock.unlock();
+        return false;
+      }
+      try {
+        long start = metrics.time();
+        try {
+          return doRefresh(recompile, metrics);
+        }
+        finally {
+          metrics.refreshed(start);
+        }
+      }
+      finally {
+        refreshLock.unlock();
+      }
+    }
+
+    private boolean doRefresh(boolean recompile, Metrics metrics) throws Exception, CompilationException {
 
       //
       if (!recompile) {
@@ -122,7 +195,13 @@ public abstract class ModuleRuntime<C> {
         classPath = new URLFileSystem().add(classPathLoader, ClassLoader.getSystemClassLoader().getParent());
       }
 
+      // Throttle the scans, a failed build is attempted again on each refresh
+      long now = System.currentTimeMillis();
+      if (!failed && scanInterval > 0 && now - scanned < scanInterval) {
+        return false;
+      }
       Snapshot<S> next = snapshot.scan();
+      scanned = now;
 
       //
       if (!failed && !next.hasChanges()) {
@@ -130,7 +209,6 @@ public abstract class ModuleRuntime<C> {
         return false;
       }
       else {
-        logger.info("Building application");
 
         //
         this.failed = true;
@@ -139,25 +217,23 @@ public abstract class ModuleRuntime<C> {
         final ReadFileSystem<S> sourcePath = scanner.getFileSystem();
 
         //
-        final RAMFileSystem classOutput = new RAMFileSystem();
-        Compiler compiler = Compiler.
-            builder().
-            sourcePath(sourcePath).
-            sourceOutput(classOutput).
-            classOutput(classOutput).
-            addClassPath(classPath).build();
-        compiler.addAnnotationProcessor(new MainProcessor());
-        compiler.compile();
-
-        // Copy everything that is not a java source and not already present
-        sourcePath.copy(new Filter.Default<S>() {
-          @Override
-          public boolean acceptFile(S file, String name) throws IOException {
-            Iterable<String> names = sourcePath.getNames(file);
-            String[] path = classOutput.getPath(names);
-            return path == null && !name.endsWith(".java");
+        long start = metrics.time();
+        RAMFileSystem classOutput = null;
+        if (classes != null) {
+          try {
+            classOutput = build(sourcePath, next.getChanges());
           }
-        }, classOutput);
+          catch (CompilationException e) {
+            logger.info("Incremental build failed, building application");
+          }
+        }
+
+        //
+        if (classOutput == null) {
+          logger.info("Building application");
+          classOutput = build(sourcePath);
+        }
+        metrics.compiled(start);
 
         //
         this.classLoader = new LiveClassLoader(new URL[]{classOutput.getURL()}, baseClassLoader);
@@ -170,6 +246,180 @@ public abstract class ModuleRuntime<C> {
       }
     }
 
+    /**
+     * Build the whole source path.
+     */
+    private RAMFileSystem build(final ReadFileSystem<S> sourcePath) throws Exception {
+      final RAMFileSystem classOutput = new RAMFileSystem();
+      Compiler compiler = Compiler.
+          builder().
+          sourcePath(sourcePath).
+          sourceOutput(classOutput).
+          classOutput(classOutput).
+          addClassPath(classPath).build();
+      compiler.addAnnotationProcessor(new MainProcessor());
+      compiler.compile();
+
+      // Copy everything that is not a java source and not already present, we don't use the copy method
+      // as it synchronizes the directories and would skip the resources of the directories containing classes
+      sourcePath.traverse(new Visitor.Default<S>() {
+        @Override
+        public void file(S file, String name) throws IOException {
+          if (!name.endsWith(".java")) {
+            Iterable<String> names = sourcePath.getNames(file);
+            if (classOutput.getPath(names) == null) {
+              classOutput.setContent(classOutput.makePath(names), sourcePath.getContent(file).getObject());
+            }
+          }
+        }
+      });
+
+      //
+      return classOutput;
+    }
+
+    /**
+     * Build the changes of the source path on top of the previous build: the previous output is reused and only the
+     * changed compilation units and the compilation units depending transitively on them are compiled. The annotation
+     * processing is incremental, the state of the previous build is restored from the <code>metamodel.ser</code> file
+     * of the previous output. When the changes cannot be built incrementally, null is returned.
+     */
+    private RAMFileSystem build(ReadFileSystem<S> sourcePath, Map<String, Change> changes) throws Exception {
+
+      //
+      HashSet<String> changed = new HashSet<String>();
+      ArrayList<String> resources = new ArrayList<String>();
+      for (Map.Entry<String, Change> change : changes.entrySet()) {
+        String path = change.getKey();
+        if (change.getValue() == Change.REMOVE || path.endsWith("/package-info.java")) {
+          return null;
+        } else if (path.endsWith(".java")) {
+          changed.add(path);
+        } else {
+          resources.add(path);
+        }
+      }
+
+      // Index the previous classes by compilation unit, the compilation units by referenced class and by super type
+      final RAMFileSystem previous = (RAMFileSystem)classes;
+      final HashMap<String, List<String>> classesByUnit = new HashMap<String, List<String>>();
+      final HashMap<String, Set<String>> unitsByReference = new HashMap<String, Set<String>>();
+      final HashMap<String, Set<String>> unitsBySupertype = new HashMap<String, Set<String>>();
+      final HashSet<String> constantUnits = new HashSet<String>();
+      previous.traverse(new Visitor.Default<String[]>() {
+        public void file(String[] file, String name) throws IOException {
+          if (name.endsWith(".class")) {
+            ClassFile classFile = ClassFile.parse(previous.getContent(file).getObject().getBytes());
+            String className = Tools.join('/', file);
+            if (classFile.getSourceFile() != null) {
+              int pos = className.lastIndexOf('/');
+              String unit = "/" + (pos == -1 ? "" : className.substring(0, pos + 1)) + classFile.getSourceFile();
+              List<String> list = classesByUnit.get(unit);
+              if (list == null) {
+                classesByUnit.put(unit, list = new ArrayList<String>());
+              }
+              list.add(className);
+              index(unitsByReference, classFile.getReferences(), unit);
+              index(unitsBySupertype, classFile.getSupertypes(), unit);
+              if (classFile.hasConstants()) {
+                constantUnits.add(unit);
+              }
+            }
+          }
+        }
+      });
+
+      // The constants are inlined and the inherited members are not referenced by the class files, so a change of
+      // a unit declaring constants or super types of other units is not tracked and the application is built
+      for (String unit : changed) {
+        if (constantUnits.contains(unit)) {
+          logger.info("Compilation unit " + unit + " declares constants");
+          return null;
+        }
+        List<String> unitClasses = classesByUnit.get(unit);
+        if (unitClasses != null) {
+          for (String className : unitClasses) {
+            Set<String> subtypes = unitsBySupertype.get(className.substring(0, className.length() - ".class".length()));
+            if (subtypes != null && (subtypes.size() > 1 || !subtypes.contains(unit))) {
+              logger.info("Compilation unit " + unit + " declares super types");
+              return null;
+            }
+          }
+        }
+      }
+
+      // Add the compilation units of the source path depending transitively on the changed units
+      HashSet<String> units = new HashSet<String>(changed);
+      LinkedList<String> queue = new LinkedList<String>(changed);
+      while (!queue.isEmpty()) {
+        List<String> unitClasses = classesByUnit.get(queue.removeFirst());
+        if (unitClasses != null) {
+          for (String className : unitClasses) {
+            Set<String> dependents = unitsByReference.get(className.substring(0, className.length() - ".class".length()));
+            if (dependents != null) {
+              for (String dependent : dependents) {
+                if (!units.contains(dependent) && sourcePath.getPath(Tools.split(dependent.substring(1), '/')) != null) {
+                  units.add(dependent);
+                  queue.addLast(dependent);
+                }
+              }
+            }
+          }
+        }
+      }
+
+      // The classes to recompile
+      final HashSet<String> stale = new HashSet<String>();
+      for (String unit : units) {
+        List<String> unitClasses = classesByUnit.get(unit);
+        if (unitClasses != null) {
+          stale.addAll(unitClasses);
+        }
+      }
+      Filter.Default<String[]> filter = new Filter.Default<String[]>() {
+        @Override
+        public boolean acceptFile(String[] file, String name) throws IOException {
+          return !stale.contains(Tools.join('/', file));
+        }
+      };
+
+      // Reuse the previous output without the stale classes, they are compiled against the previous classes
+      RAMFileSystem classOutput = new RAMFileSystem();
+      previous.copy(filter, classOutput);
+      logger.info("Building " + units.size() + " compilation units");
+      Compiler compiler = Compiler.
+          builder().
+          sourcePath(sourcePath).
+          sourceOutput(classOutput).
+          classOutput(classOutput).
+          addClassPath(classPath).
+          addClassPath(new FilterFileSystem<String[]>(previous, filter)).
+          config(new CompilerConfig().force(true)).build();
+      compiler.addAnnotationProcessor(new MainProcessor());
+      compiler.compile(units.toArray(new String[units.size()]));
+
+      // Update the changed resources
+      for (String resource : resources) {
+        S file = sourcePath.getPath(Tools.split(resource.substring(1), '/'));
+        if (file != null) {
+          classOutput.setContent(classOutput.makePath(sourcePath.getNames(file)), sourcePath.getContent(file).getObject());
+        }
+      }
+
+      //
+      return classOutput;
+    }
+
+    private static void index(HashMap<String, Set<String>> index, Set<String> keys, String unit) {
+      for (String key : keys) {
+        Set<String> units = index.get(key);
+        if (units == null) {
+          index.put(key, units = new HashSet<String>());
+        }
+        units.add(unit);
+      }
+    }
+
     @Override
     public ClassLoader getClassLoader() {
       return classLoader;
@@ -198,7 +448,7 @@ public abstract class ModuleRuntime<C> {
     }
 
     @Override
-    public boolean refresh(boolean recompile) {
+    public boolean refresh(boolean recompile, Metrics metrics) {
       return false;
     }
 
@@ -16,11 +16,11 @@
 
 package juzu.impl.template.spi;
 
+import juzu.impl.metrics.Metrics;
 import juzu.template.TemplateExecutionException;
 import juzu.template.TemplateRenderContext;
 
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The stub for a template.
@@ -29,23 +29,17 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public abstract class TemplateStub {
 
-  /** . */
-  private static final int CONSTRUCTED = 0;
-
-  /** . */
-  private static final int INITIALIZING = 1;
-
-  /** . */
-  private static final int INITIALIZED = 2;
-
   /** . */
   protected final ClassLoader loader;
 
   /** . */
   protected final String id;
 
-  /** . */
-  private final AtomicInteger status;
+  /** True once the stub is initialized. */
+  private volatile boolean initialized;
+
+  /** The lock held during the initialization. */
+  private final Object lock;
 
   protected TemplateStub(ClassLoader loader, String id) {
 
@@ -57,7 +51,8 @@ public abstract class TemplateStub {
     }
 
     this.id = id;
-    this.status = new AtomicInteger(CONSTRUCTED);
+    this.initialized = false;
+    this.lock = new Object();
     this.loader = loader;
   }
 
@@ -66,27 +61,16 @@ public abstract class TemplateStub {
   }
 
   /**
-   * Initialize the stub.
+   * Initialize the stub, the threads calling this method during the initialization are blocked until it is done.
+   * When the initialization fails, the next call will attempt it again.
    */
   public final void init() throws NullPointerException {
-    while (true) {
-      switch (status.get()) {
-        case CONSTRUCTED:
-          if (status.compareAndSet(CONSTRUCTED, INITIALIZING)) {
-            int next = CONSTRUCTED;
-            try {
-              doInit(loader);
-              next = INITIALIZED;
-            }
-            finally {
-              status.set(next);
-            }
-          }
-          break;
-        case INITIALIZING:
-          break;
-        default:
-          return;
+    if (!initialized) {
+      synchronized (lock) {
+        if (!initialized) {
+          doInit(loader);
+          initialized = true;
+        }
       }
     }
   }
@@ -100,18 +84,18 @@ public abstract class TemplateStub {
    * @throws IllegalStateException if the stub is not initialized
    */
   public final void render(TemplateRenderContext renderContext) throws TemplateExecutionException, IOException, IllegalStateException {
-    while (true) {
-      switch (status.get()) {
-        case INITIALIZING:
-          // Wait
-          break;
-        case INITIALIZED:
-          doRender(renderContext);
-          return;
-        default:
-          throw new IllegalStateException("Template stub is not initialized " + status.get());
+    if (!initialized) {
+      // Wait for an initialization in progress
+      synchronized (lock) {
+        if (!initialized) {
+          throw new IllegalStateException("Template stub is not initialized");
+        }
       }
     }
+    Metrics metrics = renderContext.getMetrics();
+    long start = metrics.time();
+    doRender(renderContext);
+    metrics.rendered(id, start);
   }
 
   // tag::doInit[]
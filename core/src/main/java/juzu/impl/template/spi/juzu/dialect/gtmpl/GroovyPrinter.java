@@ -17,19 +17,22 @@
 package juzu.impl.template.spi.juzu.dialect.gtmpl;
 
 import groovy.lang.GString;
-import groovy.lang.GroovyInterceptable;
 import groovy.lang.GroovyObjectSupport;
 import juzu.io.Chunk;
 import juzu.template.TemplateRenderContext;
-import org.codehaus.groovy.runtime.InvokerInvocationException;
 
 import java.io.IOException;
 import java.text.DateFormat;
 import java.util.Date;
 import java.util.Locale;
 
-/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
-public class GroovyPrinter extends GroovyObjectSupport implements GroovyInterceptable {
+/**
+ * The printer of a template script: the printer is not a {@link groovy.lang.GroovyInterceptable} so the calls
+ * to the print methods are dispatched with the cached call sites of the script.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+public class GroovyPrinter extends GroovyObjectSupport {
 
   /** . */
   final TemplateRenderContext renderContext;
@@ -43,39 +46,6 @@ public class GroovyPrinter extends GroovyObjectSupport implements GroovyIntercep
     this.renderContext = renderContext;
   }
 
-  /**
-   * Optimize the call to the various print methods.
-   *
-   * @param name the method name
-   * @param args the method arguments
-   * @return the return value
-   */
-  @Override
-  public Object invokeMethod(String name, Object args) {
-    // Optimize access to print methods
-    if (args instanceof Object[]) {
-      Object[] array = (Object[])args;
-      if (array.length == 1) {
-        try {
-          if ("print".equals(name)) {
-            print(array[0]);
-            return null;
-          }
-          else if ("println".equals(name)) {
-            println(array[0]);
-            return null;
-          }
-        }
-        catch (IOException e) {
-          throw new InvokerInvocationException(e);
-        }
-      }
-    }
-
-    // Back to Groovy method call
-    return super.invokeMethod(name, args);
-  }
-
   public final void println(Object o) throws IOException {
     print(o);
     println();
@@ -120,6 +90,16 @@ public class GroovyPrinter extends GroovyObjectSupport implements GroovyIntercep
     }
   }
 
+  /**
+   * Print a constant chunk of the template.
+   *
+   * @param chunk the chunk
+   * @throws IOException any io exception
+   */
+  public final void print(Chunk chunk) throws IOException {
+    renderContext.getPrinter().provide(chunk);
+  }
+
   public final void print(Object o) throws IOException {
     if (o instanceof GString) {
       GString gs = (GString)o;
@@ -21,6 +21,7 @@ import juzu.impl.template.spi.juzu.DialectTemplateEmitter;
 import juzu.impl.template.spi.juzu.ast.SectionType;
 import juzu.impl.common.Location;
 import juzu.impl.common.Tools;
+import juzu.io.Chunk;
 import juzu.template.TagHandler;
 
 import java.util.ArrayList;
@@ -102,13 +103,17 @@ public class GroovyTemplateEmitter extends DialectTemplateEmitter {
       String text = texts.get(i);
       builder.
           append("public static final ").
-          append("String").
+          append(Chunk.class.getName()).
           append(" s").
           append(i).
-          append(" = '");
+          append(" = ").
+          append(Chunk.class.getName()).
+          append(".create('");
       juzu.impl.common.Tools.escape(text, builder);
       builder.
-          append("';").
+          append("', ").
+          append(Tools.class.getName()).
+          append(".UTF_8);").
           append(sep);
     }
 
@@ -179,6 +184,10 @@ public class GroovyTemplateEmitter extends DialectTemplateEmitter {
       out.append("package ").append(pkg).append(";\n");
       lineNumber++;
     }
+
+    // The printer is a local variable, the print calls don't look it up in the binding
+    out.append("def out = binding.getVariable('out');").append(sep);
+    lineNumber++;
   }
 
   @Override
@@ -32,22 +32,35 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public class GroovyTemplateStub extends TemplateStub {
 
+  /** . */
+  private static final int MAX_IDLE_SCRIPTS = 16;
+
   /** . */
   private Class<?> scriptClass;
 
   /** . */
   private HashMap<Integer, Foo> locationTable;
 
+  /** The idle script instances, a script does not retain state between renders and is reused with a new binding. */
+  private final ConcurrentLinkedQueue<Script> scripts;
+
+  /** The number of idle script instances. */
+  private final AtomicInteger idle;
+
   public GroovyTemplateStub(ClassLoader loader, String templateId) {
     super(loader, templateId);
 
     //
     this.scriptClass = null;
     this.locationTable = null;
+    this.scripts = new ConcurrentLinkedQueue<Script>();
+    this.idle = new AtomicInteger();
   }
 
   @Override
@@ -132,7 +145,13 @@ public class GroovyTemplateStub extends TemplateStub {
     Binding binding = new BindingImpl(renderContext);
 
     //
-    Script script = InvokerHelper.createScript(scriptClass, binding);
+    Script script = scripts.poll();
+    if (script != null) {
+      idle.decrementAndGet();
+      script.setBinding(binding);
+    } else {
+      script = InvokerHelper.createScript(scriptClass, binding);
+    }
 
     //
     try {
@@ -152,6 +171,14 @@ public class GroovyTemplateStub extends TemplateStub {
       }
       throw buildRuntimeException(e);
     }
+    finally {
+      script.setBinding(null);
+      if (idle.incrementAndGet() <= MAX_IDLE_SCRIPTS) {
+        scripts.offer(script);
+      } else {
+        idle.decrementAndGet();
+      }
+    }
   }
 
   private TemplateExecutionException buildRuntimeException(Throwable t) {
@@ -17,6 +17,12 @@ package juzu.io;
 
 import juzu.PropertyType;
 
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+
 /**
  * A chunk of data.
  *
@@ -36,6 +42,17 @@ public abstract class Chunk {
     return new Data.CharSequence(data, start, end);
   }
 
+  /**
+   * Create a constant text chunk encoded with the specified charset.
+   *
+   * @param data the text
+   * @param charset the charset
+   * @return the text chunk
+   */
+  public static Data.Text create(String data, Charset charset) {
+    return new Data.Text(data, charset);
+  }
+
   public static Data.InputStream create(java.io.InputStream data) {
     return new Data.InputStream(data);
   }
@@ -141,6 +158,68 @@ public abstract class Chunk {
       }
     }
 
+    /**
+     * A constant text chunk that retains its encoded bytes: the text is encoded once per charset and the
+     * binary streams using the same charset write the bytes instead of encoding the text again. When the
+     * text is used with another charset the bytes are encoded again and replace the previous ones.
+     */
+    public static class Text extends CharSequence {
+
+      /** . */
+      private volatile Encoded encoded;
+
+      private Text(String data, Charset charset) {
+        super(data, 0, data.length());
+
+        //
+        this.encoded = new Encoded(charset, encode(data, charset));
+      }
+
+      /**
+       * Returns the text encoded with the specified charset, the returned array must not be modified.
+       *
+       * @param charset the charset
+       * @return the encoded text
+       */
+      public byte[] getBytes(Charset charset) {
+        Encoded current = encoded;
+        if (current.charset != charset && !current.charset.equals(charset)) {
+          encoded = current = new Encoded(charset, encode((String)data, charset));
+        }
+        return current.bytes;
+      }
+
+      private static byte[] encode(String s, Charset charset) {
+        try {
+          // Ignore like the binary stream does
+          ByteBuffer buffer = charset.newEncoder().
+              onMalformedInput(CodingErrorAction.IGNORE).
+              onUnmappableCharacter(CodingErrorAction.IGNORE).
+              encode(CharBuffer.wrap(s));
+          byte[] bytes = new byte[buffer.remaining()];
+          buffer.get(bytes);
+          return bytes;
+        }
+        catch (CharacterCodingException e) {
+          throw new AssertionError(e);
+        }
+      }
+
+      private static class Encoded {
+
+        /** . */
+        private final Charset charset;
+
+        /** . */
+        private final byte[] bytes;
+
+        private Encoded(Charset charset, byte[] bytes) {
+          this.charset = charset;
+          this.bytes = bytes;
+        }
+      }
+    }
+
     /**
      * A chars chunk.
      */
@@ -15,10 +15,32 @@
  */
 package juzu.io;
 
+import juzu.impl.common.Tools;
+
+import java.io.Flushable;
 import java.io.IOException;
-import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
-/** @author Julien Viet */
+/**
+ * A buffer of chunks: the chunks are buffered until the buffer is sent to a stream, after that the chunks are
+ * provided to the stream as they are appended.
+ *
+ * <p>The chunks are queued in a lock free single producer / single consumer queue made of array segments: the
+ * chunks should be appended by a single thread at a time. The chunks are provided to the stream by the thread
+ * that drains the queue, it can be the sending thread or the appending thread, the drain is serialized
+ * so the stream is never provided concurrently. A thread checks whether there is something to drain with the
+ * volatile counts of offered and polled chunks only, the queue itself is accessed by the draining thread. When
+ * draining, the consecutive char chunks are provided to the stream as a single chunk, the byte chunks are
+ * provided as they are.</p>
+ *
+ * <p>The stream is flushed only when the producer calls {@link #flush()} and when the stream implements
+ * {@link Flushable}, the flush is queued with the chunks and consecutive flushes are provided to the stream as
+ * a single flush.</p>
+ *
+ * @author Julien Viet
+ */
 public class ChunkBuffer implements Streamable, Appendable {
 
 
@@ -32,24 +54,53 @@ public class ChunkBuffer implements Streamable, Appendable {
   private static final int STATUS_CLOSED = 2;
 
   /** . */
-  private final LinkedList<Chunk> queue = new LinkedList<Chunk>();
+  private static final int SEGMENT_SIZE = 32;
+
+  /** Marks a flush in the queue. */
+  private static final Chunk FLUSH = new Chunk() {
+  };
+
+  /** The last segment, only accessed by the producer. */
+  private Segment tail;
+
+  /** The first segment, only accessed by the draining thread. */
+  private Segment head;
+
+  /** The index of the next chunk in the first segment, only accessed by the draining thread. */
+  private int index;
+
+  /** The number of offered chunks, only written by the producer. */
+  private volatile long offered;
+
+  /** The number of polled chunks, only accessed by the draining thread. */
+  private long taken;
+
+  /** The number of polled chunks published by the draining thread when it releases the drain. */
+  private volatile long polled;
 
   /** . */
-  private Stream consumer = null;
+  private final AtomicReference<Stream> consumer = new AtomicReference<Stream>();
 
   /** . */
-  private int status = STATUS_BUFFERING;
+  private final AtomicInteger status = new AtomicInteger(STATUS_BUFFERING);
 
   /** . */
-  private final Object lock = new Object();
+  private final AtomicBoolean draining = new AtomicBoolean();
+
+  /** True when the consumer is closed, only written by the draining thread. */
+  private volatile boolean ended;
 
   /** . */
   private Thread.UncaughtExceptionHandler errorHandler;
 
   public ChunkBuffer() {
+    this.tail = this.head = new Segment();
   }
 
   public ChunkBuffer(Thread.UncaughtExceptionHandler errorHandler) {
+    this();
+
+    //
     this.errorHandler = errorHandler;
   }
 
@@ -58,7 +109,7 @@ public class ChunkBuffer implements Streamable, Appendable {
   }
 
   public Appendable append(CharSequence csq, int start, int end) throws IOException {
-    return append(Chunk.create(csq));
+    return append(Chunk.create(csq, start, end));
   }
 
   public Appendable append(char c) throws IOException {
@@ -67,86 +118,164 @@ public class ChunkBuffer implements Streamable, Appendable {
 
   public ChunkBuffer append(Iterable<Chunk> chunks) {
     for (Chunk chunk : chunks) {
-      append(chunk);
+      offer(chunk);
     }
+    drain();
     return this;
   }
 
   public ChunkBuffer append(Chunk chunk) {
-    synchronized (lock) {
-      switch (status) {
-        case STATUS_CLOSED:
-          throw new IllegalArgumentException("Already closed");
-        case STATUS_BUFFERING:
-          queue.add(chunk);
-          break;
-        case STATUS_PROVIDING:
-          consumer.provide(chunk);
-          break;
-      }
-    }
+    offer(chunk);
+    drain();
+    return this;
+  }
+
+  /**
+   * Flush the stream after the chunks appended so far have been provided to it.
+   *
+   * @return this buffer
+   */
+  public ChunkBuffer flush() {
+    offer(FLUSH);
+    drain();
     return this;
   }
 
   public void send(Stream stream) {
+    if (!consumer.compareAndSet(null, stream)) {
+      throw new IllegalStateException("Already consumed");
+    }
+    status.compareAndSet(STATUS_BUFFERING, STATUS_PROVIDING);
+    drain();
+  }
 
-    //
-    synchronized (lock) {
-      if (this.consumer != null) {
-        throw new IllegalStateException("Already consumed");
-      } else {
-        this.consumer = stream;
+  public ChunkBuffer close() {
+    if (status.getAndSet(STATUS_CLOSED) != STATUS_CLOSED) {
+      drain();
+    }
+    return this;
+  }
+
+  private void offer(Chunk chunk) {
+    if (status.get() == STATUS_CLOSED) {
+      throw new IllegalArgumentException("Already closed");
+    }
+    Segment segment = tail;
+    int size = segment.size;
+    if (size == SEGMENT_SIZE) {
+      Segment next = new Segment();
+      next.chunks[0] = chunk;
+      next.size = 1;
+      segment.next = next;
+      tail = next;
+    } else {
+      segment.chunks[size] = chunk;
+      segment.size = size + 1;
+    }
+    offered++;
+  }
+
+  private Chunk poll() {
+    Segment segment = head;
+    if (index == SEGMENT_SIZE) {
+      Segment next = segment.next;
+      if (next == null) {
+        return null;
       }
+      head = segment = next;
+      index = 0;
+    }
+    if (index < segment.size) {
+      Chunk chunk = segment.chunks[index];
+      segment.chunks[index++] = null;
+      taken++;
+      return chunk;
+    } else {
+      return null;
     }
+  }
 
-    //
-    boolean close;
-    while (true) {
-      Chunk chunk;
-      synchronized (lock) {
-        if (queue.isEmpty()) {
-          if (status == STATUS_CLOSED) {
-            close = true;
-          } else {
-            status = STATUS_PROVIDING;
-            close = false;
+  /**
+   * Provide the queued chunks to the consumer and close it when the buffer is closed. When another thread is
+   * already draining, it will drain the chunks queued by the current thread after it releases the drain.
+   */
+  private void drain() {
+    Stream stream = consumer.get();
+    if (stream == null) {
+      return;
+    }
+    while (offered != polled || (status.get() == STATUS_CLOSED && !ended)) {
+      if (!draining.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        Chunk chunk = poll();
+        while (chunk != null) {
+          if (chunk == FLUSH) {
+            do {
+              chunk = poll();
+            } while (chunk == FLUSH);
+            if (stream instanceof Flushable) {
+              Tools.safeFlush((Flushable)stream);
+            }
+            continue;
           }
-          break;
-        } else {
-          chunk = queue.removeFirst();
+          Chunk next = poll();
+          if (next != null) {
+            if (isChars(chunk) && isChars(next)) {
+              StringBuilder chars = new StringBuilder();
+              append(chars, chunk);
+              do {
+                append(chars, next);
+                next = poll();
+              } while (isChars(next));
+              chunk = Chunk.create(chars);
+            }
+          }
+          stream.provide(chunk);
+          chunk = next;
+        }
+        if (status.get() == STATUS_CLOSED && !ended) {
+          ended = true;
+          stream.close(errorHandler);
         }
       }
-      stream.provide(chunk);
+      finally {
+        polled = taken;
+        draining.set(false);
+      }
     }
+  }
 
-    //
-    if (close) {
-      stream.close(errorHandler);
-    }
+  private static boolean isChars(Chunk chunk) {
+    // A text is not batched so it retains its encoded bytes
+    return (chunk instanceof Chunk.Data.CharSequence && !(chunk instanceof Chunk.Data.Text)) || chunk instanceof Chunk.Data.Char || chunk instanceof Chunk.Data.Chars;
   }
 
-  public ChunkBuffer close() {
-    Stream stream;
-    synchronized (lock) {
-      switch (status) {
-        case STATUS_CLOSED:
-          stream = null;
-          break;
-        case STATUS_PROVIDING:
-          stream = this.consumer;
-          status = STATUS_CLOSED;
-          break;
-        case STATUS_BUFFERING:
-          stream = null;
-          status = STATUS_CLOSED;
-          break;
-        default:
-          throw new UnsupportedOperationException();
-      }
-    }
-    if (stream != null) {
-      stream.close(errorHandler);
+  private static void append(StringBuilder to, Chunk chunk) {
+    if (chunk instanceof Chunk.Data.CharSequence) {
+      Chunk.Data.CharSequence cs = (Chunk.Data.CharSequence)chunk;
+      to.append(cs.data, cs.start, cs.end);
+    } else if (chunk instanceof Chunk.Data.Char) {
+      to.append(((Chunk.Data.Char)chunk).value);
+    } else {
+      to.append(((Chunk.Data.Chars)chunk).data);
     }
-    return this;
+  }
+
+  /**
+   * A segment of the queue, the chunks are published by the volatile size and next fields.
+   */
+  private static class Segment {
+
+    /** . */
+    final Chunk[] chunks = new Chunk[SEGMENT_SIZE];
+
+    /** . */
+    volatile int size;
+
+    /** . */
+    volatile Segment next;
+
   }
 }
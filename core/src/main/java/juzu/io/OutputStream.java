@@ -20,7 +20,6 @@ import juzu.impl.io.AppendableStream;
 import juzu.impl.io.BinaryOutputStream;
 import juzu.impl.io.SinkStream;
 
-import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.Flushable;
 import java.io.IOException;
@@ -30,7 +29,7 @@ import java.nio.charset.Charset;
 import java.util.LinkedList;
 
 /** @author Julien Viet */
-public abstract class OutputStream implements Stream, Closeable {
+public abstract class OutputStream implements Stream, Flushable, Closeable {
 
   /** . */
   public static final int BUFFER_SIZE = 512;
@@ -62,6 +61,8 @@ public abstract class OutputStream implements Stream, Closeable {
           append(((Chunk.Data.Bytes)data).data);
         } else if (data instanceof Chunk.Data.Chars) {
           append(CharBuffer.wrap(((Chunk.Data.Chars)data).data));
+        } else if (data instanceof Chunk.Data.Text) {
+          append((Chunk.Data.Text)data);
         } else if (data instanceof Chunk.Data.CharSequence) {
           Chunk.Data.CharSequence cs = (Chunk.Data.CharSequence)data;
           append(cs.data, cs.start, cs.end);
@@ -69,11 +70,16 @@ public abstract class OutputStream implements Stream, Closeable {
           Chunk.Data.Char cs = (Chunk.Data.Char)data;
           append(cs.value);
         } else if (data instanceof Chunk.Data.InputStream) {
-          ByteArrayOutputStream baos = Tools.copy(((Chunk.Data.InputStream)data).data, new ByteArrayOutputStream());
-          append(baos.toByteArray());
+          java.io.InputStream in = ((Chunk.Data.InputStream)data).data;
+          try {
+            append(in);
+          }
+          finally {
+            Tools.safeClose(in);
+          }
         } else if (data instanceof Chunk.Data.Readable) {
           Readable readable = ((Chunk.Data.Readable)data).data;
-          CharBuffer buffer = CharBuffer.allocate(512);
+          CharBuffer buffer = CharBuffer.allocate(BUFFER_SIZE);
           for (int i = readable.read(buffer);i != -1;i = readable.read(buffer)) {
             buffer.flip();
             append(buffer);
@@ -92,6 +98,23 @@ public abstract class OutputStream implements Stream, Closeable {
     }
   }
 
+  public void flush() {
+    try {
+      doFlush();
+    }
+    catch (IOException e) {
+      reportError(e);
+    }
+  }
+
+  /**
+   * Flush the stream, the default implementation does nothing.
+   *
+   * @throws IOException any io exception
+   */
+  protected void doFlush() throws IOException {
+  }
+
   public void close(Thread.UncaughtExceptionHandler errorHandler) {
     try {
       close();
@@ -113,6 +136,29 @@ public abstract class OutputStream implements Stream, Closeable {
     errors.add(new Error(Thread.currentThread(), t));
   }
 
+  /**
+   * Append the bytes of an input stream, the stream is read through a fixed size buffer.
+   *
+   * @param in the input stream
+   * @throws IOException any io exception
+   */
+  protected void append(java.io.InputStream in) throws IOException {
+    byte[] buffer = new byte[BUFFER_SIZE];
+    for (int len = in.read(buffer);len != -1;len = in.read(buffer)) {
+      append(buffer, 0, len);
+    }
+  }
+
+  /**
+   * Append a constant text, the text is appended as chars by default.
+   *
+   * @param text the text
+   * @throws IOException any io exception
+   */
+  protected void append(Chunk.Data.Text text) throws IOException {
+    append(text.data, text.start, text.end);
+  }
+
   public abstract void append(CharBuffer buffer) throws IOException;
 
   public abstract void append(CharSequence csq) throws IOException;
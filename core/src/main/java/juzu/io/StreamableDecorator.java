@@ -15,6 +15,10 @@
  */
 package juzu.io;
 
+import juzu.impl.common.Tools;
+
+import java.io.Flushable;
+
 /** @author Julien Viet */
 public class StreamableDecorator implements Streamable {
 
@@ -35,10 +39,15 @@ public class StreamableDecorator implements Streamable {
 
   public void send(final Stream stream) throws IllegalStateException {
     sendHeader(stream);
-    Stream wrapper = new Stream() {
+    class Wrapper implements Stream, Flushable {
       public void provide(Chunk chunk) {
         stream.provide(chunk);
       }
+      public void flush() {
+        if (stream instanceof Flushable) {
+          Tools.safeFlush((Flushable)stream);
+        }
+      }
       public void close(Thread.UncaughtExceptionHandler errorHandler) {
         try {
           sendFooter(stream);
@@ -47,7 +56,7 @@ public class StreamableDecorator implements Streamable {
           stream.close(errorHandler);
         }
       }
-    };
-    producer.send(wrapper);
+    }
+    producer.send(new Wrapper());
   }
 }
@@ -37,4 +37,12 @@ public @interface Defines {
    * @return the declared amd modules
    */
   Define[] value() default {};
+
+  /**
+   * Bundle each module with the modules it depends on, a module and its dependencies are then loaded
+   * with a single request.
+   *
+   * @return true when the modules are bundled
+   */
+  boolean bundle() default false;
 }
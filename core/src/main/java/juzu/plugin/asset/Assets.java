@@ -47,4 +47,20 @@ public @interface Assets {
    */
   AssetLocation location() default AssetLocation.APPLICATION;
 
+  /**
+   * Bundle the application scripts and stylesheets of a page, the bundles are named after their content and
+   * are served with a far future cache control. The bundle names are signed with the <code>juzu.asset_key</code>
+   * init parameter shared by the nodes of a cluster.
+   *
+   * @return true when the assets are bundled
+   */
+  boolean bundle() default false;
+
+  /**
+   * Minify the bundles, this has no effect when the assets are not bundled.
+   *
+   * @return true when the bundles are minified
+   */
+  boolean minify() default false;
+
 }
@@ -17,13 +17,17 @@
 package juzu.template;
 
 import juzu.PropertyMap;
+import juzu.PropertyType;
 import juzu.Response;
+import juzu.impl.common.JUL;
+import juzu.impl.common.Logger;
 import juzu.impl.common.Tools;
 import juzu.io.Chunk;
 import juzu.io.ChunkBuffer;
 import juzu.io.OutputStream;
 import juzu.io.Stream;
 import juzu.io.UndeclaredIOException;
+import juzu.impl.metrics.Metrics;
 import juzu.impl.plugin.application.Application;
 import juzu.impl.request.Request;
 import juzu.impl.plugin.template.TemplatePlugin;
@@ -34,6 +38,7 @@ import juzu.request.ApplicationContext;
 import juzu.request.MimeContext;
 
 import javax.inject.Inject;
+import java.io.Flushable;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.HashMap;
@@ -41,6 +46,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -85,6 +91,9 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 public abstract class Template {
 
+  /** . */
+  private static final Logger log = JUL.getLogger(Template.class.getName());
+
   /** . */
   private final Path path;
 
@@ -317,6 +326,9 @@ public abstract class Template {
     /** The locale. */
     private Locale locale;
 
+    /** The streaming mode. */
+    private boolean streaming;
+
     private Locale computeLocale() {
       if (locale == null) {
         return Request.getCurrent().getUserContext().getLocale();
@@ -378,11 +390,25 @@ public abstract class Template {
             return plugin.resolveTemplateStub(path);
           }
 
+          @Override
+          public void setTitle(String title) {
+            if (streaming) {
+              printer.provide(new Chunk.Property<String>(title, PropertyType.TITLE));
+            } else {
+              super.setTitle(title);
+            }
+          }
+
           @Override
           public Object resolveBean(String expression) throws InvocationTargetException {
             return application.resolveBean(expression);
           }
 
+          @Override
+          public Metrics getMetrics() {
+            return application.getMetrics();
+          }
+
           @Override
           public String resolveMessage(MessageKey key) {
 
@@ -430,6 +456,21 @@ public abstract class Template {
       return this;
     }
 
+    /**
+     * Update the streaming mode, by default a template is rendered in a buffer before the response is returned.
+     * When streaming, the template is rendered by a task scheduled with the request executor and its output is
+     * sent to the client as it is produced: a title set by the template is honoured only when it is set before
+     * the first output of the template. When the executor cannot schedule the task, the template is rendered
+     * before the response is returned.
+     *
+     * @param streaming the streaming mode
+     * @return this builder
+     */
+    public Builder streaming(boolean streaming) {
+      this.streaming = streaming;
+      return this;
+    }
+
     /**
      * Update a parameter, if the value is not null the parameter with the specified name is set, otherwise the
      * parameter is removed. If the parameter is set and a value was set previously, the old value is overwritten
@@ -480,6 +521,9 @@ public abstract class Template {
      * @return the response
      */
     public final Response.Content status(int status) throws UndeclaredIOException {
+      if (streaming) {
+        return stream(status);
+      }
       StringBuilder sb = new StringBuilder();
       PropertyMap properties = new PropertyMap();
       doRender(properties, sb);
@@ -487,6 +531,81 @@ public abstract class Template {
       return new Response.Content(status, properties, buffer);
     }
 
+    private Response.Content stream(int status) throws UndeclaredIOException {
+      StreamingTask task = new StreamingTask();
+
+      //
+      boolean scheduled = false;
+      Request request = Request.getCurrent();
+      if (request != null) {
+        try {
+          request.getExecutor().execute(task);
+          scheduled = true;
+        }
+        catch (RejectedExecutionException ignore) {
+          // Render now
+        }
+      }
+      if (!scheduled) {
+        task.render();
+      }
+
+      //
+      return new Response.Content(status, task.buffer);
+    }
+
+    /**
+     * Renders the template in a buffer from the request executor, a failure is logged and when the template
+     * has not produced output yet the response status is changed to 500.
+     */
+    private class StreamingTask implements Runnable, Stream, Flushable {
+
+      /** . */
+      final ChunkBuffer buffer = new ChunkBuffer();
+
+      /** True when the template has produced data. */
+      private boolean committed = false;
+
+      public void provide(Chunk chunk) {
+        if (chunk instanceof Chunk.Data) {
+          committed = true;
+        }
+        buffer.append(chunk);
+      }
+
+      public void flush() {
+        buffer.flush();
+      }
+
+      public void close(Thread.UncaughtExceptionHandler errorHandler) {
+        buffer.close();
+      }
+
+      void render() {
+        try {
+          doRender(null, this);
+        }
+        finally {
+          buffer.close();
+        }
+      }
+
+      public void run() {
+        try {
+          doRender(null, this);
+        }
+        catch (Throwable t) {
+          log.error("Could not render template " + path, t);
+          if (!committed) {
+            buffer.append(new Chunk.Property<Integer>(500, PropertyType.STATUS));
+          }
+        }
+        finally {
+          buffer.close();
+        }
+      }
+    }
+
     /**
      * Renders the template to the specified appendable.
      *
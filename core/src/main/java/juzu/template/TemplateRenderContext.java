@@ -19,6 +19,7 @@ package juzu.template;
 import juzu.PropertyMap;
 import juzu.PropertyType;
 import juzu.impl.common.Tools;
+import juzu.impl.metrics.Metrics;
 import juzu.impl.template.spi.TemplateStub;
 import juzu.impl.template.spi.juzu.dialect.gtmpl.MessageKey;
 import juzu.io.OutputStream;
@@ -134,6 +135,16 @@ public class TemplateRenderContext {
     return key.toString();
   }
 
+  /**
+   * Returns the metrics the rendering of the templates is reported to, the default implementation returns
+   * {@link Metrics#NONE}.
+   *
+   * @return the metrics
+   */
+  public Metrics getMetrics() {
+    return Metrics.NONE;
+  }
+
   public StringBuilder render() throws IOException {
     StringBuilder buffer = new StringBuilder();
     OutputStream consumer = OutputStream.create(Tools.UTF_8, buffer);
@@ -37,5 +37,6 @@ public class DefaultScopeTestCase<B, I> extends AbstractInjectTestCase<B, I> {
     Bean bean1 = getBean(Bean.class);
     Bean bean2 = getBean(Bean.class);
     assertTrue(bean1.count != bean2.count);
+    assertFalse(mgr.isSingleton(mgr.resolveBean(Bean.class)));
   }
 }
@@ -37,5 +37,6 @@ public class ScopeSingletonTestCase<B, I> extends AbstractInjectTestCase<B, I> {
     Bean singleton1 = getBean(Bean.class);
     Bean singleton2 = getBean(Bean.class);
     assertSame(singleton1, singleton2);
+    assertTrue(mgr.isSingleton(mgr.resolveBean(Bean.class)));
   }
 }
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package juzu.impl.asset;
+
+import juzu.asset.AssetLocation;
+import juzu.impl.common.Tools;
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.bind.DatatypeConverter;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+public class AssetBundlerTestCase extends AbstractTestCase {
+
+  private static URL url(String content) throws Exception {
+    File f = File.createTempFile("asset", ".txt");
+    f.deleteOnExit();
+    FileOutputStream out = new FileOutputStream(f);
+    try {
+      out.write(content.getBytes(Tools.UTF_8));
+    }
+    finally {
+      Tools.safeClose(out);
+    }
+    return f.toURI().toURL();
+  }
+
+  /** . */
+  private static final String KEY = "secret";
+
+  /**
+   * Returns a bundle path signed with a key.
+   */
+  private static String sign(String key, String dir, String hash, String uris, String ext) throws Exception {
+    String encoded = DatatypeConverter.printBase64Binary(uris.getBytes(Tools.UTF_8));
+    encoded = encoded.replace("=", "").replace('+', '-').replace('/', '_');
+    String prefix = dir + AssetManager.BUNDLE_PREFIX + hash + "-";
+    String suffix = encoded + ext;
+    Mac mac = Mac.getInstance("HmacSHA1");
+    mac.init(new SecretKeySpec(key.getBytes(Tools.UTF_8), "HmacSHA1"));
+    byte[] signature = mac.doFinal((prefix + suffix).getBytes(Tools.UTF_8));
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0;i < 8;i++) {
+      sb.append(String.format("%02x", signature[i] & 0xFF));
+    }
+    return prefix + sb + "-" + suffix;
+  }
+
+  private static List<Asset> list(Iterable<Asset> assets) {
+    ArrayList<Asset> list = new ArrayList<Asset>();
+    for (Asset asset : assets) {
+      list.add(asset);
+    }
+    return list;
+  }
+
+  @Test
+  public void testBundle() throws Exception {
+    AssetManager manager = new AssetManager();
+    manager.setBundling(true, false);
+    manager.addAsset("a", AssetLocation.APPLICATION, "/app/a.js", url("var a = 1"));
+    manager.addAsset("b", AssetLocation.APPLICATION, "/app/b.js", url("var b = a;\n"), "a");
+    manager.addAsset("c", AssetLocation.APPLICATION, "/app/c.css", url(".c {}"));
+    manager.addAsset("d", AssetLocation.APPLICATION, "/app/d.css", url(".d {}"), "c");
+    List<Asset> assets = list(manager.resolveAssets(Tools.list("b", "d")));
+    assertEquals(2, assets.size());
+    Asset script = assets.get(0);
+    assertEquals(AssetLocation.APPLICATION, script.getLocation());
+    assertTrue(script.getURI().startsWith("/app/" + AssetManager.BUNDLE_PREFIX));
+    assertTrue(script.isScript());
+    assertTrue(manager.isBundle(script.getURI()));
+    assertEquals("var a = 1\n;\nvar b = a;\n;\n", Tools.read(manager.resolveAsset(script.getURI())));
+    Asset stylesheet = assets.get(1);
+    assertTrue(stylesheet.isStylesheet());
+    assertEquals(".c {}\n.d {}\n", Tools.read(manager.resolveAsset(stylesheet.getURI())));
+    assertFalse(manager.isBundle("/app/a.js"));
+  }
+
+  private static AssetManager fingerprint() throws Exception {
+    AssetManager manager = new AssetManager();
+    manager.setBundleKey(KEY);
+    manager.setBundling(true, false);
+    manager.addAsset("a", AssetLocation.APPLICATION, "/app/a.js", url("var a;"));
+    manager.addAsset("b", AssetLocation.APPLICATION, "/app/b.js", url("var b;"));
+    return manager;
+  }
+
+  @Test
+  public void testFingerprint() throws Exception {
+    AssetManager manager = fingerprint();
+    String ab = list(manager.resolveAssets(Tools.list("a", "b"))).get(0).getURI();
+    String ba = list(manager.resolveAssets(Tools.list("b", "a"))).get(0).getURI();
+    assertFalse(ab.equals(ba));
+    assertEquals(ab, list(fingerprint().resolveAssets(Tools.list("a", "b"))).get(0).getURI());
+  }
+
+  @Test
+  public void testDerive() throws Exception {
+    String path = list(fingerprint().resolveAssets(Tools.list("a", "b"))).get(0).getURI();
+
+    // Another manager derives the bundle from its path without resolving the page
+    AssetManager manager = fingerprint();
+    assertTrue(manager.isBundle(path));
+    assertEquals("var a;\n;\nvar b;\n;\n", Tools.read(manager.resolveAsset(path)));
+  }
+
+  @Test
+  public void testDeriveStale() throws Exception {
+    String path = list(fingerprint().resolveAssets(Tools.list("a", "b"))).get(0).getURI();
+
+    // The content changed, the bundle cannot be derived
+    AssetManager manager = new AssetManager();
+    manager.setBundleKey(KEY);
+    manager.setBundling(true, false);
+    manager.addAsset("a", AssetLocation.APPLICATION, "/app/a.js", url("var a = 1;"));
+    manager.addAsset("b", AssetLocation.APPLICATION, "/app/b.js", url("var b;"));
+    assertNull(manager.resolveAsset(path));
+    assertFalse(manager.isBundle(path));
+  }
+
+  @Test
+  public void testDeriveInvalid() throws Exception {
+    String path = list(fingerprint().resolveAssets(Tools.list("a", "b"))).get(0).getURI();
+    AssetManager manager = fingerprint();
+    assertNull(manager.resolveAsset(path.substring(0, path.length() - 3) + ".css"));
+    assertNull(manager.resolveAsset("/app/" + AssetManager.BUNDLE_PREFIX + "0000000000000000-0000000000000000-YQ.js"));
+    assertNull(manager.resolveAsset("/app/" + AssetManager.BUNDLE_PREFIX + "0000000000000000-0000000000000000-!!.js"));
+    assertNull(manager.resolveAsset("/app/" + AssetManager.BUNDLE_PREFIX + "0000000000000000-0000000000000000.js"));
+    assertNull(manager.resolveAsset("/app/" + AssetManager.BUNDLE_PREFIX + "0000000000000000.js"));
+    assertNull(manager.resolveAsset(sign(KEY, "/app/", "0000000000000000", "/app/a.js\n/app/b.js\n!!", ".js")));
+
+    // Another key
+    AssetManager key = new AssetManager();
+    key.setBundling(true, false);
+    key.addAsset("a", AssetLocation.APPLICATION, "/app/a.js", url("var a;"));
+    key.addAsset("b", AssetLocation.APPLICATION, "/app/b.js", url("var b;"));
+    assertNull(key.resolveAsset(path));
+
+    // An unregistered asset
+    AssetManager other = new AssetManager();
+    other.setBundleKey(KEY);
+    other.setBundling(true, false);
+    other.addAsset("a", AssetLocation.APPLICATION, "/app/a.js", url("var a;"));
+    assertNull(other.resolveAsset(path));
+  }
+
+  @Test
+  public void testDeriveForged() throws Exception {
+    final AtomicInteger reads = new AtomicInteger();
+    URL url = new URL("test", null, 0, "/", new URLStreamHandler() {
+      @Override
+      protected URLConnection openConnection(URL u) {
+        reads.incrementAndGet();
+        return new URLConnection(u) {
+          @Override
+          public void connect() {
+          }
+          @Override
+          public InputStream getInputStream() {
+            return new ByteArrayInputStream("var a;".getBytes());
+          }
+        };
+      }
+    });
+    AssetManager manager = new AssetManager();
+    manager.setBundleKey(KEY);
+    manager.setBundling(true, false);
+    StringBuilder uris = new StringBuilder();
+    for (int i = 0;i <= AssetBundler.MAX_ASSETS;i++) {
+      manager.addAsset("a" + i, AssetLocation.APPLICATION, "/app/a" + i + ".js", url);
+      uris.append(i > 0 ? "\n" : "").append("/app/a").append(i).append(".js");
+    }
+    String path = list(manager.resolveAssets(Tools.list("a0"))).get(0).getURI();
+    int count = reads.get();
+
+    // A path not signed with the key is not built
+    String name = path.substring(path.lastIndexOf('/') + 1);
+    int from = AssetManager.BUNDLE_PREFIX.length() + 17;
+    String forged = "/app/" + name.substring(0, from) + "0000000000000000" + name.substring(from + 16);
+    assertNull(manager.resolveAsset(forged));
+
+    // The duplicated assets and the too many assets are not built
+    assertNull(manager.resolveAsset(sign(KEY, "/app/", "0000000000000000", "/app/a0.js\n/app/a0.js", ".js")));
+    assertNull(manager.resolveAsset(sign(KEY, "/app/", "0000000000000000", uris.toString(), ".js")));
+    assertEquals(count, reads.get());
+
+    // A signed path that cannot be derived is built once
+    String stale = sign(KEY, "/app/", "0000000000000000", "/app/a0.js", ".js");
+    assertNull(manager.resolveAsset(stale));
+    assertEquals(count + 1, reads.get());
+    assertNull(manager.resolveAsset(stale));
+    assertEquals(count + 1, reads.get());
+  }
+
+  @Test
+  public void testMaxAssets() throws Exception {
+    AssetManager manager = new AssetManager();
+    manager.setBundling(true, false);
+    URL url = url("var a;");
+    ArrayList<String> ids = new ArrayList<String>();
+    for (int i = 0;i <= AssetBundler.MAX_ASSETS;i++) {
+      manager.addAsset("a" + i, AssetLocation.APPLICATION, "/app/a" + i + ".js", url);
+      ids.add("a" + i);
+    }
+    List<Asset> assets = list(manager.resolveAssets(ids));
+    assertEquals(2, assets.size());
+    assertEquals("var a;\n;\n", Tools.read(manager.resolveAsset(assets.get(1).getURI())));
+  }
+
+  @Test
+  public void testEviction() throws Exception {
+    AssetManager manager = new AssetManager();
+    manager.setBundling(true, false);
+    URL url = url("var a;");
+    ArrayList<String> paths = new ArrayList<String>();
+    for (int i = 0;i <= AssetBundler.MAX_BUNDLES;i++) {
+      manager.addAsset("a" + i, AssetLocation.APPLICATION, "/app/a" + i + ".js", url);
+    }
+    for (int i = 0;i <= AssetBundler.MAX_BUNDLES;i++) {
+      paths.add(list(manager.resolveAssets(Tools.list("a" + i))).get(0).getURI());
+    }
+
+    // The evicted bundle is derived again
+    assertEquals("var a;\n;\n", Tools.read(manager.resolveAsset(paths.get(0))));
+  }
+
+  @Test
+  public void testSeparate() throws Exception {
+    AssetManager manager = new AssetManager();
+    manager.setBundling(true, false);
+    manager.addAsset("a", AssetLocation.APPLICATION, "/app/a.js", url("var a;"));
+    manager.addAsset("jquery", AssetLocation.URL, "http://cdn/jquery.js", null, "a");
+    manager.addAsset("b", AssetLocation.APPLICATION, "/app/b.js", url("var b;"), "jquery");
+    manager.addAsset("c", AssetLocation.APPLICATION, "/app/c.less", url(".c {}"));
+    manager.addAsset("d", AssetLocation.APPLICATION, "/app/css/d.css", url(".d {}"));
+    manager.addAsset("e", AssetLocation.APPLICATION, "/app/e.css", url(".e {}"));
+    List<Asset> assets = list(manager.resolveAssets(Tools.list("b", "c", "d", "e")));
+    assertEquals(6, assets.size());
+    assertEquals("/app/c.less", assets.get(0).getURI());
+    assertTrue(assets.get(1).getURI().startsWith("/app/css/" + AssetManager.BUNDLE_PREFIX));
+    assertEquals(".d {}\n", Tools.read(manager.resolveAsset(assets.get(1).getURI())));
+    assertTrue(assets.get(2).getURI().startsWith("/app/" + AssetManager.BUNDLE_PREFIX));
+    assertEquals("var a;\n;\n", Tools.read(manager.resolveAsset(assets.get(2).getURI())));
+    assertTrue(assets.get(3).getURI().startsWith("/app/" + AssetManager.BUNDLE_PREFIX));
+    assertEquals(".e {}\n", Tools.read(manager.resolveAsset(assets.get(3).getURI())));
+    assertEquals("http://cdn/jquery.js", assets.get(4).getURI());
+    assertTrue(assets.get(5).getURI().startsWith("/app/" + AssetManager.BUNDLE_PREFIX));
+    assertEquals("var b;\n;\n", Tools.read(manager.resolveAsset(assets.get(5).getURI())));
+  }
+
+  @Test
+  public void testMinify() throws Exception {
+    AssetManager manager = new AssetManager();
+    manager.setBundling(true, true);
+    manager.addAsset("a", AssetLocation.APPLICATION, "/app/a.js", url("// a\nvar a = 1;\n\n  /* b */  var b = 2;\n"));
+    Asset script = list(manager.resolveAssets(Tools.list("a"))).get(0);
+    assertEquals("var a = 1;\nvar b = 2;\n;\n", Tools.read(manager.resolveAsset(script.getURI())));
+  }
+
+  @Test
+  public void testMinifyScript() throws Exception {
+    assertEquals("var a = 1;", AssetBundler.minifyScript("  var   a =\t1;  "));
+    assertEquals("a();\nb();", AssetBundler.minifyScript("a();  // comment\n\n\n   b();"));
+    assertEquals("a\nb", AssetBundler.minifyScript("a /* multi\nline */ b"));
+    assertEquals("a b", AssetBundler.minifyScript("a /* comment */ b"));
+    assertEquals("/*! license */\na", AssetBundler.minifyScript("/*! license */\na"));
+    assertEquals("var s = \"  // not a comment  \";", AssetBundler.minifyScript("var s = \"  // not a comment  \";"));
+    assertEquals("var s = 'a\\'  /* b */';", AssetBundler.minifyScript("var s = 'a\\'  /* b */';"));
+    assertEquals("var r = /[/*]  \\/ /g;", AssetBundler.minifyScript("var r = /[/*]  \\/ /g;"));
+    assertEquals("return /a  b/.test(s);", AssetBundler.minifyScript("return /a  b/.test(s);"));
+    assertEquals("var x = a / b / c;", AssetBundler.minifyScript("var x = a / b / c; // d"));
+    assertEquals("var x = (a) / 2;", AssetBundler.minifyScript("var x = (a) / 2;"));
+  }
+
+  @Test
+  public void testMinifyScriptLiterals() throws Exception {
+    assertEquals("var u = \"http://host/*path*/\";", AssetBundler.minifyScript("var u = \"http://host/*path*/\"; // c"));
+    assertEquals("var s = '/* a */ // b';", AssetBundler.minifyScript("var s = '/* a */ // b';"));
+    assertEquals("var s = `//\n/*`;", AssetBundler.minifyScript("var s = `//\n/*`;"));
+    assertEquals("var s = \"\\\"//\";", AssetBundler.minifyScript("var s = \"\\\"//\";"));
+    assertEquals("var r = /\\/\\//g;", AssetBundler.minifyScript("var r = /\\/\\//g; // c"));
+    assertEquals("s.replace(/\\/\\*.*?\\*\\//g, '');", AssetBundler.minifyScript("s.replace(/\\/\\*.*?\\*\\//g, '');"));
+    assertEquals("if (/https?:\\/\\//.test(u)) a();", AssetBundler.minifyScript("if (/https?:\\/\\//.test(u)) a();"));
+    assertEquals("var r = /[//*]/;", AssetBundler.minifyScript("var r = /[//*]/;"));
+    assertEquals("return /\\/*/.test(s);", AssetBundler.minifyScript("return /\\/*/.test(s); /* c */"));
+    assertEquals("var x = a / b;\nc();", AssetBundler.minifyScript("var x = a / b; // /* c */\nc();"));
+  }
+
+  @Test
+  public void testMinifyStylesheet() throws Exception {
+    assertEquals(".a{color:red}", AssetBundler.minifyStylesheet(".a {\n  color:red;\n}\n"));
+    assertEquals(".a,.b{margin: 0 auto}", AssetBundler.minifyStylesheet(".a, .b /* c */ {\n  margin: 0   auto;\n}"));
+    assertEquals("a :hover{content: \"  ;  \"}", AssetBundler.minifyStylesheet("a :hover { content: \"  ;  \" }"));
+    assertEquals("/*! license */\n.a{}", AssetBundler.minifyStylesheet("/*! license */ .a { }"));
+    assertEquals(".a{background: url(\"http://host/*a*/\")}", AssetBundler.minifyStylesheet(".a { background: url(\"http://host/*a*/\"); }"));
+    assertEquals(".a{content: '// /* */'}", AssetBundler.minifyStylesheet(".a { content: '// /* */' }"));
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package juzu.impl.asset;
+
+import juzu.impl.common.Tools;
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+public class AssetCacheTestCase extends AbstractTestCase {
+
+  private static AssetCache.Entry entry(String content, String contentType) {
+    return new AssetCache.Entry(ByteBuffer.wrap(content.getBytes()), contentType, 0, null);
+  }
+
+  private static String repeat(char c, int count) {
+    char[] chars = new char[count];
+    Arrays.fill(chars, c);
+    return new String(chars);
+  }
+
+  @Test
+  public void testEviction() throws Exception {
+    AssetCache cache = new AssetCache(10);
+    AssetCache.Entry a = entry("aaaa", null);
+    AssetCache.Entry b = entry("bbbb", null);
+    AssetCache.Entry c = entry("cccc", null);
+    cache.put("a", a);
+    cache.put("b", b);
+    assertSame(a, cache.get("a"));
+    cache.put("c", c);
+    assertSame(a, cache.get("a"));
+    assertNull(cache.get("b"));
+    assertSame(c, cache.get("c"));
+    assertEquals(8, cache.getSize());
+    cache.put("d", entry("ddddddddddd", null));
+    assertNull(cache.get("d"));
+    assertEquals(2, cache.getCount());
+  }
+
+  @Test
+  public void testEntry() throws Exception {
+    String content = repeat('a', AssetCache.GZIP_MIN_LENGTH * 2);
+    AssetCache.Entry text = entry(content, "text/css");
+    assertEquals(content.length(), text.getLength());
+    assertTrue(text.getETag().startsWith("\"") && text.getETag().endsWith("\""));
+    assertEquals(text.getETag(), entry(content, "text/css").getETag());
+    assertFalse(text.getETag().equals(entry(content + "b", "text/css").getETag()));
+    assertNotNull(text.getGzipped());
+    GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(text.getGzipped()));
+    assertEquals(content, new String(Tools.bytes(in)));
+    assertNull(entry(content, "image/png").getGzipped());
+    assertNull(entry("abc", "text/css").getGzipped());
+    assertFalse(text.getETag().equals(text.getGzippedETag()));
+    assertNull(entry("abc", "text/css").getGzippedETag());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    text.write(2, 5, out);
+    assertEquals("aaa", out.toString());
+  }
+
+  @Test
+  public void testFile() throws Exception {
+    File f = File.createTempFile("juzu", ".js");
+    f.deleteOnExit();
+    Tools.write("0123456789", f);
+    AssetCache.Entry entry = AssetCache.Entry.create(f.toURI().toURL(), "application/javascript");
+    assertEquals(10, entry.getLength());
+    assertEquals(f.lastModified(), entry.getLastModified());
+    assertFalse(entry.isStale());
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    entry.write(3, 6, out);
+    assertEquals("345", out.toString());
+    assertTrue(f.setLastModified(f.lastModified() - 10000));
+    assertTrue(entry.isStale());
+  }
+
+  @Test
+  public void testParseRange() throws Exception {
+    assertTrue(Arrays.equals(new long[]{0, 10}, AssetServer.parseRange("bytes=0-", 10)));
+    assertTrue(Arrays.equals(new long[]{2, 5}, AssetServer.parseRange("bytes=2-4", 10)));
+    assertTrue(Arrays.equals(new long[]{2, 10}, AssetServer.parseRange("bytes=2-40", 10)));
+    assertTrue(Arrays.equals(new long[]{7, 10}, AssetServer.parseRange("bytes=-3", 10)));
+    assertTrue(Arrays.equals(new long[]{0, 10}, AssetServer.parseRange("bytes=-30", 10)));
+    assertEquals(0, AssetServer.parseRange("bytes=10-", 10).length);
+    assertEquals(0, AssetServer.parseRange("bytes=-0", 10).length);
+    assertNull(AssetServer.parseRange("bytes=0-1,3-4", 10));
+    assertNull(AssetServer.parseRange("bytes=4-2", 10));
+    assertNull(AssetServer.parseRange("bytes=a-", 10));
+    assertNull(AssetServer.parseRange("items=0-1", 10));
+  }
+
+  @Test
+  public void testMatches() throws Exception {
+    assertTrue(AssetServer.matches("\"abc\"", "\"abc\""));
+    assertTrue(AssetServer.matches("\"def\", \"abc\"", "\"abc\""));
+    assertTrue(AssetServer.matches("W/\"abc\"", "\"abc\""));
+    assertTrue(AssetServer.matches("*", "\"abc\""));
+    assertFalse(AssetServer.matches("\"def\"", "\"abc\""));
+  }
+
+  @Test
+  public void testSendGzipped() throws Exception {
+    AssetCache.Entry entry = entry(repeat('a', AssetCache.GZIP_MIN_LENGTH * 2), "text/css");
+
+    // Each representation has its own entity tag
+    Map<String, String> headers = new HashMap<String, String>();
+    assertEquals(200, send(entry, headers, "Accept-Encoding", "gzip"));
+    assertEquals(entry.getGzippedETag(), headers.get("ETag"));
+    assertEquals("gzip", headers.get("Content-Encoding"));
+    headers.clear();
+    assertEquals(200, send(entry, headers));
+    assertEquals(entry.getETag(), headers.get("ETag"));
+    assertNull(headers.get("Content-Encoding"));
+
+    // A representation is validated by its own entity tag only
+    assertEquals(304, send(entry, headers, "Accept-Encoding", "gzip", "If-None-Match", entry.getGzippedETag()));
+    assertEquals(200, send(entry, headers, "If-None-Match", entry.getGzippedETag()));
+    assertEquals(200, send(entry, headers, "Accept-Encoding", "gzip", "If-None-Match", entry.getETag()));
+    assertEquals(304, send(entry, headers, "If-None-Match", entry.getETag()));
+
+    // Ranges apply to the raw bytes only
+    headers.clear();
+    assertEquals(206, send(entry, headers, "Accept-Encoding", "gzip", "Range", "bytes=0-1", "If-Range", entry.getETag()));
+    assertEquals(entry.getETag(), headers.get("ETag"));
+    assertNull(headers.get("Content-Encoding"));
+    headers.clear();
+    assertEquals(200, send(entry, headers, "Accept-Encoding", "gzip", "Range", "bytes=0-1", "If-Range", entry.getGzippedETag()));
+    assertEquals(entry.getGzippedETag(), headers.get("ETag"));
+  }
+
+  private static int send(AssetCache.Entry entry, final Map<String, String> headers, String... requestHeaders) throws IOException {
+    final Map<String, String> values = new HashMap<String, String>();
+    for (int i = 0;i < requestHeaders.length;i += 2) {
+      values.put(requestHeaders[i], requestHeaders[i + 1]);
+    }
+    final int[] status = {200};
+    HttpServletRequest req = proxy(HttpServletRequest.class, new InvocationHandler() {
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("getHeader")) {
+          return values.get(args[0]);
+        } else if (method.getName().equals("getDateHeader")) {
+          return -1L;
+        }
+        throw new UnsupportedOperationException();
+      }
+    });
+    HttpServletResponse resp = proxy(HttpServletResponse.class, new InvocationHandler() {
+      public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("setHeader")) {
+          headers.put((String)args[0], (String)args[1]);
+        } else if (method.getName().equals("setStatus")) {
+          status[0] = (Integer)args[0];
+        } else if (method.getName().equals("getOutputStream")) {
+          return new ServletOutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+            }
+          };
+        }
+        return null;
+      }
+    });
+    AssetServer.send(entry, "no-cache", req, resp);
+    return status[0];
+  }
+
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, handler));
+  }
+}
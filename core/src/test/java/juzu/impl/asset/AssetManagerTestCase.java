@@ -0,0 +1,108 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package juzu.impl.asset;
+
+import juzu.asset.AssetLocation;
+import juzu.impl.common.Tools;
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+public class AssetManagerTestCase extends AbstractTestCase {
+
+  private static List<String> uris(Iterable<Asset> assets) {
+    ArrayList<String> uris = new ArrayList<String>();
+    for (Asset asset : assets) {
+      uris.add(asset.getURI());
+    }
+    return uris;
+  }
+
+  @Test
+  public void testResolve() throws Exception {
+    AssetManager manager = new AssetManager();
+    manager.addAsset("a", AssetLocation.URL, "a.js", null, "b", "c");
+    manager.addAsset("b", AssetLocation.URL, "b.js", null, "c");
+    manager.addAsset("c", AssetLocation.URL, "c.js", null);
+    manager.addAsset("d", AssetLocation.URL, "d.js", null);
+    assertEquals(Arrays.asList("c.js", "b.js", "a.js"), uris(manager.resolveAssets(Tools.list("a"))));
+    assertEquals(Arrays.asList("d.js", "c.js", "b.js"), uris(manager.resolveAssets(Tools.list("d", "b"))));
+    assertEquals(Arrays.asList("c.js", "d.js"), uris(manager.resolveAssets(Tools.list("c", "d", "c"))));
+    assertEquals(Arrays.<String>asList(), uris(manager.resolveAssets(Tools.<String>list())));
+  }
+
+  @Test
+  public void testCache() throws Exception {
+    AssetManager manager = new AssetManager();
+    manager.addAsset("a", AssetLocation.URL, "a.js", null, "b");
+    manager.addAsset("b", AssetLocation.URL, "b.js", null);
+    Iterable<Asset> resolved = manager.resolveAssets(Tools.list("a"));
+    assertSame(resolved, manager.resolveAssets(Tools.list("a")));
+    assertNotSame(resolved, manager.resolveAssets(Tools.list("a", "b")));
+    assertFalse(manager.addAsset("b", AssetLocation.URL, "b.js", null));
+    assertSame(resolved, manager.resolveAssets(Tools.list("a")));
+    manager.addAsset("c", AssetLocation.URL, "c.js", null);
+    Iterable<Asset> refreshed = manager.resolveAssets(Tools.list("a"));
+    assertNotSame(resolved, refreshed);
+    assertEquals(uris(resolved), uris(refreshed));
+  }
+
+  @Test
+  public void testInvalidate() throws Exception {
+    AssetManager manager = new AssetManager();
+    manager.addAsset("a", AssetLocation.URL, "a.js", null, "b");
+    try {
+      manager.resolveAssets(Tools.list("a"));
+      fail();
+    }
+    catch (IllegalArgumentException ignore) {
+    }
+    manager.addAsset("b", AssetLocation.URL, "b.js", null);
+    assertEquals(Arrays.asList("b.js", "a.js"), uris(manager.resolveAssets(Tools.list("a"))));
+  }
+
+  @Test
+  public void testUnresolvable() throws Exception {
+    AssetManager manager = new AssetManager();
+    manager.addAsset("a", AssetLocation.URL, "a.js", null);
+    try {
+      manager.resolveAssets(Tools.list("a", "b"));
+      fail();
+    }
+    catch (IllegalArgumentException e) {
+      assertEquals("Cannot resolve asset b", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testCycle() throws Exception {
+    AssetManager manager = new AssetManager();
+    manager.addAsset("a", AssetLocation.URL, "a.js", null, "b");
+    manager.addAsset("b", AssetLocation.URL, "b.js", null, "a");
+    manager.addAsset("c", AssetLocation.URL, "c.js", null);
+    try {
+      manager.resolveAssets(Tools.list("c", "a"));
+      fail();
+    }
+    catch (IllegalArgumentException e) {
+      assertEquals("Cannot satisfy asset dependencies:\na -> [b]b -> [a]", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package juzu.impl.bridge.spi.servlet;
+
+import juzu.impl.common.Tools;
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Locale;
+import java.util.ResourceBundle;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+public class ServletApplicationContextTestCase extends AbstractTestCase {
+
+  private static void write(File root, String content) throws Exception {
+    FileOutputStream out = new FileOutputStream(new File(root, "bundle.properties"));
+    try {
+      out.write(content.getBytes(Tools.UTF_8));
+    }
+    finally {
+      Tools.safeClose(out);
+    }
+  }
+
+  @Test
+  public void testCache() throws Exception {
+    File root = File.createTempFile("juzu", "");
+    assertTrue(root.delete());
+    assertTrue(root.mkdirs());
+    root.deleteOnExit();
+    write(root, "key=foo");
+    ClassLoader classLoader = new URLClassLoader(new URL[]{root.toURI().toURL()}, null);
+
+    //
+    ServletApplicationContext context = new ServletApplicationContext(classLoader, "bundle");
+    ResourceBundle bundle = context.resolveBundle(Locale.ENGLISH);
+    assertEquals("foo", bundle.getString("key"));
+    assertSame(bundle, context.resolveBundle(Locale.ENGLISH));
+
+    // The context keeps its bundles
+    write(root, "key=bar");
+    assertSame(bundle, context.resolveBundle(Locale.ENGLISH));
+
+    // The context created when the application is refreshed resolves the new bundle
+    ServletApplicationContext refreshed = new ServletApplicationContext(classLoader, "bundle");
+    assertEquals("bar", refreshed.resolveBundle(Locale.ENGLISH).getString("key"));
+  }
+
+  @Test
+  public void testNoBundle() throws Exception {
+    ServletApplicationContext context = new ServletApplicationContext(getClass().getClassLoader(), null);
+    assertNull(context.resolveBundle(Locale.ENGLISH));
+  }
+}
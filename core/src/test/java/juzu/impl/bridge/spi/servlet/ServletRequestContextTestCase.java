@@ -0,0 +1,170 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.servlet;
+
+import juzu.impl.bridge.BridgeConfig;
+import juzu.impl.common.FormURLEncodedDecoder;
+import juzu.impl.common.Tools;
+import juzu.impl.metrics.Metrics;
+import juzu.io.UndeclaredIOException;
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+public class ServletRequestContextTestCase extends AbstractTestCase {
+
+  /** . */
+  private final List<AsyncListener> listeners = new ArrayList<AsyncListener>();
+
+  /** . */
+  private int ended;
+
+  private final Runnable task = new Runnable() {
+    public void run() {
+      ended++;
+    }
+  };
+
+  private ServletRequestContext context() {
+    return context(null);
+  }
+
+  private ServletRequestContext context(final String form) {
+    final AsyncContext async = proxy(AsyncContext.class, new InvocationHandler() {
+      public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("addListener")) {
+          listeners.add((AsyncListener)args[0]);
+          return null;
+        } else if (method.getName().equals("complete")) {
+          return null;
+        }
+        throw new UnsupportedOperationException();
+      }
+    });
+    HttpServletRequest req = proxy(HttpServletRequest.class, new InvocationHandler() {
+      public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("getRequestURI")) {
+          return "/foo";
+        } else if (method.getName().equals("getContextPath")) {
+          return "";
+        } else if (method.getName().equals("isAsyncStarted")) {
+          return false;
+        } else if (method.getName().equals("startAsync")) {
+          return async;
+        } else if (method.getName().equals("getMethod")) {
+          return form != null ? "POST" : "GET";
+        } else if (method.getName().equals("getQueryString")) {
+          return null;
+        } else if (method.getName().equals("getContentType")) {
+          return "application/x-www-form-urlencoded";
+        } else if (method.getName().equals("getInputStream")) {
+          final ByteArrayInputStream in = new ByteArrayInputStream(form.getBytes(Tools.UTF_8));
+          return new ServletInputStream() {
+            @Override
+            public int read() throws IOException {
+              return in.read();
+            }
+          };
+        }
+        throw new UnsupportedOperationException();
+      }
+    });
+    HttpServletResponse resp = proxy(HttpServletResponse.class, new InvocationHandler() {
+      public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        throw new UnsupportedOperationException();
+      }
+    });
+    return new ServletRequestContext(Tools.UTF_8, 1024, 10, BridgeConfig.DEFAULT_OUTPUT_BUFFER_SIZE, Metrics.NONE, req, resp, "/");
+  }
+
+  @Test
+  public void testEnd() {
+    ServletRequestContext context = context();
+    context.onEnd(task);
+    assertEquals(1, ended);
+    assertEquals(0, listeners.size());
+  }
+
+  @Test
+  public void testEndAsync() throws Exception {
+    ServletRequestContext context = context();
+    context.beginAsync();
+    context.onEnd(task);
+    assertEquals(0, ended);
+    assertEquals(1, listeners.size());
+
+    // The task runs once when the request completes
+    context.endAsync();
+    listeners.get(0).onError(null);
+    listeners.get(0).onComplete(null);
+    assertEquals(1, ended);
+  }
+
+  @Test
+  public void testForm() throws Exception {
+    ServletRequestContext context = context("a=b&c=d");
+    assertEquals(2, context.getParameters().size());
+    assertEquals("b", context.getParameters().get("a").getValue());
+  }
+
+  @Test
+  public void testFormMaxSize() throws Exception {
+    StringBuilder form = new StringBuilder("a=");
+    while (form.length() <= 1024) {
+      form.append('b');
+    }
+    assertFormRejected(context(form.toString()), 413);
+  }
+
+  @Test
+  public void testFormMaxParameters() throws Exception {
+    StringBuilder form = new StringBuilder();
+    for (int i = 0;i < 11;i++) {
+      form.append(i == 0 ? "" : "&").append('p').append(i).append("=v");
+    }
+    assertFormRejected(context(form.toString()), 400);
+  }
+
+  private void assertFormRejected(ServletRequestContext context, int status) {
+    for (int i = 0;i < 2;i++) {
+      try {
+        context.getParameters();
+        fail();
+      }
+      catch (UndeclaredIOException e) {
+        assertEquals(status, ((FormURLEncodedDecoder.LimitException)e.getCause()).getStatus());
+      }
+    }
+  }
+
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, handler));
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.bridge.spi.servlet;
+
+import juzu.impl.common.JUL;
+import juzu.impl.inject.Scoped;
+import juzu.impl.inject.spi.guice.GuiceScoped;
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import javax.servlet.http.HttpSession;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+public class TrackingScopedContextTestCase extends AbstractTestCase {
+
+  /** The attributes set or removed on the session. */
+  private final List<String> calls = new ArrayList<String>();
+
+  private HttpSession session(final HashMap<String, Object> attributes) {
+    return (HttpSession)Proxy.newProxyInstance(HttpSession.class.getClassLoader(), new Class[]{HttpSession.class}, new InvocationHandler() {
+      public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("setAttribute")) {
+          calls.add("set " + args[0]);
+          attributes.put((String)args[0], args[1]);
+          return null;
+        } else if (method.getName().equals("removeAttribute")) {
+          calls.add("remove " + args[0]);
+          attributes.remove(args[0]);
+          return null;
+        } else if (method.getName().equals("getAttribute")) {
+          return attributes.get(args[0]);
+        } else if (method.getName().equals("getAttributeNames")) {
+          return Collections.enumeration(new ArrayList<String>(attributes.keySet()));
+        } else {
+          throw new UnsupportedOperationException();
+        }
+      }
+    });
+  }
+
+  private static Scoped scoped(final Object o) {
+    return new Scoped() {
+      public Object get() {
+        return o;
+      }
+      public void destroy() {
+      }
+    };
+  }
+
+  @Test
+  public void testFlushDirty() {
+    ServletScopedContext context = new ServletScopedContext(JUL.getLogger(ServletScopedContext.class.getName()));
+    HashMap<String, Object> attributes = new HashMap<String, Object>();
+    HttpSession session = session(attributes);
+
+    // First request creates two entries
+    TrackingScopedContext request = new TrackingScopedContext("juzu.session_scope", context, session);
+    request.set("a", new GuiceScoped("foo"));
+    StringBuilder bar = new StringBuilder("bar");
+    request.set("b", new GuiceScoped(bar));
+    request.flush();
+    assertEquals(2, calls.size());
+    assertTrue(calls.contains("set juzu.session_scope.a"));
+    assertTrue(calls.contains("set juzu.session_scope.b"));
+    assertEquals("foo", ((Scoped)attributes.get("juzu.session_scope.a")).get());
+    assertSame(bar, ((Scoped)attributes.get("juzu.session_scope.b")).get());
+
+    // Second request does not use the entries
+    calls.clear();
+    request = new TrackingScopedContext("juzu.session_scope", context, session);
+    assertNull(request.get("c"));
+    request.flush();
+    assertEquals(0, calls.size());
+
+    // Third request modifies the second entry through its methods
+    request = new TrackingScopedContext("juzu.session_scope", context, session);
+    ((StringBuilder)request.get("b").get()).append("juu");
+    request.flush();
+    assertEquals(1, calls.size());
+    assertEquals("set juzu.session_scope.b", calls.get(0));
+
+    // Fourth request removes the first entry
+    calls.clear();
+    request = new TrackingScopedContext("juzu.session_scope", context, session);
+    request.set("a", null);
+    assertNull(request.get("a"));
+    request.flush();
+    assertEquals(1, calls.size());
+    assertEquals("remove juzu.session_scope.a", calls.get(0));
+    assertNull(attributes.get("juzu.session_scope.a"));
+  }
+
+  @Test
+  public void testNotSerializable() {
+    ServletScopedContext context = new ServletScopedContext(JUL.getLogger(ServletScopedContext.class.getName()));
+    TrackingScopedContext request = new TrackingScopedContext("juzu.session_scope", context, session(new HashMap<String, Object>()));
+    request.set("a", scoped("foo"));
+    request.set("b", new GuiceScoped(new Object()));
+    request.flush();
+    assertEquals(2, calls.size());
+    assertTrue(calls.contains("remove juzu.session_scope.a"));
+    assertTrue(calls.contains("remove juzu.session_scope.b"));
+    assertSame(context, request.context);
+    assertEquals(2, context.size());
+  }
+
+  @Test
+  public void testClose() {
+    ServletScopedContext context = new ServletScopedContext(JUL.getLogger(ServletScopedContext.class.getName()));
+    HashMap<String, Object> attributes = new HashMap<String, Object>();
+    attributes.put("juzu.flash_scope.b", new GuiceScoped("bar"));
+    attributes.put("juzu.session_scope.c", new GuiceScoped("juu"));
+    context.set("a", scoped("foo"));
+    TrackingScopedContext request = new TrackingScopedContext("juzu.flash_scope", context, session(attributes));
+    request.close();
+    assertEquals(0, context.size());
+    assertNull(request.get("b"));
+    request.flush();
+    assertEquals(2, calls.size());
+    assertTrue(calls.contains("remove juzu.flash_scope.a"));
+    assertTrue(calls.contains("remove juzu.flash_scope.b"));
+    assertEquals(Collections.singleton("juzu.session_scope.c"), attributes.keySet());
+  }
+
+  @Test
+  public void testSerialize() throws Exception {
+    HashMap<String, Object> attributes = new HashMap<String, Object>();
+    attributes.put("juzu.session_scope", new ServletScopedContext(JUL.getLogger(ServletScopedContext.class.getName())));
+    TrackingScopedContext request = new TrackingScopedContext("juzu.session_scope", (ServletScopedContext)attributes.get("juzu.session_scope"), session(attributes));
+    request.set("a", new GuiceScoped(new StringBuilder("foo")));
+    request.flush();
+
+    // Replicate the session on another node
+    HashMap<String, Object> replica = replicate(attributes);
+    ServletScopedContext context = (ServletScopedContext)replica.get("juzu.session_scope");
+    assertEquals(0, context.size());
+    request = new TrackingScopedContext("juzu.session_scope", context, session(replica));
+    StringBuilder a = (StringBuilder)request.get("a").get();
+    assertEquals("foo", a.toString());
+    assertEquals(1, context.size());
+    assertSame(a, request.get("a").get());
+
+    // Modify the entry and fail over again
+    a.append("bar");
+    request.flush();
+    replica = replicate(replica);
+    request = new TrackingScopedContext("juzu.session_scope", (ServletScopedContext)replica.get("juzu.session_scope"), session(replica));
+    assertEquals("foobar", request.get("a").get().toString());
+  }
+
+  @Test
+  public void testModifiedByAnotherNode() {
+    ServletScopedContext context = new ServletScopedContext(JUL.getLogger(ServletScopedContext.class.getName()));
+    HashMap<String, Object> attributes = new HashMap<String, Object>();
+    TrackingScopedContext request = new TrackingScopedContext("juzu.session_scope", context, session(attributes));
+    request.set("a", new GuiceScoped("foo"));
+    request.flush();
+
+    // Another node replaces the entry
+    attributes.put("juzu.session_scope.a", new GuiceScoped("bar"));
+    request = new TrackingScopedContext("juzu.session_scope", context, session(attributes));
+    assertEquals("bar", context.get("a").get());
+    assertEquals("bar", request.get("a").get());
+  }
+
+  @Test
+  public void testSameName() {
+    ServletScopedContext context = new ServletScopedContext(JUL.getLogger(ServletScopedContext.class.getName()));
+    Object key = new Object() {
+      @Override
+      public String toString() {
+        return "a";
+      }
+    };
+    HashMap<String, Object> attributes = new HashMap<String, Object>();
+    TrackingScopedContext request = new TrackingScopedContext("juzu.session_scope", context, session(attributes));
+    request.set("a", new GuiceScoped("foo"));
+    request.flush();
+
+    // The entry is kept but not replicated
+    calls.clear();
+    request = new TrackingScopedContext("juzu.session_scope", context, session(attributes));
+    request.set(key, new GuiceScoped("bar"));
+    request.flush();
+    assertEquals(0, calls.size());
+    assertEquals("foo", ((Scoped)attributes.get("juzu.session_scope.a")).get());
+    assertEquals("bar", request.get(key).get());
+  }
+
+  private static HashMap<String, Object> replicate(HashMap<String, Object> attributes) throws Exception {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(buffer);
+    out.writeObject(attributes);
+    out.close();
+    ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray()));
+    return (HashMap<String, Object>)in.readObject();
+  }
+}
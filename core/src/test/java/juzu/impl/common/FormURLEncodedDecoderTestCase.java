@@ -0,0 +1,104 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.common;
+
+import juzu.request.RequestParameter;
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+public class FormURLEncodedDecoderTestCase extends AbstractTestCase {
+
+  private static Map<String, RequestParameter> decode(String form) throws IOException {
+    FormURLEncodedDecoder decoder = new FormURLEncodedDecoder(Tools.UTF_8, -1, -1, new HashMap<String, RequestParameter>());
+    decoder.decode(new ByteArrayInputStream(form.getBytes(Tools.UTF_8)));
+    return decoder.getParameters();
+  }
+
+  @Test
+  public void testDecode() throws Exception {
+    Map<String, RequestParameter> parameters = decode("a=b&c=d+e&f=%C3%A9&g&&h=i&h=j&=k&l=%4");
+    assertEquals(5, parameters.size());
+    assertEquals("b", parameters.get("a").getValue());
+    assertEquals("d e", parameters.get("c").getValue());
+    assertEquals("d+e", parameters.get("c").getRaw(0));
+    assertEquals("é", parameters.get("f").getValue());
+    assertEquals("", parameters.get("g").getValue());
+    assertEquals(2, parameters.get("h").size());
+    assertEquals("i", parameters.get("h").get(0));
+    assertEquals("j", parameters.get("h").get(1));
+  }
+
+  @Test
+  public void testChunks() throws Exception {
+    byte[] form = "name=foo%20bar&other=%C3%A9t%C3%A9".getBytes(Tools.UTF_8);
+    for (int size = 1;size <= form.length;size++) {
+      FormURLEncodedDecoder decoder = new FormURLEncodedDecoder(Tools.UTF_8, -1, -1, new HashMap<String, RequestParameter>());
+      for (int off = 0;off < form.length;off += size) {
+        decoder.decode(form, off, Math.min(size, form.length - off));
+      }
+      decoder.end();
+      Map<String, RequestParameter> parameters = decoder.getParameters();
+      assertEquals(2, parameters.size());
+      assertEquals("foo bar", parameters.get("name").getValue());
+      assertEquals("été", parameters.get("other").getValue());
+    }
+  }
+
+  @Test
+  public void testMaxSize() throws Exception {
+    FormURLEncodedDecoder decoder = new FormURLEncodedDecoder(Tools.UTF_8, 8, -1, new HashMap<String, RequestParameter>());
+    try {
+      decoder.decode(new ByteArrayInputStream("a=b&c=d&e=f".getBytes(Tools.UTF_8)));
+      fail();
+    }
+    catch (FormURLEncodedDecoder.LimitException expected) {
+      assertEquals(413, expected.getStatus());
+    }
+    decoder = new FormURLEncodedDecoder(Tools.UTF_8, 7, -1, new HashMap<String, RequestParameter>());
+    decoder.decode(new ByteArrayInputStream("a=b&c=d".getBytes(Tools.UTF_8)));
+    assertEquals(2, decoder.getParameters().size());
+  }
+
+  @Test
+  public void testMaxParameters() throws Exception {
+    FormURLEncodedDecoder decoder = new FormURLEncodedDecoder(Tools.UTF_8, -1, 2, new HashMap<String, RequestParameter>());
+    try {
+      decoder.decode(new ByteArrayInputStream("a=b&c=d&e=f".getBytes(Tools.UTF_8)));
+      fail();
+    }
+    catch (FormURLEncodedDecoder.LimitException expected) {
+      assertEquals(400, expected.getStatus());
+    }
+    assertEquals(2, decoder.getParameters().size());
+  }
+
+  @Test
+  public void testEncoding() {
+    assertNull(FormURLEncodedDecoder.getEncoding(null, Tools.UTF_8));
+    assertNull(FormURLEncodedDecoder.getEncoding("text/plain", Tools.UTF_8));
+    assertEquals(Tools.UTF_8, FormURLEncodedDecoder.getEncoding("application/x-www-form-urlencoded", Tools.UTF_8));
+    assertEquals(Tools.ISO_8859_1, FormURLEncodedDecoder.getEncoding("application/x-www-form-urlencoded; charset=ISO-8859-1", Tools.UTF_8));
+    assertEquals(Tools.UTF_8, FormURLEncodedDecoder.getEncoding("application/x-www-form-urlencoded; charset=bogus", Tools.UTF_8));
+    assertEquals(Tools.UTF_8, FormURLEncodedDecoder.getEncoding("application/x-www-form-urlencoded; charset=bo gus", Tools.UTF_8));
+  }
+}
@@ -17,10 +17,13 @@
 package juzu.impl.fs;
 
 import juzu.impl.common.Content;
+import juzu.impl.common.Tools;
+import juzu.impl.fs.spi.disk.DiskFileSystem;
 import juzu.impl.fs.spi.ram.RAMFileSystem;
 import juzu.test.AbstractTestCase;
 import org.junit.Test;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
 
@@ -97,4 +100,63 @@ public class ScannerTestCase extends AbstractTestCase {
     snapshot = snapshot.scan();
     assertEquals(Collections.<String, Change>emptyMap(), snapshot.getChanges());
   }
+
+  @Test
+  public void testStampedRacy() throws IOException {
+    RAMFileSystem fs = new RAMFileSystem();
+    FileSystemScanner<String[]> scanner = FileSystemScanner.createStamped(fs);
+
+    //
+    String[] bar = fs.makePath(fs.getRoot(), "bar.txt");
+    fs.setContent(bar, new Content("a"));
+    Snapshot<String[]> snapshot = scanner.take().scan();
+    assertEquals(Collections.singletonMap("/bar.txt", Change.ADD), snapshot.getChanges());
+
+    // Same timestamp resolution and same size
+    fs.setContent(bar, new Content("b"));
+    snapshot = snapshot.scan();
+    assertEquals(Collections.singletonMap("/bar.txt", Change.UPDATE), snapshot.getChanges());
+    snapshot = snapshot.scan();
+    assertEquals(Collections.<String, Change>emptyMap(), snapshot.getChanges());
+  }
+
+  @Test
+  public void testStampedTrusted() throws IOException {
+    File root = File.createTempFile("juzu", "");
+    assertTrue(root.delete());
+    assertTrue(root.mkdir());
+    File bar = new File(root, "bar.txt");
+    Tools.write("a", bar);
+    long lastModified = System.currentTimeMillis() - FileSystemScanner.Stamped.RACY_DELAY * 5;
+    assertTrue(bar.setLastModified(lastModified));
+
+    //
+    final int[] count = {0};
+    FileSystemScanner<File> scanner = new FileSystemScanner.Stamped<File>(new DiskFileSystem(root)) {
+      @Override
+      protected long stampOf(File file) throws IOException {
+        count[0]++;
+        return super.stampOf(file);
+      }
+    };
+    Snapshot<File> snapshot = scanner.take().scan();
+    assertEquals(Collections.singletonMap("/bar.txt", Change.ADD), snapshot.getChanges());
+    assertEquals(1, count[0]);
+    snapshot = snapshot.scan();
+    assertEquals(Collections.<String, Change>emptyMap(), snapshot.getChanges());
+    assertEquals(1, count[0]);
+
+    //
+    Tools.write("b", bar);
+    assertTrue(bar.setLastModified(lastModified + 1000));
+    snapshot = snapshot.scan();
+    assertEquals(Collections.singletonMap("/bar.txt", Change.UPDATE), snapshot.getChanges());
+    assertEquals(2, count[0]);
+
+    //
+    assertTrue(bar.delete());
+    snapshot = snapshot.scan();
+    assertEquals(Collections.singletonMap("/bar.txt", Change.REMOVE), snapshot.getChanges());
+    assertTrue(root.delete());
+  }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.metrics;
+
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+public class HistogramTestCase extends AbstractTestCase {
+
+  @Test
+  public void testEmpty() {
+    Histogram histogram = new Histogram();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMin());
+    assertEquals(0, histogram.getMax());
+    assertEquals(0D, histogram.getMean(), 0D);
+    assertEquals(0, histogram.getMedian());
+  }
+
+  @Test
+  public void testRecord() {
+    Histogram histogram = new Histogram();
+    histogram.record(3);
+    histogram.record(5);
+    histogram.record(10);
+    histogram.record(-1);
+    assertEquals(4, histogram.getCount());
+    assertEquals(18, histogram.getSum());
+    assertEquals(0, histogram.getMin());
+    assertEquals(10, histogram.getMax());
+    assertEquals(4.5D, histogram.getMean(), 0D);
+  }
+
+  @Test
+  public void testBuckets() {
+    int previous = -1;
+    for (long value = 0;value < 100000;value++) {
+      int index = Histogram.index(value);
+      assertTrue(index >= previous);
+      assertTrue(Histogram.upperBound(index) >= value);
+      assertTrue(index == 0 || Histogram.upperBound(index - 1) < value);
+      previous = index;
+    }
+    assertTrue(Histogram.upperBound(Histogram.index(Long.MAX_VALUE)) >= Long.MAX_VALUE - 1);
+  }
+
+  @Test
+  public void testPercentile() {
+    Histogram histogram = new Histogram();
+    for (int i = 1;i <= 1000;i++) {
+      histogram.record(i);
+    }
+    assertPercentile(500, histogram.getMedian());
+    assertPercentile(950, histogram.get95thPercentile());
+    assertPercentile(990, histogram.get99thPercentile());
+    assertEquals(1000, histogram.getPercentile(1));
+    assertEquals(1, histogram.getPercentile(0));
+    try {
+      histogram.getPercentile(2);
+      fail();
+    }
+    catch (IllegalArgumentException ignore) {
+    }
+  }
+
+  private void assertPercentile(long expected, long estimated) {
+    assertTrue("Was expecting " + estimated + " to estimate " + expected, estimated >= expected && estimated <= expected + expected / Histogram.SUB_BUCKETS);
+  }
+
+  @Test
+  public void testConcurrent() throws Exception {
+    final Histogram histogram = new Histogram();
+    final CountDownLatch start = new CountDownLatch(1);
+    Thread[] threads = new Thread[4];
+    for (int i = 0;i < threads.length;i++) {
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            start.await();
+            for (int j = 1;j <= 10000;j++) {
+              histogram.record(j);
+            }
+          }
+          catch (InterruptedException ignore) {
+          }
+        }
+      };
+      threads[i].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(40000, histogram.getCount());
+    assertEquals(4 * 50005000L, histogram.getSum());
+    assertEquals(1, histogram.getMin());
+    assertEquals(10000, histogram.getMax());
+  }
+}
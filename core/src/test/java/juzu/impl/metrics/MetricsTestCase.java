@@ -0,0 +1,113 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.metrics;
+
+import juzu.impl.inject.spi.InjectorProvider;
+import juzu.test.AbstractTestCase;
+import juzu.test.protocol.mock.MockApplication;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+public class MetricsTestCase extends AbstractTestCase {
+
+  @Test
+  public void testDisabled() throws Exception {
+    assertEquals(0, Metrics.NONE.time());
+    MockApplication<?> app = application(InjectorProvider.GUICE, "plugin.template.simple").init();
+    assertSame(Metrics.NONE, app.getContext().getMetrics());
+    app.client().render();
+  }
+
+  @Test
+  public void testEnabled() throws Exception {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    String prefix = "juzu:application=" + ObjectName.quote("plugin.template.simple") + ",context=" + ObjectName.quote("/app");
+    ObjectName requestName = new ObjectName(prefix + ",type=Request,name=" + ObjectName.quote("A.index"));
+    ObjectName filtersName = new ObjectName(prefix + ",type=Filters");
+    MockApplication<?> app = application(InjectorProvider.GUICE, "plugin.template.simple").init();
+    DefaultMetrics metrics = assertInstanceOf(DefaultMetrics.class, Metrics.create("plugin.template.simple", "/app"));
+    try {
+      app.getContext().setMetrics(metrics);
+      app.client().render();
+      app.client().render();
+      assertEquals(2, metrics.getRequest("A.index").getCount());
+      assertEquals(2, metrics.getTemplate("plugin.template.simple.templates.index").getCount());
+      assertEquals(2, metrics.getFilters().getCount());
+      assertTrue(metrics.getRequest("A.index").getMax() >= metrics.getFilters().getMax());
+      assertTrue(server.isRegistered(requestName));
+      assertTrue(server.isRegistered(filtersName));
+      assertEquals(2L, server.getAttribute(requestName, "Count"));
+    }
+    finally {
+      metrics.stop();
+    }
+    assertFalse(server.isRegistered(requestName));
+    assertFalse(server.isRegistered(filtersName));
+  }
+
+  @Test
+  public void testIsolation() throws Exception {
+    MockApplication<?> a = application(InjectorProvider.GUICE, "plugin.template.simple").init();
+    MockApplication<?> b = application(InjectorProvider.GUICE, "plugin.template.simple").init();
+    DefaultMetrics metrics = new DefaultMetrics(null);
+    a.getContext().setMetrics(metrics);
+    a.client().render();
+    b.client().render();
+    assertEquals(1, metrics.getRequest("A.index").getCount());
+    assertEquals(1, metrics.getTemplate("plugin.template.simple.templates.index").getCount());
+  }
+
+  @Test
+  public void testDisabledStart() throws Exception {
+    DefaultMetrics metrics = new DefaultMetrics(null);
+    metrics.handled(Metrics.NONE.time());
+    metrics.rendered("foo", Metrics.NONE.time());
+    metrics.served(true, Metrics.NONE.time());
+    assertEquals(0, metrics.getHandler().getCount());
+    assertNull(metrics.getTemplate("foo"));
+    assertEquals(0, metrics.getAssets().getCount());
+    assertEquals(0, metrics.getAssetHits().getCount());
+    metrics.handled(metrics.time());
+    assertEquals(1, metrics.getHandler().getCount());
+  }
+
+  @Test
+  public void testApplications() throws Exception {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    DefaultMetrics a = new DefaultMetrics(server);
+    DefaultMetrics b = new DefaultMetrics(server);
+    a.start("app", "/a");
+    try {
+      b.start("app", "/b");
+      try {
+        ObjectName name = new ObjectName("juzu:application=\"app\",context=\"/b\",type=Handler");
+        b.handled(b.time());
+        assertEquals(1L, server.getAttribute(name, "Count"));
+      }
+      finally {
+        b.stop();
+      }
+    }
+    finally {
+      a.stop();
+    }
+  }
+}
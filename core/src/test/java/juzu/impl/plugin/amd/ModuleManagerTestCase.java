@@ -0,0 +1,100 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package juzu.impl.plugin.amd;
+
+import juzu.asset.AssetLocation;
+import juzu.impl.asset.AssetManager;
+import juzu.impl.common.Tools;
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.URL;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+public class ModuleManagerTestCase extends AbstractTestCase {
+
+  private static URL url(String content) throws Exception {
+    File f = File.createTempFile("module", ".js");
+    f.deleteOnExit();
+    FileOutputStream out = new FileOutputStream(f);
+    try {
+      out.write(content.getBytes(Tools.UTF_8));
+    }
+    finally {
+      Tools.safeClose(out);
+    }
+    return f.toURI().toURL();
+  }
+
+  private static ModuleMetaData.Define define(String name, String... dependencies) {
+    ModuleMetaData.Define define = new ModuleMetaData.Define(name, "/app/" + name + ".js", null);
+    for (String dependency : dependencies) {
+      define.addDependency(new AMDDependency(dependency));
+    }
+    return define;
+  }
+
+  @Test
+  public void testBundle() throws Exception {
+    ModuleManager manager = new ModuleManager();
+    Module a = manager.addAMD(define("a"), url("var a;"));
+    Module b = manager.addAMD(define("b", "a", "jquery"), url("var b;"));
+    Module c = manager.addAMD(define("c", "b", "a"), url("var c;"));
+    Module jquery = manager.addAMD(new ModuleMetaData.Require("jquery", "http://cdn/jquery.js", AssetLocation.URL), null);
+    assertNull(c.getBundle());
+    AssetManager assetManager = new AssetManager();
+    manager.bundle(assetManager);
+    assertNull(jquery.getBundle());
+    assertTrue(a.getBundle().startsWith("/app/bundle-"));
+    assertTrue(assetManager.isBundle(c.getBundle()));
+    String bundle = Tools.read(assetManager.resolveAsset(c.getBundle()));
+    int ia = bundle.indexOf("define('a'");
+    int ib = bundle.indexOf("define('b'");
+    int ic = bundle.indexOf("define('c'");
+    assertTrue(ia != -1 && ia < ib && ib < ic);
+    assertEquals(bundle.lastIndexOf("define('a'"), ia);
+    assertEquals(Tools.read(manager.resolveAsset("/app/a.js")) + "\n", Tools.read(assetManager.resolveAsset(a.getBundle())));
+  }
+
+  @Test
+  public void testCycle() throws Exception {
+    ModuleManager manager = new ModuleManager();
+    Module a = manager.addAMD(define("a", "b"), url("var a;"));
+    Module b = manager.addAMD(define("b", "a"), url("var b;"));
+    AssetManager assetManager = new AssetManager();
+    manager.bundle(assetManager);
+    String bundle = Tools.read(assetManager.resolveAsset(a.getBundle()));
+    assertTrue(bundle.indexOf("define('b'") < bundle.indexOf("define('a'"));
+    bundle = Tools.read(assetManager.resolveAsset(b.getBundle()));
+    assertTrue(bundle.indexOf("define('a'") < bundle.indexOf("define('b'"));
+  }
+
+  @Test
+  public void testNormalize() throws Exception {
+    Reader reader = new NormalizeJSReader(new StringReader("/* a */\n// b\n  var c = 1; // d"));
+    StringBuilder sb = new StringBuilder();
+    char[] buffer = new char[2];
+    for (int i = reader.read(buffer);i != -1;i = reader.read(buffer)) {
+      assertTrue(i > 0);
+      sb.append(buffer, 0, i);
+    }
+    assertEquals("var c = 1; // d", sb.toString());
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package juzu.impl.plugin.application;
+
+import juzu.impl.inject.spi.InjectorProvider;
+import juzu.test.AbstractInjectTestCase;
+import juzu.test.protocol.mock.MockApplication;
+import juzu.test.protocol.mock.MockClient;
+import org.junit.Test;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+public class ResolveBeanTestCase extends AbstractInjectTestCase {
+
+  public ResolveBeanTestCase(InjectorProvider di) {
+    super(di);
+  }
+
+  @Test
+  public void testScopes() throws Exception {
+    MockApplication<?> app = application("plugin.application.named").init();
+
+    //
+    MockClient client = app.client();
+    String[] first = client.render().assertStringResult().split(" ");
+    String[] second = client.render().assertStringResult().split(" ");
+    assertEquals(5, first.length);
+    assertEquals(5, second.length);
+
+    // A request scoped bean is resolved once per request
+    assertEquals(first[0], first[1]);
+    assertEquals(second[0], second[1]);
+    assertFalse(first[0].equals(second[0]));
+
+    // A dependent bean is never cached
+    assertFalse(first[2].equals(first[3]));
+    assertFalse(second[2].equals(second[3]));
+    assertFalse(first[2].equals(second[2]));
+
+    // A singleton bean is cached across requests
+    assertEquals(first[4], second[4]);
+  }
+}
@@ -19,6 +19,8 @@ import juzu.impl.compiler.CompilationError;
 import juzu.impl.inject.spi.InjectorProvider;
 import juzu.impl.plugin.controller.metamodel.ControllerMetaModel;
 import juzu.test.AbstractInjectTestCase;
+import juzu.test.protocol.mock.MockApplication;
+import juzu.test.protocol.mock.MockClient;
 import org.junit.Test;
 
 import java.util.List;
@@ -38,4 +40,16 @@ public class ControllerTestCase extends AbstractInjectTestCase {
     assertEquals(ControllerMetaModel.CONTROLLER_IS_ABSTRACT, error.getCode());
     assertTrue("Was expecting source to end with abstract_/A.java", error.getSource().endsWith("abstract_/A.java"));
   }
+
+  /** . */
+  public static Boolean REFLECTIVE;
+
+  @Test
+  public void testInvoker() throws Exception {
+    REFLECTIVE = null;
+    MockApplication<?> app = application("plugin.controller.invoker").init();
+    MockClient client = app.client();
+    assertEquals("pass", client.render().assertStringResult());
+    assertEquals(Boolean.FALSE, REFLECTIVE);
+  }
 }
@@ -27,6 +27,8 @@ import juzu.test.protocol.mock.MockViewBridge;
 import org.junit.Test;
 
 import java.util.ConcurrentModificationException;
+import java.util.LinkedList;
+import java.util.List;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public class RequestFilterTestCase extends AbstractInjectTestCase {
@@ -66,4 +68,40 @@ public class RequestFilterTestCase extends AbstractInjectTestCase {
     catch (ConcurrentModificationException expected) {
     }
   }
+
+  @Test
+  public void testSelective() throws Exception {
+    MockApplication<?> app = application("plugin.controller.requestfilter.selective").init();
+    MockClient client = app.client();
+
+    // The action filter does not accept the view phase
+    LinkedList<String> calls = new LinkedList<String>();
+    Registry.set("request.filter.selective", calls);
+    MockViewBridge render = client.render();
+    assertFalse(calls.contains("action_filter"));
+    assertTrue(calls.contains("skip_filter"));
+    assertWrapped(calls, "index");
+
+    // The skip filter does not accept the request
+    calls.clear();
+    client.render("skipped");
+    assertFalse(calls.contains("action_filter"));
+    assertFalse(calls.contains("skip_filter"));
+    assertWrapped(calls, "skipped");
+
+    // All the filters accept the action
+    calls.clear();
+    client.invoke(render.assertStringResult());
+    assertTrue(calls.contains("action_filter"));
+    assertTrue(calls.contains("skip_filter"));
+    assertWrapped(calls, "action");
+  }
+
+  private void assertWrapped(List<String> calls, String dispatch) {
+    int index = calls.indexOf(dispatch);
+    assertTrue(index != -1);
+    assertTrue(calls.indexOf("before") != -1);
+    assertTrue(calls.indexOf("before") < index);
+    assertTrue(calls.indexOf("after") > index);
+  }
 }
@@ -26,6 +26,9 @@ import juzu.test.CompilerAssert;
 import org.junit.Test;
 
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public class ResolverTestCase extends AbstractTestCase {
@@ -140,6 +143,46 @@ public class ResolverTestCase extends AbstractTestCase {
     assertEquals(Tools.<String>set(), method.getParameterNames());
   }
 
+  @Test
+  public void testMemoization() throws Exception {
+    CompilerAssert<?, ?> compiler = compiler("plugin.controller.resolver.overload");
+    compiler.assertCompile();
+    Class<?> appClass = compiler.assertClass("plugin.controller.resolver.overload.Application");
+    ApplicationDescriptor desc = ApplicationDescriptor.create(appClass);
+    ControllersDescriptor controllerDesc = new ControllersDescriptor(desc);
+    ControllerResolver<Method> resolver = controllerDesc.getResolver();
+
+    // Modifying the parameter names must not alter the memoized result
+    Set<String> names = Tools.set("foo");
+    Method method = resolver.resolveMethod(Phase.VIEW, "A.m", names);
+    assertEquals(Tools.<String>set("foo"), method.getParameterNames());
+    names.add("bar");
+    assertSame(method, resolver.resolveMethod(Phase.VIEW, "A.m", Tools.<String>set("foo")));
+    assertEquals(Tools.<String>set("foo", "bar"), resolver.resolveMethod(Phase.VIEW, "A.m", names).getParameterNames());
+
+    //
+    assertNull(resolver.resolveMethod(Phase.VIEW, "A.n", Tools.<String>set()));
+    assertNull(resolver.resolveMethod(Phase.ACTION, "A.m", Tools.<String>set()));
+  }
+
+  @Test
+  public void testMemoizedAmbiguity() throws Exception {
+    CompilerAssert<?, ?> compiler = compiler("plugin.controller.resolver.ambiguous_method");
+    compiler.assertCompile();
+    Class<?> appClass = compiler.assertClass("plugin.controller.resolver.ambiguous_method.Application");
+    ApplicationDescriptor desc = ApplicationDescriptor.create(appClass);
+    ControllersDescriptor controllerDesc = new ControllersDescriptor(desc);
+    ControllerResolver<Method> resolver = controllerDesc.getResolver();
+    for (int i = 0;i < 2;i++) {
+      try {
+        resolver.resolve(Phase.VIEW, Collections.<String>emptySet());
+        fail();
+      }
+      catch (AmbiguousResolutionException e) {
+      }
+    }
+  }
+
   @Test
   public void testResolution() throws Exception {
     CompilerAssert<?, ?> compiler = compiler("plugin.controller.resolver.method");
@@ -220,4 +263,56 @@ public class ResolverTestCase extends AbstractTestCase {
     method = resolver.resolve((String)null, "fooArg", Collections.<String>singleton("bar"));
     assertNull(method);
   }
+
+  /**
+   * The resolutions of the most recently used parameter names are kept once the cache is full.
+   *
+   * @throws Exception any exception
+   */
+  @Test
+  public void testCacheEviction() throws Exception {
+    CompilerAssert<?, ?> compiler = compiler("plugin.controller.resolver.default_method");
+    compiler.assertCompile();
+    Class<?> appClass = compiler.assertClass("plugin.controller.resolver.default_method.Application");
+    ControllerResolver<Method> resolver = new ControllersDescriptor(ApplicationDescriptor.create(appClass)).getResolver();
+
+    //
+    for (int i = 0;i <= ControllerResolver.CACHE_SIZE;i++) {
+      assertEquals("index", resolver.resolve(Phase.VIEW, Collections.singleton("p" + i)).getName());
+    }
+    CountingSet last = new CountingSet("p" + ControllerResolver.CACHE_SIZE);
+    assertEquals("index", resolver.resolve(Phase.VIEW, last).getName());
+    assertEquals(0, last.iterations);
+    CountingSet first = new CountingSet("p0");
+    assertEquals("index", resolver.resolve(Phase.VIEW, first).getName());
+    assertTrue(first.iterations > 0);
+  }
+
+  /**
+   * Counts the iterations performed when the set is resolved, a cached resolution does not iterate it.
+   */
+  private static class CountingSet extends HashSet<String> {
+
+    /** . */
+    private int iterations;
+
+    private CountingSet(String name) {
+      super.add(name);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      iterations++;
+      return super.iterator();
+    }
+
+    @Override
+    public int hashCode() {
+      int hashCode = 0;
+      for (Iterator<String> i = super.iterator();i.hasNext();) {
+        hashCode += i.next().hashCode();
+      }
+      return hashCode;
+    }
+  }
 }
@@ -26,6 +26,7 @@ import juzu.test.AbstractInjectTestCase;
 import juzu.test.CompilerAssert;
 import juzu.test.protocol.mock.MockApplication;
 import juzu.test.protocol.mock.MockClient;
+import juzu.test.protocol.mock.MockViewBridge;
 import org.codehaus.groovy.control.CompilationUnit;
 import org.codehaus.groovy.control.CompilerConfiguration;
 import org.junit.Test;
@@ -147,4 +148,24 @@ public class TemplateTestCase extends AbstractInjectTestCase {
     MockClient client = app.client();
     assertEquals("hello", client.render().assertStringResult());
   }
+
+  @Test
+  public void testStreaming() throws Exception {
+    MockApplication<File> app = application("plugin.template.streaming").init();
+    MockClient client = app.client();
+    MockViewBridge render = client.render();
+    render.assertClosed();
+    String content = render.assertStringResult();
+    assertTrue("Unexpected content " + content, content.startsWith("hello "));
+    assertEquals("the_title", render.getTitle());
+  }
+
+  @Test
+  public void testStreamingFailure() throws Exception {
+    MockApplication<File> app = application("plugin.template.streaming").init();
+    MockClient client = app.client();
+    MockViewBridge render = client.render("failing");
+    render.assertClosed();
+    render.assertStatus(500);
+  }
 }
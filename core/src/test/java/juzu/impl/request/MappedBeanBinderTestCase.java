@@ -0,0 +1,187 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.request;
+
+import juzu.request.RequestParameter;
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+public class MappedBeanBinderTestCase extends AbstractTestCase {
+
+  public static class Bean {
+
+    private String a;
+
+    private List<String> b;
+
+    public String[] c;
+
+    public List<String> d;
+
+    public String getA() {
+      return a;
+    }
+
+    public void setA(String a) {
+      this.a = a;
+    }
+
+    public List<String> getB() {
+      return b;
+    }
+
+    public void setB(List<String> b) {
+      this.b = b;
+    }
+  }
+
+  @Test
+  public void testCreate() throws Exception {
+    MappedBeanBinder binder = new MappedBeanBinder(Bean.class, "bean.");
+    Map<String, RequestParameter> parameters = new HashMap<String, RequestParameter>();
+    RequestParameter.create("bean.a", "a_value").appendTo(parameters);
+    RequestParameter.create("bean.b", new String[]{"b1", "b2"}).appendTo(parameters);
+    RequestParameter.create("bean.c", new String[]{"c1", "c2"}).appendTo(parameters);
+    RequestParameter.create("d", "d_value").appendTo(parameters);
+    Bean bean = (Bean)binder.create(parameters);
+    assertEquals("a_value", bean.a);
+    assertEquals(Arrays.asList("b1", "b2"), bean.b);
+    assertEquals(Arrays.asList("c1", "c2"), Arrays.asList(bean.c));
+    assertNull(bean.d);
+  }
+
+  @Test
+  public void testWrite() throws Exception {
+    MappedBeanBinder binder = new MappedBeanBinder(Bean.class, "");
+    Bean bean = new Bean();
+    bean.a = "a_value";
+    bean.b = new ArrayList<String>(Arrays.asList("b1", "b2"));
+    bean.d = new ArrayList<String>(Arrays.asList("d1"));
+    Map<String, String[]> parameters = new HashMap<String, String[]>();
+    binder.write(bean, parameters);
+    assertEquals(3, parameters.size());
+    assertEquals(Arrays.asList("a_value"), Arrays.asList(parameters.get("a")));
+    assertEquals(Arrays.asList("b1", "b2"), Arrays.asList(parameters.get("b")));
+    assertEquals(Arrays.asList("d1"), Arrays.asList(parameters.get("d")));
+  }
+
+  public static class Overloaded {
+
+    private Object a;
+
+    public void setA(List<String> a) {
+      this.a = a;
+    }
+
+    public void setA(String a) {
+      this.a = a;
+    }
+
+    public void setA(String[] a) {
+      this.a = a;
+    }
+  }
+
+  @Test
+  public void testSetterByType() throws Exception {
+    MappedBeanBinder binder = new MappedBeanBinder(Overloaded.class, "");
+    Map<String, RequestParameter> parameters = new HashMap<String, RequestParameter>();
+    RequestParameter.create("a", new String[]{"a1", "a2"}).appendTo(parameters);
+    Overloaded bean = (Overloaded)binder.create(parameters);
+    assertEquals(Arrays.asList("a1", "a2"), Arrays.asList((String[])bean.a));
+  }
+
+  public static class SubBean extends Bean {
+
+    public String e;
+
+  }
+
+  @Test
+  public void testWriteSubclass() throws Exception {
+    MappedBeanBinder binder = new MappedBeanBinder(Bean.class, "");
+    SubBean bean = new SubBean();
+    bean.setA("a_value");
+    bean.e = "e_value";
+    for (int i = 0;i < 2;i++) {
+      Map<String, String[]> parameters = new HashMap<String, String[]>();
+      binder.write(bean, parameters);
+      assertEquals(2, parameters.size());
+      assertEquals(Arrays.asList("a_value"), Arrays.asList(parameters.get("a")));
+      assertEquals(Arrays.asList("e_value"), Arrays.asList(parameters.get("e")));
+    }
+  }
+
+  public static class NoConstructor {
+
+    public String a;
+
+    public NoConstructor(String a) {
+      this.a = a;
+    }
+  }
+
+  @Test
+  public void testCreateFailure() throws Exception {
+    MappedBeanBinder binder = new MappedBeanBinder(NoConstructor.class, "");
+    try {
+      binder.create(new HashMap<String, RequestParameter>());
+      fail();
+    }
+    catch (IllegalStateException expected) {
+    }
+  }
+
+  public static class Failing {
+
+    public String getA() {
+      throw new UnsupportedOperationException();
+    }
+
+    public void setA(String a) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  @Test
+  public void testPropertyFailure() throws Exception {
+    MappedBeanBinder binder = new MappedBeanBinder(Failing.class, "");
+    Map<String, RequestParameter> parameters = new HashMap<String, RequestParameter>();
+    RequestParameter.create("a", "a_value").appendTo(parameters);
+    try {
+      binder.create(parameters);
+      fail();
+    }
+    catch (IllegalStateException expected) {
+      assertTrue(expected.getCause() instanceof UnsupportedOperationException);
+    }
+    try {
+      binder.write(new Failing(), new HashMap<String, String[]>());
+      fail();
+    }
+    catch (IllegalStateException expected) {
+      assertTrue(expected.getCause() instanceof UnsupportedOperationException);
+    }
+  }
+}
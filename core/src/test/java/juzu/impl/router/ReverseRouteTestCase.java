@@ -0,0 +1,108 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.router;
+
+import juzu.impl.common.MimeType;
+import juzu.impl.common.UriBuilder;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+public class ReverseRouteTestCase extends AbstractControllerTestCase {
+
+  /**
+   * Render the route with its reverse route and check it is the same than the rendered route match.
+   */
+  private String assertRender(Route route, Map<String, String> parameters) throws Exception {
+    ReverseRoute reverse = new ReverseRoute(route);
+    String[] values = reverse.createValues();
+    for (int i = 0;i < values.length;i++) {
+      values[i] = parameters.get(reverse.getName(i));
+    }
+    RouteMatch match = route.matches(parameters);
+    if (match == null) {
+      assertFalse(reverse.match(values));
+      return null;
+    } else {
+      assertTrue(reverse.match(values));
+      StringBuilder sb = new StringBuilder();
+      reverse.render(values, new UriBuilder(sb, MimeType.PLAIN));
+      assertEquals(match.render(), sb.toString());
+      return sb.toString();
+    }
+  }
+
+  @Test
+  public void testRoot() throws Exception {
+    Router router = new Router();
+    assertEquals("/", assertRender(router.append("/"), Collections.<String, String>emptyMap()));
+    assertEquals("/", assertRender(router.append(""), Collections.<String, String>emptyMap()));
+    assertEquals("/", assertRender(router, Collections.<String, String>emptyMap()));
+  }
+
+  @Test
+  public void testSegments() throws Exception {
+    Router router = new Router();
+    assertEquals("/a/b", assertRender(router.append("/a/b"), Collections.<String, String>emptyMap()));
+    assertEquals("/a/b", assertRender(router.append("/a/b/", RouteKind.MATCH_ANY), Collections.<String, String>emptyMap()));
+    assertEquals("/c", assertRender(router.append("/").append("/c"), Collections.<String, String>emptyMap()));
+  }
+
+  @Test
+  public void testPathParam() throws Exception {
+    Router router = new Router();
+    Route r = router.append("/{p}");
+    assertEquals("/a", assertRender(r, Collections.singletonMap(Names.P, "a")));
+    assertEquals("/_", assertRender(r, Collections.singletonMap(Names.P, "/")));
+    assertEquals("/%5F", assertRender(r, Collections.singletonMap(Names.P, "_")));
+    assertEquals("/%C2%A2", assertRender(r, Collections.singletonMap(Names.P, "¢")));
+    assertNull(assertRender(r, Collections.<String, String>emptyMap()));
+  }
+
+  @Test
+  public void testNested() throws Exception {
+    Router router = new Router();
+    Route r = router.append("/{a}/b").append("/c{p}d", Collections.singletonMap(Names.P, PathParam.matching("[0-9]+")));
+    Map<String, String> parameters = new HashMap<String, String>();
+    parameters.put(Names.A, "x");
+    parameters.put(Names.P, "12");
+    assertEquals("/x/b/c12d", assertRender(r, parameters));
+    parameters.put(Names.P, "y");
+    assertNull(assertRender(r, parameters));
+  }
+
+  @Test
+  public void testPatterns() throws Exception {
+    Router router = new Router();
+    assertEquals("/fr/b", assertRender(router.append("/{a}b", Collections.singletonMap(Names.A, PathParam.matching("(([A-Za-z]{2})/)?").preservePath(true))), Collections.singletonMap(Names.A, "fr/")));
+    assertEquals("/b", assertRender(router.append("/{a}", Collections.singletonMap(Names.A, PathParam.matching("a|b"))), Collections.singletonMap(Names.A, "b")));
+    assertEquals("/abc", assertRender(router.append("/{p}", Collections.singletonMap(Names.P, PathParam.matching("a(.)c").captureGroup(true))), Collections.singletonMap(Names.P, "b")));
+  }
+
+  @Test
+  public void testIndexOf() throws Exception {
+    Router router = new Router();
+    ReverseRoute reverse = new ReverseRoute(router.append("/{a}").append("/{b}"));
+    assertEquals(2, reverse.getSize());
+    assertEquals(0, reverse.indexOf(Names.A));
+    assertEquals(1, reverse.indexOf(Names.B));
+    assertEquals(-1, reverse.indexOf(Names.FOO));
+  }
+}
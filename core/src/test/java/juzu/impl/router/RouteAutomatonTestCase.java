@@ -0,0 +1,93 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.router;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+public class RouteAutomatonTestCase extends AbstractControllerTestCase {
+
+  @Test
+  public void testSegments() throws Exception {
+    RouterAssert router = new RouterAssert();
+    Route a = router.append("/a");
+    Route b = router.append("/b");
+    Route ac = a.append("/c");
+    RouteAutomaton automaton = new RouteAutomaton(router);
+    assertSame(a, automaton.route("/a").getRoute());
+    assertSame(b, automaton.route("/b").getRoute());
+    assertSame(ac, automaton.route("/a/c").getRoute());
+    assertSame(ac, automaton.route("a//c").getRoute());
+    assertNull(automaton.route("/c"));
+    assertNull(automaton.route("/a/b"));
+  }
+
+  @Test
+  public void testPriority() throws Exception {
+    RouterAssert router = new RouterAssert();
+    Route a = router.append("/foo");
+    Route b = router.append("/{foo}");
+    Route c = router.append("/foo/bar");
+    RouteAutomaton automaton = new RouteAutomaton(router);
+    assertSame(a, automaton.route("/foo").getRoute());
+    assertSame(b, automaton.route("/bar").getRoute());
+    assertEquals(Collections.singletonMap(((PatternRoute)b).params[0], "bar"), automaton.route("/bar").getMatched());
+    assertSame(c, automaton.route("/foo/bar").getRoute());
+    router.assertCompiled("/foo");
+    router.assertCompiled("/bar");
+    router.assertCompiled("/foo/bar");
+    router.assertCompiled("/foo/juu");
+  }
+
+  @Test
+  public void testBacktrack() throws Exception {
+    RouterAssert router = new RouterAssert();
+    Route a = router.append("/{a}/b");
+    Route b = router.append("/{c}/d");
+    RouteAutomaton automaton = new RouteAutomaton(router);
+    RouteMatch match = automaton.route("/x/d");
+    assertSame(b, match.getRoute());
+    assertEquals(1, match.getMatched().size());
+    assertEquals("c", match.getMatched().keySet().iterator().next().getName());
+    assertSame(a, automaton.route("/x/b").getRoute());
+    router.assertCompiled("/x/b");
+    router.assertCompiled("/x/d");
+    router.assertCompiled("/x/e");
+  }
+
+  @Test
+  public void testSeparatorEscape() throws Exception {
+    RouterAssert router = new RouterAssert();
+    router.append("/{p}", Collections.singletonMap(Names.P, PathParam.matching(".+")));
+    router.assertCompiled("/_");
+    router.assertCompiled("/%5F");
+    router.assertCompiled("/%5F_");
+    router.assertCompiled("/_%5F");
+  }
+
+  @Test
+  public void testSnapshot() throws Exception {
+    RouterAssert router = new RouterAssert();
+    router.append("/a");
+    RouteAutomaton automaton = new RouteAutomaton(router);
+    router.append("/b");
+    assertNull(automaton.route("/b"));
+    assertNotNull(router.route("/b"));
+  }
+}
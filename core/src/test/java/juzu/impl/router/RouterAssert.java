@@ -51,6 +51,7 @@ public class RouterAssert extends Router {
 
     //
     Iterator<RouteMatch> result = matcher(path, tmp);
+    assertCompiled(path);
 
     //
     ArrayList<Map<String, String>> a = new ArrayList<Map<String, String>>();
@@ -94,6 +95,7 @@ public class RouterAssert extends Router {
 
     //
     Iterator<RouteMatch> result = matcher(path, tmp);
+    assertCompiled(path);
 
     //
     Assert.assertTrue(result.hasNext());
@@ -110,6 +112,23 @@ public class RouterAssert extends Router {
     return ret;
   }
 
+  /**
+   * Assert the automaton compiled from this router matches the same route and parameters than the tree.
+   *
+   * @param path the path
+   */
+  public void assertCompiled(String path) {
+    RouteMatch expected = route(path);
+    RouteMatch actual = new RouteAutomaton(this).route(path);
+    if (expected == null) {
+      Assert.assertNull(actual);
+    } else {
+      Assert.assertNotNull("Was expecting the compiled router to match " + path, actual);
+      Assert.assertSame(expected.getRoute(), actual.getRoute());
+      Assert.assertEquals(expected.getMatched(), actual.getMatched());
+    }
+  }
+
   public void assertRoutes(Iterable<Route> expected, String path) {
     Iterator<RouteMatch> matches = matcher(path, Collections.<String, String[]>emptyMap());
     List<Route> routes = new ArrayList<Route>();
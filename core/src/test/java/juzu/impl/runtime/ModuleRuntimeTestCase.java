@@ -0,0 +1,149 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.runtime;
+
+import juzu.impl.common.Content;
+import juzu.impl.common.Logger;
+import juzu.impl.fs.spi.ReadFileSystem;
+import juzu.impl.fs.spi.ram.RAMFileSystem;
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+public class ModuleRuntimeTestCase extends AbstractTestCase {
+
+  /** . */
+  private static final String A = "package foo; public class A { public static String value() { return \"%s\"; } }";
+
+  /** . */
+  private static final String B = "package foo; public class B { public static String value() { return A.value(); } }";
+
+  /** . */
+  private static final String C = "package foo; public class C { }";
+
+  @Test
+  public void testIncremental() throws Exception {
+    RAMFileSystem source = new RAMFileSystem();
+    source.setContent(source.makePath(Arrays.asList("foo", "A.java")), new Content(String.format(A, "a")));
+    source.setContent(source.makePath(Arrays.asList("foo", "B.java")), new Content(B));
+    source.setContent(source.makePath(Arrays.asList("foo", "C.java")), new Content(C));
+    source.setContent(source.makePath(Arrays.asList("foo", "d.txt")), new Content("d"));
+    ModuleRuntime.Dynamic<String[]> runtime = new ModuleRuntime.Dynamic<String[]>(Logger.SYSTEM, Thread.currentThread().getContextClassLoader(), source);
+    assertTrue(runtime.refresh(true));
+    assertEquals("a", value(runtime));
+    Content c = content(runtime.getClasses(), "C.class");
+    assertEquals("d", content(runtime.getClasses(), "d.txt").getCharSequence().toString());
+
+    // Update A, B depends on A and is compiled again, C is kept
+    waitForOneMillis();
+    source.setContent(source.getPath("foo", "A.java"), new Content(String.format(A, "b")));
+    source.setContent(source.getPath("foo", "d.txt"), new Content("e"));
+    assertTrue(runtime.refresh(true));
+    assertEquals("b", value(runtime));
+    assertSame(c, content(runtime.getClasses(), "C.class"));
+    assertEquals("e", content(runtime.getClasses(), "d.txt").getCharSequence().toString());
+
+    // Removal builds the whole application
+    waitForOneMillis();
+    source.removePath(source.getPath("foo", "C.java"));
+    assertTrue(runtime.refresh(true));
+    assertEquals("b", value(runtime));
+    assertNull(runtime.getClasses().getPath("foo", "C.class"));
+  }
+
+  @Test
+  public void testConstant() throws Exception {
+    RAMFileSystem source = new RAMFileSystem();
+    source.setContent(source.makePath(Arrays.asList("foo", "A.java")), new Content("package foo; public class A { public static final String VALUE = \"a\"; }"));
+    source.setContent(source.makePath(Arrays.asList("foo", "B.java")), new Content("package foo; public class B { public static String value() { return A.VALUE; } }"));
+    ModuleRuntime.Dynamic<String[]> runtime = new ModuleRuntime.Dynamic<String[]>(Logger.SYSTEM, Thread.currentThread().getContextClassLoader(), source);
+    assertTrue(runtime.refresh(true));
+    assertEquals("a", value(runtime));
+
+    // B inlines the constant and does not reference A
+    waitForOneMillis();
+    source.setContent(source.getPath("foo", "A.java"), new Content("package foo; public class A { public static final String VALUE = \"b\"; }"));
+    assertTrue(runtime.refresh(true));
+    assertEquals("b", value(runtime));
+  }
+
+  @Test
+  public void testTransitive() throws Exception {
+    RAMFileSystem source = new RAMFileSystem();
+    source.setContent(source.makePath(Arrays.asList("foo", "A.java")), new Content(String.format(A, "a")));
+    source.setContent(source.makePath(Arrays.asList("foo", "B.java")), new Content(B));
+    source.setContent(source.makePath(Arrays.asList("foo", "D.java")), new Content("package foo; public class D { public static String value() { return B.value(); } }"));
+    source.setContent(source.makePath(Arrays.asList("foo", "C.java")), new Content(C));
+    ModuleRuntime.Dynamic<String[]> runtime = new ModuleRuntime.Dynamic<String[]>(Logger.SYSTEM, Thread.currentThread().getContextClassLoader(), source);
+    assertTrue(runtime.refresh(true));
+    Content c = content(runtime.getClasses(), "C.class");
+    Content d = content(runtime.getClasses(), "D.class");
+
+    // D depends on B that depends on A, they are compiled again
+    waitForOneMillis();
+    source.setContent(source.getPath("foo", "A.java"), new Content(String.format(A, "b")));
+    assertTrue(runtime.refresh(true));
+    assertEquals("b", runtime.getClassLoader().loadClass("foo.D").getMethod("value").invoke(null));
+    assertNotSame(d, content(runtime.getClasses(), "D.class"));
+    assertSame(c, content(runtime.getClasses(), "C.class"));
+  }
+
+  @Test
+  public void testSupertype() throws Exception {
+    RAMFileSystem source = new RAMFileSystem();
+    source.setContent(source.makePath(Arrays.asList("foo", "A.java")), new Content("package foo; public class A { public String value() { return \"a\"; } }"));
+    source.setContent(source.makePath(Arrays.asList("foo", "B.java")), new Content("package foo; public class B extends A { public static String value2() { return new B().value(); } }"));
+    source.setContent(source.makePath(Arrays.asList("foo", "C.java")), new Content(C));
+    ModuleRuntime.Dynamic<String[]> runtime = new ModuleRuntime.Dynamic<String[]>(Logger.SYSTEM, Thread.currentThread().getContextClassLoader(), source);
+    assertTrue(runtime.refresh(true));
+    assertEquals("a", runtime.getClassLoader().loadClass("foo.B").getMethod("value2").invoke(null));
+    Content c = content(runtime.getClasses(), "C.class");
+
+    // A is extended by B, the application is built
+    waitForOneMillis();
+    source.setContent(source.getPath("foo", "A.java"), new Content("package foo; public class A { public String value() { return \"b\"; } }"));
+    assertTrue(runtime.refresh(true));
+    assertEquals("b", runtime.getClassLoader().loadClass("foo.B").getMethod("value2").invoke(null));
+    assertNotSame(c, content(runtime.getClasses(), "C.class"));
+  }
+
+  @Test
+  public void testScanInterval() throws Exception {
+    RAMFileSystem source = new RAMFileSystem();
+    source.setContent(source.makePath(Arrays.asList("foo", "A.java")), new Content(String.format(A, "a")));
+    source.setContent(source.makePath(Arrays.asList("foo", "B.java")), new Content(B));
+    ModuleRuntime.Dynamic<String[]> runtime = new ModuleRuntime.Dynamic<String[]>(Logger.SYSTEM, Thread.currentThread().getContextClassLoader(), source, 60 * 60 * 1000);
+    assertTrue(runtime.refresh(true));
+    assertEquals("a", value(runtime));
+
+    // The source path is not scanned again before the scan interval
+    waitForOneMillis();
+    source.setContent(source.getPath("foo", "A.java"), new Content(String.format(A, "b")));
+    assertFalse(runtime.refresh(true));
+    assertEquals("a", value(runtime));
+  }
+
+  private static String value(ModuleRuntime<?> runtime) throws Exception {
+    return (String)runtime.getClassLoader().loadClass("foo.B").getMethod("value").invoke(null);
+  }
+
+  private static <P> Content content(ReadFileSystem<P> fs, String name) throws Exception {
+    return fs.getContent(fs.getPath("foo", name)).getObject();
+  }
+}
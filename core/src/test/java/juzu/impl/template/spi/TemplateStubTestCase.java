@@ -0,0 +1,114 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.impl.template.spi;
+
+import juzu.template.TemplateRenderContext;
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+public class TemplateStubTestCase extends AbstractTestCase {
+
+  @Test
+  public void testConcurrentInit() throws Exception {
+    final CountDownLatch initializing = new CountDownLatch(1);
+    final CountDownLatch proceed = new CountDownLatch(1);
+    final AtomicInteger inits = new AtomicInteger();
+    final AtomicInteger renders = new AtomicInteger();
+    final TemplateStub stub = new TemplateStub(getClass().getClassLoader(), "foo") {
+      @Override
+      protected void doInit(ClassLoader loader) {
+        inits.incrementAndGet();
+        initializing.countDown();
+        try {
+          proceed.await();
+        }
+        catch (InterruptedException e) {
+          throw failure(e);
+        }
+      }
+      @Override
+      protected void doRender(TemplateRenderContext renderContext) {
+        renders.incrementAndGet();
+      }
+    };
+    Thread first = new Thread() {
+      @Override
+      public void run() {
+        stub.init();
+      }
+    };
+    first.start();
+    assertTrue(initializing.await(10, TimeUnit.SECONDS));
+    final CountDownLatch done = new CountDownLatch(1);
+    Thread second = new Thread() {
+      @Override
+      public void run() {
+        stub.init();
+        try {
+          stub.render(null);
+        }
+        catch (Exception e) {
+          throw failure(e);
+        }
+        done.countDown();
+      }
+    };
+    second.start();
+    assertFalse(done.await(100, TimeUnit.MILLISECONDS));
+    proceed.countDown();
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    first.join();
+    assertEquals(1, inits.get());
+    assertEquals(1, renders.get());
+  }
+
+  @Test
+  public void testInitFailure() throws Exception {
+    final AtomicInteger inits = new AtomicInteger();
+    TemplateStub stub = new TemplateStub(getClass().getClassLoader(), "foo") {
+      @Override
+      protected void doInit(ClassLoader loader) {
+        if (inits.incrementAndGet() == 1) {
+          throw new RuntimeException();
+        }
+      }
+      @Override
+      protected void doRender(TemplateRenderContext renderContext) {
+      }
+    };
+    try {
+      stub.init();
+      fail();
+    }
+    catch (RuntimeException expected) {
+    }
+    try {
+      stub.render(null);
+      fail();
+    }
+    catch (IllegalStateException expected) {
+    }
+    stub.init();
+    stub.render(null);
+    assertEquals(2, inits.get());
+  }
+}
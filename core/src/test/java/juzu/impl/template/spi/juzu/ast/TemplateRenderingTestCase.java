@@ -29,6 +29,7 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.text.DateFormat;
+import java.util.Collections;
 import java.util.Date;
 import java.util.EmptyStackException;
 import java.util.HashMap;
@@ -169,6 +170,27 @@ public class TemplateRenderingTestCase extends AbstractTemplateTestCase {
     assertEquals("bar", s);
   }
 
+  @Test
+  public void testReuse() throws Exception {
+    GroovyTemplateStub template = template("<% if (foo == null) throw new Exception() %>a<%= foo %>");
+    assertEquals("abar", render(template, Collections.<String, Object>singletonMap("foo", "bar")));
+    try {
+      render(template, Collections.<String, Object>singletonMap("foo", null));
+      fail();
+    }
+    catch (TemplateExecutionException expected) {
+    }
+    assertEquals("ajuu", render(template, Collections.<String, Object>singletonMap("foo", "juu")));
+  }
+
+  private String render(GroovyTemplateStub template, Map<String, Object> attributes) throws IOException {
+    StringWriter out = new StringWriter();
+    OutputStream adapter = OutputStream.create(Tools.UTF_8, out);
+    new TemplateRenderContext(template, null, attributes, null).render(adapter);
+    adapter.close(null);
+    return out.toString();
+  }
+
   @Test
   public void testDollarInExpression() throws Exception {
     String template = "<%= \"$foo\" %>";
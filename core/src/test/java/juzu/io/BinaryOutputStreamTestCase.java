@@ -20,8 +20,14 @@ import juzu.impl.common.Tools;
 import juzu.test.AbstractTestCase;
 import org.junit.Test;
 
+import juzu.impl.io.BinaryOutputStream;
+
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
 
 import static juzu.impl.common.Tools.UTF_8;
 
@@ -84,4 +90,83 @@ public class BinaryOutputStreamTestCase extends AbstractTestCase {
     bos.append("a" + EURO + "b");
     assertEquals("ab", buffer.toString());
   }
+
+  @Test
+  public void testSurrogates() throws IOException {
+    String s = "a" + new String(Character.toChars(0x1D11E)) + "b";
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    OutputStream bos = OutputStream.create(UTF_8, buffer);
+    for (int i = 0;i < s.length();i++) {
+      bos.append(s.charAt(i));
+    }
+    assertEquals(s, new String(buffer.toByteArray(), UTF_8));
+  }
+
+  @Test
+  public void testCharsetEncoder() throws IOException {
+    Charset utf16 = Charset.forName("UTF-16BE");
+    StringBuilder sb = new StringBuilder();
+    while (sb.length() <= OutputStream.BUFFER_SIZE) {
+      sb.append(EURO);
+    }
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    OutputStream bos = OutputStream.create(utf16, buffer);
+    bos.append(sb);
+    bos.append('a');
+    assertEquals(sb + "a", new String(buffer.toByteArray(), utf16));
+  }
+
+  @Test
+  public void testByteBuffer() throws IOException {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    OutputStream bos = OutputStream.create(UTF_8, buffer);
+    ByteBuffer bb = ByteBuffer.wrap("_abc_".getBytes(), 1, 3);
+    bos.append(bb);
+    assertEquals("abc", buffer.toString());
+    assertFalse(bb.hasRemaining());
+  }
+
+  @Test
+  public void testInputStream() throws IOException {
+    byte[] bytes = new byte[OutputStream.BUFFER_SIZE * 3 + 1];
+    for (int i = 0;i < bytes.length;i++) {
+      bytes[i] = (byte)i;
+    }
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    OutputStream bos = OutputStream.create(UTF_8, buffer);
+    bos.provide(Chunk.create(new ByteArrayInputStream(bytes)));
+    assertTrue(Arrays.equals(bytes, buffer.toByteArray()));
+  }
+
+  @Test
+  public void testText() throws IOException {
+    Chunk.Data.Text text = Chunk.create("a" + EURO + "b", UTF_8);
+    byte[] bytes = text.getBytes(UTF_8);
+    assertSame(bytes, text.getBytes(UTF_8));
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    OutputStream bos = OutputStream.create(UTF_8, buffer);
+    bos.provide(text);
+    bos.provide(text);
+    assertEquals("a" + EURO + "ba" + EURO + "b", new String(buffer.toByteArray(), UTF_8));
+    buffer = new ByteArrayOutputStream();
+    bos = OutputStream.create(Tools.ISO_8859_1, buffer);
+    bos.provide(text);
+    assertEquals("ab", buffer.toString());
+  }
+
+  @Test
+  public void testCoalesce() throws IOException {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    BinaryOutputStream bos = new BinaryOutputStream(UTF_8, buffer, 8);
+    bos.append("abc");
+    bos.append('d');
+    assertEquals(0, buffer.size());
+    bos.append("efghi");
+    assertEquals("abcdefgh", buffer.toString());
+    bos.append("0123456789".getBytes());
+    assertEquals("abcdefghi0123456789", buffer.toString());
+    bos.append("j");
+    bos.close();
+    assertEquals("abcdefghi0123456789j", buffer.toString());
+  }
 }
@@ -15,26 +15,37 @@
  */
 package juzu.io;
 
+import juzu.impl.common.Tools;
+import juzu.impl.io.BinaryOutputStream;
 import juzu.test.AbstractTestCase;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.Flushable;
 import java.util.Arrays;
 import java.util.LinkedList;
 
 /** @author Julien Viet */
 public class ChunkBufferTestCase extends AbstractTestCase {
 
-  static class Consumer extends LinkedList<Chunk> implements Stream {
+  static class Consumer extends LinkedList<Chunk> implements Stream, Flushable {
 
     /** . */
     boolean closed = false;
 
+    /** The number of chunks provided when the consumer was flushed. */
+    final LinkedList<Integer> flushes = new LinkedList<Integer>();
+
     public void provide(Chunk chunk) {
       if (!closed) {
         add(chunk);
       }
     }
 
+    public void flush() {
+      flushes.add(size());
+    }
+
     public void close() {
       closed = true;
     }
@@ -78,4 +89,131 @@ public class ChunkBufferTestCase extends AbstractTestCase {
     assertTrue(consumer.closed);
     assertEquals(Arrays.asList(chunk1, chunk2), consumer);
   }
+
+  @Test
+  public void testFlush() {
+    ChunkBuffer buffer = new ChunkBuffer();
+    buffer.append(chunk1);
+    buffer.flush();
+    buffer.flush();
+    Consumer consumer = new Consumer();
+    buffer.send(consumer);
+    assertEquals(Arrays.asList(1), consumer.flushes);
+
+    // Appending does not flush the consumer
+    buffer.append(chunk2);
+    assertEquals(Arrays.asList(1), consumer.flushes);
+    buffer.flush();
+    assertEquals(Arrays.asList(1, 2), consumer.flushes);
+
+    // Closing the consumer sends the chunks
+    buffer.close();
+    assertTrue(consumer.closed);
+    assertEquals(Arrays.asList(1, 2), consumer.flushes);
+  }
+
+  @Test
+  public void testFlushBatch() {
+    ChunkBuffer buffer = new ChunkBuffer();
+    buffer.append('a');
+    buffer.append('b');
+    buffer.flush();
+    buffer.append('c');
+    Consumer consumer = new Consumer();
+    buffer.send(consumer);
+    assertEquals(2, consumer.size());
+    assertEquals(Arrays.asList(1), consumer.flushes);
+    Chunk.Data.CharSequence chars = (Chunk.Data.CharSequence)consumer.get(0);
+    assertEquals("ab", chars.data.subSequence(chars.start, chars.end).toString());
+  }
+
+  @Test
+  public void testStreamBeforeClose() {
+    ChunkBuffer buffer = new ChunkBuffer();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    buffer.send(new BinaryOutputStream(Tools.UTF_8, out, 8192));
+    buffer.append(Chunk.create("foo"));
+    assertEquals("", new String(out.toByteArray(), Tools.UTF_8));
+    buffer.flush();
+    assertEquals("foo", new String(out.toByteArray(), Tools.UTF_8));
+    buffer.append(Chunk.create("bar"));
+    buffer.flush();
+    assertEquals("foobar", new String(out.toByteArray(), Tools.UTF_8));
+    buffer.close();
+    assertEquals("foobar", new String(out.toByteArray(), Tools.UTF_8));
+  }
+
+  @Test
+  public void testSegments() {
+    ChunkBuffer buffer = new ChunkBuffer();
+    LinkedList<Chunk> expected = new LinkedList<Chunk>();
+    for (int i = 0;i < 100;i++) {
+      Chunk chunk = new Simple();
+      expected.add(chunk);
+      buffer.append(chunk);
+    }
+    Consumer consumer = new Consumer();
+    buffer.send(consumer);
+    assertEquals(expected, consumer);
+  }
+
+  @Test
+  public void testBatch() throws Exception {
+    ChunkBuffer buffer = new ChunkBuffer();
+    buffer.append("abc", 1, 2);
+    buffer.append('d');
+    buffer.append(Chunk.create(new char[]{'e', 'f'}));
+    buffer.append(chunk1);
+    Chunk bytes1 = Chunk.create(new byte[]{1});
+    Chunk bytes2 = Chunk.create(new byte[]{2, 3});
+    buffer.append(bytes1);
+    buffer.append(bytes2);
+    buffer.close();
+    Consumer consumer = new Consumer();
+    buffer.send(consumer);
+    assertEquals(4, consumer.size());
+    Chunk.Data.CharSequence chars = (Chunk.Data.CharSequence)consumer.get(0);
+    assertEquals("bdef", chars.data.subSequence(chars.start, chars.end).toString());
+    assertSame(chunk1, consumer.get(1));
+    assertSame(bytes1, consumer.get(2));
+    assertSame(bytes2, consumer.get(3));
+  }
+
+  @Test
+  public void testBatchText() throws Exception {
+    Chunk.Data.Text text = Chunk.create("b", Tools.UTF_8);
+    ChunkBuffer buffer = new ChunkBuffer();
+    buffer.append('a');
+    buffer.append(text);
+    buffer.append('c');
+    buffer.close();
+    Consumer consumer = new Consumer();
+    buffer.send(consumer);
+    assertEquals(3, consumer.size());
+    assertSame(text, consumer.get(1));
+  }
+
+  @Test
+  public void testConcurrentProducer() throws Exception {
+    final ChunkBuffer buffer = new ChunkBuffer();
+    final LinkedList<Chunk> expected = new LinkedList<Chunk>();
+    for (int i = 0;i < 10000;i++) {
+      expected.add(new Simple());
+    }
+    Thread producer = new Thread() {
+      @Override
+      public void run() {
+        for (Chunk chunk : expected) {
+          buffer.append(chunk);
+        }
+        buffer.close();
+      }
+    };
+    producer.start();
+    Consumer consumer = new Consumer();
+    buffer.send(consumer);
+    producer.join();
+    assertTrue(consumer.closed);
+    assertEquals(expected, consumer);
+  }
 }
@@ -74,6 +74,6 @@ public abstract class MockMimeBridge extends MockRequestBridge {
 
   public void assertStatus(int status) {
     Result.Status content = AbstractTestCase.assertInstanceOf(Result.Status.class, result);
-    Assert.assertEquals(status, content.code);
+    Assert.assertEquals(status, this.status != null ? this.status : content.code);
   }
 }
@@ -56,7 +56,9 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public abstract class MockRequestBridge implements RequestBridge {
@@ -109,6 +111,12 @@ public abstract class MockRequestBridge implements RequestBridge {
   /** . */
   protected String title;
 
+  /** The status provided by the result stream or null. */
+  protected Integer status;
+
+  /** Counted down when the result stream is closed. */
+  private final CountDownLatch closed = new CountDownLatch(1);
+
   public MockRequestBridge(ApplicationRuntime<?, ?> application, MockClient client, Phase phase, MethodHandle target, Map<String, String[]> parameters) {
 
     //
@@ -313,6 +321,8 @@ public abstract class MockRequestBridge implements RequestBridge {
               mimeType = (String)property.value;
             } else if (property.type == PropertyType.TITLE) {
               title = (String)property.value;
+            } else if (property.type == PropertyType.STATUS && dataStream == null) {
+              status = (Integer)property.value;
             }
           } else if (chunk instanceof Chunk.Data) {
             Chunk.Data data = (Chunk.Data)chunk;
@@ -323,13 +333,23 @@ public abstract class MockRequestBridge implements RequestBridge {
           }
         }
         public void close(Thread.UncaughtExceptionHandler errorHandler) {
-          dataStream.close(errorHandler);
+          if (dataStream != null) {
+            dataStream.close(errorHandler);
+          }
+          closed.countDown();
         }
       });
     }
     this.result = result;
   }
 
+  /**
+   * Wait until the result stream is closed, this is useful when the result is streamed by another thread.
+   */
+  public void assertClosed() throws InterruptedException {
+    AbstractTestCase.assertTrue("Result stream was not closed", closed.await(10, TimeUnit.SECONDS));
+  }
+
   public <T extends Throwable> T assertFailure(Class<T> expected) {
     Result.Error error = AbstractTestCase.assertInstanceOf(Result.Error.class, result);
     return AbstractTestCase.assertInstanceOf(expected, error.cause);
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package plugin.application.named;
+
+import juzu.Path;
+import juzu.RequestScoped;
+import juzu.Response;
+import juzu.View;
+import juzu.template.Template;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+@Named("request")
+@RequestScoped
+public class A {
+
+  @Inject
+  @Path("index.gtmpl")
+  Template index;
+
+  public int getId() {
+    return System.identityHashCode(this);
+  }
+
+  @View
+  public Response.Content index() {
+    return index.ok();
+  }
+}
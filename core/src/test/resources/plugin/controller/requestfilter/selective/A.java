@@ -0,0 +1,44 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package plugin.controller.requestfilter.selective;
+
+import juzu.Action;
+import juzu.Response;
+import juzu.View;
+import juzu.test.Registry;
+
+import java.util.List;
+
+public class A {
+
+  @View
+  public Response.Content index() {
+    Registry.<List<String>>get("request.filter.selective").add("index");
+    return Response.ok(A_.action().toString());
+  }
+
+  @View(id = "skipped")
+  public Response.Content skipped() {
+    Registry.<List<String>>get("request.filter.selective").add("skipped");
+    return Response.ok("skipped");
+  }
+
+  @Action
+  public void action() {
+    Registry.<List<String>>get("request.filter.selective").add("action");
+  }
+}
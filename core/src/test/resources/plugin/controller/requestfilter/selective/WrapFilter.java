@@ -0,0 +1,32 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package plugin.controller.requestfilter.selective;
+
+import juzu.impl.request.Request;
+import juzu.impl.request.RequestFilter;
+import juzu.test.Registry;
+
+import java.util.List;
+
+public class WrapFilter implements RequestFilter {
+
+  public void invoke(Request request) {
+    Registry.<List<String>>get("request.filter.selective").add("before");
+    request.invoke();
+    Registry.<List<String>>get("request.filter.selective").add("after");
+  }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package plugin.template.streaming;
+
+import juzu.Path;
+import juzu.Response;
+import juzu.View;
+import juzu.template.Template;
+
+import javax.inject.Inject;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+public class A {
+
+  @Path("index.gtmpl")
+  @Inject
+  Template index;
+
+  @Path("failing.gtmpl")
+  @Inject
+  Template failing;
+
+  @View
+  public Response.Content index() {
+    return index.with().streaming(true).ok();
+  }
+
+  @View(id = "failing")
+  public Response.Content failing() {
+    return failing.with().streaming(true).ok();
+  }
+}
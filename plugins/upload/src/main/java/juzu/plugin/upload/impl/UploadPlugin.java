@@ -23,8 +23,9 @@ import juzu.impl.request.ContextualParameter;
 import juzu.impl.request.ControlParameter;
 import juzu.impl.request.Method;
 import juzu.impl.request.Request;
-import juzu.impl.request.RequestFilter;
+import juzu.impl.request.SelectiveRequestFilter;
 import juzu.request.ClientContext;
+import juzu.request.Phase;
 import juzu.request.RequestParameter;
 import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.fileupload.FileUpload;
@@ -39,7 +40,7 @@ import java.util.List;
 import java.util.Map;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
-public class UploadPlugin extends ApplicationPlugin implements RequestFilter {
+public class UploadPlugin extends ApplicationPlugin implements SelectiveRequestFilter {
 
   public UploadPlugin() {
     super("upload");
@@ -51,6 +52,19 @@ public class UploadPlugin extends ApplicationPlugin implements RequestFilter {
     return new PluginDescriptor();
   }
 
+  public boolean accept(Phase phase) {
+    return true;
+  }
+
+  public boolean accept(Request request) {
+    ClientContext clientContext = request.getClientContext();
+    if (clientContext != null) {
+      String contentType = clientContext.getContentType();
+      return contentType != null && contentType.startsWith("multipart/");
+    }
+    return false;
+  }
+
   public void invoke(Request request) {
 
     //
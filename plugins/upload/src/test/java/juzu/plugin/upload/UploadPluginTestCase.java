@@ -0,0 +1,89 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.plugin.upload;
+
+import juzu.impl.bridge.spi.RequestBridge;
+import juzu.impl.plugin.controller.ControllerPlugin;
+import juzu.impl.request.ControlParameter;
+import juzu.impl.request.Method;
+import juzu.impl.request.Request;
+import juzu.impl.request.RequestFilter;
+import juzu.plugin.upload.impl.UploadPlugin;
+import juzu.request.ClientContext;
+import juzu.request.Phase;
+import juzu.request.RequestParameter;
+import juzu.test.AbstractTestCase;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+public class UploadPluginTestCase extends AbstractTestCase {
+
+  public void action() {
+  }
+
+  @Test
+  public void testAccept() throws Exception {
+    UploadPlugin plugin = new UploadPlugin();
+    assertTrue(plugin.accept(Phase.ACTION));
+    assertTrue(plugin.accept(Phase.RESOURCE));
+    assertTrue(plugin.accept(request("multipart/form-data; boundary=foo")));
+    assertFalse(plugin.accept(request("application/x-www-form-urlencoded")));
+    assertFalse(plugin.accept(request(null)));
+  }
+
+  private Request request(final String contentType) throws Exception {
+    ControllerPlugin controller = new ControllerPlugin() {
+      @Override
+      public RequestFilter[] getFilters(Phase phase) {
+        return new RequestFilter[0];
+      }
+    };
+    Method<Phase.Action> method = new Method<Phase.Action>(
+        "A.action",
+        Phase.ACTION,
+        UploadPluginTestCase.class,
+        UploadPluginTestCase.class.getMethod("action"),
+        Collections.<ControlParameter>emptyList());
+    final ClientContext clientContext = proxy(ClientContext.class, new InvocationHandler() {
+      public Object invoke(Object proxy, java.lang.reflect.Method m, Object[] args) throws Throwable {
+        if (m.getName().equals("getContentType")) {
+          return contentType;
+        }
+        throw new UnsupportedOperationException();
+      }
+    });
+    RequestBridge bridge = proxy(RequestBridge.class, new InvocationHandler() {
+      public Object invoke(Object proxy, java.lang.reflect.Method m, Object[] args) throws Throwable {
+        if (m.getName().equals("getArguments")) {
+          return Collections.emptyMap();
+        } else if (m.getName().equals("getClientContext")) {
+          return clientContext;
+        }
+        throw new UnsupportedOperationException();
+      }
+    });
+    return new Request(controller, method, Collections.<String, RequestParameter>emptyMap(), bridge);
+  }
+
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, handler));
+  }
+}
@@ -24,6 +24,7 @@ import juzu.impl.bridge.Bridge;
 import juzu.impl.bridge.BridgeConfig;
 import juzu.impl.bridge.BridgeContext;
 import juzu.impl.bridge.module.ApplicationBridge;
+import juzu.impl.common.FormURLEncodedDecoder;
 import juzu.impl.common.Logger;
 import juzu.impl.common.Name;
 import juzu.impl.common.Tools;
@@ -34,6 +35,7 @@ import juzu.impl.inject.spi.Injector;
 import juzu.impl.inject.spi.InjectorProvider;
 import juzu.impl.resource.ClassLoaderResolver;
 import juzu.impl.resource.ResourceResolver;
+import juzu.request.RequestParameter;
 import org.jboss.netty.handler.codec.http.HttpHeaders;
 import org.vertx.java.core.Handler;
 import org.vertx.java.core.Vertx;
@@ -42,17 +44,28 @@ import org.vertx.java.core.http.HttpServer;
 import org.vertx.java.core.http.HttpServerRequest;
 import org.vertx.java.core.http.HttpServerResponse;
 import org.vertx.java.core.http.impl.MimeMapping;
+import org.vertx.java.core.impl.Context;
+import org.vertx.java.core.impl.VertxInternal;
 import org.vertx.java.deploy.Container;
 
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.Charset;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public class Application {
@@ -75,6 +88,33 @@ public class Application {
   /** . */
   final int port;
 
+  /** . */
+  private final ExecutionMode mode;
+
+  /** The maximum size of a form body. */
+  private final long formMaxSize;
+
+  /** The maximum number of parameters of a form. */
+  private final int formMaxParameters;
+
+  /** The size of the buffer coalescing the response output. */
+  private final int outputBufferSize;
+
+  /** The bounded worker pool executing the requests in worker mode. */
+  private final ThreadPoolExecutor workers;
+
+  /** . */
+  private final Logger log;
+
+  /** Guards the refresh of the bridge: a single request refreshes at a time. */
+  private final ReentrantLock refreshLock;
+
+  /** . */
+  private Bridge bridge;
+
+  /** The current handler, it is replaced when the application is restarted. */
+  private volatile juzu.impl.bridge.spi.web.Handler handler;
+
   Application(
       Container container,
       Vertx vertx,
@@ -82,6 +122,55 @@ public class Application {
       DiskFileSystem sourcePath,
       Name main,
       int port) {
+    this(
+        container,
+        vertx,
+        loader,
+        sourcePath,
+        main,
+        port,
+        ExecutionMode.LOOP,
+        0,
+        0,
+        FormURLEncodedDecoder.DEFAULT_MAX_SIZE,
+        FormURLEncodedDecoder.DEFAULT_MAX_PARAMETERS,
+        BridgeConfig.DEFAULT_OUTPUT_BUFFER_SIZE);
+  }
+
+  Application(
+      final Container container,
+      Vertx vertx,
+      ClassLoader loader,
+      DiskFileSystem sourcePath,
+      Name main,
+      int port,
+      ExecutionMode mode,
+      int workerPoolSize,
+      int workerQueueSize,
+      long formMaxSize,
+      int formMaxParameters,
+      int outputBufferSize) {
+
+    //
+    ThreadPoolExecutor workers;
+    if (mode == ExecutionMode.WORKER) {
+      final AtomicInteger count = new AtomicInteger();
+      workers = new ThreadPoolExecutor(
+          workerPoolSize,
+          workerPoolSize,
+          0L,
+          TimeUnit.MILLISECONDS,
+          new ArrayBlockingQueue<Runnable>(workerQueueSize),
+          new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+              Thread thread = new Thread(r, "juzu-worker-" + count.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+    } else {
+      workers = null;
+    }
 
     //
     this.container = container;
@@ -90,12 +179,13 @@ public class Application {
     this.sourcePath = sourcePath;
     this.main = main;
     this.port = port;
-  }
-
-  public void start() throws Exception {
-
-    //
-    final Logger log = new Logger() {
+    this.mode = mode;
+    this.formMaxSize = formMaxSize;
+    this.formMaxParameters = formMaxParameters;
+    this.outputBufferSize = outputBufferSize;
+    this.workers = workers;
+    this.refreshLock = new ReentrantLock();
+    this.log = new Logger() {
       final org.vertx.java.core.logging.Logger logger = container.getLogger();
 
       @Override
@@ -123,242 +213,369 @@ public class Application {
         logger.info(msg, t);
       }
     };
+  }
 
-    //
-    HttpServer server = vertx.createHttpServer().requestHandler(new Handler<HttpServerRequest>() {
-      juzu.impl.bridge.spi.web.Handler h;
+  public ExecutionMode getMode() {
+    return mode;
+  }
 
-      /** . */
-      Bridge bridge = null;
+  public void start() throws Exception {
+    listen();
+  }
+
+  /**
+   * Create an http server listening on the application port, the server requests are handled on the event loop of
+   * the current verticle instance. Several verticle instances can listen on the same port, they share the
+   * application.
+   *
+   * @return the http server
+   */
+  HttpServer listen() {
+
+    // The event loop of the current verticle instance
+    final Executor loop;
+    if (workers != null) {
+      final Context context = ((VertxInternal)vertx).getContext();
+      loop = new Executor() {
+        public void execute(Runnable command) {
+          context.execute(command);
+        }
+      };
+    } else {
+      loop = null;
+    }
 
+    //
+    return vertx.createHttpServer().requestHandler(new Handler<HttpServerRequest>() {
       public void handle(final HttpServerRequest req) {
-        String contentType = req.headers().get("Content-Type");
-        if (contentType != null && contentType.startsWith("application/x-www-form-urlencoded")) {
-          req.bodyHandler(new Handler<Buffer>() {
+        Charset encoding = FormURLEncodedDecoder.getEncoding(req.headers().get("Content-Type"), Tools.UTF_8);
+        if (encoding != null) {
+          // Decode the form as it is received
+          final FormURLEncodedDecoder decoder = new FormURLEncodedDecoder(
+              encoding,
+              formMaxSize,
+              formMaxParameters,
+              new HashMap<String, RequestParameter>());
+          final boolean[] failed = {false};
+          req.dataHandler(new Handler<Buffer>() {
             public void handle(Buffer buffer) {
-              VertxRequestContext ctx = new VertxRequestContext(req, buffer, log);
-              handle2(ctx);
+              if (!failed[0]) {
+                try {
+                  byte[] bytes = buffer.getBytes();
+                  decoder.decode(bytes, 0, bytes.length);
+                }
+                catch (FormURLEncodedDecoder.LimitException e) {
+                  failed[0] = true;
+                  reject(req, e);
+                }
+              }
+            }
+          });
+          req.endHandler(new Handler<Void>() {
+            public void handle(Void event) {
+              if (!failed[0]) {
+                try {
+                  decoder.end();
+                }
+                catch (FormURLEncodedDecoder.LimitException e) {
+                  reject(req, e);
+                  return;
+                }
+                dispatch(req, decoder.getParameters(), loop);
+              }
             }
           });
         }
         else {
-          VertxRequestContext ctx = new VertxRequestContext(req, null, log);
-          handle2(ctx);
+          dispatch(req, null, loop);
         }
       }
+    }).listen(port);
+  }
 
-      private void handle2(VertxRequestContext ctx) {
-        if (bridge == null) {
-          try {
-
-            //
-            final ResourceResolver r = new ClassLoaderResolver(loader);
-/*
-            Module module = new Module(new ModuleContext() {
-              public ClassLoader getClassLoader() {
-                return loader;
-              }
+  /**
+   * Reject a form exceeding a limit without dispatching the request.
+   */
+  private void reject(HttpServerRequest req, FormURLEncodedDecoder.LimitException e) {
+    log.info("Rejected form post: " + e.getMessage());
+    req.response.statusCode = e.getStatus();
+    req.response.end();
+    req.response.close();
+  }
 
-              public JSON getConfig() throws Exception {
-                ReadFileSystem<String[]> c = lifeCycle.getClasses();
-                Content f = c.getContent(new String[]{"juzu", "config.json"}).getObject();
-                return (JSON)JSON.parse(f.getCharSequence().toString());
-              }
+  private void dispatch(final HttpServerRequest req, final Map<String, RequestParameter> form, final Executor loop) {
+    if (workers == null) {
+      serve(new VertxRequestContext(req, form, outputBufferSize, log));
+    } else {
+      // The context is created on the event loop as it registers the response handlers
+      final VertxRequestContext ctx = new VertxRequestContext(req, form, outputBufferSize, log, loop);
+      try {
+        workers.execute(new Runnable() {
+          public void run() {
+            serve(ctx);
+          }
+        });
+      }
+      catch (RejectedExecutionException e) {
+        // The worker queue is full
+        req.response.statusCode = 503;
+        req.response.end();
+        req.response.close();
+      }
+    }
+  }
 
-              public ResourceResolver getServerResolver() {
-                return r;
-              }
+  private Bridge createBridge() throws Exception {
 
-              public ReadFileSystem<?> getResourcePath() {
-                throw new UnsupportedOperationException("?");
-              }
+    //
+    Map<String, String> cfg = new HashMap<String, String>();
+    cfg.put(BridgeConfig.INJECT, InjectorProvider.GUICE.getValue());
+    cfg.put(BridgeConfig.APP_NAME, main.toString());
+    cfg.put(BridgeConfig.FORM_MAX_SIZE, String.valueOf(formMaxSize));
+    cfg.put(BridgeConfig.FORM_MAX_PARAMETERS, String.valueOf(formMaxParameters));
+    cfg.put(BridgeConfig.OUTPUT_BUFFER_SIZE, String.valueOf(outputBufferSize));
+    BridgeConfig config = new BridgeConfig(log, cfg);
 
-              public ModuleRuntime<?> getLifeCycle() {
-                return lifeCycle;
-              }
+    //
+    BridgeContext context = new BridgeContext() {
 
-              public RunMode getRunMode() {
-                return RunMode.DEV;
-              }
-            });
-*/
+      /** . */
+      final ResourceResolver resolver = new ClassLoaderResolver(loader);
 
-            //
-            Map<String, String> cfg = new HashMap<String, String>();
-            cfg.put(BridgeConfig.INJECT, InjectorProvider.GUICE.getValue());
-            cfg.put(BridgeConfig.APP_NAME, main.toString());
-            BridgeConfig config = new BridgeConfig(log, cfg);
+      /** . */
+      final HashMap<String, Object> attributes = new HashMap<String, Object>();
 
-            //
-            BridgeContext context = new BridgeContext() {
+      public Logger getLogger(String name) {
+        return log;
+      }
 
-              /** . */
-              final ResourceResolver resolver = new ClassLoaderResolver(loader);
+      public ClassLoader getClassLoader() {
+        return loader;
+      }
 
-              /** . */
-              final HashMap<String, Object> attributes = new HashMap<String, Object>();
+      public String getInitParameter(String name) {
+        if ("juzu.run_mode".equals(name)) {
+          return "live";
+        }
+        else {
+          return null;
+        }
+      }
 
-              public Logger getLogger(String name) {
-                return log;
-              }
+      public ResourceResolver getResolver() {
+        return resolver;
+      }
 
-              public ClassLoader getClassLoader() {
-                return loader;
-              }
+      public Object getAttribute(String key) {
+        return attributes.get(key);
+      }
 
-              public String getInitParameter(String name) {
-                if ("juzu.run_mode".equals(name)) {
-                  return "live";
-                }
-                else {
-                  return null;
-                }
-              }
+      public void setAttribute(String key, Object value) {
+        if (value != null) {
+          attributes.put(key, value);
+        }
+        else {
+          attributes.remove(key);
+        }
+      }
 
-              public ResourceResolver getResolver() {
-                return resolver;
-              }
+      public ReadFileSystem<?> getClassPath() {
+        throw new UnsupportedOperationException("Not supported");
+      }
 
-              public Object getAttribute(String key) {
-                return attributes.get(key);
-              }
+      public ReadFileSystem<?> getSourcePath() {
+        return sourcePath;
+      }
 
-              public void setAttribute(String key, Object value) {
-                if (value != null) {
-                  attributes.put(key, value);
-                }
-                else {
-                  attributes.remove(key);
-                }
-              }
+      public ReadFileSystem<?> getResourcePath() {
+        return sourcePath;
+      }
+    };
 
-              public ReadFileSystem<?> getClassPath() {
-                throw new UnsupportedOperationException("Not supported");
-              }
+    //
+    Injector injector = config.injectorProvider.get();
+    injector.bindBean(Vertx.class, null, vertx);
 
-              public ReadFileSystem<?> getSourcePath() {
-                return sourcePath;
-              }
+    //
+    return new ApplicationBridge(
+        context,
+        config,
+        null,
+        new ClassLoaderResolver(loader),
+        injector);
+  }
 
-              public ReadFileSystem<?> getResourcePath() {
-                return sourcePath;
-              }
-            };
-
-            //
-            Injector injector = config.injectorProvider.get();
-            injector.bindBean(Vertx.class, null, vertx);
-
-            //
-            this.bridge = new ApplicationBridge(
-                context,
-                config,
-                null,
-                r,
-                injector);
-          }
-          catch (CompilationException e) {
-            try {
-              ctx.send(e);
-            }
-            catch (IOException ignore) {
-            }
-            return;
-          }
-          catch (Exception e) {
-            try {
-              ctx.send(Response.error(e).result(), true);
-            }
-            catch (IOException ignore) {
-            }
-            return;
-          }
+  /**
+   * Returns the handler to use for the current request, refreshing the application when needed. A single request
+   * refreshes the application at a time, the concurrent requests are served by the current handler until the new
+   * one is started.
+   *
+   * @return the leased handler
+   * @throws Exception any exception
+   */
+  private juzu.impl.bridge.spi.web.Handler acquire() throws Exception {
+    if (handler == null) {
+      refreshLock.lock();
+      try {
+        if (handler == null) {
+          refresh();
         }
+      }
+      finally {
+        refreshLock.unlock();
+      }
+    } else if (refreshLock.tryLock()) {
+      try {
+        refresh();
+      }
+      finally {
+        refreshLock.unlock();
+      }
+    }
+
+    // A retired handler cannot be acquired anymore, we get the handler that replaced it
+    while (true) {
+      juzu.impl.bridge.spi.web.Handler handler = this.handler;
+      if (handler == null) {
+        throw new IllegalStateException("Application stopped");
+      } else if (handler.acquire()) {
+        return handler;
+      }
+    }
+  }
 
-        //
-        try {
-          if (bridge.refresh(true)) {
-            h = null;
-          }
-          if (h == null) {
-            h = new juzu.impl.bridge.spi.web.Handler(bridge);
-          }
+  private void refresh() throws Exception {
+    if (bridge == null) {
+      bridge = createBridge();
+    }
+
+    // Swap the handler, the previous application is stopped once its requests are done
+    Closeable previous = bridge.restart();
+    if (previous != null || handler == null) {
+      juzu.impl.bridge.spi.web.Handler next = new juzu.impl.bridge.spi.web.Handler(bridge);
+      juzu.impl.bridge.spi.web.Handler current = handler;
+      handler = next;
+      if (current != null) {
+        current.retire(previous);
+      } else {
+        Tools.safeClose(previous);
+      }
+    }
+  }
+
+  private void serve(final VertxRequestContext ctx) {
+    final juzu.impl.bridge.spi.web.Handler handler;
+    try {
+      handler = acquire();
+    }
+    catch (CompilationException e) {
+      try {
+        ctx.send(e);
+      }
+      catch (IOException ignore) {
+      }
+      return;
+    }
+    catch (Exception e) {
+      log.error("Could not refresh application", e);
+      try {
+        ctx.send(Response.error(e).result(), true);
+      }
+      catch (IOException ignore) {
+      }
+      return;
+    }
+
+    //
+    try {
+      if (!serveAsset(handler, ctx)) {
+        VertxWebBridge webBridge = new VertxWebBridge(bridge, ctx, Application.this);
+        webBridge.handle(handler);
+      }
+    }
+    finally {
+      // The response may be streamed or ended asynchronously, the handler is released when it ends
+      ctx.onEnd(new Runnable() {
+        public void run() {
+          handler.release();
         }
-        catch (CompilationException e) {
+      });
+    }
+  }
+
+  private boolean serveAsset(juzu.impl.bridge.spi.web.Handler handler, final VertxRequestContext ctx) {
+    final HttpServerResponse response = ctx.req.response;
+    Iterable<ResourceResolver> resolvers = handler.getApplication().resolveBeans(ResourceResolver.class);
+    for (ResourceResolver resolver : resolvers) {
+      URL assetURL = resolver.resolve(ctx.req.path);
+      if (assetURL != null) {
+        if ("file".equals(assetURL.getProtocol())) {
           try {
-            ctx.send(e);
+            final String path = new File(assetURL.toURI()).getAbsolutePath();
+            ctx.runOnLoop(new Runnable() {
+              public void run() {
+                try {
+                  response.sendFile(path);
+                }
+                finally {
+                  ctx.ended();
+                }
+              }
+            });
+            return true;
           }
-          catch (IOException ignore) {
+          catch (URISyntaxException ignore) {
           }
-          return;
         }
-        catch (Exception e) {
-          e.printStackTrace();
-          try {
-            ctx.send(Response.error(e).result(), true);
-          }
-          catch (IOException ignore) {
+
+        // This is really not pretty code but for now it works
+        try {
+          InputStream in = assetURL.openStream();
+          ByteArrayOutputStream baos = new ByteArrayOutputStream();
+          Tools.copy(in, baos);
+          final byte[] bytes = baos.toByteArray();
+          String filename = assetURL.getPath();
+          int li = filename.lastIndexOf('.');
+          final String contentType;
+          if (li != -1 && li != filename.length() - 1) {
+            String ext = filename.substring(li + 1, filename.length());
+            contentType = MimeMapping.getMimeTypeForExtension(ext);
+          } else {
+            contentType = null;
           }
-          return;
-        }
 
-        //
-        boolean served = false;
-        HttpServerResponse response = ctx.req.response;
-        Iterable<ResourceResolver> resolvers = bridge.getApplication().resolveBeans(ResourceResolver.class);
-        for (Iterator<ResourceResolver> i = resolvers.iterator();i.hasNext() && !served;) {
-          ResourceResolver resolver = i.next();
-          URL assetURL = resolver.resolve(ctx.req.path);
-          if (assetURL != null) {
-            served = true;
-            if ("file".equals(assetURL.getProtocol())) {
-              try {
-                response.sendFile(new File(assetURL.toURI()).getAbsolutePath());
-                break;
-              }
-              catch (URISyntaxException ignore) {
-              }
-            }
-            else {
-              // This is really not pretty code but for now it works
-              try {
-                InputStream in = assetURL.openStream();
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                Tools.copy(in, baos);
-                byte[] bytes = baos.toByteArray();
-                String filename = assetURL.getPath();
-                int li = filename.lastIndexOf('.');
-                if (li != -1 && li != filename.length() - 1) {
-                  String ext = filename.substring(li + 1, filename.length());
-                  String contentType = MimeMapping.getMimeTypeForExtension(ext);
-                  if (contentType != null) {
-                    ctx.req.response.headers().put(HttpHeaders.Names.CONTENT_TYPE, contentType);
-                  }
-                }
-                ctx.req.response.headers().put(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(bytes.length));
-                ctx.req.response.writeBuffer(new Buffer(bytes));
-                ctx.req.response.end();
-              }
-              catch (IOException e) {
-                e.printStackTrace();
-              }
-              finally {
-                ctx.req.response.close();
+          // The response is only modified on the event loop
+          ctx.runOnLoop(new Runnable() {
+            public void run() {
+              if (contentType != null) {
+                response.headers().put(HttpHeaders.Names.CONTENT_TYPE, contentType);
               }
+              response.headers().put(HttpHeaders.Names.CONTENT_LENGTH, String.valueOf(bytes.length));
+              response.writeBuffer(new Buffer(bytes));
             }
-          }
+          });
         }
-
-        // Send 404 code
-        if (!served) {
-          VertxWebBridge webBridge = new VertxWebBridge(bridge, ctx, Application.this);
-          webBridge.handle(h);
+        catch (IOException e) {
+          log.error("Could not serve asset " + assetURL, e);
         }
+        finally {
+          ctx.end();
+        }
+        return true;
       }
-    }).listen(port);
+    }
+    return false;
   }
 
   public void stop() throws Exception {
-//    lifeCycle = null;
+    if (workers != null) {
+      workers.shutdown();
+    }
+    juzu.impl.bridge.spi.web.Handler handler = this.handler;
+    if (handler != null) {
+      this.handler = null;
+      Tools.safeClose(handler);
+    }
+    Tools.safeClose(bridge);
   }
 }
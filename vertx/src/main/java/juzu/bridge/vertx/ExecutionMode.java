@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2012 eXo Platform SAS.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package juzu.bridge.vertx;
+
+/**
+ * The execution mode determines the thread executing the controllers of a request.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
+public enum ExecutionMode {
+
+  /**
+   * The request is executed on the event loop thread.
+   */
+  LOOP,
+
+  /**
+   * The request is executed by the worker pool, the response is written from the event loop thread.
+   */
+  WORKER;
+
+  /** . */
+  private static final ExecutionMode[] ALL = values();
+
+  /**
+   * Parse the execution mode
+   *
+   * @param s the string to parse
+   * @return the corresponding execution mode or null if none can be matched
+   * @throws NullPointerException if the string argument is null
+   */
+  public static ExecutionMode parse(String s) throws NullPointerException {
+    if (s == null) {
+      throw new NullPointerException("No null string argument accepted");
+    }
+    for (ExecutionMode mode : ALL) {
+      if (mode.name().equalsIgnoreCase(s)) {
+        return mode;
+      }
+    }
+    return null;
+  }
+}
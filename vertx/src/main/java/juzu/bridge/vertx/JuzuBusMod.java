@@ -18,22 +18,37 @@
  */
 package juzu.bridge.vertx;
 
+import juzu.impl.bridge.BridgeConfig;
+import juzu.impl.common.FormURLEncodedDecoder;
 import juzu.impl.common.Name;
 import juzu.impl.fs.spi.disk.DiskFileSystem;
 import org.vertx.java.busmods.BusModBase;
+import org.vertx.java.core.http.HttpServer;
 import org.vertx.java.core.json.JsonObject;
 
 import java.io.File;
 import java.lang.reflect.UndeclaredThrowableException;
 import java.net.URL;
+import java.util.HashMap;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
 public class JuzuBusMod extends BusModBase {
 
+  /** The applications shared by the instances of the module, keyed by port. */
+  private static final HashMap<Integer, Application> applications = new HashMap<Integer, Application>();
+
+  /** The configuration of the applications, keyed by port. */
+  private static final HashMap<Integer, JsonObject> configs = new HashMap<Integer, JsonObject>();
+
+  /** The number of instances using an application. */
+  private static final HashMap<Application, Integer> instances = new HashMap<Application, Integer>();
 
   /** . */
   private Application application;
 
+  /** . */
+  private HttpServer server;
+
   @Override
   public void start() {
     try {
@@ -60,6 +75,48 @@ public class JuzuBusMod extends BusModBase {
       port = 8080;
     }
 
+    //
+    String executionValue = config.getString("execution");
+    ExecutionMode execution;
+    if (executionValue != null) {
+      execution = ExecutionMode.parse(executionValue);
+      if (execution == null) {
+        throw new Exception("Unparseable execution mode " + executionValue);
+      }
+    } else {
+      execution = ExecutionMode.WORKER;
+    }
+
+    //
+    Integer workers = config.getInteger("workers");
+    if (workers == null) {
+      workers = Runtime.getRuntime().availableProcessors() * 2;
+    }
+
+    //
+    Integer queueSize = config.getInteger("worker_queue_size");
+    if (queueSize == null) {
+      queueSize = 1024;
+    }
+
+    // The form limits, a negative value means no limit
+    Long formMaxSize = config.getLong("form_max_size");
+    if (formMaxSize == null) {
+      formMaxSize = FormURLEncodedDecoder.DEFAULT_MAX_SIZE;
+    }
+
+    //
+    Integer formMaxParameters = config.getInteger("form_max_parameters");
+    if (formMaxParameters == null) {
+      formMaxParameters = FormURLEncodedDecoder.DEFAULT_MAX_PARAMETERS;
+    }
+
+    //
+    Integer outputBufferSize = config.getInteger("output_buffer_size");
+    if (outputBufferSize == null) {
+      outputBufferSize = BridgeConfig.DEFAULT_OUTPUT_BUFFER_SIZE;
+    }
+
     //
     Name mainName = Name.parse(main);
     Name infoName = mainName.append("package-info");
@@ -76,15 +133,60 @@ public class JuzuBusMod extends BusModBase {
     }
     DiskFileSystem sourcePath = new DiskFileSystem(root);
 
-    //
-    application = new Application(container, vertx, loader, sourcePath, mainName, port);
-    application.start();
+    // The instances deployed on the same port share the application, each instance listens on its own event loop
+    synchronized (applications) {
+      Application application = applications.get(port);
+      if (application == null) {
+        application = new Application(
+            container,
+            vertx,
+            loader,
+            sourcePath,
+            mainName,
+            port,
+            execution,
+            workers,
+            queueSize,
+            formMaxSize,
+            formMaxParameters,
+            outputBufferSize);
+        applications.put(port, application);
+        configs.put(port, config.copy());
+        instances.put(application, 1);
+      } else if (!configs.get(port).equals(config)) {
+        throw new Exception("Port " + port + " is already used by an application with a different configuration");
+      } else {
+        instances.put(application, instances.get(application) + 1);
+      }
+      this.application = application;
+    }
+    server = application.listen();
   }
 
   @Override
   public void stop() throws Exception {
+    if (server != null) {
+      server.close();
+      server = null;
+    }
     if (application != null) {
-      application.stop();
+      boolean last;
+      synchronized (applications) {
+        int count = instances.get(application) - 1;
+        if (count == 0) {
+          applications.remove(application.port);
+          configs.remove(application.port);
+          instances.remove(application);
+          last = true;
+        } else {
+          instances.put(application, count);
+          last = false;
+        }
+      }
+      if (last) {
+        application.stop();
+      }
+      application = null;
     }
   }
 }
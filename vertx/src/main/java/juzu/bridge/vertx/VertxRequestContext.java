@@ -28,7 +28,7 @@ import juzu.impl.common.Tools;
 import juzu.impl.inject.Scoped;
 import juzu.io.Stream;
 import juzu.request.RequestParameter;
-import org.vertx.java.core.buffer.Buffer;
+import org.vertx.java.core.Handler;
 import org.vertx.java.core.http.HttpServerRequest;
 
 import javax.xml.bind.DatatypeConverter;
@@ -43,15 +43,22 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /** @author Julien Viet */
 public class VertxRequestContext extends WebRequestContext {
 
+  /** Marks an ended response. */
+  private static final Runnable ENDED = new Runnable() {
+    public void run() {
+    }
+  };
+
   /** . */
   private static final Pattern cookiePattern = Pattern.compile("([^=]+)=([^\\;]*);?\\s?");
 
@@ -67,8 +74,8 @@ public class VertxRequestContext extends WebRequestContext {
   /** . */
   private final String query;
 
-  /** . */
-  private Buffer buffer;
+  /** The decoded form parameters or null. */
+  private final Map<String, RequestParameter> form;
 
   /** . */
   final Method method;
@@ -82,7 +89,23 @@ public class VertxRequestContext extends WebRequestContext {
   /** . */
   CookieScopeContext[] cookieScopes;
 
-  public VertxRequestContext(HttpServerRequest req, Buffer buffer, Logger log) {
+  /** The event loop executor or null when the request is executed on the event loop. */
+  final Executor loop;
+
+  /** The task to run when the response ends, see {@link #onEnd(Runnable)}. */
+  private final AtomicReference<Runnable> endTask;
+
+  /** The size of the buffer coalescing the response output. */
+  private final int outputBufferSize;
+
+  /** . */
+  private volatile VertxStream stream;
+
+  public VertxRequestContext(HttpServerRequest req, Map<String, RequestParameter> form, int outputBufferSize, Logger log) {
+    this(req, form, outputBufferSize, log, null);
+  }
+
+  public VertxRequestContext(HttpServerRequest req, Map<String, RequestParameter> form, int outputBufferSize, Logger log, Executor loop) {
 
     // Compute path/query from URI - we cannot use provided request path/query as it is already decoded
     String uri = req.uri;
@@ -104,8 +127,22 @@ public class VertxRequestContext extends WebRequestContext {
     this.query = query;
     this.req = req;
     this.parameters = null;
-    this.buffer = buffer;
+    this.form = form;
     this.log = log;
+    this.loop = loop;
+    this.outputBufferSize = outputBufferSize;
+    this.endTask = new AtomicReference<Runnable>();
+
+    // The response ends when the connection is closed
+    req.response.closeHandler(new Handler<Void>() {
+      public void handle(Void event) {
+        VertxStream stream = VertxRequestContext.this.stream;
+        if (stream != null) {
+          stream.closed();
+        }
+        ended();
+      }
+    });
 
     // Parse cookies
     String cookies = req.headers().get("cookie");
@@ -172,12 +209,15 @@ public class VertxRequestContext extends WebRequestContext {
       if (query != null) {
         parameters = Lexers.parseQuery(query);
       } else {
-        parameters = buffer != null ? new HashMap<String, RequestParameter>() : Collections.<String, RequestParameter>emptyMap();
+        parameters = Collections.emptyMap();
       }
-      if (buffer != null) {
-        for (Iterator<RequestParameter> i = Lexers.queryParser(buffer.toString());i.hasNext();) {
-          RequestParameter parameter = i.next();
-          parameter.appendTo(parameters);
+      if (form != null && form.size() > 0) {
+        if (parameters.isEmpty()) {
+          parameters = form;
+        } else {
+          for (RequestParameter parameter : form.values()) {
+            parameter.appendTo(parameters);
+          }
         }
       }
     }
@@ -214,20 +254,32 @@ public class VertxRequestContext extends WebRequestContext {
   }
 
   public void setContentType(String mimeType, Charset charset) {
-    req.response.headers().put("Content-Type", "text/html; charset=UTF-8");
+    runOnLoop(new Runnable() {
+      public void run() {
+        req.response.headers().put("Content-Type", "text/html; charset=UTF-8");
+      }
+    });
   }
 
-  public void setStatus(int status) {
-    req.response.statusCode = status;
+  public void setStatus(final int status) {
+    runOnLoop(new Runnable() {
+      public void run() {
+        req.response.statusCode = status;
+      }
+    });
   }
 
   @Override
   public void setHeaders(Iterable<Map.Entry<String, String[]>> headers) {
-    LinkedList<String> cookies = new LinkedList<String>();
+    final LinkedList<String> cookies = new LinkedList<String>();
     setHeaders("flash", cookieScopes[CookieScopeContext.FLASH], cookies);
     setHeaders("session", cookieScopes[CookieScopeContext.SESSION], cookies);
     if (cookies.size() > 0) {
-      req.response.putHeader("Set-Cookie", cookies);
+      runOnLoop(new Runnable() {
+        public void run() {
+          req.response.putHeader("Set-Cookie", cookies);
+        }
+      });
     }
   }
 
@@ -266,7 +318,7 @@ public class VertxRequestContext extends WebRequestContext {
     }
   }
 
-  public void sendRedirect(String location) throws IOException {
+  public void sendRedirect(final String location) throws IOException {
     switch (method) {
       case GET:
       case HEAD:
@@ -276,9 +328,61 @@ public class VertxRequestContext extends WebRequestContext {
         setStatus(303);
         break;
     }
-    req.response.headers().put("Location", location);
-    req.response.end();
-    req.response.close();
+    runOnLoop(new Runnable() {
+      public void run() {
+        req.response.headers().put("Location", location);
+      }
+    });
+    end();
+  }
+
+  /**
+   * End the response on the event loop.
+   */
+  void end() {
+    runOnLoop(new Runnable() {
+      public void run() {
+        try {
+          req.response.end();
+          req.response.close();
+        }
+        finally {
+          ended();
+        }
+      }
+    });
+  }
+
+  /**
+   * Run a task when the response ends, the task is run immediately when the response has already ended.
+   *
+   * @param task the task
+   */
+  void onEnd(Runnable task) {
+    if (!endTask.compareAndSet(null, task)) {
+      task.run();
+    }
+  }
+
+  /**
+   * Signals the response ended, the end task is run once.
+   */
+  void ended() {
+    Runnable task = endTask.getAndSet(ENDED);
+    if (task != null && task != ENDED) {
+      task.run();
+    }
+  }
+
+  /**
+   * Run the task on the event loop of the request.
+   */
+  void runOnLoop(Runnable task) {
+    if (loop == null) {
+      task.run();
+    } else {
+      loop.execute(task);
+    }
   }
 
   @Override
@@ -286,9 +390,6 @@ public class VertxRequestContext extends WebRequestContext {
     if (writer == null) {
       writer = new HttpStream(this, status, Tools.UTF_8) {
 
-        /** . */
-        private VertxStream stream;
-
         @Override
         public void setStatusCode(int status) {
           VertxRequestContext.this.setStatus(status);
@@ -297,15 +398,14 @@ public class VertxRequestContext extends WebRequestContext {
         @Override
         protected Stream getDataStream(boolean create) {
           if (stream == null && create) {
-            stream = new VertxStream(encoding, req.response);
+            stream = new VertxStream(encoding, req.response, outputBufferSize, loop);
           }
           return stream;
         }
 
         @Override
         protected void endAsync() {
-          req.response.end();
-          req.response.close();
+          VertxRequestContext.this.end();
         }
 
         @Override
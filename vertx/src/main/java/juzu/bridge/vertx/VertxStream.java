@@ -16,42 +16,120 @@
 
 package juzu.bridge.vertx;
 
+import juzu.impl.bridge.BridgeConfig;
 import juzu.impl.io.BinaryStream;
 import org.jboss.netty.buffer.ChannelBuffers;
+import org.vertx.java.core.Handler;
 import org.vertx.java.core.buffer.Buffer;
 import org.vertx.java.core.http.HttpServerResponse;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.charset.Charset;
+import java.util.concurrent.Executor;
 
-/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+/**
+ * A stream writing to an http server response. When the stream is used from a worker thread, the writes are
+ * executed on the event loop of the response and the worker is blocked while the writes queued on the event loop
+ * are pending or while the write queue of the response is full. The response is ended by the request context.
+ *
+ * @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a>
+ */
 public class VertxStream extends BinaryStream {
 
   /** . */
   private final HttpServerResponse resp;
 
+  /** The maximum number of writes queued on the event loop and not yet executed. */
+  private static final int MAX_PENDING_WRITES = 4;
+
+  /** The event loop executor or null when the stream is used from the event loop. */
+  private final Executor loop;
+
+  /** Guards the write queue state. */
+  private final Object lock = new Object();
+
+  /** The number of writes queued on the event loop and not yet executed. */
+  private int pending;
+
+  /** . */
+  private boolean full;
+
+  /** . */
+  private boolean closed;
+
   public VertxStream(Charset charset, HttpServerResponse resp) {
-    super(charset);
+    this(charset, resp, BridgeConfig.DEFAULT_OUTPUT_BUFFER_SIZE, null);
+  }
+
+  public VertxStream(Charset charset, HttpServerResponse resp, int bufferSize, Executor loop) {
+    super(charset, bufferSize, true);
 
     //
     resp.setChunked(true);
 
     //
     this.resp = resp;
+    this.loop = loop;
   }
 
-  @Override
-  public void append(byte[] data, int off, int len) throws IOException {
-    resp.write(new Buffer(ChannelBuffers.wrappedBuffer(data, off, len)));
+  /**
+   * Signals the response was closed, the blocked writer is released.
+   */
+  void closed() {
+    synchronized (lock) {
+      closed = true;
+      lock.notifyAll();
+    }
   }
 
   @Override
-  public void append(byte[] data) throws IOException {
-    resp.write(new Buffer(ChannelBuffers.wrappedBuffer(data)));
+  protected void write(byte[] data, int off, int len) throws IOException {
+    // The buffer is reused, so the bytes are copied
+    final Buffer buffer = new Buffer(ChannelBuffers.copiedBuffer(data, off, len));
+    if (loop == null) {
+      resp.write(buffer);
+    } else {
+      synchronized (lock) {
+        while ((full || pending >= MAX_PENDING_WRITES) && !closed) {
+          try {
+            lock.wait();
+          }
+          catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+          }
+        }
+        if (closed) {
+          throw new IOException("Response closed");
+        }
+        pending++;
+      }
+      loop.execute(new Runnable() {
+        public void run() {
+          resp.write(buffer);
+          boolean queueFull = resp.writeQueueFull();
+          synchronized (lock) {
+            pending--;
+            full = queueFull;
+            lock.notifyAll();
+          }
+          if (queueFull) {
+            resp.drainHandler(new Handler<Void>() {
+              public void handle(Void event) {
+                synchronized (lock) {
+                  full = false;
+                  lock.notifyAll();
+                }
+              }
+            });
+          }
+        }
+      });
+    }
   }
 
-  public void close() {
-    resp.end();
-    resp.close();
+  public void close() throws IOException {
+    flushBuffer();
   }
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.bridge.vertx;
+
+import junit.framework.Assert;
+import juzu.impl.common.Tools;
+import org.junit.Test;
+import org.vertx.java.test.TestModule;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+@TestModule(
+    name = "juzu-v1.0",
+    jsonConfig = "{ \"main\":\"stream\"}")
+public class StreamTestCase extends VertxTestCase {
+
+  /** . */
+  public static final CountDownLatch latch = new CountDownLatch(1);
+
+  /** . */
+  public static volatile boolean released;
+
+  @Test
+  public void testChunkBeforeClose() throws Exception {
+    URL url = new URL("http://localhost:8080/");
+    HttpURLConnection conn = (HttpURLConnection)url.openConnection();
+    conn.connect();
+    Assert.assertEquals(200, conn.getResponseCode());
+    InputStream in = conn.getInputStream();
+    StringBuilder buffer = new StringBuilder();
+    while (buffer.indexOf("first") == -1) {
+      int b = in.read();
+      Assert.assertTrue(b != -1);
+      buffer.append((char)b);
+    }
+    latch.countDown();
+    Assert.assertTrue(Tools.read(in).contains("second"));
+    Assert.assertTrue(released);
+  }
+}
@@ -18,9 +18,14 @@ package juzu.bridge.vertx;
 
 import com.jayway.restassured.http.ContentType;
 import junit.framework.Assert;
+import juzu.impl.common.Tools;
 import org.junit.Test;
 import org.vertx.java.test.TestModule;
 
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
 import static com.jayway.restassured.RestAssured.expect;
 
 /** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
@@ -37,4 +42,18 @@ public class ViewFormParamTestCase extends VertxTestCase {
     expect().statusCode(200).given().contentType(ContentType.URLENC).body("param=foo").when().post("http://localhost:8080/view");
     Assert.assertEquals("foo", view);
   }
+
+  @Test
+  public void testBogusCharset() throws Exception {
+    view = null;
+    HttpURLConnection conn = (HttpURLConnection)new URL("http://localhost:8080/view").openConnection();
+    conn.setRequestMethod("POST");
+    conn.setRequestProperty("Content-Type", "application/x-www-form-urlencoded; charset=bogus");
+    conn.setDoOutput(true);
+    OutputStream out = conn.getOutputStream();
+    out.write("param=foo".getBytes(Tools.UTF_8));
+    out.close();
+    Assert.assertEquals(200, conn.getResponseCode());
+    Assert.assertEquals("foo", view);
+  }
 }
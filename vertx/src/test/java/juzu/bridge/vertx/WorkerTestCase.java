@@ -0,0 +1,126 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package juzu.bridge.vertx;
+
+import junit.framework.Assert;
+import juzu.impl.common.Tools;
+import org.junit.Test;
+import org.vertx.java.test.TestModule;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/** @author <a href="mailto:julien.viet@exoplatform.com">Julien Viet</a> */
+@TestModule(
+    name = "juzu-v1.0",
+    jsonConfig = "{ \"main\":\"worker\", \"workers\":1, \"worker_queue_size\":1}")
+public class WorkerTestCase extends VertxTestCase {
+
+  /** . */
+  public static final CountDownLatch entered = new CountDownLatch(1);
+
+  /** . */
+  public static final CountDownLatch resume = new CountDownLatch(1);
+
+  /** . */
+  public static final CountDownLatch released = new CountDownLatch(1);
+
+  @Test
+  public void testDispatch() throws Exception {
+    Assert.assertTrue(get("/thread").contains("juzu-worker-1"));
+  }
+
+  @Test
+  public void testQueueFull() throws Exception {
+    Assert.assertTrue(get("/thread").contains("juzu-worker-1"));
+
+    // The worker is busy and the next request fills the queue
+    Request slow = new Request("/slow");
+    slow.start();
+    Assert.assertTrue(entered.await(10, TimeUnit.SECONDS));
+    Request queued = new Request("/thread");
+    queued.start();
+    Thread.sleep(500);
+
+    //
+    HttpURLConnection conn = (HttpURLConnection)new URL("http://localhost:8080/thread").openConnection();
+    Assert.assertEquals(503, conn.getResponseCode());
+
+    //
+    resume.countDown();
+    slow.join(10000);
+    queued.join(10000);
+    Assert.assertTrue(slow.result.contains("slow"));
+    Assert.assertTrue(queued.result.contains("juzu-worker-1"));
+  }
+
+  @Test
+  public void testReleaseOnClose() throws Exception {
+    Assert.assertTrue(get("/thread").contains("juzu-worker-1"));
+
+    // The client stops reading, the worker blocks on the full write queue until the connection is closed
+    Socket socket = new Socket("localhost", 8080);
+    OutputStream out = socket.getOutputStream();
+    out.write("GET /large HTTP/1.1\r\nHost: localhost:8080\r\n\r\n".getBytes(Tools.UTF_8));
+    out.flush();
+    InputStream in = socket.getInputStream();
+    byte[] bytes = new byte[1024];
+    Assert.assertTrue(in.read(bytes) > 0);
+    Thread.sleep(500);
+    Assert.assertEquals(1, released.getCount());
+    socket.close();
+    Assert.assertTrue(released.await(10, TimeUnit.SECONDS));
+
+    // The worker serves again
+    Assert.assertTrue(get("/thread").contains("juzu-worker-1"));
+  }
+
+  private static String get(String path) throws Exception {
+    HttpURLConnection conn = (HttpURLConnection)new URL("http://localhost:8080" + path).openConnection();
+    conn.setReadTimeout(10000);
+    Assert.assertEquals(200, conn.getResponseCode());
+    return Tools.read(conn.getInputStream());
+  }
+
+  private static class Request extends Thread {
+
+    /** . */
+    private final String path;
+
+    /** . */
+    private volatile String result;
+
+    private Request(String path) {
+      this.path = path;
+    }
+
+    @Override
+    public void run() {
+      try {
+        result = get(path);
+      }
+      catch (Exception e) {
+        e.printStackTrace();
+      }
+    }
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright 2013 eXo Platform SAS
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worker;
+
+import juzu.Response;
+import juzu.Route;
+import juzu.View;
+import juzu.bridge.vertx.WorkerTestCase;
+import juzu.io.Chunk;
+import juzu.io.Stream;
+import juzu.io.Streamable;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+public class A {
+
+  @View
+  @Route("/thread")
+  public Response.Content thread() {
+    return Response.ok(Thread.currentThread().getName());
+  }
+
+  @View
+  @Route("/slow")
+  public Response.Content slow() throws Exception {
+    WorkerTestCase.entered.countDown();
+    WorkerTestCase.resume.await(10, TimeUnit.SECONDS);
+    return Response.ok("slow");
+  }
+
+  @View
+  @Route("/large")
+  public Response.Content large() {
+    char[] chars = new char[8192];
+    Arrays.fill(chars, 'a');
+    final String data = new String(chars);
+    return Response.content(200, new Streamable() {
+      public void send(Stream stream) throws IllegalStateException {
+        try {
+          for (int i = 0;i < 4096;i++) {
+            stream.provide(Chunk.create(data));
+          }
+        }
+        finally {
+          WorkerTestCase.released.countDown();
+          stream.close(null);
+        }
+      }
+    });
+  }
+}